@@ -36,6 +36,7 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 
+import org.eclipse.jdt.internal.junit.launcher.TestIndex;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
 
 /**
@@ -79,6 +80,8 @@ public class JUnitCorePlugin extends Plugin {
 
 	private final JUnitModel fJUnitModel= new JUnitModel();
 
+	private final TestIndex fTestIndex= new TestIndex();
+
 
 	/**
 	 * List storing the registered test run listeners
@@ -126,6 +129,7 @@ public class JUnitCorePlugin extends Plugin {
 		super.start(context);
 		fBundleContext= context;
 		fJUnitModel.start();
+		fTestIndex.start();
 	}
 
 	/**
@@ -137,6 +141,7 @@ public class JUnitCorePlugin extends Plugin {
 		try {
 			InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).flush();
 			fJUnitModel.stop();
+			fTestIndex.stop();
 		} finally {
 			super.stop(context);
 		}
@@ -161,6 +166,10 @@ public class JUnitCorePlugin extends Plugin {
 		return getDefault().fJUnitModel;
 	}
 
+	public static TestIndex getTestIndex() {
+		return getDefault().fTestIndex;
+	}
+
 	/**
 	 * Initializes TestRun Listener extensions
 	 * @deprecated to avoid deprecation warning
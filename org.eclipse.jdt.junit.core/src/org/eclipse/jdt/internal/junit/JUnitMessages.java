@@ -43,6 +43,8 @@ public final class JUnitMessages extends NLS {
 
 	public static String JUnitLaunchConfigurationDelegate_error_notests_kind;
 
+	public static String JUnitLaunchConfigurationDelegate_error_no_impacted_tests;
+
 	public static String JUnitLaunchConfigurationDelegate_error_wrong_input;
 
 	public static String JUnitLaunchConfigurationDelegate_input_type_does_not_exist;
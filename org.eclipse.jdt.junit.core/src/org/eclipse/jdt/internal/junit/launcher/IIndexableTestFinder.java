@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
+
+/**
+ * A test finder whose results are cached in the {@link TestIndex}.
+ */
+public interface IIndexableTestFinder extends ITestFinder {
+
+	/**
+	 * Searches for tests without consulting the {@link TestIndex}. The index is built with this
+	 * method and updated with {@link #isTest(IType)}, so both must agree.
+	 *
+	 * @param element element to search for tests
+	 * @param result a Set to add ITypes
+	 * @param pm the progress monitor
+	 * @throws CoreException thrown when tests can not be found
+	 */
+	public abstract void searchTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException;
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+/**
+ * Selects the tests that are affected by the compilation units changed since a given time.
+ * <p>
+ * A test is affected if its compilation unit changed, or if it references a type of an affected
+ * compilation unit. The affected compilation units are computed with one reference search per
+ * level of the reverse dependency graph. Tests in class files and changes to non-Java
+ * resources are not tracked, so binary tests are always selected.
+ * </p>
+ */
+public class ImpactedTestFinder {
+
+	private static final int SEARCH_BATCH_SIZE= 200;
+
+	private final IJavaProject fProject;
+	private final Set<ICompilationUnit> fImpacted= new HashSet<>();
+
+	/**
+	 * @param project the project the tests are launched in
+	 */
+	public ImpactedTestFinder(IJavaProject project) {
+		fProject= project;
+	}
+
+	/**
+	 * Selects the tests affected by changes since the given time.
+	 *
+	 * @param tests the tests, types or methods
+	 * @param since the time in milliseconds, as returned by {@link TestRunHistory#getLastGreenRunTime()}
+	 * @param monitor the progress monitor
+	 * @return the affected tests
+	 * @throws CoreException if the search fails
+	 */
+	public IMember[] findImpactedTests(IMember[] tests, long since, IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask("", 10); //$NON-NLS-1$
+			List<IType> changed= findChangedTypes(since, new SubProgressMonitor(monitor, 2));
+			addReferencingUnits(changed, new SubProgressMonitor(monitor, 8));
+
+			List<IMember> result= new ArrayList<>();
+			for (int i= 0; i < tests.length; i++) {
+				ICompilationUnit cu= tests[i].getCompilationUnit();
+				if (cu == null || fImpacted.contains(cu))
+					result.add(tests[i]);
+			}
+			return result.toArray(new IMember[result.size()]);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private List<IType> findChangedTypes(long since, IProgressMonitor monitor) throws CoreException {
+		List<IType> changed= new ArrayList<>();
+		// includes the source folders of required projects
+		IPackageFragmentRoot[] roots= fProject.getAllPackageFragmentRoots();
+		monitor.beginTask("", roots.length); //$NON-NLS-1$
+		try {
+			for (int i= 0; i < roots.length; i++) {
+				if (roots[i].getKind() != IPackageFragmentRoot.K_SOURCE) {
+					monitor.worked(1);
+					continue;
+				}
+				IJavaElement[] fragments= roots[i].getChildren();
+				for (int j= 0; j < fragments.length; j++) {
+					ICompilationUnit[] units= ((IPackageFragment) fragments[j]).getCompilationUnits();
+					for (int k= 0; k < units.length; k++) {
+						IResource resource= units[k].getResource();
+						if (resource != null && resource.getLocalTimeStamp() > since && fImpacted.add(units[k]))
+							addTypes(units[k], changed);
+					}
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+		return changed;
+	}
+
+	private void addReferencingUnits(List<IType> changed, IProgressMonitor monitor) throws CoreException {
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fProject }, IJavaSearchScope.SOURCES | IJavaSearchScope.REFERENCED_PROJECTS);
+		SearchEngine engine= new SearchEngine();
+		monitor.beginTask("", IProgressMonitor.UNKNOWN); //$NON-NLS-1$
+		try {
+			List<IType> level= changed;
+			while (! level.isEmpty()) {
+				final List<IType> next= new ArrayList<>();
+				SearchRequestor requestor= new SearchRequestor() {
+					@Override
+					public void acceptSearchMatch(SearchMatch match) throws CoreException {
+						Object element= match.getElement();
+						if (! (element instanceof IJavaElement))
+							return;
+						ICompilationUnit cu= (ICompilationUnit) ((IJavaElement) element).getAncestor(IJavaElement.COMPILATION_UNIT);
+						if (cu != null && fImpacted.add(cu))
+							addTypes(cu, next);
+					}
+				};
+				// or-patterns are copied on every combination, so keep them small
+				for (int start= 0; start < level.size(); start+= SEARCH_BATCH_SIZE) {
+					SearchPattern pattern= null;
+					for (IType type : level.subList(start, Math.min(start + SEARCH_BATCH_SIZE, level.size()))) {
+						SearchPattern typePattern= SearchPattern.createPattern(type, IJavaSearchConstants.REFERENCES);
+						pattern= pattern == null ? typePattern : SearchPattern.createOrPattern(pattern, typePattern);
+					}
+					engine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, scope, requestor, new SubProgressMonitor(monitor, 1));
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+				}
+				level= next;
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private static void addTypes(ICompilationUnit cu, List<IType> types) throws CoreException {
+		IType[] allTypes= cu.getAllTypes();
+		for (int i= 0; i < allTypes.length; i++)
+			types.add(allTypes[i]);
+	}
+}
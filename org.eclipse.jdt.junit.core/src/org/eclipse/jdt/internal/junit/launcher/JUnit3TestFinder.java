@@ -32,7 +32,7 @@ import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 
-public class JUnit3TestFinder implements ITestFinder {
+public class JUnit3TestFinder implements IIndexableTestFinder {
 
 	@Override
 	public void findTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
@@ -40,6 +40,15 @@ public class JUnit3TestFinder implements ITestFinder {
 			throw new IllegalArgumentException();
 		}
 
+		if (TestIndex.isIndexable(element)) {
+			JUnitCorePlugin.getTestIndex().findTestsInContainer(this, element, result, pm);
+			return;
+		}
+		searchTestsInContainer(element, result, pm);
+	}
+
+	@Override
+	public void searchTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
 		if (pm == null)
 			pm= new NullProgressMonitor();
 
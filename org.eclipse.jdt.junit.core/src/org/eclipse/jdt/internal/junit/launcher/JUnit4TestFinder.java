@@ -54,7 +54,7 @@ import org.eclipse.jdt.internal.junit.JUnitMessages;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 
 
-public class JUnit4TestFinder implements ITestFinder {
+public class JUnit4TestFinder implements IIndexableTestFinder {
 
 	private static class Annotation {
 
@@ -112,6 +112,15 @@ public class JUnit4TestFinder implements ITestFinder {
 			throw new IllegalArgumentException();
 		}
 
+		if (TestIndex.isIndexable(element)) {
+			JUnitCorePlugin.getTestIndex().findTestsInContainer(this, element, result, pm);
+			return;
+		}
+		searchTestsInContainer(element, result, pm);
+	}
+
+	@Override
+	public void searchTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
 		if (element instanceof IType) {
 			if (internalIsTest((IType) element, pm)) {
 				result.add((IType) element);
@@ -39,6 +39,12 @@ public class JUnitLaunchConfigurationConstants {
 
 	public static final String ATTR_PORT= JUnitCorePlugin.PLUGIN_ID+".PORT"; //$NON-NLS-1$
 
+	/**
+	 * Launch attribute: comma-separated ports of the runner VMs of a sharded launch. The first
+	 * port is also stored as {@link #ATTR_PORT}.
+	 */
+	public static final String ATTR_SHARD_PORTS= JUnitCorePlugin.PLUGIN_ID+".SHARD_PORTS"; //$NON-NLS-1$
+
 	/**
 	 * The test name, or "" iff running the whole test type.
 	 */
@@ -59,6 +65,26 @@ public class JUnitLaunchConfigurationConstants {
 
 	public static final String ATTR_TEST_RUNNER_KIND= JUnitCorePlugin.PLUGIN_ID+".TEST_KIND"; //$NON-NLS-1$
 
+	/**
+	 * Number of runner VMs the test classes are distributed to, 1 to run all tests in one VM.
+	 * Value: int
+	 */
+	public static final String ATTR_SHARD_COUNT= JUnitCorePlugin.PLUGIN_ID+".SHARD_COUNT"; //$NON-NLS-1$
+
+	/**
+	 * Whether tests are ordered by their failure probability and duration in previous runs of
+	 * the configuration. Failures of the last run still come first, see {@link #ATTR_FAILURES_NAMES}.
+	 * Value: boolean
+	 */
+	public static final String ATTR_PRIORITIZE_BY_HISTORY= JUnitCorePlugin.PLUGIN_ID+".PRIORITIZE_BY_HISTORY"; //$NON-NLS-1$
+
+	/**
+	 * Whether only the tests affected by the compilation units changed since the last run of the
+	 * configuration without failures are run.
+	 * Value: boolean
+	 */
+	public static final String ATTR_RUN_IMPACTED_TESTS= JUnitCorePlugin.PLUGIN_ID+".RUN_IMPACTED_TESTS"; //$NON-NLS-1$
+
 	public static ITestKind getTestRunnerKind(ILaunchConfiguration launchConfiguration) {
 		try {
 			String loaderId = launchConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, (String) null);
@@ -0,0 +1,591 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.PerformanceStats;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.JUnitMessages;
+
+/**
+ * Per-project cache of the tests found by an {@link IIndexableTestFinder}.
+ * <p>
+ * The index of a project is built with a full search the first time tests are searched in the
+ * project. Afterwards, it is maintained from Java element deltas: changed compilation units are
+ * marked dirty, and on the next search their types and the subtypes of their types are checked
+ * again with {@link ITestFinder#isTest(IType)}. Removed compilation units, classpath changes and
+ * changes of more than {@value #MAX_DIRTY_UNITS} compilation units fall back to a full search.
+ * </p>
+ * <p>
+ * Indexes are saved when the plug-in stops. A saved index is only used if the resolved classpath
+ * of the project did not change, and compilation units whose modification stamp changed are
+ * checked again. Changes in required projects while the workbench was not running are not
+ * detected.
+ * </p>
+ * <p>
+ * Only projects and source folders without class folders on the classpath are indexed; other
+ * containers are always searched.
+ * </p>
+ */
+public class TestIndex implements IElementChangedListener {
+
+	private static final String PERF_REBUILD= JUnitCorePlugin.CORE_PLUGIN_ID + "/perf/testIndex/rebuild"; //$NON-NLS-1$
+	private static final String PERF_UPDATE= JUnitCorePlugin.CORE_PLUGIN_ID + "/perf/testIndex/update"; //$NON-NLS-1$
+
+	/**
+	 * Maximal number of dirty compilation units that are checked incrementally. Every type of a
+	 * dirty unit needs a type hierarchy, so a full search is faster for larger changes.
+	 */
+	public static final int MAX_DIRTY_UNITS= 20;
+
+	private static final String INDEX_DIR_NAME= "testIndex"; //$NON-NLS-1$
+	private static final String FILE_VERSION= "1"; //$NON-NLS-1$
+	private static final char UNIT= 'U';
+	private static final char TEST= 'T';
+
+	private static final class ProjectIndex {
+		final String fFinderId;
+		final IJavaProject fProject;
+
+		/**
+		 * Modification stamps of all source compilation units of the project at the time they
+		 * were indexed
+		 */
+		final Map<ICompilationUnit, Long> fStamps= new HashMap<>();
+		final Map<ICompilationUnit, Set<IType>> fTests= new HashMap<>();
+
+		/**
+		 * Changed compilation units, may contain units of required projects
+		 */
+		final Set<ICompilationUnit> fDirty= Collections.newSetFromMap(new ConcurrentHashMap<ICompilationUnit, Boolean>());
+		volatile boolean fInvalid= true;
+		boolean fLoaded;
+
+		ProjectIndex(String finderId, IJavaProject project) {
+			fFinderId= finderId;
+			fProject= project;
+		}
+	}
+
+	/**
+	 * Project indexes by finder id and project name
+	 */
+	private final Map<String, ProjectIndex> fIndexes= new HashMap<>();
+
+	/**
+	 * Returns whether the tests in the given container are looked up in the index.
+	 *
+	 * @param element the container
+	 * @return <code>true</code> if the element is an indexed project, source folder or package
+	 */
+	public static boolean isIndexable(IJavaElement element) {
+		try {
+			switch (element.getElementType()) {
+				case IJavaElement.JAVA_PROJECT:
+					return isIndexableProject((IJavaProject) element);
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					return ((IPackageFragmentRoot) element).getKind() == IPackageFragmentRoot.K_SOURCE && isIndexableProject(element.getJavaProject());
+				case IJavaElement.PACKAGE_FRAGMENT:
+					IPackageFragmentRoot root= (IPackageFragmentRoot) element.getParent();
+					return root.getKind() == IPackageFragmentRoot.K_SOURCE && isIndexableProject(element.getJavaProject());
+				default:
+					return false;
+			}
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	private static boolean isIndexableProject(IJavaProject project) throws JavaModelException {
+		if (! project.exists())
+			return false;
+		// tests in class folders are found by the full search, but changes are not tracked
+		IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+		for (int i= 0; i < roots.length; i++) {
+			if (roots[i].getKind() == IPackageFragmentRoot.K_BINARY && ! roots[i].isArchive())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the tests in a container.
+	 *
+	 * @param finder the finder whose tests are looked up
+	 * @param element the container, see {@link #isIndexable(IJavaElement)}
+	 * @param result a Set to add ITypes
+	 * @param pm the progress monitor
+	 * @throws CoreException thrown when tests can not be found
+	 */
+	public void findTestsInContainer(IIndexableTestFinder finder, IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
+		if (pm == null)
+			pm= new NullProgressMonitor();
+		ProjectIndex index= getIndex(finder, element.getJavaProject());
+		synchronized (index) {
+			update(finder, index, pm);
+			for (Set<IType> tests : index.fTests.values()) {
+				for (IType test : tests) {
+					if (contains(element, test))
+						result.add(test);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up a type in the index without updating it.
+	 *
+	 * @param finder the finder whose tests are looked up
+	 * @param type the type
+	 * @return whether the type is a test, or <code>null</code> if this is not known
+	 */
+	public Boolean isIndexedTest(ITestFinder finder, IType type) {
+		ICompilationUnit cu= type.getCompilationUnit();
+		// working copies may differ from the indexed content
+		if (cu == null || cu.isWorkingCopy())
+			return null;
+		ProjectIndex index;
+		synchronized (fIndexes) {
+			index= fIndexes.get(getKey(finder.getClass().getName(), type.getJavaProject()));
+		}
+		if (index == null)
+			return null;
+		synchronized (index) {
+			if (index.fInvalid || ! index.fDirty.isEmpty())
+				return null;
+			Set<IType> tests= index.fTests.get(cu);
+			return Boolean.valueOf(tests != null && tests.contains(type));
+		}
+	}
+
+	private ProjectIndex getIndex(ITestFinder finder, IJavaProject project) {
+		String finderId= finder.getClass().getName();
+		String key= getKey(finderId, project);
+		synchronized (fIndexes) {
+			ProjectIndex index= fIndexes.get(key);
+			if (index == null) {
+				index= new ProjectIndex(finderId, project);
+				fIndexes.put(key, index);
+			}
+			return index;
+		}
+	}
+
+	private static String getKey(String finderId, IJavaProject project) {
+		return finderId + '/' + project.getElementName();
+	}
+
+	private static boolean contains(IJavaElement container, IType type) {
+		switch (container.getElementType()) {
+			case IJavaElement.JAVA_PROJECT:
+				return true;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				return container.equals(type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT));
+			default:
+				return container.equals(type.getPackageFragment());
+		}
+	}
+
+	private void update(IIndexableTestFinder finder, ProjectIndex index, IProgressMonitor pm) throws CoreException {
+		if (! index.fLoaded) {
+			index.fLoaded= true;
+			load(index);
+		}
+		if (index.fInvalid || index.fDirty.size() > MAX_DIRTY_UNITS) {
+			PerformanceStats stats= PerformanceStats.getStats(PERF_REBUILD, index.fProject.getElementName());
+			stats.startRun();
+			rebuild(finder, index, pm);
+			stats.endRun();
+		} else if (! index.fDirty.isEmpty()) {
+			PerformanceStats stats= PerformanceStats.getStats(PERF_UPDATE, index.fProject.getElementName());
+			stats.startRun();
+			updateDirty(finder, index, pm);
+			stats.endRun();
+		}
+	}
+
+	private void rebuild(IIndexableTestFinder finder, ProjectIndex index, IProgressMonitor pm) throws CoreException {
+		// invalidations during the rebuild are kept for the next search
+		index.fInvalid= false;
+		index.fDirty.clear();
+		index.fStamps.clear();
+		index.fTests.clear();
+		try {
+			pm.beginTask(JUnitMessages.TestSearchEngine_message_searching, 10);
+			// stamps are taken first, so that concurrent changes are seen as changes
+			collectStamps(index.fProject, index.fStamps);
+			pm.worked(1);
+
+			Set<IType> tests= new HashSet<>();
+			finder.searchTestsInContainer(index.fProject, tests, new SubProgressMonitor(pm, 9));
+			for (IType test : tests)
+				addTest(index, test);
+		} catch (CoreException e) {
+			index.fInvalid= true;
+			throw e;
+		} catch (RuntimeException e) {
+			index.fInvalid= true;
+			throw e;
+		} finally {
+			pm.done();
+		}
+	}
+
+	private void updateDirty(IIndexableTestFinder finder, ProjectIndex index, IProgressMonitor pm) throws CoreException {
+		List<ICompilationUnit> dirty= new ArrayList<>(index.fDirty);
+		index.fDirty.removeAll(dirty);
+		try {
+			pm.beginTask(JUnitMessages.TestSearchEngine_message_searching, dirty.size() * 2);
+			Set<IType> toCheck= new LinkedHashSet<>();
+			for (ICompilationUnit cu : dirty) {
+				if (! cu.exists()) {
+					// subtypes of the removed types may no longer be tests
+					rebuild(finder, index, new SubProgressMonitor(pm, 1));
+					return;
+				}
+				boolean local= index.fProject.equals(cu.getJavaProject());
+				if (local) {
+					index.fTests.remove(cu);
+					index.fStamps.put(cu, Long.valueOf(getStamp(cu)));
+				}
+				IType[] types= cu.getAllTypes();
+				for (int i= 0; i < types.length; i++) {
+					IType type= types[i];
+					if (local)
+						toCheck.add(type);
+					// tests may inherit their test methods and annotations
+					if (! Flags.isFinal(type.getFlags())) {
+						ITypeHierarchy hierarchy= type.newTypeHierarchy(index.fProject, new SubProgressMonitor(pm, 1));
+						IType[] subtypes= hierarchy.getAllSubtypes(type);
+						for (int j= 0; j < subtypes.length; j++) {
+							if (subtypes[j].getCompilationUnit() != null && index.fProject.equals(subtypes[j].getJavaProject()))
+								toCheck.add(subtypes[j]);
+						}
+					}
+				}
+				pm.worked(1);
+			}
+			for (IType type : toCheck) {
+				if (finder.isTest(type)) {
+					addTest(index, type);
+				} else {
+					Set<IType> tests= index.fTests.get(type.getCompilationUnit());
+					if (tests != null)
+						tests.remove(type);
+				}
+			}
+		} catch (CoreException e) {
+			index.fInvalid= true;
+			throw e;
+		} finally {
+			pm.done();
+		}
+	}
+
+	private static void addTest(ProjectIndex index, IType test) {
+		ICompilationUnit cu= test.getCompilationUnit();
+		if (cu == null)
+			return;
+		Set<IType> tests= index.fTests.get(cu);
+		if (tests == null) {
+			tests= new HashSet<>();
+			index.fTests.put(cu, tests);
+		}
+		tests.add(test);
+	}
+
+	private static void collectStamps(IJavaProject project, Map<ICompilationUnit, Long> stamps) throws JavaModelException {
+		IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+		for (int i= 0; i < roots.length; i++) {
+			if (roots[i].getKind() != IPackageFragmentRoot.K_SOURCE)
+				continue;
+			IJavaElement[] fragments= roots[i].getChildren();
+			for (int j= 0; j < fragments.length; j++) {
+				ICompilationUnit[] units= ((IPackageFragment) fragments[j]).getCompilationUnits();
+				for (int k= 0; k < units.length; k++)
+					stamps.put(units[k], Long.valueOf(getStamp(units[k])));
+			}
+		}
+	}
+
+	private static long getStamp(ICompilationUnit cu) {
+		IResource resource= cu.getResource();
+		return resource == null ? IResource.NULL_STAMP : resource.getModificationStamp();
+	}
+
+	private static String getClasspathFingerprint(IJavaProject project) throws JavaModelException {
+		IClasspathEntry[] entries= project.getResolvedClasspath(true);
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < entries.length; i++)
+			buf.append(entries[i].getPath()).append(File.pathSeparatorChar);
+		return Integer.toHexString(buf.toString().hashCode());
+	}
+
+	// --- element deltas ---
+
+	/**
+	 * Registers the index for element changes.
+	 */
+	public void start() {
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Unregisters the index and saves the project indexes.
+	 */
+	public void stop() {
+		JavaCore.removeElementChangedListener(this);
+		List<ProjectIndex> indexes;
+		synchronized (fIndexes) {
+			indexes= new ArrayList<>(fIndexes.values());
+			fIndexes.clear();
+		}
+		for (ProjectIndex index : indexes) {
+			synchronized (index) {
+				save(index);
+			}
+		}
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		List<ProjectIndex> indexes;
+		synchronized (fIndexes) {
+			if (fIndexes.isEmpty())
+				return;
+			indexes= new ArrayList<>(fIndexes.values());
+		}
+		processDelta(event.getDelta(), indexes);
+	}
+
+	private void processDelta(IJavaElementDelta delta, List<ProjectIndex> indexes) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					invalidate(element.getJavaProject(), indexes);
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0) {
+					invalidate(element.getJavaProject(), indexes);
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() == IJavaElementDelta.REMOVED) {
+					invalidate(element.getJavaProject(), indexes);
+					return;
+				}
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit cu= ((ICompilationUnit) element).getPrimary();
+				if (delta.getKind() == IJavaElementDelta.REMOVED)
+					invalidate(cu.getJavaProject(), indexes);
+				// a removed unit is also marked dirty to rebuild the indexes of requiring projects
+				markDirty(cu, indexes);
+				return;
+			default:
+				return;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++)
+			processDelta(children[i], indexes);
+	}
+
+	private static void invalidate(IJavaProject project, List<ProjectIndex> indexes) {
+		for (ProjectIndex index : indexes) {
+			if (index.fProject.equals(project))
+				index.fInvalid= true;
+		}
+	}
+
+	private static void markDirty(ICompilationUnit cu, List<ProjectIndex> indexes) {
+		IJavaProject project= cu.getJavaProject();
+		for (ProjectIndex index : indexes) {
+			if (index.fProject.equals(project) || requires(index.fProject, project))
+				index.fDirty.add(cu);
+		}
+	}
+
+	private static boolean requires(IJavaProject project, IJavaProject required) {
+		try {
+			String[] names= project.getRequiredProjectNames();
+			for (int i= 0; i < names.length; i++) {
+				if (names[i].equals(required.getElementName()))
+					return true;
+			}
+		} catch (JavaModelException e) {
+			// not a requirement
+		}
+		return false;
+	}
+
+	// --- persistence ---
+
+	private static File getIndexFile(ProjectIndex index) {
+		File dir= JUnitCorePlugin.getDefault().getStateLocation().append(INDEX_DIR_NAME).toFile();
+		if (! dir.isDirectory())
+			dir.mkdir();
+		String key= getKey(index.fFinderId, index.fProject);
+		return new File(dir, Integer.toHexString(key.hashCode()) + ".txt"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads a saved index. Compilation units that changed since the index was saved are marked
+	 * dirty. The index stays invalid if there is no saved index or it does not match.
+	 *
+	 * @param index the index to read into
+	 */
+	private static void load(ProjectIndex index) {
+		File file= getIndexFile(index);
+		if (! file.isFile())
+			return;
+		Map<ICompilationUnit, Long> stamps= new HashMap<>();
+		Map<ICompilationUnit, Set<IType>> tests= new HashMap<>();
+		try {
+			BufferedReader reader= new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8")); //$NON-NLS-1$
+			try {
+				if (! FILE_VERSION.equals(reader.readLine())
+						|| ! getKey(index.fFinderId, index.fProject).equals(reader.readLine())
+						|| ! getClasspathFingerprint(index.fProject).equals(reader.readLine()))
+					return;
+				ICompilationUnit cu= null;
+				String line;
+				while ((line= reader.readLine()) != null) {
+					if (line.length() < 2)
+						return;
+					IJavaElement element= JavaCore.create(line.substring(2));
+					if (line.charAt(0) == UNIT && line.charAt(1) == ' ' && element instanceof ICompilationUnit) {
+						cu= (ICompilationUnit) element;
+						stamps.put(cu, Long.valueOf(reader.readLine()));
+					} else if (line.charAt(0) == TEST && line.charAt(1) == ' ' && element instanceof IType && cu != null) {
+						Set<IType> unitTests= tests.get(cu);
+						if (unitTests == null) {
+							unitTests= new HashSet<>();
+							tests.put(cu, unitTests);
+						}
+						unitTests.add((IType) element);
+					} else {
+						return;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+
+			Map<ICompilationUnit, Long> currentStamps= new HashMap<>();
+			collectStamps(index.fProject, currentStamps);
+			if (! currentStamps.keySet().containsAll(stamps.keySet()))
+				return; // units were removed
+			for (Map.Entry<ICompilationUnit, Long> entry : currentStamps.entrySet()) {
+				Long stamp= stamps.get(entry.getKey());
+				if (! entry.getValue().equals(stamp))
+					index.fDirty.add(entry.getKey());
+			}
+			index.fStamps.putAll(stamps);
+			index.fTests.putAll(tests);
+			index.fInvalid= false;
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		} catch (NumberFormatException e) {
+			JUnitCorePlugin.log(e);
+		} catch (JavaModelException e) {
+			// the project is rebuilt and reports the problem
+		}
+	}
+
+	private static void save(ProjectIndex index) {
+		File file= getIndexFile(index);
+		if (index.fInvalid || ! index.fProject.exists()) {
+			file.delete();
+			return;
+		}
+		try {
+			BufferedWriter writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+			try {
+				writer.write(FILE_VERSION);
+				writer.newLine();
+				writer.write(getKey(index.fFinderId, index.fProject));
+				writer.newLine();
+				writer.write(getClasspathFingerprint(index.fProject));
+				writer.newLine();
+				for (Map.Entry<ICompilationUnit, Long> entry : index.fStamps.entrySet()) {
+					ICompilationUnit cu= entry.getKey();
+					// dirty units are saved with their old stamp and are checked again on load
+					writer.write(UNIT + " " + cu.getHandleIdentifier()); //$NON-NLS-1$
+					writer.newLine();
+					writer.write(entry.getValue().toString());
+					writer.newLine();
+					Set<IType> tests= index.fTests.get(cu);
+					if (tests != null) {
+						for (IType test : tests) {
+							writer.write(TEST + " " + test.getHandleIdentifier()); //$NON-NLS-1$
+							writer.newLine();
+						}
+					}
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			file.delete();
+		} catch (JavaModelException e) {
+			file.delete();
+		}
+	}
+}
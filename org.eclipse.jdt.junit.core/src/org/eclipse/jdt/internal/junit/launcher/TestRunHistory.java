@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.ITestCaseVisitor;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+
+/**
+ * Failure probabilities and durations of the tests of a launch configuration, computed from
+ * the finished runs in the test run history of the {@link org.eclipse.jdt.internal.junit.model.JUnitModel}.
+ */
+public class TestRunHistory {
+
+	private static final class TestStatistics {
+		int fRuns;
+		int fFailures;
+		double fTime;
+	}
+
+	private final Map<String, TestStatistics> fStatistics= new LinkedHashMap<>();
+
+	private long fLastGreenRunTime= -1;
+
+	private final ITestCaseVisitor fRunVisitor= new ITestCaseVisitor() {
+		@Override
+		public void visitTestCase(String testName, TestElement.Status status, boolean ignored, double time) {
+			addTestCase(testName, status, ignored, time);
+		}
+	};
+
+	private TestRunHistory() {
+	}
+
+	/**
+	 * Collects the history of the runs with the given name.
+	 *
+	 * @param testRunName the name of the test run, i.e. the name of the launch configuration
+	 * @return the history, empty if there are no such runs
+	 */
+	public static TestRunHistory create(String testRunName) {
+		TestRunHistory history= new TestRunHistory();
+		List<TestRunSession> sessions= JUnitCorePlugin.getModel().getTestRunSessions();
+		for (TestRunSession session : sessions) {
+			if (! testRunName.equals(session.getTestRunName()) || session.isRunning() || session.getStartedCount() == 0)
+				continue;
+			// reads a swapped out session from its swap file
+			session.acceptTestCases(history.fRunVisitor);
+			// sessions are ordered most recent first
+			if (history.fLastGreenRunTime == -1 && ! session.isStopped() && session.getErrorCount() == 0 && session.getFailureCount() == 0)
+				history.fLastGreenRunTime= session.getStartTime();
+		}
+		return history;
+	}
+
+	private void addTestCase(String testName, TestElement.Status status, boolean ignored, double time) {
+		if (! status.isDone() || ignored)
+			return;
+		TestStatistics statistics= fStatistics.get(testName);
+		if (statistics == null) {
+			statistics= new TestStatistics();
+			fStatistics.put(testName, statistics);
+		}
+		statistics.fRuns++;
+		if (status.isErrorOrFailure())
+			statistics.fFailures++;
+		if (! Double.isNaN(time))
+			statistics.fTime+= time;
+	}
+
+	public boolean isEmpty() {
+		return fStatistics.isEmpty();
+	}
+
+	/**
+	 * Returns the start time of the most recent run of the configuration that finished without
+	 * errors and failures.
+	 *
+	 * @return the start time in milliseconds, or -1 if there is no such run
+	 */
+	public long getLastGreenRunTime() {
+		return fLastGreenRunTime;
+	}
+
+	/**
+	 * Writes the history in the form read by the <code>-testhistory</code> argument of the
+	 * RemoteTestRunner. The failure probability is smoothed, so that tests that failed once in
+	 * a short history do not always run before tests that never failed.
+	 *
+	 * @return the absolute path of the file
+	 * @throws CoreException if the file cannot be written
+	 */
+	public String createHistoryFile() throws CoreException {
+		try {
+			File file= File.createTempFile("testHistory", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.deleteOnExit();
+			BufferedWriter bw= null;
+			try {
+				bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+				for (Map.Entry<String, TestStatistics> entry : fStatistics.entrySet()) {
+					TestStatistics statistics= entry.getValue();
+					double failureProbability= statistics.fFailures / (statistics.fRuns + 1.0);
+					bw.write(String.valueOf(failureProbability));
+					bw.write('\t');
+					bw.write(String.valueOf(statistics.fTime / statistics.fRuns));
+					bw.write('\t');
+					bw.write(entry.getKey());
+					bw.newLine();
+				}
+			} finally {
+				if (bw != null) {
+					bw.close();
+				}
+			}
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
+		}
+	}
+}
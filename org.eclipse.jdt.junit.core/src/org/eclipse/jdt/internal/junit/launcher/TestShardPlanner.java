@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.ITestCaseVisitor;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+
+/**
+ * Distributes the test classes of a launch to the runner VMs of a sharded launch.
+ * <p>
+ * Classes are balanced on their running time in the last run of the same launch configuration
+ * in the test run history: the longest classes are assigned first, each to the shard with the
+ * least total time. Classes with failures in the last run are assigned before all others and
+ * run first in their shard, like the failures first ordering of a single runner VM.
+ * </p>
+ */
+public class TestShardPlanner {
+
+	private static final class ClassEntry {
+		final IType fType;
+		final String fName;
+		final double fTime;
+		final boolean fFailed;
+
+		ClassEntry(IType type, double time, boolean failed) {
+			fType= type;
+			fName= type.getFullyQualifiedName();
+			fTime= time;
+			fFailed= failed;
+		}
+	}
+
+	private final Map<String, Double> fClassTimes;
+	private final Set<String> fFailedClasses;
+
+	/**
+	 * @param classTimes running times in seconds by class name, see {@link #getClassTimes(String)}
+	 * @param failedClasses names of the classes to run first
+	 */
+	public TestShardPlanner(Map<String, Double> classTimes, Set<String> failedClasses) {
+		fClassTimes= classTimes;
+		fFailedClasses= failedClasses;
+	}
+
+	/**
+	 * Distributes test classes to shards.
+	 *
+	 * @param types the test classes
+	 * @param shardCount the maximal number of shards
+	 * @return the non-empty shards, each in execution order
+	 */
+	public List<List<IType>> plan(IType[] types, int shardCount) {
+		double knownTime= 0;
+		int knownCount= 0;
+		for (int i= 0; i < types.length; i++) {
+			Double time= fClassTimes.get(types[i].getFullyQualifiedName());
+			if (time != null) {
+				knownTime+= time.doubleValue();
+				knownCount++;
+			}
+		}
+		// classes that were not run before are assumed to take the average time
+		double defaultTime= knownCount == 0 ? 1 : knownTime / knownCount;
+
+		ClassEntry[] entries= new ClassEntry[types.length];
+		for (int i= 0; i < types.length; i++) {
+			String name= types[i].getFullyQualifiedName();
+			Double time= fClassTimes.get(name);
+			entries[i]= new ClassEntry(types[i], time == null ? defaultTime : time.doubleValue(), fFailedClasses.contains(name));
+		}
+		Arrays.sort(entries, new Comparator<ClassEntry>() {
+			@Override
+			public int compare(ClassEntry e1, ClassEntry e2) {
+				if (e1.fFailed != e2.fFailed)
+					return e1.fFailed ? -1 : 1;
+				int result= Double.compare(e2.fTime, e1.fTime);
+				return result != 0 ? result : e1.fName.compareTo(e2.fName);
+			}
+		});
+
+		int count= Math.max(1, Math.min(shardCount, entries.length));
+		List<List<IType>> shards= new ArrayList<>(count);
+		double[] shardTimes= new double[count];
+		for (int i= 0; i < count; i++)
+			shards.add(new ArrayList<IType>());
+		for (int i= 0; i < entries.length; i++) {
+			int shard= 0;
+			for (int j= 1; j < count; j++) {
+				if (shardTimes[j] < shardTimes[shard])
+					shard= j;
+			}
+			shards.get(shard).add(entries[i].fType);
+			shardTimes[shard]+= entries[i].fTime;
+		}
+		return shards;
+	}
+
+	/**
+	 * Returns the running times of the test classes in the last run with the given name.
+	 *
+	 * @param testRunName the name of the test run, i.e. the name of the launch configuration
+	 * @return running times in seconds by class name, empty if there is no such run
+	 */
+	public static Map<String, Double> getClassTimes(String testRunName) {
+		final Map<String, Double> times= new HashMap<>();
+		List<TestRunSession> sessions= JUnitCorePlugin.getModel().getTestRunSessions();
+		for (TestRunSession session : sessions) {
+			// sessions are ordered most recent first
+			if (testRunName.equals(session.getTestRunName()) && ! session.isRunning() && session.getStartedCount() > 0) {
+				// reads a swapped out session from its swap file
+				session.acceptTestCases(new ITestCaseVisitor() {
+					@Override
+					public void visitTestCase(String testName, Status status, boolean ignored, double time) {
+						if (! Double.isNaN(time)) {
+							// like IType#getFullyQualifiedName(), raw class names use '$' for nested types
+							String className= TestElement.extractRawClassName(testName);
+							Double classTime= times.get(className);
+							times.put(className, Double.valueOf(classTime == null ? time : classTime.doubleValue() + time));
+						}
+					}
+				});
+				break;
+			}
+		}
+		return times;
+	}
+
+	/**
+	 * Reads the classes of the tests in a failure names file as written for
+	 * {@link JUnitLaunchConfigurationConstants#ATTR_FAILURES_NAMES}.
+	 *
+	 * @param failureNamesFile the file, or "" if there is none
+	 * @return the class names
+	 */
+	public static Set<String> getFailedClasses(String failureNamesFile) {
+		if (failureNamesFile.length() == 0)
+			return Collections.emptySet();
+		Set<String> classes= new HashSet<>();
+		try {
+			BufferedReader reader= new BufferedReader(new InputStreamReader(new FileInputStream(new File(failureNamesFile)), "UTF-8")); //$NON-NLS-1$
+			try {
+				String line;
+				while ((line= reader.readLine()) != null) {
+					if (line.length() > 0)
+						classes.add(TestElement.extractRawClassName(line));
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			// the runner VMs report the problem with the file
+			JUnitCorePlugin.log(e);
+		}
+		return classes;
+	}
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * Visits the results of the test cases of a test run session.
+ *
+ * @see TestRunSession#acceptTestCases(ITestCaseVisitor)
+ */
+public interface ITestCaseVisitor {
+	/**
+	 * Visits the result of a test case.
+	 *
+	 * @param testName the name of the test, see {@link TestElement#getTestName()}
+	 * @param status the status of the test
+	 * @param ignored whether the test has been ignored
+	 * @param time the elapsed time in seconds, or {@link Double#NaN} if it is not known,
+	 *            see {@link TestElement#getElapsedTimeInSeconds()}
+	 */
+	public void visitTestCase(String testName, Status status, boolean ignored, double time);
+}
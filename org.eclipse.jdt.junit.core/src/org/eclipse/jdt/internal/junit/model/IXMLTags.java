@@ -29,6 +29,13 @@ public interface IXMLTags {
 	public static final String NODE_SYSTEM_OUT= "system-out"; //$NON-NLS-1$
 	public static final String NODE_SYSTEM_ERR= "system-err"; //$NON-NLS-1$
 	public static final String NODE_SKIPPED = "skipped"; //$NON-NLS-1$
+	/*
+	 * Maven surefire reports of flaky and rerun tests
+	 */
+	public static final String NODE_FLAKY_FAILURE= "flakyFailure"; //$NON-NLS-1$
+	public static final String NODE_FLAKY_ERROR= "flakyError"; //$NON-NLS-1$
+	public static final String NODE_RERUN_FAILURE= "rerunFailure"; //$NON-NLS-1$
+	public static final String NODE_RERUN_ERROR= "rerunError"; //$NON-NLS-1$
 
 	/**
 	 * value: String
@@ -121,17 +121,27 @@ public final class JUnitModel {
 			String portStr= launch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT);
 			if (portStr == null)
 				return;
+			// sharded launches run several runner VMs, see JUnitLaunchConfigurationDelegate
+			String shardPortsStr= launch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS);
 			try {
-				final int port= Integer.parseInt(portStr);
+				int[] ports;
+				if (shardPortsStr == null) {
+					ports= new int[] { Integer.parseInt(portStr) };
+				} else {
+					String[] shardPorts= shardPortsStr.split(","); //$NON-NLS-1$
+					ports= new int[shardPorts.length];
+					for (int i= 0; i < shardPorts.length; i++)
+						ports[i]= Integer.parseInt(shardPorts[i]);
+				}
 				fTrackedLaunches.remove(launch);
-				connectTestRunner(launch, javaProject, port);
+				connectTestRunner(launch, javaProject, ports);
 			} catch (NumberFormatException e) {
 				return;
 			}
 		}
 
-		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int port) {
-			TestRunSession testRunSession= new TestRunSession(launch, javaProject, port);
+		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int[] ports) {
+			TestRunSession testRunSession= new TestRunSession(launch, javaProject, ports);
 			addTestRunSession(testRunSession);
 			
 			Object[] listeners= JUnitCorePlugin.getDefault().getNewTestRunListeners().getListeners();
@@ -376,6 +386,11 @@ public final class JUnitModel {
 
 	/**
 	 * Imports a test run session from the given file.
+	 * <p>
+	 * The transcript is parsed with SAX, but the test elements of the imported session are
+	 * built in memory, since the session is shown right away. Like any other session, it is
+	 * swapped out once it is no longer the current one.
+	 * </p>
 	 *
 	 * @param file a file containing a test run session transcript
 	 * @return the imported test run session
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -22,6 +27,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
@@ -86,11 +93,13 @@ public class RemoteTestRunnerClient {
 	            return this;
 	        }
 	        if (message.startsWith(MessageIds.TEST_START)) {
-	            notifyTestStarted(arg);
+	            String s[]= extractTestId(arg);
+	            notifyTestStarted(s[0], s[1]);
 	            return this;
 	        }
 	        if (message.startsWith(MessageIds.TEST_END)) {
-	            notifyTestEnded(arg);
+	            String s[]= extractTestId(arg);
+	            notifyTestEnded(s[0], s[1]);
 	            return this;
 	        }
 	        if (message.startsWith(MessageIds.TEST_ERROR)) {
@@ -225,6 +234,15 @@ public class RemoteTestRunnerClient {
 	private int fPort= -1;
 	private PrintWriter fWriter;
 	private PushbackReader fPushbackReader;
+	/**
+	 * The input of the binary protocol, or <code>null</code> if the text protocol is used
+	 */
+	private DataInputStream fBinaryInput;
+	/**
+	 * Test ids and last test names of the binary protocol, indexed by the test id
+	 */
+	private String[] fBinaryIds= new String[0];
+	private String[] fBinaryNames= new String[0];
 	private String fLastLineDelimiter;
 	/**
 	 * The protocol version
@@ -263,19 +281,29 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				try {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), "UTF-8"))); //$NON-NLS-1$
-				} catch (UnsupportedEncodingException e) {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream())));
+				InputStream input= new BufferedInputStream(fSocket.getInputStream(), 64 * 1024);
+				boolean binary= readProtocol(input);
+				if (binary) {
+					fBinaryInput= new DataInputStream(input);
+				} else {
+					try {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(input, "UTF-8"))); //$NON-NLS-1$
+					} catch (UnsupportedEncodingException e) {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(input)));
+					}
 				}
 				try {
 				    fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), "UTF-8"), true); //$NON-NLS-1$
 	            } catch (UnsupportedEncodingException e1) {
 	                fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream()), true);
 	            }
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				if (binary) {
+					readFrames();
+				} else {
+					String message;
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -331,6 +359,13 @@ public class RemoteTestRunnerClient {
 			}
 		} catch(IOException e) {
 		}
+		try {
+			if (fBinaryInput != null) {
+				fBinaryInput.close();
+				fBinaryInput= null;
+			}
+		} catch(IOException e) {
+		}
 		try {
 			if (fSocket != null) {
 				fSocket.close();
@@ -381,6 +416,149 @@ public class RemoteTestRunnerClient {
 	    fCurrentState= fCurrentState.readMessage(message);
 	}
 
+	/**
+	 * Checks whether the RemoteTestRunner uses the binary protocol. Consumes the protocol
+	 * line if it does, otherwise the stream is reset to its start.
+	 *
+	 * @param in the buffered input stream
+	 * @return <code>true</code> if the binary protocol is used
+	 * @throws IOException if the stream cannot be read or the version is not supported
+	 */
+	private boolean readProtocol(InputStream in) throws IOException {
+		byte[] expected= MessageIds.PROTOCOL_BINARY.getBytes(StandardCharsets.US_ASCII);
+		byte[] header= new byte[expected.length];
+		in.mark(expected.length);
+		int read= 0;
+		while (read < header.length) {
+			int n= in.read(header, read, header.length - read);
+			if (n == -1)
+				break;
+			read+= n;
+		}
+		if (read < header.length || !Arrays.equals(header, expected)) {
+			in.reset();
+			return false;
+		}
+
+		StringBuffer version= new StringBuffer();
+		int ch;
+		while ((ch= in.read()) != -1 && ch != '\n')
+			version.append((char) ch);
+		if (!Integer.toString(MessageIds.BINARY_PROTOCOL_VERSION).equals(version.toString().trim()))
+			throw new IOException("Unsupported protocol version: " + version); //$NON-NLS-1$
+		return true;
+	}
+
+	/**
+	 * Reads the frames of the binary protocol until the end of the stream or until the
+	 * connection is shut down.
+	 *
+	 * @throws IOException if the stream cannot be read
+	 */
+	private void readFrames() throws IOException {
+		// text messages of the binary protocol are not split into lines
+		fLastLineDelimiter= "\n"; //$NON-NLS-1$
+		byte[] frame= new byte[0];
+		while (fBinaryInput != null) {
+			int length;
+			try {
+				length= fBinaryInput.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (length < 0)
+				throw new IOException("Invalid frame length: " + length); //$NON-NLS-1$
+			if (frame.length < length)
+				frame= new byte[Math.max(length, 2 * frame.length)];
+			fBinaryInput.readFully(frame, 0, length);
+			DataInputStream records= new DataInputStream(new ByteArrayInputStream(frame, 0, length));
+			while (fBinaryInput != null && records.available() > 0)
+				receiveRecord(records);
+		}
+	}
+
+	private void receiveRecord(DataInputStream in) throws IOException {
+		byte type= in.readByte();
+		switch (type) {
+			case MessageIds.BINARY_MESSAGE:
+				receiveMessage(readString(in));
+				break;
+			case MessageIds.BINARY_TEST_TREE: {
+				int id= in.readInt();
+				String name= readName(in, id);
+				boolean isSuite= in.readBoolean();
+				int count= in.readInt();
+				notifyTestTreeEntry(fBinaryIds[id] + ',' + escapeComma(name) + ',' + isSuite + ',' + count);
+				break;
+			}
+			case MessageIds.BINARY_TEST_START: {
+				int id= in.readInt();
+				String name= readName(in, id);
+				notifyTestStarted(fBinaryIds[id], name);
+				break;
+			}
+			case MessageIds.BINARY_TEST_END: {
+				int id= in.readInt();
+				String name= readName(in, id);
+				notifyTestEnded(fBinaryIds[id], name);
+				break;
+			}
+			case MessageIds.BINARY_TEST_ERROR:
+			case MessageIds.BINARY_TEST_FAILED: {
+				int id= in.readInt();
+				fFailedTest= readName(in, id);
+				fFailedTestId= fBinaryIds[id];
+				fFailureKind= type == MessageIds.BINARY_TEST_ERROR ? ITestRunListener2.STATUS_ERROR : ITestRunListener2.STATUS_FAILURE;
+				break;
+			}
+			default:
+				throw new IOException("Invalid record type: " + type); //$NON-NLS-1$
+		}
+	}
+
+	private String readName(DataInputStream in, int id) throws IOException {
+		if (id < 0)
+			throw new IOException("Invalid test id: " + id); //$NON-NLS-1$
+		if (id >= fBinaryIds.length) {
+			int length= Math.max(id + 1, 2 * fBinaryIds.length);
+			fBinaryIds= Arrays.copyOf(fBinaryIds, length);
+			fBinaryNames= Arrays.copyOf(fBinaryNames, length);
+		}
+		if (fBinaryIds[id] == null)
+			fBinaryIds[id]= Integer.toString(id);
+
+		byte kind= in.readByte();
+		if (kind == MessageIds.BINARY_NAME) {
+			fBinaryNames[id]= readString(in);
+		} else if (kind != MessageIds.BINARY_NAME_KNOWN || fBinaryNames[id] == null) {
+			throw new IOException("Invalid test name for test id: " + id); //$NON-NLS-1$
+		}
+		return fBinaryNames[id];
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length= in.readInt();
+		byte[] bytes= new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String escapeComma(String s) {
+		if ((s.indexOf(',') < 0) && (s.indexOf('\\') < 0))
+			return s;
+		StringBuffer sb= new StringBuffer(s.length()+10);
+		for (int i= 0; i < s.length(); i++) {
+			char c= s.charAt(i);
+			if (c == ',')
+				sb.append("\\,"); //$NON-NLS-1$
+			else if (c == '\\')
+				sb.append("\\\\"); //$NON-NLS-1$
+			else
+				sb.append(c);
+		}
+		return sb.toString();
+	}
+
 	private void scanOldReranMessage(String arg) {
 		// OLD V1 format
 		// format: className" "testName" "status
@@ -519,7 +697,7 @@ public class RemoteTestRunnerClient {
 		}
 	}
 
-	private void notifyTestEnded(final String test) {
+	private void notifyTestEnded(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (int i= 0; i < fListeners.length; i++) {
@@ -527,14 +705,13 @@ public class RemoteTestRunnerClient {
 			SafeRunner.run(new ListenerSafeRunnable() {
 				@Override
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testEnded(s[0], s[1]);
+					listener.testEnded(testId, testName);
 				}
 			});
 		}
 	}
 
-	private void notifyTestStarted(final String test) {
+	private void notifyTestStarted(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (int i= 0; i < fListeners.length; i++) {
@@ -542,8 +719,7 @@ public class RemoteTestRunnerClient {
 			SafeRunner.run(new ListenerSafeRunnable() {
 				@Override
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testStarted(s[0], s[1]);
+					listener.testStarted(testId, testName);
 				}
 			});
 		}
@@ -19,8 +19,6 @@ import org.eclipse.core.runtime.Assert;
 
 public class TestCaseElement extends TestElement implements ITestCaseElement {
 
-	private boolean fIgnored;
-
 	public TestCaseElement(TestSuiteElement parent, String id, String testName) {
 		super(parent, id, testName);
 		Assert.isNotNull(parent);
@@ -59,18 +57,18 @@ public class TestCaseElement extends TestElement implements ITestCaseElement {
 	 */
 	@Override
 	public Result getTestResult(boolean includeChildren) {
-		if (fIgnored)
+		if (isIgnored())
 			return Result.IGNORED;
 		else
 			return super.getTestResult(includeChildren);
 	}
 	
 	public void setIgnored(boolean ignored) {
-		fIgnored= ignored;
+		setFlag(TestElementStore.FLAG_IGNORED, ignored);
 	}
 
 	public boolean isIgnored() {
-		return fIgnored;
+		return hasFlag(TestElementStore.FLAG_IGNORED);
 	}
 
 	@Override
@@ -34,6 +34,8 @@ public abstract class TestElement implements ITestElement {
 
 		private static final Status[] OLD_CODE= { OK, ERROR, FAILURE};
 
+		private static final Status[] CODE= { OK, ERROR, FAILURE, RUNNING, NOT_RUN, RUNNING_ERROR, RUNNING_FAILURE };
+
 		private final String fName;
 		private final int fOldCode;
 
@@ -140,6 +142,14 @@ public abstract class TestElement implements ITestElement {
 			return OLD_CODE[oldStatus];
 		}
 
+		/**
+		 * @param code the code of a status as returned by {@link #getOldCode()}
+		 * @return the Status
+		 */
+		static Status fromCode(int code) {
+			return CODE[code];
+		}
+
 		public Result convertToResult() {
 			if (isNotRun())
 				return Result.UNDEFINED;
@@ -165,27 +175,11 @@ public abstract class TestElement implements ITestElement {
 
 	}
 
-	private final TestSuiteElement fParent;
-	private final String fId;
-	private String fTestName;
-
-	private Status fStatus;
-	private String fTrace;
-	private String fExpected;
-	private String fActual;
-
-	private boolean fAssumptionFailed;
-
 	/**
-	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
-	 * <ul>
-	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#NOT_STARTED}: {@link Double#NaN}</li>
-	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#RUNNING}: negated start time</li>
-	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#STOPPED}: elapsed time</li>
-	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#COMPLETED}: elapsed time</li>
-	 * </ul>
+	 * The store of the test root which holds the state of this element
 	 */
-	/* default */ double fTime= Double.NaN;
+	private final TestElementStore fStore;
+	private final int fIndex;
 
 	/**
 	 * @param parent the parent, can be <code>null</code>
@@ -195,10 +189,8 @@ public abstract class TestElement implements ITestElement {
 	public TestElement(TestSuiteElement parent, String id, String testName) {
 		Assert.isNotNull(id);
 		Assert.isNotNull(testName);
-		fParent= parent;
-		fId= id;
-		fTestName= testName;
-		fStatus= Status.NOT_RUN;
+		fStore= parent == null ? new TestElementStore() : parent.getStore();
+		fIndex= fStore.add(this, parent == null ? -1 : parent.getIndex(), id, testName);
 		if (parent != null)
 			parent.addChild(this);
 	}
@@ -210,7 +202,7 @@ public abstract class TestElement implements ITestElement {
 
 	@Override
 	public Result getTestResult(boolean includeChildren) {
-		if (fAssumptionFailed) {
+		if (isAssumptionFailure()) {
 			return Result.IGNORED;
 		}
 		return getStatus().convertToResult();
@@ -223,18 +215,20 @@ public abstract class TestElement implements ITestElement {
 
 	@Override
 	public ITestElementContainer getParentContainer() {
-		if (fParent instanceof TestRoot) {
+		TestSuiteElement parent= getParent();
+		if (parent instanceof TestRoot) {
 			return getTestRunSession();
 		}
-		return fParent;
+		return parent;
 	}
 
 	@Override
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
+		String[] failure= fStore.getFailure(fIndex);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE
-				|| (testResult == Result.IGNORED && fTrace != null)) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+				|| (testResult == Result.IGNORED && failure != null && failure[0] != null)) {
+			return failure == null ? new FailureTrace(null, null, null) : new FailureTrace(failure[0], failure[1], failure[2]);
 		}
 		return null;
 	}
@@ -243,67 +237,71 @@ public abstract class TestElement implements ITestElement {
 	 * @return the parent suite, or <code>null</code> for the root
 	 */
 	public TestSuiteElement getParent() {
-		return fParent;
+		return fStore.getParent(fIndex);
 	}
 
 	public String getId() {
-		return fId;
+		return fStore.getId(fIndex);
 	}
 
 	public String getTestName() {
-		return fTestName;
+		return fStore.getName(fIndex);
 	}
 
 	public void setName(String name) {
-		fTestName= name;
+		fStore.setName(fIndex, name);
 	}
 
 	public void setStatus(Status status) {
 		if (status == Status.RUNNING) {
-			fTime= - System.currentTimeMillis() / 1000d ;
+			setTime(- System.currentTimeMillis() / 1000d);
 		} else if (status.convertToProgressState() == ProgressState.COMPLETED) {
-			if (fTime < 0) { // assert ! Double.isNaN(fTime)
+			double time= getTime();
+			if (time < 0) { // assert ! Double.isNaN(time)
 				double endTime= System.currentTimeMillis() / 1000.0d;
-				fTime= endTime + fTime;
+				setTime(endTime + time);
 			}
 		}
 
-		fStatus= status;
+		fStore.setStatus(fIndex, status);
 		TestSuiteElement parent= getParent();
 		if (parent != null)
 			parent.childChangedStatus(this, status);
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
-		if (trace != null && fTrace != null) {
+		String[] failure= fStore.getFailure(fIndex);
+		if (trace != null && failure != null && failure[0] != null) {
 			//don't overwrite first trace if same test run logs multiple errors
-			fTrace= fTrace + trace;
+			fStore.setFailure(fIndex, failure[0] + trace, failure[1], failure[2]);
 		} else {
-			fTrace= trace;
-			fExpected= expected;
-			fActual= actual;
+			fStore.setFailure(fIndex, trace, expected, actual);
 		}
 		setStatus(status);
 	}
 
 	public Status getStatus() {
-		return fStatus;
+		return fStore.getStatus(fIndex);
 	}
 
 	public String getTrace() {
-		return fTrace;
+		String[] failure= fStore.getFailure(fIndex);
+		return failure == null ? null : failure[0];
 	}
 
 	public String getExpected() {
-		return fExpected;
+		String[] failure= fStore.getFailure(fIndex);
+		return failure == null ? null : failure[1];
 	}
 
 	public String getActual() {
-		return fActual;
+		String[] failure= fStore.getFailure(fIndex);
+		return failure == null ? null : failure[2];
 	}
 
 	public boolean isComparisonFailure() {
-		return fExpected != null && fActual != null;
+		String[] failure= fStore.getFailure(fIndex);
+		return failure != null && failure[1] != null && failure[2] != null;
 	}
 
 	/**
@@ -312,10 +310,10 @@ public abstract class TestElement implements ITestElement {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageIds#TEST_IDENTIFIER_MESSAGE_FORMAT
 	 */
 	public String getClassName() {
-		return extractClassName(getTestName());
+		return fStore.getClassName(fIndex);
 	}
 
-	private static String extractClassName(String testNameString) {
+	static String extractClassName(String testNameString) {
 		testNameString= extractRawClassName(testNameString);
 		testNameString= testNameString.replace('$', '.'); // see bug 178503
 		return testNameString;
@@ -339,24 +337,60 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setElapsedTimeInSeconds(double time) {
-		fTime= time;
+		setTime(time);
 	}
 
 	@Override
 	public double getElapsedTimeInSeconds() {
-		if (Double.isNaN(fTime) || fTime < 0.0d) {
+		double time= getTime();
+		if (Double.isNaN(time) || time < 0.0d) {
 			return Double.NaN;
 		}
 
-		return fTime;
+		return time;
+	}
+
+	/**
+	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
+	 * <ul>
+	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#NOT_STARTED}: {@link Double#NaN}</li>
+	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#RUNNING}: negated start time</li>
+	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#STOPPED}: elapsed time</li>
+	 * <li>{@link org.eclipse.jdt.junit.model.ITestElement.ProgressState#COMPLETED}: elapsed time</li>
+	 * </ul>
+	 *
+	 * @return the running time
+	 */
+	/* default */ double getTime() {
+		return fStore.getTime(fIndex);
+	}
+
+	/* default */ void setTime(double time) {
+		fStore.setTime(fIndex, time);
 	}
 
 	public void setAssumptionFailed(boolean assumptionFailed) {
-		fAssumptionFailed= assumptionFailed;
+		fStore.setFlag(fIndex, TestElementStore.FLAG_ASSUMPTION_FAILED, assumptionFailed);
 	}
 
 	public boolean isAssumptionFailure() {
-		return fAssumptionFailed;
+		return fStore.hasFlag(fIndex, TestElementStore.FLAG_ASSUMPTION_FAILED);
+	}
+
+	/* default */ boolean hasFlag(byte flag) {
+		return fStore.hasFlag(fIndex, flag);
+	}
+
+	/* default */ void setFlag(byte flag, boolean value) {
+		fStore.setFlag(fIndex, flag, value);
+	}
+
+	/* default */ int getIndex() {
+		return fIndex;
+	}
+
+	/* default */ TestElementStore getStore() {
+		return fStore;
 	}
 
 	@Override
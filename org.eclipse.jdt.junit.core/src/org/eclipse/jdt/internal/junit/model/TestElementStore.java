@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * Column store for the state of all {@link TestElement}s of a {@link TestRoot}.
+ * <p>
+ * Test elements are thin views consisting of the store and their index. Status, timing,
+ * parent and flags are kept in parallel arrays indexed by the element index, class names
+ * are kept in a deduplicated pool, and failure traces with their expected and actual
+ * values are kept deflated. Failures of a swapped in session stay in the swap file until
+ * they are requested. Numeric test ids, as assigned by the RemoteTestRunner, are
+ * mapped to elements by an array.
+ * </p>
+ * <p>
+ * The store is written by the thread receiving test events and read by the UI, so all
+ * accesses are synchronized.
+ * </p>
+ */
+final class TestElementStore {
+
+	static final byte FLAG_ASSUMPTION_FAILED= 1;
+	static final byte FLAG_IGNORED= 2;
+
+	private static final int INITIAL_CAPACITY= 64;
+
+	private int fSize;
+	private TestElement[] fElements;
+	private int[] fParents;
+	private String[] fIds;
+	private String[] fNames;
+	/**
+	 * Index + 1 of the class name in the class name pool, 0 if not computed yet
+	 */
+	private int[] fClassNames;
+	private byte[] fStatus;
+	private byte[] fFlags;
+	private double[] fTimes;
+
+	private final List<String> fClassNamePool;
+	private final Map<String, Integer> fClassNameIndices;
+
+	/**
+	 * Deflated trace, expected and actual values by element index
+	 */
+	private final Map<Integer, byte[]> fFailures;
+	/**
+	 * Offsets of failures in the swap file by element index
+	 */
+	private final Map<Integer, Long> fFailureOffsets;
+	private File fFailureFile;
+	private int fLastFailureIndex= -1;
+	private String[] fLastFailure;
+
+	/**
+	 * Element index + 1 by numeric test id, 0 if there is no element with that id
+	 */
+	private int[] fNumericIds;
+	private final Map<String, Integer> fOtherIds;
+
+	public TestElementStore() {
+		fElements= new TestElement[INITIAL_CAPACITY];
+		fParents= new int[INITIAL_CAPACITY];
+		fIds= new String[INITIAL_CAPACITY];
+		fNames= new String[INITIAL_CAPACITY];
+		fClassNames= new int[INITIAL_CAPACITY];
+		fStatus= new byte[INITIAL_CAPACITY];
+		fFlags= new byte[INITIAL_CAPACITY];
+		fTimes= new double[INITIAL_CAPACITY];
+		fClassNamePool= new ArrayList<>();
+		fClassNameIndices= new HashMap<>();
+		fFailures= new HashMap<>();
+		fFailureOffsets= new HashMap<>();
+		fNumericIds= new int[INITIAL_CAPACITY];
+		fOtherIds= new HashMap<>();
+	}
+
+	/**
+	 * Adds an element.
+	 *
+	 * @param element the element
+	 * @param parent the index of the parent or -1
+	 * @param id the test id
+	 * @param name the test name
+	 * @return the index of the element
+	 */
+	public synchronized int add(TestElement element, int parent, String id, String name) {
+		if (fSize == fElements.length) {
+			int capacity= fSize * 2;
+			fElements= Arrays.copyOf(fElements, capacity);
+			fParents= Arrays.copyOf(fParents, capacity);
+			fIds= Arrays.copyOf(fIds, capacity);
+			fNames= Arrays.copyOf(fNames, capacity);
+			fClassNames= Arrays.copyOf(fClassNames, capacity);
+			fStatus= Arrays.copyOf(fStatus, capacity);
+			fFlags= Arrays.copyOf(fFlags, capacity);
+			fTimes= Arrays.copyOf(fTimes, capacity);
+		}
+		int index= fSize++;
+		fElements[index]= element;
+		fParents[index]= parent;
+		fIds[index]= id;
+		fNames[index]= name;
+		fStatus[index]= (byte) Status.NOT_RUN.getOldCode();
+		fTimes[index]= Double.NaN;
+		return index;
+	}
+
+	public synchronized int size() {
+		return fSize;
+	}
+
+	public synchronized TestElement getElement(int index) {
+		return fElements[index];
+	}
+
+	public synchronized TestSuiteElement getParent(int index) {
+		int parent= fParents[index];
+		return parent == -1 ? null : (TestSuiteElement) fElements[parent];
+	}
+
+	public synchronized String getId(int index) {
+		return fIds[index];
+	}
+
+	public synchronized String getName(int index) {
+		return fNames[index];
+	}
+
+	public synchronized void setName(int index, String name) {
+		fNames[index]= name;
+		fClassNames[index]= 0;
+	}
+
+	/**
+	 * Returns the class name of an element.
+	 *
+	 * @param index the element index
+	 * @return the pooled class name
+	 */
+	public synchronized String getClassName(int index) {
+		int pooled= fClassNames[index];
+		if (pooled != 0)
+			return fClassNamePool.get(pooled - 1);
+
+		String className= TestElement.extractClassName(fNames[index]);
+		Integer poolIndex= fClassNameIndices.get(className);
+		if (poolIndex == null) {
+			poolIndex= Integer.valueOf(fClassNamePool.size());
+			fClassNamePool.add(className);
+			fClassNameIndices.put(className, poolIndex);
+		}
+		fClassNames[index]= poolIndex.intValue() + 1;
+		return fClassNamePool.get(poolIndex.intValue());
+	}
+
+	public synchronized Status getStatus(int index) {
+		return Status.fromCode(fStatus[index]);
+	}
+
+	public synchronized void setStatus(int index, Status status) {
+		fStatus[index]= (byte) status.getOldCode();
+	}
+
+	public synchronized double getTime(int index) {
+		return fTimes[index];
+	}
+
+	public synchronized void setTime(int index, double time) {
+		fTimes[index]= time;
+	}
+
+	public synchronized byte getFlags(int index) {
+		return fFlags[index];
+	}
+
+	public synchronized void setFlags(int index, byte flags) {
+		fFlags[index]= flags;
+	}
+
+	public synchronized boolean hasFlag(int index, byte flag) {
+		return (fFlags[index] & flag) != 0;
+	}
+
+	public synchronized void setFlag(int index, byte flag, boolean value) {
+		if (value)
+			fFlags[index]|= flag;
+		else
+			fFlags[index]&= ~flag;
+	}
+
+	/**
+	 * Returns the failure of an element.
+	 *
+	 * @param index the element index
+	 * @return the trace, expected and actual value, or <code>null</code> if there is no failure
+	 */
+	public synchronized String[] getFailure(int index) {
+		if (index == fLastFailureIndex)
+			return fLastFailure;
+		byte[] deflated= getDeflatedFailure(index);
+		if (deflated == null)
+			return null;
+		fLastFailure= inflate(deflated);
+		fLastFailureIndex= index;
+		return fLastFailure;
+	}
+
+	public synchronized void setFailure(int index, String trace, String expected, String actual) {
+		Integer key= Integer.valueOf(index);
+		fFailureOffsets.remove(key);
+		if (trace == null && expected == null && actual == null)
+			fFailures.remove(key);
+		else
+			fFailures.put(key, deflate(new String[] { trace, expected, actual }));
+		if (index == fLastFailureIndex) {
+			fLastFailureIndex= -1;
+			fLastFailure= null;
+		}
+	}
+
+	/**
+	 * Returns the failure of an element in the form written to swap files.
+	 *
+	 * @param index the element index
+	 * @return the deflated failure, or <code>null</code> if there is no failure or it cannot be read
+	 */
+	public synchronized byte[] getDeflatedFailure(int index) {
+		Integer key= Integer.valueOf(index);
+		byte[] deflated= fFailures.get(key);
+		if (deflated != null)
+			return deflated;
+		Long offset= fFailureOffsets.get(key);
+		if (offset == null)
+			return null;
+		try {
+			return TestRunSessionSwapFile.readFailure(fFailureFile, offset.longValue());
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param file the swap file from which failures are read
+	 */
+	public synchronized void setFailureFile(File file) {
+		fFailureFile= file;
+	}
+
+	/**
+	 * Sets the offset of the failure of an element in the swap file.
+	 *
+	 * @param index the element index
+	 * @param offset the offset
+	 */
+	public synchronized void setFailureOffset(int index, long offset) {
+		fFailureOffsets.put(Integer.valueOf(index), Long.valueOf(offset));
+	}
+
+	/**
+	 * Makes the element the one that is found by {@link #getElementById(String)}.
+	 *
+	 * @param id the test id
+	 * @param element the element
+	 */
+	public synchronized void putId(String id, TestElement element) {
+		int numericId= parseId(id);
+		if (numericId == -1) {
+			fOtherIds.put(id, Integer.valueOf(element.getIndex()));
+			return;
+		}
+		if (numericId >= fNumericIds.length)
+			fNumericIds= Arrays.copyOf(fNumericIds, Math.max(numericId + 1, fNumericIds.length * 2));
+		fNumericIds[numericId]= element.getIndex() + 1;
+	}
+
+	public synchronized TestElement getElementById(String id) {
+		int numericId= parseId(id);
+		if (numericId == -1) {
+			Integer index= fOtherIds.get(id);
+			return index == null ? null : fElements[index.intValue()];
+		}
+		if (numericId >= fNumericIds.length || fNumericIds[numericId] == 0)
+			return null;
+		return fElements[fNumericIds[numericId] - 1];
+	}
+
+	/**
+	 * Parses ids in the canonical decimal form assigned by the RemoteTestRunner.
+	 *
+	 * @param id the test id
+	 * @return the id, or -1 if it is not a canonical non-negative integer below 2^24
+	 */
+	private static int parseId(String id) {
+		int length= id.length();
+		if (length == 0 || length > 7 || (length > 1 && id.charAt(0) == '0'))
+			return -1;
+		int result= 0;
+		for (int i= 0; i < length; i++) {
+			char c= id.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			result= result * 10 + (c - '0');
+		}
+		return result < (1 << 24) ? result : -1;
+	}
+
+	private static byte[] deflate(String[] values) {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		DataOutputStream out= new DataOutputStream(new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)));
+		try {
+			for (int i= 0; i < values.length; i++) {
+				if (values[i] == null) {
+					out.writeInt(-1);
+				} else {
+					byte[] value= values[i].getBytes(StandardCharsets.UTF_8);
+					out.writeInt(value.length);
+					out.write(value);
+				}
+			}
+			out.close();
+		} catch (IOException e) {
+			// cannot happen on a byte array
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String[] inflate(byte[] deflated) {
+		DataInputStream in= new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(deflated)));
+		String[] values= new String[3];
+		try {
+			for (int i= 0; i < values.length; i++) {
+				int length= in.readInt();
+				if (length != -1) {
+					byte[] value= new byte[length];
+					in.readFully(value);
+					values[i]= new String(value, StandardCharsets.UTF_8);
+				}
+			}
+			in.close();
+		} catch (IOException e) {
+			// cannot happen on a byte array written by deflate(String[])
+			throw new IllegalStateException(e);
+		}
+		return values;
+	}
+}
@@ -54,6 +54,12 @@ public class TestRunHandler extends DefaultHandler {
 	private StringBuffer fExpectedBuffer;
 	private StringBuffer fActualBuffer;
 
+	/**
+	 * Depth of nested elements whose contents are skipped, e.g. <code>system-out</code>, which
+	 * can hold megabytes of text in Ant and Maven surefire reports
+	 */
+	private int fSkippedDepth;
+
 	private Locator fLocator;
 
 	private Status fStatus;
@@ -94,8 +100,11 @@ public class TestRunHandler extends DefaultHandler {
 		}
 		if (Thread.interrupted())
 			throw new OperationCanceledException();
-		
-		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
+
+		if (fSkippedDepth > 0) {
+			fSkippedDepth++;
+
+		} else if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			if (fTestRunSession == null) {
 				String name= attributes.getValue(IXMLTags.ATTR_NAME);
 				String project= attributes.getValue(IXMLTags.ATTR_PROJECT);
@@ -161,8 +170,11 @@ public class TestRunHandler extends DefaultHandler {
 			fInActual= true;
 			fActualBuffer= new StringBuffer();
 
-		} else if (qName.equals(IXMLTags.NODE_SYSTEM_OUT) || qName.equals(IXMLTags.NODE_SYSTEM_ERR)) {
-			// not interested
+		} else if (qName.equals(IXMLTags.NODE_SYSTEM_OUT) || qName.equals(IXMLTags.NODE_SYSTEM_ERR)
+				|| qName.equals(IXMLTags.NODE_FLAKY_FAILURE) || qName.equals(IXMLTags.NODE_FLAKY_ERROR)
+				|| qName.equals(IXMLTags.NODE_RERUN_FAILURE) || qName.equals(IXMLTags.NODE_RERUN_ERROR)) {
+			// not interested, skip contents
+			fSkippedDepth= 1;
 
 		} else if (qName.equals(IXMLTags.NODE_SKIPPED)) {
 			// before Ant 1.9.0: not an Ant JUnit tag, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=276068
@@ -191,7 +203,10 @@ public class TestRunHandler extends DefaultHandler {
 
 	@Override
 	public void characters(char[] ch, int start, int length) throws SAXException {
-		if (fInExpected) {
+		if (fSkippedDepth > 0) {
+			// not interested
+
+		} else if (fInExpected) {
 			fExpectedBuffer.append(ch, start, length);
 
 		} else if (fInActual) {
@@ -204,7 +219,10 @@ public class TestRunHandler extends DefaultHandler {
 
 	@Override
 	public void endElement(String uri, String localName, String qName) throws SAXException {
-		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
+		if (fSkippedDepth > 0) {
+			fSkippedDepth--;
+
+		} else if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			// OK
 
 		} else if (qName.equals(IXMLTags.NODE_TESTSUITES)) {
@@ -242,9 +260,6 @@ public class TestRunHandler extends DefaultHandler {
 				fFailureBuffer.setLength(0);
 			}
 
-		} else if (qName.equals(IXMLTags.NODE_SYSTEM_OUT) || qName.equals(IXMLTags.NODE_SYSTEM_ERR)) {
-			// OK
-
 		} else if (qName.equals(IXMLTags.NODE_SKIPPED)) {
 			TestElement testElement= fTestCase;
 			if (testElement == null)
@@ -258,6 +273,9 @@ public class TestRunHandler extends DefaultHandler {
 			} else { // not expected
 				testElement.setAssumptionFailed(true);
 			}
+			// don't collect text after an empty <skipped/> node
+			fFailureBuffer= null;
+			fStatus= null;
 
 		} else {
 
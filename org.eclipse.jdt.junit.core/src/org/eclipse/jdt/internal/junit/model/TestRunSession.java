@@ -13,12 +13,12 @@
 package org.eclipse.jdt.internal.junit.model;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 
 import org.eclipse.jdt.junit.model.ITestElement;
@@ -68,6 +68,12 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private RemoteTestRunnerClient fTestRunnerClient;
 
+	/**
+	 * Test runner clients of all runner VMs of a sharded launch, or <code>null</code>. The
+	 * first one is also the {@link #fTestRunnerClient}.
+	 */
+	private RemoteTestRunnerClient[] fShardClients;
+
 	private final ListenerList/*<ITestSessionListener>*/ fSessionListeners;
 
 	/**
@@ -80,11 +86,6 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private Result fTestResult;
 
-	/**
-	 * Map from testId to testElement.
-	 */
-	private HashMap<String, TestElement> fIdToTest;
-
 	/**
 	 * The TestSuites for which additional children are expected.
 	 */
@@ -150,7 +151,6 @@ public class TestRunSession implements ITestRunSession {
 		fTestRunnerKind= ITestKind.NULL; //TODO
 
 		fTestRoot= new TestRoot(this);
-		fIdToTest= new HashMap<>();
 
 		fTestRunnerClient= null;
 
@@ -159,7 +159,20 @@ public class TestRunSession implements ITestRunSession {
 
 
 	public TestRunSession(ILaunch launch, IJavaProject project, int port) {
+		this(launch, project, new int[] { port });
+	}
+
+	/**
+	 * Creates a test run session for a launch that runs tests in one or several runner VMs.
+	 * The events of all VMs are merged into this session.
+	 *
+	 * @param launch the launch
+	 * @param project the launched project
+	 * @param ports the ports of the runner VMs
+	 */
+	public TestRunSession(ILaunch launch, IJavaProject project, int[] ports) {
 		Assert.isNotNull(launch);
+		Assert.isLegal(ports.length > 0);
 
 		fLaunch= launch;
 		fProject= project;
@@ -174,28 +187,33 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 		fTestRoot= new TestRoot(this);
-		fIdToTest= new HashMap<>();
 
-		fTestRunnerClient= new RemoteTestRunnerClient();
-		fTestRunnerClient.startListening(new ITestRunListener2[] { new TestSessionNotifier() }, port);
+		if (ports.length == 1) {
+			fTestRunnerClient= new RemoteTestRunnerClient();
+			fTestRunnerClient.startListening(new ITestRunListener2[] { new TestSessionNotifier() }, ports[0]);
+		} else {
+			ShardedTestSessionNotifier notifier= new ShardedTestSessionNotifier(ports.length);
+			fShardClients= new RemoteTestRunnerClient[ports.length];
+			for (int i= 0; i < ports.length; i++) {
+				fShardClients[i]= new RemoteTestRunnerClient();
+				fShardClients[i].startListening(new ITestRunListener2[] { notifier.createShardListener(i) }, ports[i]);
+			}
+			fTestRunnerClient= fShardClients[0];
+		}
 
 		final ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.addLaunchListener(new ILaunchesListener2() {
 			@Override
 			public void launchesTerminated(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
-					}
+					stopWaiting();
 					launchManager.removeLaunchListener(this);
 				}
 			}
 			@Override
 			public void launchesRemoved(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
-					}
+					stopWaiting();
 					launchManager.removeLaunchListener(this);
 				}
 			}
@@ -221,7 +239,6 @@ public class TestRunSession implements ITestRunSession {
 
 		fTestRoot= new TestRoot(this);
 		fTestResult= null;
-		fIdToTest= new HashMap<>();
 	}
 
 	@Override
@@ -355,21 +372,52 @@ public class TestRunSession implements ITestRunSession {
 		try {
 			File swapFile= getSwapFile();
 
-			JUnitModel.exportTestRunSession(this, swapFile);
+			TestRunSessionSwapFile.write(this, fTestRoot, swapFile);
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
 			fTestRunnerClient= null;
-			fIdToTest= new HashMap<>();
+			fShardClients= null;
 			fIncompleteTestSuites= null;
 			fUnrootedSuite= null;
 
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			JUnitCorePlugin.log(e);
 		}
 	}
 
+	/**
+	 * Visits the results of the test cases of this session. Unlike {@link #getTestRoot()}, this
+	 * does not swap in a swapped out session, but reads the results from the swap file.
+	 *
+	 * @param visitor the visitor of the test cases
+	 */
+	public synchronized void acceptTestCases(ITestCaseVisitor visitor) {
+		if (fTestRoot != null) {
+			acceptTestCases(fTestRoot, visitor);
+			return;
+		}
+		try {
+			TestRunSessionSwapFile.readTestCases(getSwapFile(), visitor);
+		} catch (IllegalStateException e) {
+			JUnitCorePlugin.log(e);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+	}
+
+	private static void acceptTestCases(TestSuiteElement suite, ITestCaseVisitor visitor) {
+		ArrayList<TestElement> children= suite.getChildElements();
+		for (int i= 0; i < children.size(); i++) {
+			TestElement child= children.get(i);
+			if (child instanceof TestSuiteElement)
+				acceptTestCases((TestSuiteElement) child, visitor);
+			else
+				visitor.visitTestCase(child.getTestName(), child.getStatus(), ((TestCaseElement) child).isIgnored(), child.getElapsedTimeInSeconds());
+		}
+	}
+
 	public boolean isStarting() {
 		return getStartTime() == 0 && fLaunch != null && ! fLaunch.isTerminated();
 	}
@@ -384,7 +432,7 @@ public class TestRunSession implements ITestRunSession {
 	private File getSwapFile() throws IllegalStateException {
 		File historyDir= JUnitCorePlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + ".swap"; //$NON-NLS-1$
 		return new File(historyDir, swapFileName);
 	}
 
@@ -394,12 +442,15 @@ public class TestRunSession implements ITestRunSession {
 			return;
 
 		try {
-			JUnitModel.importIntoTestRunSession(getSwapFile(), this);
+			TestRoot testRoot= new TestRoot(this);
+			TestRunSessionSwapFile.read(getSwapFile(), this, testRoot);
+			fTestRoot= testRoot;
+			fTestResult= null;
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
@@ -409,8 +460,23 @@ public class TestRunSession implements ITestRunSession {
 	public void stopTestRun() {
 		if (isRunning() || ! isKeptAlive())
 			fIsStopped= true;
-		if (fTestRunnerClient != null)
+		RemoteTestRunnerClient[] shardClients= fShardClients;
+		if (shardClients != null) {
+			for (int i= 0; i < shardClients.length; i++)
+				shardClients[i].stopTest();
+		} else if (fTestRunnerClient != null) {
 			fTestRunnerClient.stopTest();
+		}
+	}
+
+	private void stopWaiting() {
+		RemoteTestRunnerClient[] shardClients= fShardClients;
+		if (shardClients != null) {
+			for (int i= 0; i < shardClients.length; i++)
+				shardClients[i].stopWaiting();
+		} else if (fTestRunnerClient != null) {
+			fTestRunnerClient.stopWaiting();
+		}
 	}
 
 	/**
@@ -464,10 +530,13 @@ public class TestRunSession implements ITestRunSession {
 	}
 
 	public TestElement getTestElement(String id) {
-		return fIdToTest.get(id);
+		TestRoot testRoot= fTestRoot;
+		if (testRoot == null)
+			return null;
+		return testRoot.getStore().getElementById(id);
 	}
 
-	private TestElement addTreeEntry(String treeEntry) {
+	private TestElement addTreeEntry(String treeEntry, List<IncompleteTestSuite> incompleteTestSuites) {
 		// format: testId","testName","isSuite","testcount
 		int index0= treeEntry.indexOf(',');
 		String id= treeEntry.substring(0, index0);
@@ -481,29 +550,33 @@ public class TestRunSession implements ITestRunSession {
 
 		int testCount= Integer.parseInt(treeEntry.substring(index2 + 1));
 
-		if (fIncompleteTestSuites.isEmpty()) {
-			return createTestElement(fTestRoot, id, testName, isSuite, testCount);
+		if (incompleteTestSuites.isEmpty()) {
+			return createTestElement(fTestRoot, id, testName, isSuite, testCount, incompleteTestSuites);
 		} else {
-			int suiteIndex= fIncompleteTestSuites.size() - 1;
-			IncompleteTestSuite openSuite= fIncompleteTestSuites.get(suiteIndex);
+			int suiteIndex= incompleteTestSuites.size() - 1;
+			IncompleteTestSuite openSuite= incompleteTestSuites.get(suiteIndex);
 			openSuite.fOutstandingChildren--;
 			if (openSuite.fOutstandingChildren <= 0)
-				fIncompleteTestSuites.remove(suiteIndex);
-			return createTestElement(openSuite.fTestSuiteElement, id, testName, isSuite, testCount);
+				incompleteTestSuites.remove(suiteIndex);
+			return createTestElement(openSuite.fTestSuiteElement, id, testName, isSuite, testCount, incompleteTestSuites);
 		}
 	}
 
 	public TestElement createTestElement(TestSuiteElement parent, String id, String testName, boolean isSuite, int testCount) {
+		return createTestElement(parent, id, testName, isSuite, testCount, fIncompleteTestSuites);
+	}
+
+	private TestElement createTestElement(TestSuiteElement parent, String id, String testName, boolean isSuite, int testCount, List<IncompleteTestSuite> incompleteTestSuites) {
 		TestElement testElement;
 		if (isSuite) {
 			TestSuiteElement testSuiteElement= new TestSuiteElement(parent, id, testName, testCount);
 			testElement= testSuiteElement;
 			if (testCount > 0)
-				fIncompleteTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
+				incompleteTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
 		} else {
 			testElement= new TestCaseElement(parent, id, testName);
 		}
-		fIdToTest.put(id, testElement);
+		testElement.getStore().putId(id, testElement);
 		return testElement;
 	}
 
@@ -596,7 +669,11 @@ public class TestRunSession implements ITestRunSession {
 
 		@Override
 		public void testTreeEntry(String description) {
-			TestElement testElement= addTreeEntry(description);
+			testTreeEntry(description, fIncompleteTestSuites);
+		}
+
+		void testTreeEntry(String description, List<IncompleteTestSuite> incompleteTestSuites) {
+			TestElement testElement= addTreeEntry(description, incompleteTestSuites);
 
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -732,6 +809,119 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * Merges the events of the runner VMs of a sharded launch into this session. Test ids are
+	 * prefixed with the index of the shard, and the session ends when all shards have ended.
+	 * Events are forwarded one at a time, since the model is only updated by one thread per
+	 * runner VM otherwise.
+	 */
+	private class ShardedTestSessionNotifier {
+
+		private final TestSessionNotifier fNotifier= new TestSessionNotifier();
+		private final int fShardCount;
+		private int fStartedShards;
+		private int fFinishedShards;
+		private boolean fStopped;
+		private boolean fTerminated;
+		private long fElapsedTime;
+
+		public ShardedTestSessionNotifier(int shardCount) {
+			fShardCount= shardCount;
+		}
+
+		public ITestRunListener2 createShardListener(int shard) {
+			return new ShardListener(shard);
+		}
+
+		private class ShardListener implements ITestRunListener2 {
+			private final String fIdPrefix;
+			private final List<IncompleteTestSuite> fShardIncompleteTestSuites= new ArrayList<>();
+			private boolean fFinished;
+
+			public ShardListener(int shard) {
+				fIdPrefix= shard + ":"; //$NON-NLS-1$
+			}
+
+			@Override
+			public void testRunStarted(int testCount) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					if (fStartedShards++ == 0)
+						fNotifier.testRunStarted(testCount);
+					else
+						fTotalCount+= testCount;
+				}
+			}
+
+			@Override
+			public void testRunEnded(long elapsedTime) {
+				finish(this, elapsedTime, false, false);
+			}
+
+			@Override
+			public void testRunStopped(long elapsedTime) {
+				finish(this, elapsedTime, true, false);
+			}
+
+			@Override
+			public void testRunTerminated() {
+				finish(this, 0, true, true);
+			}
+
+			@Override
+			public void testTreeEntry(String description) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					fNotifier.testTreeEntry(fIdPrefix + description, fShardIncompleteTestSuites);
+				}
+			}
+
+			@Override
+			public void testStarted(String testId, String testName) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					fNotifier.testStarted(fIdPrefix + testId, testName);
+				}
+			}
+
+			@Override
+			public void testEnded(String testId, String testName) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					fNotifier.testEnded(fIdPrefix + testId, testName);
+				}
+			}
+
+			@Override
+			public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					fNotifier.testFailed(status, fIdPrefix + testId, testName, trace, expected, actual);
+				}
+			}
+
+			@Override
+			public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+				synchronized (ShardedTestSessionNotifier.this) {
+					fNotifier.testReran(fIdPrefix + testId, testClass, testName, status, trace, expected, actual);
+				}
+			}
+		}
+
+		private synchronized void finish(ShardListener shard, long elapsedTime, boolean stopped, boolean terminated) {
+			if (shard.fFinished)
+				return;
+			shard.fFinished= true;
+			fStopped|= stopped;
+			fTerminated|= terminated;
+			fElapsedTime= Math.max(fElapsedTime, elapsedTime);
+			if (++fFinishedShards < fShardCount)
+				return;
+
+			if (fTerminated)
+				fNotifier.testRunTerminated();
+			else if (fStopped)
+				fNotifier.testRunStopped(fElapsedTime);
+			else
+				fNotifier.testRunEnded(fElapsedTime);
+		}
+	}
+
 	private static class IncompleteTestSuite {
 		public TestSuiteElement fTestSuiteElement;
 		public int fOutstandingChildren;
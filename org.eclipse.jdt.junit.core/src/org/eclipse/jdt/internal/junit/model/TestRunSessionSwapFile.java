@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * Binary file a {@link TestRunSession} is swapped out to.
+ * <p>
+ * Unlike the XML transcript, the swap file is indexed: the tree and the summary counts are
+ * read in one sequential pass, and failure traces are only read when they are shown.
+ * </p>
+ * <pre>
+ * header:   int MAGIC, int VERSION, int started, failures, errors, assumption failures, ignored, total
+ * root:     byte status, byte children status, double time, int child count
+ * element:  byte kind, string id, string name, byte status, byte flags, double time, int failure,
+ *           suites only: byte children status, int child count
+ * failures: int length, byte[length] deflated trace, expected and actual
+ * index:    long offset per failure
+ * trailer:  long index offset, int failure count
+ * string:   int length, byte[length] UTF-8
+ * </pre>
+ * Elements are written in pre-order, status codes are {@link Status#getOldCode()} or -1.
+ */
+final class TestRunSessionSwapFile {
+
+	private static final int MAGIC= 0x4A555254; // "JURT"
+	private static final int VERSION= 1;
+
+	private static final byte KIND_CASE= 0;
+	private static final byte KIND_SUITE= 1;
+
+	private static final int TRAILER_LENGTH= 8 + 4;
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		long fCount;
+
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			fCount++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			fCount+= len;
+		}
+	}
+
+	private TestRunSessionSwapFile() {
+	}
+
+	/**
+	 * Writes the given session to a swap file. The file is replaced atomically, so that
+	 * failure traces of the given tree may still be read from the previous version of the file.
+	 *
+	 * @param session the session
+	 * @param root the test root of the session
+	 * @param file the swap file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(TestRunSession session, TestRoot root, File file) throws IOException {
+		File tmpFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		TestElementStore store= root.getStore();
+		List<byte[]> failures= new ArrayList<>();
+		CountingOutputStream counter= new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+		DataOutputStream out= new DataOutputStream(counter);
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(session.fStartedCount);
+			out.writeInt(session.fFailureCount);
+			out.writeInt(session.fErrorCount);
+			out.writeInt(session.fAssumptionFailureCount);
+			out.writeInt(session.fIgnoredCount);
+			out.writeInt(session.fTotalCount);
+
+			out.writeByte(store.getStatus(root.getIndex()).getOldCode());
+			out.writeByte(getCode(root.getChildrenStatus()));
+			out.writeDouble(root.getTime());
+			writeChildren(out, root, failures);
+
+			long[] offsets= new long[failures.size()];
+			for (int i= 0; i < offsets.length; i++) {
+				byte[] failure= failures.get(i);
+				offsets[i]= counter.fCount;
+				out.writeInt(failure.length);
+				out.write(failure);
+			}
+			long indexOffset= counter.fCount;
+			for (int i= 0; i < offsets.length; i++)
+				out.writeLong(offsets[i]);
+			out.writeLong(indexOffset);
+			out.writeInt(offsets.length);
+		} finally {
+			out.close();
+		}
+		Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void writeChildren(DataOutputStream out, TestSuiteElement suite, List<byte[]> failures) throws IOException {
+		TestElementStore store= suite.getStore();
+		ArrayList<TestElement> children= suite.getChildElements();
+		out.writeInt(children.size());
+		for (int i= 0; i < children.size(); i++) {
+			TestElement child= children.get(i);
+			int index= child.getIndex();
+			boolean isSuite= child instanceof TestSuiteElement;
+			out.writeByte(isSuite ? KIND_SUITE : KIND_CASE);
+			writeString(out, store.getId(index));
+			writeString(out, store.getName(index));
+			out.writeByte(store.getStatus(index).getOldCode());
+			out.writeByte(store.getFlags(index));
+			out.writeDouble(store.getTime(index));
+			byte[] failure= store.getDeflatedFailure(index);
+			if (failure == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(failures.size());
+				failures.add(failure);
+			}
+			if (isSuite) {
+				TestSuiteElement childSuite= (TestSuiteElement) child;
+				out.writeByte(getCode(childSuite.getChildrenStatus()));
+				writeChildren(out, childSuite, failures);
+			}
+		}
+	}
+
+	/**
+	 * Reads the tree and the counts of a session from a swap file. Failure traces stay in the
+	 * file until they are requested.
+	 *
+	 * @param file the swap file
+	 * @param session the session
+	 * @param root the empty test root to read into
+	 * @throws IOException if the file cannot be read or is not a swap file
+	 */
+	public static void read(File file, TestRunSession session, TestRoot root) throws IOException {
+		long[] offsets= readIndex(file);
+		DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a test run swap file: " + file); //$NON-NLS-1$
+			int startedCount= in.readInt();
+			int failureCount= in.readInt();
+			int errorCount= in.readInt();
+			int assumptionFailureCount= in.readInt();
+			int ignoredCount= in.readInt();
+			int totalCount= in.readInt();
+
+			TestElementStore store= root.getStore();
+			store.setFailureFile(file);
+			store.setStatus(root.getIndex(), Status.fromCode(in.readByte()));
+			root.setChildrenStatus(getStatus(in.readByte()));
+			root.setTime(in.readDouble());
+			readChildren(in, root, offsets);
+
+			session.fStartedCount= startedCount;
+			session.fFailureCount= failureCount;
+			session.fErrorCount= errorCount;
+			session.fAssumptionFailureCount= assumptionFailureCount;
+			session.fIgnoredCount= ignoredCount;
+			session.fTotalCount= totalCount;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void readChildren(DataInputStream in, TestSuiteElement suite, long[] offsets) throws IOException {
+		TestElementStore store= suite.getStore();
+		int childCount= in.readInt();
+		for (int i= 0; i < childCount; i++) {
+			byte kind= in.readByte();
+			String id= readString(in);
+			String name= readString(in);
+			TestElement child;
+			if (kind == KIND_SUITE)
+				child= new TestSuiteElement(suite, id, name, 0);
+			else
+				child= new TestCaseElement(suite, id, name);
+			int index= child.getIndex();
+			store.putId(id, child);
+			store.setStatus(index, Status.fromCode(in.readByte()));
+			store.setFlags(index, in.readByte());
+			store.setTime(index, in.readDouble());
+			int failure= in.readInt();
+			if (failure != -1)
+				store.setFailureOffset(index, offsets[failure]);
+			if (kind == KIND_SUITE) {
+				TestSuiteElement childSuite= (TestSuiteElement) child;
+				childSuite.setChildrenStatus(getStatus(in.readByte()));
+				readChildren(in, childSuite, offsets);
+			}
+		}
+	}
+
+	/**
+	 * Reads the results of the test cases from a swap file, without building the tree.
+	 *
+	 * @param file the swap file
+	 * @param visitor the visitor of the test cases
+	 * @throws IOException if the file cannot be read or is not a swap file
+	 */
+	public static void readTestCases(File file, ITestCaseVisitor visitor) throws IOException {
+		DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a test run swap file: " + file); //$NON-NLS-1$
+			// counts, root status, root children status and root time
+			skipFully(in, 6 * 4 + 1 + 1 + 8);
+			readTestCases(in, visitor);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void readTestCases(DataInputStream in, ITestCaseVisitor visitor) throws IOException {
+		int childCount= in.readInt();
+		for (int i= 0; i < childCount; i++) {
+			byte kind= in.readByte();
+			skipFully(in, in.readInt()); // id
+			String name= readString(in);
+			Status status= Status.fromCode(in.readByte());
+			byte flags= in.readByte();
+			double time= in.readDouble();
+			in.readInt(); // failure
+			if (kind == KIND_SUITE) {
+				in.readByte(); // children status
+				readTestCases(in, visitor);
+			} else {
+				boolean ignored= (flags & TestElementStore.FLAG_IGNORED) != 0;
+				visitor.visitTestCase(name, status, ignored, Double.isNaN(time) || time < 0.0d ? Double.NaN : time);
+			}
+		}
+	}
+
+	private static long[] readIndex(File file) throws IOException {
+		RandomAccessFile in= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			long length= in.length();
+			if (length < TRAILER_LENGTH)
+				throw new IOException("Not a test run swap file: " + file); //$NON-NLS-1$
+			in.seek(length - TRAILER_LENGTH);
+			long indexOffset= in.readLong();
+			int failureCount= in.readInt();
+			if (indexOffset < 0 || failureCount < 0 || indexOffset + 8L * failureCount != length - TRAILER_LENGTH)
+				throw new IOException("Corrupt test run swap file: " + file); //$NON-NLS-1$
+			long[] offsets= new long[failureCount];
+			in.seek(indexOffset);
+			for (int i= 0; i < failureCount; i++)
+				offsets[i]= in.readLong();
+			return offsets;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a deflated failure.
+	 *
+	 * @param file the swap file
+	 * @param offset the offset of the failure
+	 * @return the deflated failure as written by the {@link TestElementStore}
+	 * @throws IOException if the failure cannot be read
+	 */
+	public static byte[] readFailure(File file, long offset) throws IOException {
+		RandomAccessFile in= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			in.seek(offset);
+			byte[] failure= new byte[in.readInt()];
+			in.readFully(failure);
+			return failure;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static int getCode(Status status) {
+		return status == null ? -1 : status.getOldCode();
+	}
+
+	private static Status getStatus(byte code) {
+		return code == -1 ? null : Status.fromCode(code);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes= s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void skipFully(DataInputStream in, int length) throws IOException {
+		while (length > 0) {
+			int skipped= in.skipBytes(length);
+			if (skipped <= 0)
+				throw new EOFException();
+			length-= skipped;
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes= new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
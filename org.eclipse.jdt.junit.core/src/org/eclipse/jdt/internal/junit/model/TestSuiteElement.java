@@ -23,6 +23,14 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 	private List<TestElement> fChildren;
 	private Status fChildrenStatus;
 
+	/**
+	 * Number of leading children whose status has been combined into {@link #fCumulatedStatus}.
+	 * Children are appended one by one while a test run is imported, so the cumulated status
+	 * is extended instead of being recomputed from all children for every new child.
+	 */
+	private int fCumulatedCount;
+	private Status fCumulatedStatus;
+
 	public TestSuiteElement(TestSuiteElement parent, String id, String testName, int childrenCount) {
 		super(parent, id, testName);
 		fChildren= new ArrayList<>(childrenCount);
@@ -47,10 +55,53 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 		return fChildren.toArray(new ITestElement[fChildren.size()]);
 	}
 
+	/**
+	 * @return the number of children
+	 */
+	public int getChildCount() {
+		return fChildren.size();
+	}
+
+	/**
+	 * Returns a child without copying the children, for lazy viewers.
+	 *
+	 * @param index the index of the child
+	 * @return the child
+	 */
+	public TestElement getChild(int index) {
+		return fChildren.get(index);
+	}
+
 	public void addChild(TestElement child) {
 		fChildren.add(child);
 	}
 
+	/**
+	 * @return a copy of the list of children
+	 */
+	/* default */ ArrayList<TestElement> getChildElements() {
+		return new ArrayList<>(fChildren);
+	}
+
+	/**
+	 * @return the cumulated status of the children, or <code>null</code> if none has been
+	 *         computed yet
+	 */
+	/* default */ Status getChildrenStatus() {
+		return fChildrenStatus;
+	}
+
+	/**
+	 * Restores the cumulated status of the children without notifying the parent.
+	 *
+	 * @param status the status, or <code>null</code>
+	 */
+	/* default */ void setChildrenStatus(Status status) {
+		fChildrenStatus= status;
+		fCumulatedCount= 0;
+		fCumulatedStatus= null;
+	}
+
 	@Override
 	public Status getStatus() {
 		Status suiteStatus= getSuiteStatus();
@@ -63,16 +114,21 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 	}
 
 	private Status getCumulatedStatus() {
-		TestElement[] children= fChildren.toArray(new TestElement[fChildren.size()]); // copy list to avoid concurreny problems
-		if (children.length == 0)
+		// children are only appended, so reading up to the current size avoids concurrency problems
+		int childCount= fChildren.size();
+		if (childCount == 0)
 			return getSuiteStatus();
 
-		Status cumulated= children[0].getStatus();
-
-		for (int i= 1; i < children.length; i++) {
-			Status childStatus= children[i].getStatus();
-			cumulated= Status.combineStatus(cumulated, childStatus);
+		// all children but the last one are combined into fCumulatedStatus, see childChangedStatus(..)
+		int last= childCount - 1;
+		for (int i= fCumulatedCount; i < last; i++) {
+			Status childStatus= fChildren.get(i).getStatus();
+			fCumulatedStatus= i == 0 ? childStatus : Status.combineStatus(fCumulatedStatus, childStatus);
 		}
+		fCumulatedCount= last;
+
+		Status lastStatus= fChildren.get(last).getStatus();
+		Status cumulated= last == 0 ? lastStatus : Status.combineStatus(fCumulatedStatus, lastStatus);
 		// not necessary, see special code in Status.combineProgress()
 //		if (suiteStatus.isErrorOrFailure() && cumulated.isNotRun())
 //			return suiteStatus; //progress is Done if error in Suite and no children run
@@ -85,12 +141,17 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 
 	public void childChangedStatus(TestElement child, Status childStatus) {
 		int childCount= fChildren.size();
+		TestElement lastChild= fChildren.get(childCount - 1);
+		if (child != lastChild) {
+			// the child may already be combined into fCumulatedStatus
+			fCumulatedCount= 0;
+			fCumulatedStatus= null;
+		}
 		if (child == fChildren.get(0) && childStatus.isRunning()) {
 			// is first child, and is running -> copy status
 			internalSetChildrenStatus(childStatus);
 			return;
 		}
-		TestElement lastChild= fChildren.get(childCount - 1);
 		if (child == lastChild) {
 			if (childStatus.isDone()) {
 				// all children done, collect cumulative status
@@ -123,16 +184,17 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 		if (fChildrenStatus == status)
 			return;
 
+		double time= getTime();
 		if (status == Status.RUNNING) {
-			if (fTime >= 0.0d) {
+			if (time >= 0.0d) {
 				// re-running child: ignore change
 			} else {
-				fTime= - System.currentTimeMillis() / 1000d;
+				setTime(- System.currentTimeMillis() / 1000d);
 			}
 		} else if (status.convertToProgressState() == ProgressState.COMPLETED) {
-			if (fTime < 0) { // assert ! Double.isNaN(fTime)
+			if (time < 0) { // assert ! Double.isNaN(time)
 				double endTime= System.currentTimeMillis() / 1000d;
-				fTime= endTime + fTime;
+				setTime(endTime + time);
 			}
 		}
 
@@ -43,6 +43,7 @@ import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.launcher.ITestFinder;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
 
@@ -54,7 +55,11 @@ public class CoreTestSearchEngine {
 
 	public static boolean isTestOrTestSuite(IType declaringType) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(declaringType);
-		return testKind.getFinder().isTest(declaringType);
+		ITestFinder finder= testKind.getFinder();
+		Boolean indexed= JUnitCorePlugin.getTestIndex().isIndexedTest(finder, declaringType);
+		if (indexed != null)
+			return indexed.booleanValue();
+		return finder.isTest(declaringType);
 	}
 
 	public static boolean isAccessibleClass(IType type) throws JavaModelException {
@@ -23,6 +23,7 @@ import java.net.URL;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -54,9 +55,13 @@ import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
 import org.eclipse.jdt.internal.junit.Messages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
+import org.eclipse.jdt.internal.junit.launcher.ImpactedTestFinder;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.launcher.TestRunHistory;
+import org.eclipse.jdt.internal.junit.launcher.TestShardPlanner;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -81,6 +86,7 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 	private boolean fKeepAlive= false;
 	private int fPort;
 	private IMember[] fTestElements;
+	private String fTestHistoryFile;
 
 	@Override
 	public synchronized void launch(ILaunchConfiguration configuration, String mode, ILaunch launch, IProgressMonitor monitor) throws CoreException {
@@ -88,7 +94,7 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			monitor = new NullProgressMonitor();
 		}
 
-		monitor.beginTask(MessageFormat.format("{0}...", configuration.getName()), 5); //$NON-NLS-1$
+		monitor.beginTask(MessageFormat.format("{0}...", configuration.getName()), 6); //$NON-NLS-1$
 		// check for cancellation
 		if (monitor.isCanceled()) {
 			return;
@@ -117,10 +123,21 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			}
 
 			fKeepAlive= mode.equals(ILaunchManager.DEBUG_MODE) && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, false);
-			fPort= evaluatePort();
-			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(fPort));
 
-			fTestElements= evaluateTests(configuration, new SubProgressMonitor(monitor, 1));
+			IMember[] testElements= evaluateTests(configuration, new SubProgressMonitor(monitor, 1));
+			testElements= evaluateHistory(configuration, testElements, new SubProgressMonitor(monitor, 1));
+			List<IMember[]> shards= evaluateShards(configuration, testElements);
+			int[] ports= evaluatePorts(shards.size());
+			if (ports.length > 1) {
+				StringBuffer shardPorts= new StringBuffer();
+				for (int i= 0; i < ports.length; i++) {
+					if (i > 0)
+						shardPorts.append(',');
+					shardPorts.append(ports[i]);
+				}
+				launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS, shardPorts.toString());
+			}
+			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(ports[0]));
 
 			String mainTypeName= verifyMainTypeName(configuration);
 			IVMRunner runner= getVMRunner(configuration, mode);
@@ -134,26 +151,33 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			// Environment variables
 			String[] envp= getEnvironment(configuration);
 
-			ArrayList<String> vmArguments= new ArrayList<>();
-			ArrayList<String> programArguments= new ArrayList<>();
-			collectExecutionArguments(configuration, vmArguments, programArguments);
-
 			// VM-specific attributes
 			Map<String, Object> vmAttributesMap= getVMSpecificAttributesMap(configuration);
 
 			// Classpath
 			String[] classpath= getClasspath(configuration);
 
-			// Create VM config
-			VMRunnerConfiguration runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
-			runConfig.setVMArguments(vmArguments.toArray(new String[vmArguments.size()]));
-			runConfig.setProgramArguments(programArguments.toArray(new String[programArguments.size()]));
-			runConfig.setEnvironment(envp);
-			runConfig.setWorkingDirectory(workingDirName);
-			runConfig.setVMSpecificAttributesMap(vmAttributesMap);
-
-			// Bootpath
-			runConfig.setBootClassPath(getBootpath(configuration));
+			// Create a VM config per shard
+			VMRunnerConfiguration[] runConfigs= new VMRunnerConfiguration[shards.size()];
+			for (int i= 0; i < runConfigs.length; i++) {
+				fPort= ports[i];
+				fTestElements= shards.get(i);
+
+				ArrayList<String> vmArguments= new ArrayList<>();
+				ArrayList<String> programArguments= new ArrayList<>();
+				collectExecutionArguments(configuration, vmArguments, programArguments);
+
+				VMRunnerConfiguration runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
+				runConfig.setVMArguments(vmArguments.toArray(new String[vmArguments.size()]));
+				runConfig.setProgramArguments(programArguments.toArray(new String[programArguments.size()]));
+				runConfig.setEnvironment(envp);
+				runConfig.setWorkingDirectory(workingDirName);
+				runConfig.setVMSpecificAttributesMap(vmAttributesMap);
+
+				// Bootpath
+				runConfig.setBootClassPath(getBootpath(configuration));
+				runConfigs[i]= runConfig;
+			}
 
 			// check for cancellation
 			if (monitor.isCanceled()) {
@@ -169,14 +193,17 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			monitor.worked(1);
 
 			// Launch the configuration - 1 unit of work
-			runner.run(runConfig, launch, monitor);
+			for (int i= 0; i < runConfigs.length; i++) {
+				runner.run(runConfigs[i], launch, monitor);
 
-			// check for cancellation
-			if (monitor.isCanceled()) {
-				return;
+				// check for cancellation
+				if (monitor.isCanceled()) {
+					return;
+				}
 			}
 		} finally {
 			fTestElements= null;
+			fTestHistoryFile= null;
 			monitor.done();
 		}
 	}
@@ -189,6 +216,88 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		return port;
 	}
 
+	private int[] evaluatePorts(int count) throws CoreException {
+		int[] ports= new int[count];
+		HashSet<Integer> used= new HashSet<>();
+		for (int i= 0; i < count; i++) {
+			int port= evaluatePort();
+			// the ports are only reserved when the clients start listening
+			for (int retry= 0; used.contains(Integer.valueOf(port)) && retry < 10; retry++)
+				port= evaluatePort();
+			if (! used.add(Integer.valueOf(port)))
+				abort(JUnitMessages.JUnitLaunchConfigurationDelegate_error_no_socket, null, IJavaLaunchConfigurationConstants.ERR_NO_SOCKET_AVAILABLE);
+			ports[i]= port;
+		}
+		return ports;
+	}
+
+	/**
+	 * Applies the history of the configuration as configured by
+	 * {@link JUnitLaunchConfigurationConstants#ATTR_PRIORITIZE_BY_HISTORY} and
+	 * {@link JUnitLaunchConfigurationConstants#ATTR_RUN_IMPACTED_TESTS}.
+	 *
+	 * @param configuration the launch configuration
+	 * @param testElements the tests to run
+	 * @param monitor the progress monitor
+	 * @return the tests to run
+	 * @throws CoreException if the configuration cannot be read or the search for affected tests fails
+	 */
+	private IMember[] evaluateHistory(ILaunchConfiguration configuration, IMember[] testElements, IProgressMonitor monitor) throws CoreException {
+		try {
+			boolean prioritize= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, false);
+			boolean impactedOnly= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_RUN_IMPACTED_TESTS, false);
+			if (! prioritize && ! impactedOnly)
+				return testElements;
+
+			TestRunHistory history= TestRunHistory.create(configuration.getName());
+			if (prioritize && ! history.isEmpty())
+				fTestHistoryFile= history.createHistoryFile();
+
+			// without a successful run, all tests are affected
+			long lastGreenRunTime= history.getLastGreenRunTime();
+			if (! impactedOnly || lastGreenRunTime == -1)
+				return testElements;
+			IMember[] impacted= new ImpactedTestFinder(getJavaProject(configuration)).findImpactedTests(testElements, lastGreenRunTime, monitor);
+			if (impacted.length == 0)
+				abort(JUnitMessages.JUnitLaunchConfigurationDelegate_error_no_impacted_tests, null, IJavaLaunchConfigurationConstants.ERR_UNSPECIFIED_MAIN_TYPE);
+			return impacted;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Splits the tests into the shards configured by
+	 * {@link JUnitLaunchConfigurationConstants#ATTR_SHARD_COUNT}. Only launches of several test
+	 * classes are sharded, and launches that keep the runner alive are not, since tests are
+	 * rerun in the kept VM.
+	 *
+	 * @param configuration the launch configuration
+	 * @param testElements the tests to run
+	 * @return the tests of each runner VM
+	 * @throws CoreException if the configuration cannot be read
+	 */
+	private List<IMember[]> evaluateShards(ILaunchConfiguration configuration, IMember[] testElements) throws CoreException {
+		int shardCount= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, 1);
+		if (shardCount <= 1 || fKeepAlive || testElements.length <= 1)
+			return Collections.singletonList(testElements);
+
+		IType[] types= new IType[testElements.length];
+		for (int i= 0; i < testElements.length; i++) {
+			if (!(testElements[i] instanceof IType))
+				return Collections.singletonList(testElements);
+			types[i]= (IType) testElements[i];
+		}
+
+		String failureNames= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
+		TestShardPlanner planner= new TestShardPlanner(TestShardPlanner.getClassTimes(configuration.getName()), TestShardPlanner.getFailedClasses(failureNames));
+		List<List<IType>> typeShards= planner.plan(types, shardCount);
+		List<IMember[]> shards= new ArrayList<>(typeShards.size());
+		for (List<IType> typeShard : typeShards)
+			shards.add(typeShard.toArray(new IMember[typeShard.size()]));
+		return shards;
+	}
+
 	/**
 	 * Performs a check on the launch configuration's attributes. If an attribute contains an invalid value, a {@link CoreException}
 	 * with the error is thrown.
@@ -295,6 +404,10 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		programArguments.add("-port"); //$NON-NLS-1$
 		programArguments.add(String.valueOf(fPort));
 
+		// older runtimes ignore the argument and keep using the text protocol
+		programArguments.add("-protocol"); //$NON-NLS-1$
+		programArguments.add(MessageIds.BINARY_PROTOCOL_ARGUMENT);
+
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
@@ -329,6 +442,10 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			programArguments.add("-testfailures"); //$NON-NLS-1$
 			programArguments.add(testFailureNames);
 		}
+		if (fTestHistoryFile != null) {
+			programArguments.add("-testhistory"); //$NON-NLS-1$
+			programArguments.add(fTestHistoryFile);
+		}
 	}
 
 	private String createTestNamesFile(IMember[] testElements) throws CoreException {
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+/**
+ * Sends the messages of the RemoteTestRunner with the binary protocol.
+ * <p>
+ * After the {@link MessageIds#PROTOCOL_BINARY} line, messages are encoded as records
+ * which are batched into frames:
+ * </p>
+ * <pre>
+ * frame:  int length, byte[length] records
+ * record: byte type, fields (see MessageIds.BINARY_*)
+ * string: int length, byte[length] UTF-8
+ * </pre>
+ * <p>
+ * A frame is written when it exceeds {@link #FRAME_SIZE}, when it is older than
+ * {@link #FLUSH_INTERVAL} and after the end of a test run or a rerun. Test start, end
+ * and failure messages are sent with the integer test id, the test name is only sent
+ * when it differs from the last one sent for that id.
+ * </p>
+ */
+public class BinaryMessageSender implements MessageSender {
+
+	/**
+	 * Size in bytes after which a frame is written.
+	 */
+	public static final int FRAME_SIZE= 32 * 1024;
+
+	/**
+	 * Maximal time in milliseconds a message is kept back.
+	 */
+	public static final long FLUSH_INTERVAL= 100;
+
+	/**
+	 * Writes frames that are older than the flush interval while a test is running.
+	 */
+	private class FlushThread extends Thread {
+		public FlushThread() {
+			super("BinaryMessageSender"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		public void run() {
+			synchronized (BinaryMessageSender.this) {
+				while (!fClosed) {
+					try {
+						BinaryMessageSender.this.wait(FLUSH_INTERVAL);
+					} catch (InterruptedException e) {
+						return;
+					}
+					flushIfDue();
+				}
+			}
+		}
+	}
+
+	private final DataOutputStream fOut;
+	private final ByteArrayOutputStream fFrame;
+	private final DataOutputStream fRecords;
+	/**
+	 * Last test name sent per test id (Integer -> String)
+	 */
+	private final HashMap fNames= new HashMap();
+	/**
+	 * Time when the first record of the current frame has been added, or -1
+	 */
+	private long fFrameStart= -1;
+	private boolean fClosed;
+
+	/**
+	 * Creates a sender and writes the protocol line.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if the protocol line cannot be written
+	 */
+	public BinaryMessageSender(OutputStream out) throws IOException {
+		fOut= new DataOutputStream(new BufferedOutputStream(out, FRAME_SIZE + 4096));
+		fFrame= new ByteArrayOutputStream(FRAME_SIZE + 4096);
+		fRecords= new DataOutputStream(fFrame);
+		fOut.write((MessageIds.PROTOCOL_BINARY + MessageIds.BINARY_PROTOCOL_VERSION + '\n').getBytes("UTF-8")); //$NON-NLS-1$
+		fOut.flush();
+		new FlushThread().start();
+	}
+
+	public synchronized void sendMessage(String msg) {
+		if (fClosed)
+			return;
+		try {
+			boolean endOfRun= encode(msg);
+			if (fFrameStart == -1)
+				fFrameStart= System.currentTimeMillis();
+			if (endOfRun || fFrame.size() >= FRAME_SIZE)
+				writeFrame();
+		} catch (IOException e) {
+			// like the PrintWriter of the text protocol, stop sending
+			fClosed= true;
+		}
+	}
+
+	/**
+	 * Only writes the current frame if it is older than {@link #FLUSH_INTERVAL}. The ends
+	 * of test runs are written immediately.
+	 */
+	public synchronized void flush() {
+		flushIfDue();
+	}
+
+	/**
+	 * Writes the pending messages and stops sending.
+	 */
+	public synchronized void close() {
+		if (fClosed)
+			return;
+		try {
+			writeFrame();
+		} catch (IOException e) {
+			// closed anyway
+		}
+		fClosed= true;
+		notifyAll();
+	}
+
+	private void flushIfDue() {
+		if (fClosed || fFrameStart == -1 || System.currentTimeMillis() - fFrameStart < FLUSH_INTERVAL)
+			return;
+		try {
+			writeFrame();
+		} catch (IOException e) {
+			fClosed= true;
+		}
+	}
+
+	private void writeFrame() throws IOException {
+		if (fFrame.size() > 0) {
+			fOut.writeInt(fFrame.size());
+			fFrame.writeTo(fOut);
+			fFrame.reset();
+		}
+		fFrameStart= -1;
+		fOut.flush();
+	}
+
+	/**
+	 * Encodes a message.
+	 *
+	 * @param msg the message
+	 * @return <code>true</code> if the message ends a test run or a rerun
+	 * @throws IOException if the message cannot be written
+	 */
+	private boolean encode(String msg) throws IOException {
+		byte type= getEventType(msg);
+		if (type != -1) {
+			int comma= msg.indexOf(',', MessageIds.MSG_HEADER_LENGTH);
+			int id= parseId(msg, MessageIds.MSG_HEADER_LENGTH, comma);
+			if (id != -1) {
+				fRecords.writeByte(type);
+				fRecords.writeInt(id);
+				writeName(id, msg.substring(comma + 1));
+				return false;
+			}
+		} else if (msg.startsWith(MessageIds.TEST_TREE)) {
+			// format: testId,escapedName,isSuite,testCount
+			int comma= msg.indexOf(',', MessageIds.MSG_HEADER_LENGTH);
+			int countComma= msg.lastIndexOf(',');
+			int suiteComma= msg.lastIndexOf(',', countComma - 1);
+			int id= parseId(msg, MessageIds.MSG_HEADER_LENGTH, comma);
+			int count= parseId(msg, countComma + 1, msg.length());
+			String isSuite= msg.substring(suiteComma + 1, countComma);
+			if (id != -1 && count != -1 && comma < suiteComma && ("true".equals(isSuite) || "false".equals(isSuite))) { //$NON-NLS-1$ //$NON-NLS-2$
+				fRecords.writeByte(MessageIds.BINARY_TEST_TREE);
+				fRecords.writeInt(id);
+				writeName(id, unescapeComma(msg.substring(comma + 1, suiteComma)));
+				fRecords.writeBoolean("true".equals(isSuite)); //$NON-NLS-1$
+				fRecords.writeInt(count);
+				return false;
+			}
+		}
+		fRecords.writeByte(MessageIds.BINARY_MESSAGE);
+		writeString(msg);
+		return msg.startsWith(MessageIds.TEST_RUN_END) || msg.startsWith(MessageIds.TEST_STOPPED) || msg.startsWith(MessageIds.TEST_RERAN);
+	}
+
+	private static byte getEventType(String msg) {
+		if (msg.startsWith(MessageIds.TEST_START))
+			return MessageIds.BINARY_TEST_START;
+		if (msg.startsWith(MessageIds.TEST_END))
+			return MessageIds.BINARY_TEST_END;
+		if (msg.startsWith(MessageIds.TEST_ERROR))
+			return MessageIds.BINARY_TEST_ERROR;
+		if (msg.startsWith(MessageIds.TEST_FAILED))
+			return MessageIds.BINARY_TEST_FAILED;
+		return -1;
+	}
+
+	/**
+	 * Parses a non-negative decimal integer.
+	 *
+	 * @param s the string
+	 * @param start the start index
+	 * @param end the end index (exclusive)
+	 * @return the integer, or -1 if the range is not a non-negative integer
+	 */
+	private static int parseId(String s, int start, int end) {
+		if (start < 0 || end <= start || end - start > 9)
+			return -1;
+		int result= 0;
+		for (int i= start; i < end; i++) {
+			char c= s.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			result= result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	private void writeName(int id, String name) throws IOException {
+		Integer key= new Integer(id);
+		if (name.equals(fNames.get(key))) {
+			fRecords.writeByte(MessageIds.BINARY_NAME_KNOWN);
+		} else {
+			fNames.put(key, name);
+			fRecords.writeByte(MessageIds.BINARY_NAME);
+			writeString(name);
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		byte[] bytes= s.getBytes("UTF-8"); //$NON-NLS-1$
+		fRecords.writeInt(bytes.length);
+		fRecords.write(bytes);
+	}
+
+	private static String unescapeComma(String s) {
+		if (s.indexOf('\\') < 0)
+			return s;
+		StringBuffer sb= new StringBuffer(s.length());
+		for (int i= 0; i < s.length(); i++) {
+			char c= s.charAt(i);
+			if (c == '\\' && i + 1 < s.length())
+				c= s.charAt(++i);
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Vector;
+
+import junit.extensions.TestDecorator;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Orders the tests of every suite by their {@link TestHistory}, see
+ * {@link TestHistory#compare(double, double, double, double)}. A suite fails if one of its
+ * tests fails and takes the time of all its tests.
+ */
+public class HistoryPrioritizer implements ITestPrioritizer {
+
+	private final TestHistory fHistory;
+
+	/**
+	 * Failure probability and duration by test
+	 */
+	private final HashMap fKeys= new HashMap();
+
+	public HistoryPrioritizer(TestHistory history) {
+		fHistory= history;
+	}
+
+	public Test prioritize(Test suite) {
+		computeKey(suite);
+		fKeys.clear();
+		return suite;
+	}
+
+	private double[] computeKey(Test test) {
+		double[] key;
+		if (test instanceof TestSuite) {
+			Vector tests= (Vector) FailuresFirstPrioritizer.getField(test, "fTests"); //$NON-NLS-1$
+			double successProbability= 1;
+			double duration= 0;
+			for (Enumeration e= ((TestSuite) test).tests(); e.hasMoreElements();) {
+				double[] childKey= computeKey((Test) e.nextElement());
+				successProbability*= 1 - childKey[0];
+				duration+= childKey[1];
+			}
+			if (tests != null)
+				Collections.sort(tests, new Comparator() {
+					public int compare(Object o1, Object o2) {
+						double[] key1= (double[]) fKeys.get(o1);
+						double[] key2= (double[]) fKeys.get(o2);
+						return TestHistory.compare(key1[0], key1[1], key2[0], key2[1]);
+					}
+				});
+			key= new double[] { 1 - successProbability, duration };
+		} else if (test instanceof TestDecorator) {
+			key= computeKey(((TestDecorator) test).getTest());
+		} else {
+			String name= test.toString();
+			key= new double[] { fHistory.getFailureProbability(name), fHistory.getDuration(name) };
+		}
+		fKeys.put(test, key);
+		return key;
+	}
+}
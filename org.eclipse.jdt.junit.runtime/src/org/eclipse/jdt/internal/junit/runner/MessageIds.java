@@ -120,6 +120,65 @@ public class MessageIds {
 	 */
 	public static final String TEST_RERUN=	">RERUN  "; //$NON-NLS-1$
 
+	/**
+	 * Notification that the RemoteTestRunner uses the binary protocol.
+	 * PROTOCOL_BINARY + BINARY_PROTOCOL_VERSION.
+	 * This is the first and only line sent as text. It is followed by frames
+	 * as written by {@link BinaryMessageSender}.
+	 */
+	public static final String PROTOCOL_BINARY= "%BINARY "; //$NON-NLS-1$
+	/**
+	 * Version of the binary protocol.
+	 */
+	public static final int BINARY_PROTOCOL_VERSION= 1;
+	/**
+	 * Value of the <code>-protocol</code> argument of the RemoteTestRunner
+	 * that requests the binary protocol.
+	 */
+	public static final String BINARY_PROTOCOL_ARGUMENT= "binary"; //$NON-NLS-1$
+
+	/**
+	 * Binary record of any other message.
+	 * BINARY_MESSAGE + string
+	 */
+	public static final byte BINARY_MESSAGE= 0;
+	/**
+	 * Binary record of a TEST_TREE message.
+	 * BINARY_TEST_TREE + int testId + name + boolean isSuite + int testCount
+	 */
+	public static final byte BINARY_TEST_TREE= 1;
+	/**
+	 * Binary record of a TEST_START message.
+	 * BINARY_TEST_START + int testId + name
+	 */
+	public static final byte BINARY_TEST_START= 2;
+	/**
+	 * Binary record of a TEST_END message.
+	 * BINARY_TEST_END + int testId + name
+	 */
+	public static final byte BINARY_TEST_END= 3;
+	/**
+	 * Binary record of a TEST_ERROR message.
+	 * BINARY_TEST_ERROR + int testId + name
+	 */
+	public static final byte BINARY_TEST_ERROR= 4;
+	/**
+	 * Binary record of a TEST_FAILED message.
+	 * BINARY_TEST_FAILED + int testId + name
+	 */
+	public static final byte BINARY_TEST_FAILED= 5;
+	/**
+	 * Test names in binary records are interned per test id:
+	 * BINARY_NAME_KNOWN if the name is the last one sent for the test id,
+	 * otherwise BINARY_NAME + string.
+	 */
+	public static final byte BINARY_NAME_KNOWN= 0;
+	/**
+	 * Test name sent in a binary record.
+	 * @see #BINARY_NAME_KNOWN
+	 */
+	public static final byte BINARY_NAME= 1;
+
 	/**
 	 * MessageFormat to encode test method identifiers:
 	 * testMethod(testClass)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,6 +74,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Sender for the binary protocol, or <code>null</code> if the text protocol is used
+	 */
+	private BinaryMessageSender fBinarySender;
+	/**
+	 * Has the binary protocol been requested (argument -protocol binary)?
+	 */
+	private boolean fBinaryProtocol= false;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -114,6 +122,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private String[] fFailureNames;
 
+	private TestHistory fTestHistory;
+
 	private ITestLoader fLoader;
 
 	private MessageSender fSender;
@@ -183,6 +193,7 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -protocol binary: send messages with the binary protocol
      * </pre>
      */
 	public static void main(String[] args) {
@@ -258,6 +269,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 				}
 				i++;
 
+			} else if(args[i].toLowerCase().equals("-testhistory")) { //$NON-NLS-1$
+				String testHistoryFile= args[i+1];
+				try {
+					fTestHistory= TestHistory.read(testHistoryFile);
+				} catch (IOException e) {
+					throw new IllegalArgumentException("Cannot read testhistory file.");		 //$NON-NLS-1$
+				}
+				i++;
+
 			} else if(args[i].toLowerCase().equals("-port")) { //$NON-NLS-1$
 				fPort= Integer.parseInt(args[i+1]);
 				i++;
@@ -273,6 +293,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if(args[i].toLowerCase().equals("-keepalive")) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if(args[i].toLowerCase().equals("-protocol")) { //$NON-NLS-1$
+				fBinaryProtocol= MessageIds.BINARY_PROTOCOL_ARGUMENT.equals(args[i+1]);
+				i++;
+			}
 			else if(args[i].toLowerCase().equals("-debugging") || args[i].toLowerCase().equals("-debug")){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 
@@ -570,6 +594,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
                 } catch (UnsupportedEncodingException e1) {
                     fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream()));
                 }
+				if (fBinaryProtocol)
+					fBinarySender= new BinaryMessageSender(fClientSocket.getOutputStream());
 				fReaderThread= new ReaderThread();
 				fReaderThread.start();
 				return true;
@@ -589,6 +615,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Shutsdown the connection to the remote test listener.
 	 */
 	private void shutDown() {
+		if (fBinarySender != null) {
+			fBinarySender.close();
+			fBinarySender= null;
+		}
 		if (fWriter != null) {
 			fWriter.close();
 			fWriter= null;
@@ -624,6 +654,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#sendMessage(java.lang.String)
 	 */
 	public void sendMessage(String msg) {
+		if (fBinarySender != null) {
+			fBinarySender.sendMessage(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -663,6 +697,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	public void flush() {
+		if (fBinarySender != null) {
+			fBinarySender.flush();
+			return;
+		}
 	    fWriter.flush();
 	}
 
@@ -674,6 +712,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return fLoader;
 	}
 
+	/**
+	 * @return the history of previous runs to order tests by, or <code>null</code> if the
+	 *         tests should not be ordered by their history
+	 */
+	public TestHistory getTestHistory() {
+		return fTestHistory;
+	}
+
 	public Class loadClass(String className, RemoteTestRunner listener) {
 		Class clazz= null;
 		try {
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+
+/**
+ * Failure probabilities and durations of tests in previous runs, as passed with the
+ * <code>-testhistory</code> argument. Each line of the history file has the form
+ * <pre>failure probability TAB duration in seconds TAB test name</pre>
+ * where the test name is the name that is reported to the client.
+ */
+public class TestHistory {
+
+	private static class Entry {
+		final double fFailureProbability;
+		final double fDuration;
+
+		Entry(double failureProbability, double duration) {
+			fFailureProbability= failureProbability;
+			fDuration= duration;
+		}
+	}
+
+	/**
+	 * Durations are measured in milliseconds, so shorter durations are not meaningful.
+	 */
+	private static final double MIN_DURATION= 0.001;
+
+	private final HashMap fEntries= new HashMap();
+	private double fDefaultDuration;
+
+	/**
+	 * Reads a history file.
+	 *
+	 * @param historyFile the file
+	 * @return the history
+	 * @throws IOException if the file cannot be read
+	 */
+	public static TestHistory read(String historyFile) throws IOException {
+		TestHistory history= new TestHistory();
+		double totalDuration= 0;
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(new File(historyFile)), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			while ((line= br.readLine()) != null) {
+				int first= line.indexOf('\t');
+				int second= first == -1 ? -1 : line.indexOf('\t', first + 1);
+				if (second == -1)
+					continue;
+				try {
+					double failureProbability= Double.parseDouble(line.substring(0, first));
+					double duration= Double.parseDouble(line.substring(first + 1, second));
+					history.fEntries.put(line.substring(second + 1), new Entry(failureProbability, duration));
+					totalDuration+= duration;
+				} catch (NumberFormatException e) {
+					// skip the line
+				}
+			}
+		} finally {
+			br.close();
+		}
+		// tests that did not run before are assumed to take the average time
+		if (! history.fEntries.isEmpty())
+			history.fDefaultDuration= totalDuration / history.fEntries.size();
+		return history;
+	}
+
+	/**
+	 * @param testName the test name
+	 * @return the probability that the test fails, 0 if the test did not run before
+	 */
+	public double getFailureProbability(String testName) {
+		Entry entry= (Entry) fEntries.get(testName);
+		return entry == null ? 0 : entry.fFailureProbability;
+	}
+
+	/**
+	 * @param testName the test name
+	 * @return the duration of the test in seconds, the average duration if the test did not run before
+	 */
+	public double getDuration(String testName) {
+		Entry entry= (Entry) fEntries.get(testName);
+		return entry == null ? fDefaultDuration : entry.fDuration;
+	}
+
+	/**
+	 * Compares tests or suites such that the expected time until the first failure is
+	 * minimal: tests are ordered by failure probability per second, and tests that never
+	 * failed are ordered shortest first.
+	 *
+	 * @param failureProbability1 the failure probability of the first test
+	 * @param duration1 the duration of the first test
+	 * @param failureProbability2 the failure probability of the second test
+	 * @param duration2 the duration of the second test
+	 * @return a negative number if the first test should run first, a positive number if the
+	 *         second test should run first, 0 otherwise
+	 */
+	public static int compare(double failureProbability1, double duration1, double failureProbability2, double duration2) {
+		double rate1= failureProbability1 / Math.max(duration1, MIN_DURATION);
+		double rate2= failureProbability2 / Math.max(duration2, MIN_DURATION);
+		if (rate1 != rate2)
+			return rate1 > rate2 ? -1 : 1;
+		if (duration1 != duration2)
+			return duration1 < duration2 ? -1 : 1;
+		return 0;
+	}
+}
@@ -23,12 +23,14 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.jdt.internal.junit.runner.FailuresFirstPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.HistoryPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.JUnitMessages;
 import org.eclipse.jdt.internal.junit.runner.NullPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
 
 public class JUnit3TestLoader implements ITestLoader {
 	private static final String SUITE_METHODNAME= "suite"; //$NON-NLS-1$
@@ -46,9 +48,14 @@ public class JUnit3TestLoader implements ITestLoader {
 		else
 			prioritizer= new NullPrioritizer();
 
+		TestHistory history= listener.getTestHistory();
+		ITestPrioritizer historyPrioritizer= history != null ? (ITestPrioritizer) new HistoryPrioritizer(history) : new NullPrioritizer();
+
 		for (int i= 0; i < suites.length; i++) {
 			Class testClassName= testClasses[i];
 			Test test= getTest(testClassName, testName, listener);
+			// failures of the last run still come first
+			historyPrioritizer.prioritize(test);
 			prioritizer.prioritize(test);
 			suites[i]= new JUnit3TestReference(test);
 		}
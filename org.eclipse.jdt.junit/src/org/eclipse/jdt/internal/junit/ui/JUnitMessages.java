@@ -126,6 +126,9 @@ public final class JUnitMessages extends NLS {
 	public static String JUnitLaunchConfigurationTab_label_containerTest;
 
 	public static String JUnitLaunchConfigurationTab_label_keeprunning;
+	public static String JUnitLaunchConfigurationTab_label_shardcount;
+	public static String JUnitLaunchConfigurationTab_label_prioritize;
+	public static String JUnitLaunchConfigurationTab_label_impacted;
 
 	public static String JUnitLaunchConfigurationTab_label_method;
 
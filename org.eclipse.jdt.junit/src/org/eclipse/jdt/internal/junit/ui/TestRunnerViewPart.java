@@ -164,6 +164,17 @@ public class TestRunnerViewPart extends ViewPart {
 
 	static final int REFRESH_INTERVAL= 200;
 
+	/**
+	 * Upper bound for the interval between updates of a running session
+	 */
+	static final int MAX_REFRESH_INTERVAL= 2000;
+
+	/**
+	 * The interval between updates is at least this factor times the time used for an update,
+	 * so that the UI thread is busy with updates of large runs at most a fifth of the time.
+	 */
+	static final int REFRESH_INTERVAL_FACTOR= 4;
+
 	static final int LAYOUT_FLAT= 0;
 	static final int LAYOUT_HIERARCHICAL= 1;
 
@@ -844,6 +855,11 @@ public class TestRunnerViewPart extends ViewPart {
 	private class UpdateUIJob extends UIJob {
 		private boolean fRunning= true;
 
+		/**
+		 * Smoothed time in milliseconds used by the UI thread per update
+		 */
+		private long fUpdateTime;
+
 		public UpdateUIJob(String name) {
 			super(name);
 			setSystem(true);
@@ -851,9 +867,11 @@ public class TestRunnerViewPart extends ViewPart {
 		@Override
 		public IStatus runInUIThread(IProgressMonitor monitor) {
 			if (!isDisposed()) {
+				long start= System.currentTimeMillis();
 				processChangesInUI();
+				fUpdateTime= (fUpdateTime + System.currentTimeMillis() - start) / 2;
 			}
-			schedule(REFRESH_INTERVAL);
+			schedule(getRefreshInterval(fUpdateTime));
 			return Status.OK_STATUS;
 		}
 
@@ -866,6 +884,16 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
+	/**
+	 * Returns the delay until the next update of a running session.
+	 *
+	 * @param updateTime the time used by the UI thread for an update in milliseconds
+	 * @return the delay in milliseconds
+	 */
+	static long getRefreshInterval(long updateTime) {
+		return Math.min(MAX_REFRESH_INTERVAL, Math.max(REFRESH_INTERVAL, updateTime * REFRESH_INTERVAL_FACTOR));
+	}
+
 	private class JUnitIsRunningJob extends Job {
 		public JUnitIsRunningJob(String name) {
 			super(name);
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.ui;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+
+/**
+ * Content provider for a virtual table of a test run session. The flat list of elements is
+ * computed when the input is set, but table items are only created for visible rows. Filters
+ * are not supported.
+ */
+public class TestSessionLazyTableContentProvider implements ILazyContentProvider {
+
+	private static final Object[] NO_ELEMENTS= new Object[0];
+
+	private final TestSessionTableContentProvider fElementsProvider= new TestSessionTableContentProvider();
+
+	private TableViewer fViewer;
+	private Object[] fElements= NO_ELEMENTS;
+	/** The index of the element found last by {@link #indexOf(Object)} */
+	private int fLastIndex;
+
+	@Override
+	public void dispose() {
+		fElements= NO_ELEMENTS;
+		fLastIndex= 0;
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		fViewer= (TableViewer) viewer;
+		fElements= newInput == null ? NO_ELEMENTS : fElementsProvider.getElements(newInput);
+		fLastIndex= 0;
+		fViewer.setItemCount(fElements.length);
+	}
+
+	@Override
+	public void updateElement(int index) {
+		if (index < fElements.length)
+			fViewer.replace(fElements[index], index);
+	}
+
+	/**
+	 * Returns the row index of an element. Elements are usually looked up in the order of the
+	 * test run, so the search starts at the element found last.
+	 *
+	 * @param element the element
+	 * @return the index of the element, or -1 if the table does not contain it
+	 */
+	public int indexOf(Object element) {
+		int length= fElements.length;
+		for (int i= 0; i < length; i++) {
+			int index= (fLastIndex + i) % length;
+			if (fElements[index] == element) {
+				fLastIndex= index;
+				return index;
+			}
+		}
+		return -1;
+	}
+}
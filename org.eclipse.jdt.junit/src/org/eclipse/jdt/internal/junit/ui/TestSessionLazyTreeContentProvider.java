@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.ui;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+
+/**
+ * Content provider for a virtual tree of a test run session. Only the visible items are
+ * created, so the tree can show runs with many tests. Filters are not supported.
+ */
+public class TestSessionLazyTreeContentProvider implements ILazyTreeContentProvider {
+
+	private TreeViewer fViewer;
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		fViewer= (TreeViewer) viewer;
+	}
+
+	@Override
+	public void updateElement(Object parent, int index) {
+		if (! (parent instanceof TestSuiteElement))
+			return;
+		TestSuiteElement suite= (TestSuiteElement) parent;
+		if (index >= suite.getChildCount())
+			return;
+		TestElement child= suite.getChild(index);
+		fViewer.replace(parent, index, child);
+		fViewer.setChildCount(child, getChildCount(child));
+	}
+
+	@Override
+	public void updateChildCount(Object element, int currentChildCount) {
+		int count= getChildCount(element);
+		if (count != currentChildCount)
+			fViewer.setChildCount(element, count);
+	}
+
+	@Override
+	public Object getParent(Object element) {
+		return ((TestElement) element).getParent();
+	}
+
+	private static int getChildCount(Object element) {
+		if (element instanceof TestSuiteElement)
+			return ((TestSuiteElement) element).getChildCount();
+		else
+			return 0;
+	}
+}
@@ -33,6 +33,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
 
 import org.eclipse.core.runtime.CoreException;
@@ -43,6 +44,7 @@ import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.IContentProvider;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
@@ -169,10 +171,30 @@ public class TestViewer {
 
 		@Override
 		public void run(){
-			fTreeViewer.expandAll();
+			if (fTestRunSession != null && fTestRunSession.getTotalCount() > MAX_EXPAND_ALL_TESTS) {
+				// expanding all nodes of the virtual tree would create an item for every test
+				expandFailedSuites(fTestRunSession.getTestRoot());
+			} else {
+				fTreeViewer.expandAll();
+			}
+		}
+
+		private void expandFailedSuites(TestSuiteElement suite) {
+			for (ITestElement child : suite.getChildren()) {
+				if (child instanceof TestSuiteElement && ((TestSuiteElement) child).getStatus().isErrorOrFailure()) {
+					fTreeViewer.setExpandedState(child, true);
+					expandFailedSuites((TestSuiteElement) child);
+				}
+			}
 		}
 	}
 
+	/**
+	 * The number of tests up to which Expand All expands all suites. Larger sessions only expand
+	 * the suites with failures.
+	 */
+	private static final int MAX_EXPAND_ALL_TESTS= 10000;
+
 	private final FailuresOnlyFilter fFailuresOnlyFilter= new FailuresOnlyFilter();
 	private final IgnoredOnlyFilter fIgnoredOnlyFilter= new IgnoredOnlyFilter();
 
@@ -182,9 +204,11 @@ public class TestViewer {
 	private PageBook fViewerbook;
 	private TreeViewer fTreeViewer;
 	private TestSessionTreeContentProvider fTreeContentProvider;
+	private TestSessionLazyTreeContentProvider fLazyTreeContentProvider;
 	private TestSessionLabelProvider fTreeLabelProvider;
 	private TableViewer fTableViewer;
 	private TestSessionTableContentProvider fTableContentProvider;
+	private TestSessionLazyTableContentProvider fLazyTableContentProvider;
 	private TestSessionLabelProvider fTableLabelProvider;
 	private SelectionProviderMediator fSelectionProvider;
 
@@ -197,6 +221,10 @@ public class TestViewer {
 	private boolean fTreeNeedsRefresh;
 	private boolean fTableNeedsRefresh;
 	private HashSet<TestElement> fNeedUpdate;
+	/**
+	 * Suites with added children, whose child count must be updated in the unfiltered tree
+	 */
+	private HashSet<TestSuiteElement> fAddedParents;
 	private TestCaseElement fAutoScrollTarget;
 
 	private LinkedList<TestSuiteElement> fAutoClose;
@@ -219,17 +247,24 @@ public class TestViewer {
 	private void createTestViewers(Composite parent) {
 		fViewerbook= new PageBook(parent, SWT.NULL);
 
-		fTreeViewer= new TreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE);
+		/*
+		 * The unfiltered viewers are virtual and use lazy content providers, so that only the
+		 * visible items of large test runs are created. The lazy viewers of JFace do not support
+		 * filters, so the filtered viewers use the normal content providers.
+		 */
+		fTreeViewer= new TreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTreeViewer.setUseHashlookup(true);
 		fTreeContentProvider= new TestSessionTreeContentProvider();
-		fTreeViewer.setContentProvider(fTreeContentProvider);
+		fLazyTreeContentProvider= new TestSessionLazyTreeContentProvider();
+		fTreeViewer.setContentProvider(fLazyTreeContentProvider);
 		fTreeLabelProvider= new TestSessionLabelProvider(fTestRunnerPart, TestRunnerViewPart.LAYOUT_HIERARCHICAL);
 		fTreeViewer.setLabelProvider(new ColoringLabelProvider(fTreeLabelProvider));
 
-		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE);
+		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTableViewer.setUseHashlookup(true);
 		fTableContentProvider= new TestSessionTableContentProvider();
-		fTableViewer.setContentProvider(fTableContentProvider);
+		fLazyTableContentProvider= new TestSessionLazyTableContentProvider();
+		fTableViewer.setContentProvider(fLazyTableContentProvider);
 		fTableLabelProvider= new TestSessionLabelProvider(fTestRunnerPart, TestRunnerViewPart.LAYOUT_FLAT);
 		fTableViewer.setLabelProvider(new ColoringLabelProvider(fTableLabelProvider));
 
@@ -443,6 +478,7 @@ public class TestViewer {
 				}
 				setActiveViewerHasFilter(true);
 				viewer.setInput(null);
+				setActiveViewerLazy(false);
 				//Set either the failures or the skipped tests filter
 				ViewerFilter filter= fFailuresOnlyFilter;
 				if (ignoredOnly == true) {
@@ -458,6 +494,7 @@ public class TestViewer {
 					viewer.setInput(null);
 					viewer.removeFilter(fIgnoredOnlyFilter);
 					viewer.removeFilter(fFailuresOnlyFilter);
+					setActiveViewerLazy(true);
 				}
 			}
 			processChangesInUI();
@@ -488,6 +525,19 @@ public class TestViewer {
 			fTableHasFilter= filter;
 	}
 
+	/**
+	 * Switches the content provider of the active viewer. The viewer must not have an input, and
+	 * must not have filters when switching to the lazy content provider.
+	 *
+	 * @param lazy whether to use the lazy content provider
+	 */
+	private void setActiveViewerLazy(boolean lazy) {
+		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
+			fTreeViewer.setContentProvider(lazy ? (IContentProvider) fLazyTreeContentProvider : fTreeContentProvider);
+		else
+			fTableViewer.setContentProvider(lazy ? (IContentProvider) fLazyTableContentProvider : fTableContentProvider);
+	}
+
 	private StructuredViewer getActiveViewer() {
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
 			return fTreeViewer;
@@ -533,9 +583,17 @@ public class TestViewer {
 
 		} else {
 			Object[] toUpdate;
+			Object[] addedParents;
 			synchronized (this) {
 				toUpdate= fNeedUpdate.toArray();
 				fNeedUpdate.clear();
+				addedParents= fAddedParents.toArray();
+				fAddedParents.clear();
+			}
+			if (! fTreeNeedsRefresh) {
+				// new children are appended, so existing items keep their index
+				for (Object parent : addedParents)
+					fTreeViewer.setChildCount(parent, ((TestSuiteElement) parent).getChildCount());
 			}
 			if (! fTreeNeedsRefresh && toUpdate.length > 0) {
 				if (fTreeHasFilter)
@@ -629,7 +687,7 @@ public class TestViewer {
 
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_FLAT) {
 			if (fAutoScrollTarget != null)
-				fTableViewer.reveal(fAutoScrollTarget);
+				revealInTable(fAutoScrollTarget);
 			return;
 		}
 
@@ -667,6 +725,20 @@ public class TestViewer {
 			fTreeViewer.reveal(current);
 	}
 
+	private void revealInTable(TestCaseElement element) {
+		if (fTableViewer.getContentProvider() != fLazyTableContentProvider) {
+			fTableViewer.reveal(element);
+			return;
+		}
+		// the row of the virtual table is usually not created yet, so reveal(..) would not find it
+		int index= fLazyTableContentProvider.indexOf(element);
+		if (index == -1)
+			return;
+		fTableViewer.replace(element, index);
+		Table table= fTableViewer.getTable();
+		table.showItem(table.getItem(index));
+	}
+
 	public void selectFirstFailure() {
 		TestCaseElement firstFailure= getNextChildFailure(fTestRunSession.getTestRoot(), true);
 		if (firstFailure != null)
@@ -744,6 +816,9 @@ public class TestViewer {
 	}
 
 	private void clearUpdateAndExpansion() {
+		if (fAddedParents != null && ! fAddedParents.isEmpty())
+			fTreeNeedsRefresh= true; // reset by the caller if the tree is refreshed now
+		fAddedParents= new HashSet<>();
 		fNeedUpdate= new LinkedHashSet<>();
 		fAutoClose= new LinkedList<>();
 		fAutoExpand= new HashSet<>();
@@ -753,8 +828,11 @@ public class TestViewer {
 	 * @param testElement the added test
 	 */
 	public synchronized void registerTestAdded(TestElement testElement) {
-		//TODO: performance: would only need to refresh parent of added element
-		fTreeNeedsRefresh= true;
+		// the unfiltered tree only needs the new child count of the parent
+		if (fTreeHasFilter)
+			fTreeNeedsRefresh= true;
+		else
+			fAddedParents.add(testElement.getParent());
 		fTableNeedsRefresh= true;
 	}
 
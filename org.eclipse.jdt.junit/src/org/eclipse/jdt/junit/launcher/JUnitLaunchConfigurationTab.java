@@ -32,6 +32,7 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 
 import org.eclipse.core.runtime.CoreException;
@@ -138,6 +139,9 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 	private Text fProjText;
 	private Button fProjButton;
 	private Button fKeepRunning;
+	private Spinner fShardCount;
+	private Button fPrioritizeByHistory;
+	private Button fRunImpactedTests;
 
 	// Test class UI widgets
 	private Text fTestText;
@@ -191,6 +195,8 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		createSpacer(comp);
 
 		createKeepAliveGroup(comp);
+		createShardGroup(comp);
+		createHistoryGroup(comp);
 		Dialog.applyDialogFont(comp);
 		PlatformUI.getWorkbench().getHelpSystem().setHelp(getControl(), IJUnitHelpContextIds.LAUNCH_CONFIGURATION_DIALOG_JUNIT_MAIN_TAB);
 		validatePage();
@@ -409,6 +415,52 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setLayoutData(gd);
 	}
 
+	private void createShardGroup(Composite comp) {
+		// the keep alive check box does not fill its row
+		Composite shardComp= new Composite(comp, SWT.NONE);
+		GridLayout layout= new GridLayout(2, false);
+		layout.marginWidth= 0;
+		layout.marginHeight= 0;
+		shardComp.setLayout(layout);
+		GridData gd= new GridData();
+		gd.horizontalSpan= 3;
+		shardComp.setLayoutData(gd);
+
+		Label shardLabel= new Label(shardComp, SWT.NONE);
+		shardLabel.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_shardcount);
+
+		fShardCount= new Spinner(shardComp, SWT.BORDER);
+		fShardCount.setMinimum(1);
+		fShardCount.setMaximum(64);
+		fShardCount.addModifyListener(new ModifyListener() {
+			@Override
+			public void modifyText(ModifyEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+	}
+
+	private void createHistoryGroup(Composite comp) {
+		fPrioritizeByHistory= createCheckButton(comp, JUnitMessages.JUnitLaunchConfigurationTab_label_prioritize);
+		fRunImpactedTests= createCheckButton(comp, JUnitMessages.JUnitLaunchConfigurationTab_label_impacted);
+	}
+
+	private Button createCheckButton(Composite comp, String label) {
+		Button button= new Button(comp, SWT.CHECK);
+		button.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+		button.setText(label);
+		GridData gd= new GridData();
+		gd.horizontalAlignment= GridData.FILL;
+		gd.horizontalSpan= 3;
+		button.setLayoutData(gd);
+		return button;
+	}
+
 	private static Image createImage(String path) {
 		return JUnitPlugin.getImageDescriptor(path).createImage();
 	}
@@ -429,6 +481,8 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		else
 			updateTestTypeFromConfig(config);
 		updateKeepRunning(config);
+		updateShardCount(config);
+		updateHistory(config);
 		updateTestLoaderFromConfig(config);
 
 		validatePage();
@@ -456,6 +510,27 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setSelection(running);
 	}
 
+	private void updateShardCount(ILaunchConfiguration config) {
+		int shardCount= 1;
+		try {
+			shardCount= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, 1);
+		} catch (CoreException ce) {
+		}
+		fShardCount.setSelection(shardCount);
+	}
+
+	private void updateHistory(ILaunchConfiguration config) {
+		boolean prioritize= false;
+		boolean impacted= false;
+		try {
+			prioritize= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, false);
+			impacted= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_RUN_IMPACTED_TESTS, false);
+		} catch (CoreException ce) {
+		}
+		fPrioritizeByHistory.setSelection(prioritize);
+		fRunImpactedTests.setSelection(impacted);
+	}
+
 	private void updateProjectFromConfig(ILaunchConfiguration config) {
 		String projectName= ""; //$NON-NLS-1$
 		try {
@@ -518,6 +593,12 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_NAME, fTestMethodText.getText());
 		}
 		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, fKeepRunning.getSelection());
+		if (fShardCount.getSelection() > 1)
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, fShardCount.getSelection());
+		else
+			config.removeAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT);
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, fPrioritizeByHistory.getSelection());
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_RUN_IMPACTED_TESTS, fRunImpactedTests.getSelection());
 		try {
 			mapResources(config);
 		} catch (CoreException e) {
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.runner.Description;
+
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
+
+/**
+ * Comparator for descriptions to sort according to the history of previous runs, see
+ * {@link TestHistory#compare(double, double, double, double)}. A description with children
+ * fails if one of its children fails and takes the time of all its children.
+ */
+public class HistorySorter implements Comparator<Description> {
+
+	private final TestHistory fHistory;
+
+	/**
+	 * Failure probability and duration by description
+	 */
+	private final Map<Description, double[]> fKeys= new IdentityHashMap<Description, double[]>();
+
+	/**
+	 * Creates a sorter.
+	 *
+	 * @param history the history of previous runs by the description's display string
+	 */
+	public HistorySorter(TestHistory history) {
+		fHistory= history;
+	}
+
+	public int compare(Description d1, Description d2) {
+		double[] key1= getKey(d1);
+		double[] key2= getKey(d2);
+		return TestHistory.compare(key1[0], key1[1], key2[0], key2[1]);
+	}
+
+	private double[] getKey(Description d) {
+		double[] key= fKeys.get(d);
+		if (key != null)
+			return key;
+		if (d.isTest()) {
+			String name= d.getDisplayName();
+			key= new double[] { fHistory.getFailureProbability(name), fHistory.getDuration(name) };
+		} else {
+			double successProbability= 1;
+			double duration= 0;
+			for (Description child : d.getChildren()) {
+				double[] childKey= getKey(child);
+				successProbability*= 1 - childKey[0];
+				duration+= childKey[1];
+			}
+			key= new double[] { 1 - successProbability, duration };
+		}
+		fKeys.put(d, key);
+		return key;
+	}
+}
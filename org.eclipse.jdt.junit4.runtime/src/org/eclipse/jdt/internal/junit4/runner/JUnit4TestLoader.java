@@ -25,6 +25,7 @@ import org.junit.runner.Runner;
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestReference;
 
@@ -65,22 +66,22 @@ public class JUnit4TestLoader implements ITestLoader {
 			return new JUnit3TestReference(test);
 		}
 		if (testName != null) {
-			return createFilteredTest(clazz, testName, failureNames);
+			return createFilteredTest(clazz, testName, failureNames, listener.getTestHistory());
 		}
-		return createUnfilteredTest(clazz, failureNames);
+		return createUnfilteredTest(clazz, failureNames, listener.getTestHistory());
 	}
 
-	private ITestReference createFilteredTest(Class<?> clazz, String testName, String[] failureNames) {
+	private ITestReference createFilteredTest(Class<?> clazz, String testName, String[] failureNames, TestHistory history) {
 		DescriptionMatcher matcher= DescriptionMatcher.create(clazz, testName);
 		SubForestFilter filter= new SubForestFilter(matcher);
-		Request request= sortByFailures(Request.classWithoutSuiteMethod(clazz).filterWith(filter), failureNames);
+		Request request= sortByFailures(sortByHistory(Request.classWithoutSuiteMethod(clazz).filterWith(filter), history), failureNames);
 		Runner runner= request.getRunner();
 		Description description= getRootDescription(runner, matcher);
 		return new JUnit4TestReference(runner, description);
 	}
 
-	private ITestReference createUnfilteredTest(Class<?> clazz, String[] failureNames) {
-		Request request= sortByFailures(Request.aClass(clazz), failureNames);
+	private ITestReference createUnfilteredTest(Class<?> clazz, String[] failureNames, TestHistory history) {
+		Request request= sortByFailures(sortByHistory(Request.aClass(clazz), history), failureNames);
 		Runner runner= request.getRunner();
 		Description description= runner.getDescription();
 		return new JUnit4TestReference(runner, description);
@@ -93,6 +94,14 @@ public class JUnit4TestLoader implements ITestLoader {
 		return request;
 	}
 
+	private Request sortByHistory(Request request, TestHistory history) {
+		// sorting is stable, so failures of the last run still come first
+		if (history != null) {
+			return request.sortWith(new HistorySorter(history));
+		}
+		return request;
+	}
+
 	private boolean isJUnit3SetUpTest(Class<?> clazz, String testName) {
 		if (!Test.class.isAssignableFrom(clazz))
 			return false;
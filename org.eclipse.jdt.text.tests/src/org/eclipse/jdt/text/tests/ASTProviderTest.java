@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+import org.eclipse.jdt.text.tests.performance.ResourceTestHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.SharedASTProvider;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the cache of recently active ASTs of the {@link ASTProvider}.
+ *
+ * @since 3.12
+ */
+public class ASTProviderTest extends TestCase {
+
+	private static final String TEST_CASE= "junit/framework/TestCase.java";
+
+	private static final String ASSERT= "junit/framework/Assert.java";
+
+	public static Test setUpTest(Test someTest) {
+		return new JUnitProjectTestSetup(someTest);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(ASTProviderTest.class));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		assertEquals(0, getRecentCount());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+	}
+
+	private static int getRecentCount() {
+		return JavaPlugin.getDefault().getASTProvider().getStatistics().getRecentCount();
+	}
+
+	private static JavaEditor openAndReconcile(String file) throws Exception {
+		String path= "/" + JUnitProjectTestSetup.getProject().getElementName() + "/src/" + file;
+		JavaEditor editor= (JavaEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(path), true);
+		assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(editor), 0, 10000, 100));
+		CompilationUnit ast= SharedASTProvider.getAST((ICompilationUnit) editor.getInputJavaElement(), SharedASTProvider.WAIT_YES, null);
+		assertNotNull(ast);
+		return editor;
+	}
+
+	public void testKeepASTOfDeactivatedEditor() throws Exception {
+		openAndReconcile(TEST_CASE);
+		openAndReconcile(ASSERT);
+		EditorTestHelper.runEventQueue();
+		assertEquals(1, getRecentCount());
+	}
+
+	public void testRemoveASTOfClosedEditor() throws Exception {
+		JavaEditor testCase= openAndReconcile(TEST_CASE);
+		openAndReconcile(ASSERT);
+		EditorTestHelper.runEventQueue();
+		assertEquals(1, getRecentCount());
+
+		EditorTestHelper.closeEditor(testCase);
+		EditorTestHelper.runEventQueue();
+		assertEquals(0, getRecentCount());
+	}
+
+	public void testRemoveASTOfClosedActiveEditor() throws Exception {
+		JavaEditor testCase= openAndReconcile(TEST_CASE);
+
+		EditorTestHelper.closeEditor(testCase);
+		EditorTestHelper.runEventQueue();
+		assertEquals(0, getRecentCount());
+	}
+}
@@ -43,6 +43,7 @@ public class JdtTextTestSuite {
 		suite.addTest(PropertiesFilePartitionerTest.suite());
 		suite.addTest(PropertiesFileAutoEditStrategyTest.suite());
 //		suite.addTest(PartitionTokenScannerTest.suite());
+		suite.addTest(ASTProviderTest.suite());
 		suite.addTest(MarkOccurrenceTest.suite());
 		suite.addTest(MarkOccurrenceTest17.suite());
 		suite.addTest(MarkOccurrenceTest18.suite());
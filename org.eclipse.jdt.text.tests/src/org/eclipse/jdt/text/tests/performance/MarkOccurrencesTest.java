@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesIndex;
+
+/**
+ * Measures the time to compute the occurrences of every identifier of a large file,
+ * as done by mark occurrences when the caret is moved through the file.
+ *
+ * @since 3.12
+ */
+public class MarkOccurrencesTest extends TextPerformanceTestCase {
+
+	private static final Class<MarkOccurrencesTest> THIS= MarkOccurrencesTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 5;
+
+	private CompilationUnit fAST;
+
+	private SimpleName[] fNames;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ICompilationUnit unit= JavaCore.createCompilationUnitFrom(ResourceTestHelper.findFile(FILE));
+		ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setSource(unit);
+		parser.setResolveBindings(true);
+		fAST= (CompilationUnit) parser.createAST(null);
+
+		final List<SimpleName> names= new ArrayList<>();
+		fAST.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				names.add(node);
+				return true;
+			}
+		});
+		fNames= names.toArray(new SimpleName[names.size()]);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fAST= null;
+		fNames= null;
+	}
+
+	/**
+	 * Measures the occurrences of every identifier computed with the {@link OccurrencesFinder}.
+	 *
+	 * @throws Exception
+	 */
+	public void testOccurrencesFinder() throws Exception {
+		measureFinder(getNullPerformanceMeter(), getWarmUpRuns());
+		measureFinder(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures the occurrences of every identifier looked up in an {@link OccurrencesIndex},
+	 * including the time to build the index.
+	 *
+	 * @throws Exception
+	 */
+	public void testOccurrencesIndex() throws Exception {
+		measureIndex(getNullPerformanceMeter(), getWarmUpRuns());
+		measureIndex(createPerformanceMeterForSummary("Mark occurrences - StyledText.java, all identifiers", Dimension.ELAPSED_PROCESS), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Checks that the index answers the same occurrences as the finder.
+	 */
+	public void testSameOccurrences() {
+		OccurrencesIndex index= new OccurrencesIndex(fAST, new NullProgressMonitor());
+		for (int i= 0; i < fNames.length; i++) {
+			OccurrenceLocation[] indexed= index.getOccurrences(fNames[i]);
+			if (indexed == null)
+				continue;
+			OccurrencesFinder finder= new OccurrencesFinder();
+			assertNull(finder.initialize(fAST, fNames[i]));
+			OccurrenceLocation[] found= finder.getOccurrences();
+			assertEquals(found.length, indexed.length);
+			for (int j= 0; j < found.length; j++) {
+				assertEquals(found[j].getOffset(), indexed[j].getOffset());
+				assertEquals(found[j].getLength(), indexed[j].getLength());
+				assertEquals(found[j].getFlags(), indexed[j].getFlags());
+			}
+		}
+	}
+
+	private void measureFinder(PerformanceMeter performanceMeter, int runs) {
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			for (int j= 0; j < fNames.length; j++) {
+				OccurrencesFinder finder= new OccurrencesFinder();
+				if (finder.initialize(fAST, fNames[j]) == null)
+					finder.getOccurrences();
+			}
+			performanceMeter.stop();
+		}
+	}
+
+	private void measureIndex(PerformanceMeter performanceMeter, int runs) {
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			OccurrencesIndex index= new OccurrencesIndex(fAST, new NullProgressMonitor());
+			for (int j= 0; j < fNames.length; j++)
+				index.getOccurrences(fNames[j]);
+			performanceMeter.stop();
+		}
+	}
+}
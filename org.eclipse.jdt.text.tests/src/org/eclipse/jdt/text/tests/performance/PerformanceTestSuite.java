@@ -49,6 +49,9 @@ public class PerformanceTestSuite extends TestSuite {
 		addTest(SynchronizedLineDifferInitializationTest.suite());
 		addTest(DocumentLineDifferModificationTest.suite());
 		addTest(SpellCheckingTest.suite());
+		addTest(SemanticHighlightingReconcileTest.suite());
+		addTest(MarkOccurrencesTest.suite());
+		addTest(SpellDictionaryLoadTest.suite());
 
 
 		/* !!! IMPORTANT NOTE: The following test must be the last one !!! */
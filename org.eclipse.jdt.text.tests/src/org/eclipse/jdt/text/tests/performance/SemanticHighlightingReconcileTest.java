@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+/**
+ * Measures the time to reconcile the semantic highlighting of a 20000 line file
+ * after single character edits inside a method body.
+ *
+ * @since 3.12
+ */
+public class SemanticHighlightingReconcileTest extends TextPerformanceTestCase {
+
+	private static final Class<SemanticHighlightingReconcileTest> THIS= SemanticHighlightingReconcileTest.class;
+
+	private static final String FILE= "/" + PerformanceTestSetup.PROJECT + "/Eclipse SWT Custom Widgets/common/org/eclipse/swt/custom/SemanticHighlightingLarge.java";
+
+	private static final int METHODS= 1000;
+
+	private static final int LINES_PER_METHOD= 20;
+
+	private static final String EDIT_MARKER= "/*edit*/";
+
+	private static final int WARM_UP_RUNS= 5;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private static final int EDITS= 20;
+
+	private AbstractTextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ResourceTestHelper.write(FILE, createSource());
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), EditorTestHelper.COMPILATION_UNIT_EDITOR_ID, true);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+		// reconcile right after each edit instead of waiting for the typing delay
+		EditorTestHelper.getReconciler(EditorTestHelper.getSourceViewer(fEditor)).setDelay(0);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		EditorTestHelper.closeAllEditors();
+		ResourceTestHelper.delete(FILE);
+	}
+
+	/**
+	 * Measures the time to reconcile the semantic highlighting after typing single characters
+	 * inside a method body of a large file.
+	 *
+	 * @throws Exception
+	 */
+	public void test() throws Exception {
+		measure(getNullPerformanceMeter(), getWarmUpRuns());
+		measure(createPerformanceMeterForSummary("Semantic highlighting reconcile - 20000 lines", Dimension.ELAPSED_PROCESS), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter performanceMeter, int runs) throws Exception {
+		IDocument document= EditorTestHelper.getDocument(fEditor);
+		SourceViewer sourceViewer= EditorTestHelper.getSourceViewer(fEditor);
+		int offset= document.get().indexOf(EDIT_MARKER) + EDIT_MARKER.length();
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			for (int j= 0; j < EDITS; j++) {
+				// insert a blank and remove it again, so all runs work on the same content
+				if (j % 2 == 0)
+					document.replace(offset, 0, " ");
+				else
+					document.replace(offset, 1, "");
+				// the edit triggers a normal reconcile of the changed region
+				assertTrue(EditorTestHelper.joinReconciler(sourceViewer, 0, 0, 0));
+				EditorTestHelper.runEventQueue();
+			}
+			performanceMeter.stop();
+		}
+	}
+
+	private static String createSource() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.eclipse.swt.custom;\n");
+		buf.append("public class SemanticHighlightingLarge {\n");
+		buf.append("    private static final int LIMIT= 100;\n");
+		buf.append("    private int fCount;\n");
+		for (int i= 0; i < METHODS; i++) {
+			buf.append("    public int method").append(i).append("(int[] values) {\n");
+			if (i == METHODS / 2)
+				buf.append("        ").append(EDIT_MARKER).append("\n");
+			buf.append("        int sum= 0;\n");
+			for (int j= 0; j < LINES_PER_METHOD - 5; j++)
+				buf.append("        sum+= values[").append(j).append(" % values.length] > LIMIT ? fCount++ : Math.abs(sum);\n");
+			buf.append("        return sum;\n");
+			buf.append("    }\n");
+			buf.append("\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+}
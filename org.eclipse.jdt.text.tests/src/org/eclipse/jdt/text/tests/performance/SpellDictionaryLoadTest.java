@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Locale;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary;
+
+/**
+ * Compares loading and querying the en_US dictionary from its word list with using
+ * the memory-mapped dictionary index.
+ *
+ * @since 3.12
+ */
+public class SpellDictionaryLoadTest extends TextPerformanceTestCase {
+
+	private static final Class<SpellDictionaryLoadTest> THIS= SpellDictionaryLoadTest.class;
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private static final int LOOKUPS= 200000;
+
+	private static final String[] WORDS= { "the", "dictionary", "Performance", "spelling", "recieve", "occurence", "widget", "selection", "thoroughly", "xyzzy" };
+
+	/**
+	 * Dictionary that always loads the word list on the heap.
+	 */
+	private static class WordListDictionary extends LocaleSensitiveSpellDictionary {
+
+		public WordListDictionary(Locale locale, URL location) {
+			super(locale, location);
+		}
+
+		@Override
+		protected File getIndexFile() {
+			return null;
+		}
+	}
+
+	private URL fLocation;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Enumeration<URL> locations= SpellCheckEngine.getDictionaryLocations();
+		assertTrue(locations != null && locations.hasMoreElements());
+		fLocation= locations.nextElement();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	/**
+	 * Measures time and heap to load the word list.
+	 *
+	 * @throws Exception
+	 */
+	public void testLoadWordList() throws Exception {
+		measureLoad(getNullPerformanceMeter(), getWarmUpRuns(), false);
+		measureLoad(createPerformanceMeterForSummary("Load en_US dictionary - word list", Dimension.USED_JAVA_HEAP), getMeasuredRuns(), false);
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures time and heap to map the dictionary index. The first warm up run builds the index.
+	 *
+	 * @throws Exception
+	 */
+	public void testLoadIndex() throws Exception {
+		measureLoad(getNullPerformanceMeter(), getWarmUpRuns(), true);
+		measureLoad(createPerformanceMeterForSummary("Load en_US dictionary - index", Dimension.USED_JAVA_HEAP), getMeasuredRuns(), true);
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures <code>isCorrect</code> on the word list loaded on the heap.
+	 *
+	 * @throws Exception
+	 */
+	public void testIsCorrectWordList() throws Exception {
+		ISpellDictionary dictionary= createDictionary(false);
+		measureIsCorrect(dictionary, getNullPerformanceMeter(), getWarmUpRuns());
+		measureIsCorrect(dictionary, createPerformanceMeter(), getMeasuredRuns());
+		dictionary.unload();
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures <code>isCorrect</code> on the mapped index.
+	 *
+	 * @throws Exception
+	 */
+	public void testIsCorrectIndex() throws Exception {
+		ISpellDictionary dictionary= createDictionary(true);
+		measureIsCorrect(dictionary, getNullPerformanceMeter(), getWarmUpRuns());
+		measureIsCorrect(dictionary, createPerformanceMeterForSummary("isCorrect en_US dictionary - index", Dimension.ELAPSED_PROCESS), getMeasuredRuns());
+		dictionary.unload();
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Checks that both dictionaries answer the same.
+	 */
+	public void testSameResults() {
+		ISpellDictionary wordList= createDictionary(false);
+		ISpellDictionary index= createDictionary(true);
+		for (int i= 0; i < WORDS.length; i++) {
+			assertEquals(WORDS[i], wordList.isCorrect(WORDS[i]), index.isCorrect(WORDS[i]));
+			assertEquals(WORDS[i], wordList.getProposals(WORDS[i], false), index.getProposals(WORDS[i], false));
+		}
+		wordList.unload();
+		index.unload();
+	}
+
+	private ISpellDictionary createDictionary(boolean indexed) {
+		return indexed ? new LocaleSensitiveSpellDictionary(Locale.US, fLocation) : new WordListDictionary(Locale.US, fLocation);
+	}
+
+	private void measureLoad(PerformanceMeter performanceMeter, int runs, boolean indexed) {
+		for (int i= 0; i < runs; i++) {
+			System.gc();
+			performanceMeter.start();
+			ISpellDictionary dictionary= createDictionary(indexed);
+			assertTrue(dictionary.isCorrect("the"));
+			performanceMeter.stop();
+			dictionary.unload();
+		}
+	}
+
+	private void measureIsCorrect(ISpellDictionary dictionary, PerformanceMeter performanceMeter, int runs) {
+		dictionary.isCorrect(WORDS[0]);
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			for (int j= 0; j < LOOKUPS; j++)
+				dictionary.isCorrect(WORDS[j % WORDS.length]);
+			performanceMeter.stop();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IStatus;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.spelling.BatchSpellChecker;
+
+/**
+ * Tests the {@link BatchSpellChecker}.
+ *
+ * @since 3.12
+ */
+public class BatchSpellCheckerTest extends TestCase {
+
+	private IJavaProject fProject;
+
+	private IFile fJavaFile;
+
+	private IFile fPropertiesFile;
+
+	public static Test suite() {
+		return new TestSuite(BatchSpellCheckerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fProject= JavaProjectHelper.createJavaProject("BatchSpelling", "bin");
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		IPackageFragment pack= root.createPackageFragment("p", true, null);
+		fJavaFile= (IFile) pack.createCompilationUnit("A.java", "package p;\n// this comment has a mispeled word\npublic class A {\n}\n", true, null).getResource();
+		fPropertiesFile= fProject.getProject().getFile("src/p/messages.properties");
+		fPropertiesFile.create(new ByteArrayInputStream("key= This value is corect\n".getBytes("ISO-8859-1")), true, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		new BatchSpellChecker(fProject.getProject()).reset();
+		JavaProjectHelper.delete(fProject);
+	}
+
+	public void testMarkers() throws Exception {
+		IStatus status= new BatchSpellChecker(fProject.getProject()).run(null);
+		assertTrue(status.isOK());
+		assertWord(fJavaFile, "mispeled");
+		assertWord(fPropertiesFile, "corect");
+	}
+
+	public void testParallel() throws Exception {
+		BatchSpellChecker checker= new BatchSpellChecker(fProject.getProject());
+		checker.setParallelism(4);
+		checker.run(null);
+		assertWord(fJavaFile, "mispeled");
+		assertWord(fPropertiesFile, "corect");
+	}
+
+	public void testResume() throws Exception {
+		BatchSpellChecker checker= new BatchSpellChecker(fProject.getProject());
+		checker.run(null);
+		fProject.getProject().deleteMarkers(BatchSpellChecker.MARKER_TYPE, false, IResource.DEPTH_INFINITE);
+
+		// unmodified files are not checked again
+		checker.run(null);
+		assertEquals(0, fJavaFile.findMarkers(BatchSpellChecker.MARKER_TYPE, false, IResource.DEPTH_ZERO).length);
+
+		// modified files are
+		fJavaFile.touch(null);
+		checker.run(null);
+		assertWord(fJavaFile, "mispeled");
+		assertEquals(0, fPropertiesFile.findMarkers(BatchSpellChecker.MARKER_TYPE, false, IResource.DEPTH_ZERO).length);
+
+		checker.reset();
+		checker.run(null);
+		assertWord(fPropertiesFile, "corect");
+	}
+
+	public void testCompactState() throws Exception {
+		BatchSpellChecker checker= new BatchSpellChecker(fProject.getProject());
+		checker.run(null);
+		assertEquals(2, countStateEntries());
+
+		// each run drops the outdated entries of modified files
+		for (int i= 0; i < 3; i++) {
+			fJavaFile.touch(null);
+			checker.run(null);
+			assertEquals(2, countStateEntries());
+		}
+
+		// and the entries of deleted files
+		fPropertiesFile.delete(true, null);
+		fJavaFile.touch(null);
+		checker.run(null);
+		assertEquals(1, countStateEntries());
+	}
+
+	private int countStateEntries() throws IOException {
+		File stateFile= JavaPlugin.getDefault().getStateLocation().append("batchSpelling").append(fProject.getElementName() + ".state").toFile();
+		FileInputStream stream= new FileInputStream(stateFile);
+		try {
+			int lines= 0;
+			int read;
+			while ((read= stream.read()) != -1) {
+				if (read == '\n')
+					lines++;
+			}
+			return lines;
+		} finally {
+			stream.close();
+		}
+	}
+
+	private static void assertWord(IFile file, String word) throws Exception {
+		IMarker[] markers= file.findMarkers(BatchSpellChecker.MARKER_TYPE, false, IResource.DEPTH_ZERO);
+		assertEquals(1, markers.length);
+		assertEquals(word, markers[0].getAttribute(BatchSpellChecker.WORD));
+	}
+}
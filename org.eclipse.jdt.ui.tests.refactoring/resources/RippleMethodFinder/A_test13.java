@@ -0,0 +1,16 @@
+package p;
+
+class A extends q.Base {
+	public void /*target*/m() {}
+}
+
+class B extends A {
+	public void /*ripple*/m() {}
+}
+
+interface I {
+	void /*ripple*/m();
+}
+
+class C extends B implements I {
+}
@@ -23,6 +23,7 @@ public class AllChangeTests {
 		suite.addTest(new TestSuite(CopyPackageChangeTest.class));
 		suite.addTest(new TestSuite(CopyPackageChangeTest.class));
 		suite.addTest(DocumentChangeTest.suiteWithoutRefactoringTestSetup());
+		suite.addTest(new TestSuite(TextChangeManagerTests.class));
 		return new RefactoringTestSetup(suite);
 	}
 }
@@ -105,6 +105,7 @@ public class AllRefactoringTests {
 		//--helpers
 		suite.addTest(RenamingNameSuggestorTests.suite());
 		suite.addTest(DelegateCreatorTests.suite());
+		suite.addTest(ShardedSearchEngineTests.suite());
 		return suite;
 	}
 }
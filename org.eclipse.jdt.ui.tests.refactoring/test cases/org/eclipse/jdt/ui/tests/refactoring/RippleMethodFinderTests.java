@@ -129,5 +129,15 @@ public class RippleMethodFinderTests extends AbstractCUTestCase {
 	public void test12() throws Exception {
 		perform();
 	}
+	public void test13() throws Exception {
+		// A cannot override the package private q.Base#m(), so the roots A and q.Base share a hierarchy
+		IPackageFragment packQ= RefactoringTestSetup.getDefaultSourceFolder().createPackageFragment("q", true, null);
+		try {
+			createCU(packQ, "Base.java", "package q;\npublic class Base {\n\tvoid m() {}\n}\n");
+			perform();
+		} finally {
+			packQ.delete(true, null);
+		}
+	}
 
 }
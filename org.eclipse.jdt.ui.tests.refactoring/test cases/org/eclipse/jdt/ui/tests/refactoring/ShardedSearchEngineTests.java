@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine;
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine.IPatternFactory;
+import org.eclipse.jdt.internal.corext.util.SearchUtils;
+
+/**
+ * Tests that a search split by {@link ShardedSearchEngine} finds the same matches as a single
+ * search.
+ */
+public class ShardedSearchEngineTests extends TestCase {
+
+	private static final Class<ShardedSearchEngineTests> clazz= ShardedSearchEngineTests.class;
+
+	private static final int SOURCE_FOLDERS= 4;
+
+	private IJavaProject fProject;
+
+	private IType fType;
+
+	public ShardedSearchEngineTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(clazz);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= JavaProjectHelper.createJavaProject("ShardedSearch", "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		for (int folder= 0; folder < SOURCE_FOLDERS; folder++) {
+			IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src" + folder);
+			IPackageFragment pack= root.createPackageFragment("p" + folder, true, null);
+			if (folder == 0)
+				fType= pack.createCompilationUnit("A.java", "package p0;\npublic class A {\n\tpublic static A create() { return null; }\n}\n", true, null).getType("A");
+			for (int unit= 0; unit < 3; unit++) {
+				StringBuffer buf= new StringBuffer();
+				buf.append("package p").append(folder).append(";\n");
+				buf.append("import p0.A;\n");
+				buf.append("public class B").append(unit).append(" {\n");
+				buf.append("\tA fA= A.create();\n");
+				buf.append("\tA get(A a) { return a; }\n");
+				buf.append("}\n");
+				pack.createCompilationUnit("B" + unit + ".java", buf.toString(), true, null);
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	private List<String> searchSharded(IPatternFactory factory, IJavaSearchScope scope) throws CoreException {
+		MatchCollector collector= new MatchCollector();
+		ShardedSearchEngine.search(factory, scope, null, null, collector, null);
+		return collector.getMatches();
+	}
+
+	private List<String> searchUnsharded(IPatternFactory factory, IJavaSearchScope scope) throws CoreException {
+		MatchCollector collector= new MatchCollector();
+		new SearchEngine().search(factory.createPattern(), SearchUtils.getDefaultSearchParticipants(), scope, collector, null);
+		return collector.getMatches();
+	}
+
+	private static class MatchCollector extends SearchRequestor {
+		private final List<String> fMatches= new ArrayList<>();
+
+		@Override
+		public void acceptSearchMatch(SearchMatch match) {
+			fMatches.add(match.getResource().getFullPath() + ":" + match.getOffset() + ":" + match.getLength() + ":" + match.getAccuracy());
+		}
+
+		public List<String> getMatches() {
+			Collections.sort(fMatches);
+			return fMatches;
+		}
+	}
+
+	private void assertSameMatches(IPatternFactory factory, IJavaSearchScope scope) throws CoreException {
+		List<String> expected= searchUnsharded(factory, scope);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, searchSharded(factory, scope));
+	}
+
+	public void testReferencesInProject() throws Exception {
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fProject });
+		assertSameMatches(ShardedSearchEngine.createPatternFactory(new IJavaElement[] { fType }, IJavaSearchConstants.REFERENCES), scope);
+	}
+
+	public void testOccurrencesOfSeveralElements() throws Exception {
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fProject });
+		IJavaElement[] elements= { fType, fType.getMethod("create", new String[0]) };
+		assertSameMatches(ShardedSearchEngine.createPatternFactory(elements, IJavaSearchConstants.ALL_OCCURRENCES), scope);
+	}
+
+	public void testReferencesInSourceFolders() throws Exception {
+		IPackageFragmentRoot[] roots= fProject.getPackageFragmentRoots();
+		List<IJavaElement> sources= new ArrayList<>();
+		for (int index= 0; index < roots.length; index++) {
+			if (roots[index].getKind() == IPackageFragmentRoot.K_SOURCE)
+				sources.add(roots[index]);
+		}
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(sources.toArray(new IJavaElement[sources.size()]));
+		assertSameMatches(ShardedSearchEngine.createPatternFactory(new IJavaElement[] { fType }, IJavaSearchConstants.REFERENCES), scope);
+	}
+
+	public void testReferencesInPackage() throws Exception {
+		// a scope of some packages cannot be split
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fType.getPackageFragment() });
+		assertSameMatches(ShardedSearchEngine.createPatternFactory(new IJavaElement[] { fType }, IJavaSearchConstants.ALL_OCCURRENCES), scope);
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.TextEditGroup;
+
+import org.eclipse.ltk.core.refactoring.CategorizedTextEditGroup;
+import org.eclipse.ltk.core.refactoring.GroupCategory;
+import org.eclipse.ltk.core.refactoring.GroupCategorySet;
+import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.core.refactoring.TextEditChangeGroup;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+
+/**
+ * Tests that a change which the {@link TextChangeManager} keeps in compact form is re-created
+ * with the same edits, groups and settings.
+ */
+public class TextChangeManagerTests extends TestCase {
+
+	private static final Class<TextChangeManagerTests> clazz= TextChangeManagerTests.class;
+
+	private static final GroupCategorySet CATEGORY= new GroupCategorySet(new GroupCategory("test", "Test", "Test category"));
+
+	private ICompilationUnit fUnit;
+
+	private ICompilationUnit fOther;
+
+	public TextChangeManagerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		fUnit= pack.getCompilationUnit("A.java");
+		fOther= pack.getCompilationUnit("B.java");
+	}
+
+	/**
+	 * Lets the manager compact the change of {@link #fUnit} by using the change of another unit,
+	 * and returns the change of {@link #fUnit} again.
+	 *
+	 * @param change the change of {@link #fUnit}
+	 * @return the change returned by the manager
+	 */
+	private TextChange roundTrip(TextChange change) {
+		TextChangeManager manager= new TextChangeManager();
+		manager.setMaxExpandedChanges(1);
+		manager.manage(fUnit, change);
+		manager.get(fOther);
+		assertTrue(manager.containsChangesIn(fUnit));
+		return manager.get(fUnit);
+	}
+
+	public void testRoundTrip() throws Exception {
+		CompilationUnitChange change= new CompilationUnitChange("Change of A", fUnit);
+		change.setKeepPreviewEdits(true);
+		change.setSaveMode(TextFileChange.LEAVE_DIRTY);
+		MultiTextEdit root= new MultiTextEdit();
+		ReplaceEdit replace= new ReplaceEdit(1, 2, "abc");
+		InsertEdit insert= new InsertEdit(5, "inserted");
+		DeleteEdit delete= new DeleteEdit(10, 3);
+		ReplaceEdit ungrouped= new ReplaceEdit(20, 1, "x");
+		root.addChild(replace);
+		root.addChild(insert);
+		root.addChild(delete);
+		root.addChild(ungrouped);
+		change.setEdit(root);
+		change.addTextEditGroup(new TextEditGroup("plain", new TextEdit[] { replace, delete }));
+		change.addTextEditChangeGroup(new TextEditChangeGroup(change, new CategorizedTextEditGroup("categorized", insert, CATEGORY)));
+
+		TextChange result= roundTrip(change);
+		assertNotSame(change, result);
+		assertTrue(result instanceof CompilationUnitChange);
+		assertSame(fUnit, ((CompilationUnitChange) result).getCompilationUnit());
+		assertEquals("Change of A", result.getName());
+		assertTrue(result.getKeepPreviewEdits());
+		assertEquals(TextFileChange.LEAVE_DIRTY, ((CompilationUnitChange) result).getSaveMode());
+
+		TextEdit[] edits= result.getEdit().getChildren();
+		assertEquals(4, edits.length);
+		assertEquals(ReplaceEdit.class, edits[0].getClass());
+		assertEquals(1, edits[0].getOffset());
+		assertEquals(2, edits[0].getLength());
+		assertEquals("abc", ((ReplaceEdit) edits[0]).getText());
+		assertEquals(InsertEdit.class, edits[1].getClass());
+		assertEquals(5, edits[1].getOffset());
+		assertEquals(0, edits[1].getLength());
+		assertEquals("inserted", ((InsertEdit) edits[1]).getText());
+		assertEquals(DeleteEdit.class, edits[2].getClass());
+		assertEquals(10, edits[2].getOffset());
+		assertEquals(3, edits[2].getLength());
+		assertEquals(ReplaceEdit.class, edits[3].getClass());
+		assertEquals(20, edits[3].getOffset());
+		assertEquals(1, edits[3].getLength());
+		assertEquals("x", ((ReplaceEdit) edits[3]).getText());
+
+		TextEditChangeGroup[] groups= result.getTextEditChangeGroups();
+		assertEquals(2, groups.length);
+		TextEditGroup plain= groups[0].getTextEditGroup();
+		assertEquals(TextEditGroup.class, plain.getClass());
+		assertEquals("plain", plain.getName());
+		assertSame(GroupCategorySet.NONE, groups[0].getGroupCategorySet());
+		TextEdit[] plainEdits= plain.getTextEdits();
+		assertEquals(2, plainEdits.length);
+		assertSame(edits[0], plainEdits[0]);
+		assertSame(edits[2], plainEdits[1]);
+		TextEditGroup categorized= groups[1].getTextEditGroup();
+		assertEquals(CategorizedTextEditGroup.class, categorized.getClass());
+		assertEquals("categorized", categorized.getName());
+		assertSame(CATEGORY, groups[1].getGroupCategorySet());
+		TextEdit[] categorizedEdits= categorized.getTextEdits();
+		assertEquals(1, categorizedEdits.length);
+		assertSame(edits[1], categorizedEdits[0]);
+	}
+
+	public void testRoundTripWithoutEdits() throws Exception {
+		CompilationUnitChange change= new CompilationUnitChange("Empty change", fUnit);
+		change.setSaveMode(TextFileChange.FORCE_SAVE);
+
+		TextChange result= roundTrip(change);
+		assertNotSame(change, result);
+		assertEquals("Empty change", result.getName());
+		assertFalse(result.getKeepPreviewEdits());
+		assertEquals(TextFileChange.FORCE_SAVE, ((CompilationUnitChange) result).getSaveMode());
+		assertNull(result.getEdit());
+		assertEquals(0, result.getTextEditChangeGroups().length);
+	}
+
+	public void testNestedEditsAreNotCompacted() throws Exception {
+		CompilationUnitChange change= new CompilationUnitChange("Nested change", fUnit);
+		MultiTextEdit root= new MultiTextEdit();
+		MultiTextEdit nested= new MultiTextEdit();
+		nested.addChild(new ReplaceEdit(1, 2, "abc"));
+		root.addChild(nested);
+		change.setEdit(root);
+
+		assertSame(change, roundTrip(change));
+	}
+}
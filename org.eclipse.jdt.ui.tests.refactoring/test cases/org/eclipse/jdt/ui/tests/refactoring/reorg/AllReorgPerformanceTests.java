@@ -23,10 +23,14 @@ public class AllReorgPerformanceTests {
 		suite.addTest(RenameTypePerfAcceptanceTests.suite());
 		suite.addTest(RenameTypePerfTests1.suite());
 		suite.addTest(RenameTypePerfTests2.suite());
+		suite.addTest(TextChangeManagerMemoryPerfTests.suite());
+		suite.addTest(QualifiedNameIndexPerfTests.suite());
+		suite.addTest(ShardedSearchPerfTests.suite());
 
 		suite.addTest(RenameMethodPerfTests1.suite());
 		suite.addTest(RenameMethodPerfTests2.suite());
 		suite.addTest(RenameMethodWithOverloadPerfTests.suite());
+		suite.addTest(RippleMethodFinderPerfTests.suite());
 
 		suite.addTest(MoveCompilationUnitPerfTests1.suite());
 		suite.addTest(MoveCompilationUnitPerfTests2.suite());
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.reorg;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.IdentifierTokenIndex;
+import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameFinder;
+import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameSearchResult;
+
+import org.eclipse.jdt.ui.tests.refactoring.RefactoringTestSetup;
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestCase;
+
+/**
+ * Measures the search for the qualified name <code>p.A</code> in 5'000 XML files, 50 of which
+ * contain the name, without the identifier index, with a cold index and with a warm index.
+ */
+public class QualifiedNameIndexPerfTests extends RefactoringPerformanceTestCase {
+
+	private static final int FILES= 5000;
+
+	private static final int MATCHING_FILES= 50;
+
+	private static final int RUNS= 10;
+
+	private IFolder fFolder;
+
+	private IFile[] fFiles;
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(QualifiedNameIndexPerfTests.class));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	public QualifiedNameIndexPerfTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IProject project= RefactoringTestSetup.getProject().getProject();
+		fFolder= project.getFolder("resources");
+		fFolder.create(true, true, null);
+		fFiles= new IFile[FILES];
+		for (int i= 0; i < FILES; i++) {
+			fFiles[i]= fFolder.getFile("beans" + i + ".xml");
+			fFiles[i].create(new ByteArrayInputStream(getContents(i).getBytes("UTF-8")), true, null);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IdentifierTokenIndex.setEnabled(true);
+		IdentifierTokenIndex.getDefault().clear();
+		fFolder.delete(true, null);
+		super.tearDown();
+	}
+
+	private static String getContents(int file) {
+		StringBuffer buffer= new StringBuffer();
+		buffer.append("<beans>\n");
+		for (int i= 0; i < 50; i++)
+			buffer.append("\t<bean id=\"bean").append(i).append("\" class=\"p.sub").append(file).append(".Bean").append(i).append("\"/>\n");
+		if (file % (FILES / MATCHING_FILES) == 0)
+			buffer.append("\t<bean id=\"a\" class=\"p.A\"/>\n");
+		buffer.append("</beans>\n");
+		return buffer.toString();
+	}
+
+	public void testSearchWithoutIndex() throws Exception {
+		IdentifierTokenIndex.setEnabled(false);
+		measureSearch(false, false);
+	}
+
+	public void testSearchColdIndex() throws Exception {
+		measureSearch(true, false);
+	}
+
+	public void testSearchWarmIndex() throws Exception {
+		tagAsSummary("Qualified name search - 5'000 files", Dimension.ELAPSED_PROCESS);
+		search();
+		measureSearch(false, true);
+	}
+
+	/**
+	 * @param clear whether to clear the index before each search
+	 * @param touch whether to change a file before each search, so that it is indexed again
+	 * @throws Exception if the search fails
+	 */
+	private void measureSearch(boolean clear, boolean touch) throws Exception {
+		for (int run= 0; run < RUNS; run++) {
+			if (clear)
+				IdentifierTokenIndex.getDefault().clear();
+			if (touch) {
+				int file= run * 7 + 1;
+				fFiles[file].setContents(new ByteArrayInputStream(getContents(file).getBytes("UTF-8")), true, false, null);
+			}
+			joinBackgroudActivities();
+			startMeasuring();
+			QualifiedNameSearchResult result= search();
+			stopMeasuring();
+			assertEquals(MATCHING_FILES, result.getAllFiles().length);
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static QualifiedNameSearchResult search() throws Exception {
+		QualifiedNameSearchResult result= new QualifiedNameSearchResult();
+		QualifiedNameFinder.process(result, "p.A", "q.A", "*.xml", RefactoringTestSetup.getProject().getProject(), null);
+		return result;
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.reorg;
+
+import junit.framework.Test;
+
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+
+import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodFinder2;
+
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestSetup;
+
+/**
+ * Measures the computation of the ripple methods of <code>I0.foo()</code> in a hierarchy of
+ * interfaces <code>I<i>k</i></code>, each implemented by every <i>k</i>-th class
+ * <code>C<i>i</i></code>. The class <code>M</code> implements <code>I0</code> and <code>I1</code>,
+ * so that the ripple spans two of the interfaces.
+ */
+public class RippleMethodFinderPerfTests extends RepeatingRefactoringPerformanceTestCase {
+
+	public static Test suite() {
+		// we must make sure that cold is executed before warm
+		OrderedTestSuite suite= new OrderedTestSuite(RippleMethodFinderPerfTests.class, new String[] {
+			"testCold_500_20",
+			"test_500_20",
+			"test_1000_20",
+			"test_5000_20",
+		});
+		return new RefactoringPerformanceTestSetup(suite);
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringPerformanceTestSetup(someTest);
+	}
+
+	public RippleMethodFinderPerfTests(String name) {
+		super(name);
+	}
+
+	public void testCold_500_20() throws Exception {
+		executeRefactoring(500, 20, false, 3);
+	}
+
+	public void test_500_20() throws Exception {
+		executeRefactoring(500, 20, true, 3);
+	}
+
+	public void test_1000_20() throws Exception {
+		executeRefactoring(1000, 20, true, 3);
+	}
+
+	public void test_5000_20() throws Exception {
+		tagAsSummary("Ripple methods - 5000 implementors", Dimension.ELAPSED_PROCESS);
+		executeRefactoring(5000, 20, true, 3);
+	}
+
+	/**
+	 * @param numberOfCus the number of implementors
+	 * @param numberOfRefs the number of interfaces
+	 * @param measure whether to measure
+	 */
+	@Override
+	protected void doExecuteRefactoring(int numberOfCus, int numberOfRefs, boolean measure) throws Exception {
+		IMethod method= generateSources(numberOfCus, numberOfRefs);
+		joinBackgroudActivities();
+		if (measure)
+			startMeasuring();
+		IMethod[] related= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), WorkingCopyOwner.getPrimary());
+		if (measure)
+			finishMeasurements();
+
+		int implementors= 0;
+		for (int i= 0; i < numberOfCus; i++) {
+			if (i % numberOfRefs < 2)
+				implementors++;
+		}
+		// I0, I1, M and the implementors of I0 and I1
+		assertEquals(3 + implementors, related.length);
+	}
+
+	private IMethod generateSources(int numberOfCus, int numberOfRefs) throws Exception {
+		IPackageFragment pack= getTestProject().getSourceFolder().createPackageFragment("p", false, null);
+		ICompilationUnit result= null;
+		for (int k= 0; k < numberOfRefs; k++) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package p;\n");
+			buf.append("public interface I" + k + " {\n");
+			buf.append("    void foo();\n");
+			buf.append("}\n");
+			ICompilationUnit cu= pack.createCompilationUnit("I" + k + ".java", buf.toString(), false, null);
+			if (k == 0)
+				result= cu;
+		}
+		for (int i= 0; i < numberOfCus; i++) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package p;\n");
+			buf.append("public class C" + i + " implements I" + (i % numberOfRefs) + " {\n");
+			buf.append("    public void foo() {\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			pack.createCompilationUnit("C" + i + ".java", buf.toString(), false, null);
+		}
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class M implements I0, I1 {\n");
+		buf.append("    public void foo() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		pack.createCompilationUnit("M.java", buf.toString(), false, null);
+		return result.findPrimaryType().getMethod("foo", new String[0]);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.reorg;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+
+import org.eclipse.jdt.internal.corext.refactoring.CollectingSearchRequestor;
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine;
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine.IPatternFactory;
+import org.eclipse.jdt.internal.corext.util.SearchUtils;
+
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestCase;
+
+/**
+ * Measures the search for the references to <code>p0.A</code> in 8 source folders with 250
+ * compilation units each, as a single search and split by the {@link ShardedSearchEngine}.
+ */
+public class ShardedSearchPerfTests extends RefactoringPerformanceTestCase {
+
+	private static final int SOURCE_FOLDERS= 8;
+
+	private static final int UNITS= 250;
+
+	private static final int RUNS= 10;
+
+	private IJavaProject fProject;
+
+	private IPatternFactory fPattern;
+
+	private IJavaSearchScope fScope;
+
+	public static Test suite() {
+		return new TestSuite(ShardedSearchPerfTests.class);
+	}
+
+	public ShardedSearchPerfTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= JavaProjectHelper.createJavaProject("ShardedSearchPerf", "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IType type= null;
+		for (int folder= 0; folder < SOURCE_FOLDERS; folder++) {
+			IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src" + folder);
+			IPackageFragment pack= root.createPackageFragment("p" + folder, true, null);
+			if (folder == 0)
+				type= pack.createCompilationUnit("A.java", "package p0;\npublic class A {\n}\n", true, null).getType("A");
+			for (int unit= 0; unit < UNITS; unit++)
+				pack.createCompilationUnit("B" + unit + ".java", getContents(folder, unit), true, null);
+		}
+		fPattern= ShardedSearchEngine.createPatternFactory(new IJavaElement[] { type }, IJavaSearchConstants.REFERENCES);
+		fScope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fProject });
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	private static String getContents(int folder, int unit) {
+		StringBuffer buffer= new StringBuffer();
+		buffer.append("package p").append(folder).append(";\n");
+		buffer.append("import p0.A;\n");
+		buffer.append("public class B").append(unit).append(" {\n");
+		for (int i= 0; i < 20; i++) {
+			buffer.append("\tA fA").append(i).append(";\n");
+			buffer.append("\tObject get").append(i).append("(A a) { return fA").append(i).append(" == a ? a : null; }\n");
+		}
+		buffer.append("}\n");
+		return buffer.toString();
+	}
+
+	public void testSingleSearch() throws Exception {
+		measureSearch(false);
+	}
+
+	public void testShardedSearch() throws Exception {
+		tagAsSummary("Sharded search - 8 source folders", Dimension.ELAPSED_PROCESS);
+		measureSearch(true);
+	}
+
+	/**
+	 * @param sharded whether to split the search by source folder
+	 * @throws Exception if the search fails
+	 */
+	private void measureSearch(boolean sharded) throws Exception {
+		// warm up the index
+		int expected= search(false);
+		for (int run= 0; run < RUNS; run++) {
+			joinBackgroudActivities();
+			startMeasuring();
+			int matches= search(sharded);
+			stopMeasuring();
+			assertEquals(expected, matches);
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private int search(boolean sharded) throws Exception {
+		CollectingSearchRequestor requestor= new CollectingSearchRequestor();
+		if (sharded)
+			ShardedSearchEngine.search(fPattern, fScope, null, null, requestor, null);
+		else
+			new SearchEngine().search(fPattern.createPattern(), SearchUtils.getDefaultSearchParticipants(), fScope, requestor, null);
+		return requestor.getResults().size();
+	}
+}
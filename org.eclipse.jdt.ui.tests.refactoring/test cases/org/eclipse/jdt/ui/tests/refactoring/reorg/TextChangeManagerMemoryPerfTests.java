@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.reorg;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.GroupCategory;
+import org.eclipse.ltk.core.refactoring.GroupCategorySet;
+import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.core.refactoring.TextEditChangeGroup;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+
+import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
+import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+
+import org.eclipse.jdt.ui.tests.refactoring.RefactoringTestSetup;
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestCase;
+
+/**
+ * Measures the heap used by the changes of a synthetic rename of a type that is referenced
+ * 10 times in each of 20'000 compilation units, up to the composite change that holds all of
+ * them. The composite change holds all changes expanded, so the heap is the same with and without
+ * a limit of expanded changes; the test guards against the compact form adding to it.
+ */
+public class TextChangeManagerMemoryPerfTests extends RefactoringPerformanceTestCase {
+
+	private static final int CUS= 20000;
+
+	private static final int REFERENCES= 10;
+
+	private static final int MAX_EXPANDED_CHANGES= 1000;
+
+	private static final int RUNS= 3;
+
+	private static final GroupCategorySet CATEGORY= new GroupCategorySet(new GroupCategory("rename", "Rename", "Rename type"));
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(TextChangeManagerMemoryPerfTests.class));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	public TextChangeManagerMemoryPerfTests(String name) {
+		super(name);
+	}
+
+	public void testCompactChanges() throws Exception {
+		measure(MAX_EXPANDED_CHANGES);
+	}
+
+	public void testExpandedChanges() throws Exception {
+		measure(Integer.MAX_VALUE);
+	}
+
+	private void measure(int maxExpandedChanges) throws Exception {
+		ICompilationUnit[] cus= createCompilationUnits();
+		for (int i= 0; i < RUNS; i++) {
+			System.gc();
+			startMeasuring();
+			TextChangeManager manager= new TextChangeManager(true);
+			manager.setMaxExpandedChanges(maxExpandedChanges);
+			for (int j= 0; j < cus.length; j++) {
+				for (int k= 0; k < REFERENCES; k++)
+					TextChangeCompatibility.addTextEdit(manager.get(cus[j]), "Update type reference", new ReplaceEdit(k * 20, 3, "NewName"), CATEGORY);
+			}
+			// the refactoring hands all changes to the change tree when it creates its change
+			CompositeChange composite= new CompositeChange("Rename type", manager.getAllChanges());
+			System.gc();
+			stopMeasuring();
+
+			assertEquals(CUS, composite.getChildren().length);
+			assertEquals(CUS, manager.getAllCompilationUnits().length);
+			TextChange change= manager.get(cus[0]);
+			TextEditChangeGroup[] groups= change.getTextEditChangeGroups();
+			assertEquals(REFERENCES, groups.length);
+			assertSame(CATEGORY, groups[0].getGroupCategorySet());
+			TextEdit[] edits= change.getEdit().getChildren();
+			assertEquals(REFERENCES, edits.length);
+			assertEquals(20, edits[1].getOffset());
+			assertEquals("NewName", ((ReplaceEdit) edits[1]).getText());
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static ICompilationUnit[] createCompilationUnits() {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit[] cus= new ICompilationUnit[CUS];
+		for (int i= 0; i < CUS; i++)
+			cus[i]= pack.getCompilationUnit("C" + i + ".java");
+		return cus;
+	}
+}
@@ -18,6 +18,7 @@ public class AllTypeConstraintsPerformanceTests {
 	public static Test suite() {
 		TestSuite suite= new TestSuite(AllTypeConstraintsPerformanceTests.class.getName());
 		suite.addTest(ExtractInterfacePerfAcceptanceTests.suite());
+		suite.addTest(TypeSetPerfTests.suite());
 		return suite;
 	}
 }
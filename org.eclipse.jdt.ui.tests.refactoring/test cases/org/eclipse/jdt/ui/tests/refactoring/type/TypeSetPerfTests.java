@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.type;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.EnumeratedTypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.TypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.TypeSetEnvironment;
+
+import org.eclipse.jdt.ui.tests.refactoring.RefactoringTestSetup;
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestCase;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
+/**
+ * Measures the type set algebra of the type constraint solver on a synthetic hierarchy of
+ * 50'000 classes, in which class <code>C<i>i</i></code> extends <code>C<i>(i-1)/4</i></code>.
+ */
+public class TypeSetPerfTests extends RefactoringPerformanceTestCase {
+
+	private static final int HOLDERS= 50;
+
+	private static final int TYPES_PER_HOLDER= 1000;
+
+	private static final int TYPES= HOLDERS * TYPES_PER_HOLDER;
+
+	private static final int RUNS= 10;
+
+	private static TypeEnvironment fgTypeEnvironment;
+
+	private static TType[] fgTypes;
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(TypeSetPerfTests.class));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	public TypeSetPerfTests(String test) {
+		super(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		if (fgTypes == null)
+			createHierarchy();
+	}
+
+	private static void createHierarchy() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit[] cus= new ICompilationUnit[HOLDERS];
+		for (int h= 0; h < HOLDERS; h++) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package p;\n");
+			buf.append("public class H").append(h).append(" {\n");
+			for (int i= h * TYPES_PER_HOLDER; i < (h + 1) * TYPES_PER_HOLDER; i++) {
+				buf.append("    public static class C").append(i);
+				if (i > 0) {
+					int parent= (i - 1) / 4;
+					buf.append(" extends H").append(parent / TYPES_PER_HOLDER).append(".C").append(parent);
+				}
+				buf.append(" {}\n");
+			}
+			buf.append("}\n");
+			cus[h]= pack.createCompilationUnit("H" + h + ".java", buf.toString(), true, null);
+		}
+
+		fgTypeEnvironment= new TypeEnvironment(true);
+		fgTypes= new TType[TYPES];
+		ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setProject(RefactoringTestSetup.getProject());
+		parser.setResolveBindings(true);
+		parser.createASTs(cus, new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				ast.accept(new ASTVisitor() {
+					@Override
+					public boolean visit(TypeDeclaration node) {
+						String name= node.getName().getIdentifier();
+						if (name.charAt(0) == 'C')
+							fgTypes[Integer.parseInt(name.substring(1))]= fgTypeEnvironment.create(node.resolveBinding());
+						return true;
+					}
+				});
+			}
+		}, null);
+		for (int i= 0; i < TYPES; i++)
+			assertNotNull("C" + i, fgTypes[i]);
+	}
+
+	public void testTypeSetAlgebra() throws Exception {
+		tagAsSummary("Type sets - 50k types", Dimension.ELAPSED_PROCESS);
+
+		for (int r= 0; r < RUNS; r++) {
+			startMeasuring();
+			TypeSetEnvironment environment= new TypeSetEnvironment(fgTypeEnvironment);
+			EnumeratedTypeSet all= environment.createSubTypesOfSingleton(fgTypes[0]).enumerate();
+			EnumeratedTypeSet left= environment.createSubTypesOfSingleton(fgTypes[1]).enumerate();
+			EnumeratedTypeSet right= environment.createSubTypesOfSingleton(fgTypes[2]).enumerate();
+
+			TypeSet union= left.addedTo(right);
+			TypeSet intersection= all.intersectedWith(union);
+			TypeSet disjoint= left.intersectedWith(right);
+			boolean containsUnion= all.containsAll(union);
+			boolean containsRight= left.containsAll(right);
+			int contained= 0;
+			for (int i= 0; i < TYPES; i++) {
+				if (union.contains(fgTypes[i]))
+					contained++;
+			}
+			stopMeasuring();
+
+			assertEquals(TYPES, all.size());
+			assertEquals(left.size() + right.size(), contained);
+			assertEquals(union, intersection);
+			assertTrue(disjoint.isEmpty());
+			assertTrue(containsUnion);
+			assertFalse(containsRight);
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -13,6 +13,7 @@ package org.eclipse.jdt.ui.tests.refactoring.typeconstraints;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -262,6 +263,7 @@ public class TypeEnvironmentTests extends AbstractCUTestCase {
 				checkCanAssignTo(bindings[o], bindings[i], types[o], types[i]);
 			}
 		}
+		checkConcurrentQueries(environment, types);
 		TypeEnvironment secondEnvironment= new TypeEnvironment();
 		for (int i= 0; i < bindings.length; i++) {
 			assertTrue("Equal to second environment", types[i].equals(secondEnvironment.create(bindings[i])));
@@ -273,6 +275,37 @@ public class TypeEnvironmentTests extends AbstractCUTestCase {
 		}
 	}
 
+	private void checkConcurrentQueries(final TypeEnvironment environment, final TType[] types) throws Exception {
+		final boolean[][] canAssign= new boolean[types.length][types.length];
+		for (int o= 0; o < types.length; o++) {
+			for (int i= 0; i < types.length; i++) {
+				canAssign[o][i]= types[o].canAssignTo(types[i]);
+			}
+		}
+		final List<String> failures= Collections.synchronizedList(new ArrayList<String>());
+		Thread[] threads= new Thread[4];
+		for (int t= 0; t < threads.length; t++) {
+			threads[t]= new Thread() {
+				@Override
+				public void run() {
+					for (int o= 0; o < types.length; o++) {
+						int id= environment.getTypeId(types[o]);
+						if (!types[o].equals(environment.getTypeForId(id)))
+							failures.add("Wrong type for id of " + types[o].getPrettySignature());
+						for (int i= 0; i < types.length; i++) {
+							if (types[o].canAssignTo(types[i]) != canAssign[o][i])
+								failures.add("Different concurrent assignment rule(" + types[i].getPrettySignature() + "= " + types[o].getPrettySignature() + ")");
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t= 0; t < threads.length; t++)
+			threads[t].join();
+		assertEquals(failures.toString(), 0, failures.size());
+	}
+
 	private void checkCanAssignTo(ITypeBinding rhsBinding, ITypeBinding lhsBinding, TType rhs, TType lhs) {
 		boolean coreResult= rhsBinding.isAssignmentCompatible(lhsBinding);
 		boolean uiResult= rhs.canAssignTo(lhs);
@@ -20,6 +20,8 @@ public class PerformanceTestSuite {
 	public static Test suite() {
 		TestSuite suite= new TestSuite(PerformanceTestSuite.class.getName());
 		suite.addTest(TypeHierarchyPerfTest.suite());
+		suite.addTest(RemoteTestRunnerProtocolPerfTest.suite());
+		suite.addTest(TestRunSessionMemoryPerfTest.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageSender;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.MessageSender;
+
+import org.eclipse.jdt.launching.SocketUtil;
+
+/**
+ * Measures the throughput of the test runner protocols. A stand-in for the RemoteTestRunner
+ * replays a run of one million test start and end events to a {@link RemoteTestRunnerClient}.
+ */
+public class RemoteTestRunnerProtocolPerfTest extends JdtPerformanceTestCase {
+
+	private static final int EVENTS= 1000000;
+
+	private static final int TESTS= EVENTS / 2;
+
+	private static final int FAILURE_RATE= 1000;
+
+	private static final int RUNS= 3;
+
+	private static final long TIMEOUT= 5 * 60 * 1000;
+
+	private static class TextSender implements MessageSender {
+		private final PrintWriter fWriter;
+
+		public TextSender(OutputStream out) throws IOException {
+			fWriter= new PrintWriter(new OutputStreamWriter(out, "UTF-8"), false);
+		}
+
+		@Override
+		public void sendMessage(String msg) {
+			fWriter.println(msg);
+		}
+
+		@Override
+		public void flush() {
+			fWriter.flush();
+		}
+
+		public void close() {
+			fWriter.close();
+		}
+	}
+
+	private static class CountingListener implements ITestRunListener2 {
+		int fTreeEntries;
+		int fStarted;
+		int fEnded;
+		int fFailed;
+		boolean fDone;
+
+		@Override
+		public void testRunStarted(int testCount) {
+		}
+
+		@Override
+		public synchronized void testRunEnded(long elapsedTime) {
+			fDone= true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void testRunStopped(long elapsedTime) {
+			fDone= true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void testRunTerminated() {
+			fDone= true;
+			notifyAll();
+		}
+
+		@Override
+		public void testStarted(String testId, String testName) {
+			fStarted++;
+		}
+
+		@Override
+		public void testEnded(String testId, String testName) {
+			fEnded++;
+		}
+
+		@Override
+		public void testTreeEntry(String description) {
+			fTreeEntries++;
+		}
+
+		@Override
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			fFailed++;
+		}
+
+		@Override
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+		}
+
+		public synchronized void waitForEnd() throws InterruptedException {
+			long end= System.currentTimeMillis() + TIMEOUT;
+			while (!fDone && System.currentTimeMillis() < end)
+				wait(1000);
+		}
+	}
+
+	public static Test suite() {
+		return new TestSuite(RemoteTestRunnerProtocolPerfTest.class);
+	}
+
+	public RemoteTestRunnerProtocolPerfTest(String name) {
+		super(name);
+	}
+
+	public void testTextProtocol() throws Exception {
+		measure(false);
+	}
+
+	public void testBinaryProtocol() throws Exception {
+		tagAsSummary("JUnit runner protocol - 1M events, binary", Dimension.ELAPSED_PROCESS);
+		measure(true);
+	}
+
+	private void measure(boolean binary) throws Exception {
+		for (int i= 0; i < RUNS; i++) {
+			int port= SocketUtil.findFreePort();
+			CountingListener listener= new CountingListener();
+			RemoteTestRunnerClient client= new RemoteTestRunnerClient();
+
+			startMeasuring();
+			client.startListening(new ITestRunListener2[] { listener }, port);
+			replay(port, binary);
+			listener.waitForEnd();
+			stopMeasuring();
+
+			assertTrue(listener.fDone);
+			assertEquals(TESTS + 1, listener.fTreeEntries);
+			assertEquals(TESTS, listener.fStarted);
+			assertEquals(TESTS, listener.fEnded);
+			assertEquals(TESTS / FAILURE_RATE, listener.fFailed);
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Replays a test run like the RemoteTestRunner does.
+	 *
+	 * @param port the port of the client
+	 * @param binary <code>true</code> to use the binary protocol
+	 * @throws Exception if the run cannot be sent
+	 */
+	private static void replay(int port, boolean binary) throws Exception {
+		Socket socket= connect(port);
+		try {
+			BinaryMessageSender binarySender= null;
+			TextSender textSender= null;
+			MessageSender sender;
+			if (binary)
+				sender= binarySender= new BinaryMessageSender(socket.getOutputStream());
+			else
+				sender= textSender= new TextSender(socket.getOutputStream());
+
+			sender.sendMessage(MessageIds.TEST_RUN_START + TESTS + " v2");
+			sender.sendMessage(MessageIds.TEST_TREE + "1,AllTests,true," + TESTS);
+			for (int i= 0; i < TESTS; i++)
+				sender.sendMessage(MessageIds.TEST_TREE + getId(i) + ',' + getName(i) + ",false,1");
+
+			for (int i= 0; i < TESTS; i++) {
+				String test= getId(i) + ',' + getName(i);
+				sender.sendMessage(MessageIds.TEST_START + test);
+				sender.flush();
+				if (i % FAILURE_RATE == 0) {
+					sender.sendMessage(MessageIds.TEST_FAILED + test);
+					sender.sendMessage(MessageIds.TRACE_START);
+					sender.sendMessage("junit.framework.AssertionFailedError: expected\n\tat p.Test.test(Test.java:" + i + ")\n");
+					sender.sendMessage(MessageIds.TRACE_END);
+					sender.flush();
+				}
+				sender.sendMessage(MessageIds.TEST_END + test);
+			}
+			sender.sendMessage(MessageIds.TEST_RUN_END + 0);
+			sender.flush();
+
+			if (binarySender != null)
+				binarySender.close();
+			if (textSender != null)
+				textSender.close();
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static Socket connect(int port) throws Exception {
+		// the client opens its server socket in a separate thread
+		IOException exception= null;
+		for (int i= 0; i < 100; i++) {
+			try {
+				return new Socket("localhost", port);
+			} catch (IOException e) {
+				exception= e;
+				Thread.sleep(50);
+			}
+		}
+		throw exception;
+	}
+
+	private static String getId(int test) {
+		return Integer.toString(test + 2);
+	}
+
+	private static String getName(int test) {
+		return "test" + (test % 100) + "(p.Test" + (test / 100) + ')';
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRoot;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+/**
+ * Measures the heap used by the JUnit model for a finished run of 300'000 tests.
+ */
+public class TestRunSessionMemoryPerfTest extends JdtPerformanceTestCase {
+
+	private static final int SUITES= 3000;
+
+	private static final int TESTS_PER_SUITE= 100;
+
+	private static final int FAILURE_RATE= 100;
+
+	private static final int RUNS= 3;
+
+	public static Test suite() {
+		return new TestSuite(TestRunSessionMemoryPerfTest.class);
+	}
+
+	public TestRunSessionMemoryPerfTest(String name) {
+		super(name);
+	}
+
+	public void testFinishedRun() throws Exception {
+		tagAsSummary("JUnit model - 300k tests", Dimension.USED_JAVA_HEAP);
+		for (int i= 0; i < RUNS; i++) {
+			joinBackgroudActivities();
+			startMeasuring();
+			TestRunSession session= createSession();
+			joinBackgroudActivities();
+			stopMeasuring();
+
+			TestRoot root= session.getTestRoot();
+			assertEquals(SUITES, root.getChildren().length);
+			assertEquals(Status.FAILURE, root.getStatus());
+			assertEquals(session, root.getTestRunSession());
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static TestRunSession createSession() {
+		TestRunSession session= new TestRunSession("TestRunSessionMemoryPerfTest", null); //$NON-NLS-1$
+		TestRoot root= session.getTestRoot();
+		int id= 0;
+		for (int i= 0; i < SUITES; i++) {
+			String className= "p.Test" + i; //$NON-NLS-1$
+			TestSuiteElement suite= new TestSuiteElement(root, Integer.toString(id++), className, TESTS_PER_SUITE);
+			for (int j= 0; j < TESTS_PER_SUITE; j++) {
+				TestCaseElement test= new TestCaseElement(suite, Integer.toString(id++), "test" + j + '(' + className + ')'); //$NON-NLS-1$
+				test.setStatus(Status.RUNNING);
+				if (j % FAILURE_RATE == 0) {
+					test.setStatus(Status.FAILURE, "junit.framework.AssertionFailedError: expected\n\tat " + className + ".test" + j + "(Test.java:" + j + ")\n", null, null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				} else {
+					test.setStatus(Status.OK);
+				}
+				test.getClassName();
+			}
+		}
+		return session;
+	}
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+import org.eclipse.jdt.internal.ui.fix.CodeStyleCleanUp;
+import org.eclipse.jdt.internal.ui.fix.ControlStatementsCleanUp;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+/**
+ * Measures how the parallel clean up scales with the number of workers
+ * on a generated project with {@link #NUMBER_OF_UNITS} compilation units.
+ */
+public class CleanUpScalingPerfTest extends JdtPerformanceTestCase {
+
+	private static final int NUMBER_OF_UNITS= 10000;
+
+	private static final int UNITS_PER_PACKAGE= 500;
+
+	private static class MyTestSetup extends TestSetup {
+
+		public static IJavaProject fJProject1;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		@Override
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			assertTrue("rt not found", JavaProjectHelper.addRTJar(fJProject1) != null);
+			IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+			IPackageFragment pack= null;
+			for (int i= 0; i < NUMBER_OF_UNITS; i++) {
+				if (i % UNITS_PER_PACKAGE == 0)
+					pack= root.createPackageFragment("pack" + (i / UNITS_PER_PACKAGE), false, null);
+				pack.createCompilationUnit("E" + i + ".java", createSource(pack.getElementName(), "E" + i), false, null);
+			}
+		}
+
+		private static String createSource(String packageName, String typeName) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package ").append(packageName).append(";\n");
+			buf.append("public class ").append(typeName).append(" {\n");
+			buf.append("    private int fCount;\n");
+			buf.append("    public int count(int[] values) {\n");
+			buf.append("        for (int i= 0; i < values.length; i++)\n");
+			buf.append("            if (values[i] > 0)\n");
+			buf.append("                fCount++;\n");
+			buf.append("        return fCount;\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			return buf.toString();
+		}
+
+		@Override
+		protected void tearDown() throws Exception {
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	public static Test suite() {
+		return new MyTestSetup(new OrderedTestSuite(CleanUpScalingPerfTest.class, new String[] {
+			"test1Worker",
+			"test2Workers",
+			"test4Workers",
+			"test8Workers",
+		}));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	public void test1Worker() throws Exception {
+		tagAsSummary("Clean Up - 10000 CUs, 1 worker", Dimension.ELAPSED_PROCESS);
+		doCleanUp(1);
+	}
+
+	public void test2Workers() throws Exception {
+		doCleanUp(2);
+	}
+
+	public void test4Workers() throws Exception {
+		doCleanUp(4);
+	}
+
+	public void test8Workers() throws Exception {
+		tagAsSummary("Clean Up - 10000 CUs, 8 workers", Dimension.ELAPSED_PROCESS);
+		doCleanUp(8);
+	}
+
+	private void doCleanUp(int workers) throws CoreException {
+		performRefactoring(workers, false);
+		for (int i= 0; i < 5; i++) {
+			performRefactoring(workers, true);
+		}
+
+		commitMeasurements();
+		assertPerformanceInRelativeBand(Dimension.ELAPSED_PROCESS, -100, +10);
+	}
+
+	private void performRefactoring(int workers, boolean measure) throws CoreException {
+		CleanUpRefactoring refactoring= createRefactoring(workers);
+
+		PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+		joinBackgroudActivities();
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+		if (measure)
+			startMeasuring();
+		ResourcesPlugin.getWorkspace().run(operation, null);
+		if (measure)
+			stopMeasuring();
+		assertTrue(operation.getConditionStatus().getSeverity() <= IStatus.WARNING);
+		assertTrue(operation.getValidationStatus().isOK());
+		assertNotNull(operation.getUndoChange());
+
+		//undo the change, to have same code for each run
+		RefactoringCore.getUndoManager().performUndo(null, null);
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+		joinBackgroudActivities();
+	}
+
+	private static CleanUpRefactoring createRefactoring(int workers) throws CoreException {
+		CleanUpRefactoring refactoring= new CleanUpRefactoring();
+		refactoring.setParallelism(workers);
+
+		IJavaElement[] roots= MyTestSetup.fJProject1.getChildren();
+		for (int i= 0; i < roots.length; i++) {
+			if (roots[i] instanceof IPackageFragmentRoot && ((IPackageFragmentRoot)roots[i]).getKind() == IPackageFragmentRoot.K_SOURCE) {
+				IJavaElement[] packages= ((IPackageFragmentRoot)roots[i]).getChildren();
+				for (int j= 0; j < packages.length; j++) {
+					ICompilationUnit[] units= ((IPackageFragment)packages[j]).getCompilationUnits();
+					for (int k= 0; k < units.length; k++) {
+						refactoring.addCompilationUnit(units[k]);
+					}
+				}
+			}
+		}
+
+		Map<String, String> options= new HashMap<>();
+		options.put(CleanUpConstants.CONTROL_STATEMENTS_USE_BLOCKS, CleanUpOptions.TRUE);
+		options.put(CleanUpConstants.CONTROL_STATMENTS_USE_BLOCKS_ALWAYS, CleanUpOptions.TRUE);
+		options.put(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS, CleanUpOptions.TRUE);
+		options.put(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS, CleanUpOptions.TRUE);
+
+		refactoring.addCleanUp(new ControlStatementsCleanUp(options));
+		refactoring.addCleanUp(new CodeStyleCleanUp(options));
+		return refactoring;
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+
+import org.eclipse.jface.viewers.TreeViewer;
+
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRoot;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+import org.eclipse.jdt.internal.junit.ui.TestRunnerViewPart;
+import org.eclipse.jdt.internal.junit.ui.TestViewer;
+
+/**
+ * Replays the 200'000 start and end events of a run of 100'000 tests into the JUnit view and
+ * checks that only the visible part of the virtual tree is created.
+ */
+public class JUnitViewPerfTest extends JdtPerformanceTestCase {
+
+	private static final int SUITES= 1000;
+
+	private static final int TESTS_PER_SUITE= 100;
+
+	private static final int FAILURE_RATE= 100;
+
+	/**
+	 * Events between two updates of the view, i.e. 20'000 events per second with the default
+	 * refresh interval
+	 */
+	private static final int EVENTS_PER_UPDATE= 4000;
+
+	/**
+	 * Upper bound for the number of tree items with data, far below the number of tests
+	 */
+	private static final int MAX_CREATED_ITEMS= 5000;
+
+	private static final int RUNS= 3;
+
+	public static Test suite() {
+		return new TestSuite(JUnitViewPerfTest.class);
+	}
+
+	public JUnitViewPerfTest(String name) {
+		super(name);
+	}
+
+	public void testReplayRun() throws Exception {
+		tagAsSummary("JUnit view - replay 200k events", Dimension.ELAPSED_PROCESS);
+
+		IWorkbenchPage page= PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+		TestRunnerViewPart view= (TestRunnerViewPart) page.showView(TestRunnerViewPart.NAME);
+		TestViewer testViewer= (TestViewer) new Accessor(view, TestRunnerViewPart.class).get("fTestViewer");
+		TreeViewer treeViewer= (TreeViewer) new Accessor(testViewer, TestViewer.class).get("fTreeViewer");
+
+		for (int i= 0; i < RUNS; i++) {
+			TestRunSession session= createSession();
+			testViewer.registerActiveSession(session);
+			testViewer.processChangesInUI();
+			joinBackgroudActivities();
+
+			startMeasuring();
+			replay(session, testViewer);
+			stopMeasuring();
+
+			Tree tree= treeViewer.getTree();
+			assertEquals(SUITES, tree.getItemCount());
+			int createdItems= countCreatedItems(tree.getItems());
+			assertTrue("created " + createdItems + " tree items", createdItems < MAX_CREATED_ITEMS);
+		}
+		testViewer.registerActiveSession(null);
+		testViewer.processChangesInUI();
+		page.hideView(view);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static void replay(TestRunSession session, TestViewer testViewer) {
+		int events= 0;
+		TestRoot root= session.getTestRoot();
+		for (int i= 0; i < SUITES; i++) {
+			TestSuiteElement suite= (TestSuiteElement) root.getChild(i);
+			for (int j= 0; j < TESTS_PER_SUITE; j++) {
+				TestCaseElement test= (TestCaseElement) suite.getChild(j);
+				test.setStatus(Status.RUNNING);
+				testViewer.registerAutoScrollTarget(test);
+				testViewer.registerViewerUpdate(test);
+				if (j % FAILURE_RATE == 0) {
+					test.setStatus(Status.FAILURE, "junit.framework.AssertionFailedError: expected\n", null, null); //$NON-NLS-1$
+					testViewer.registerFailedForAutoScroll(test);
+				} else {
+					test.setStatus(Status.OK);
+				}
+				testViewer.registerViewerUpdate(test);
+				events+= 2;
+				if (events % EVENTS_PER_UPDATE == 0)
+					update(testViewer);
+			}
+		}
+		update(testViewer);
+	}
+
+	private static void update(TestViewer testViewer) {
+		testViewer.processChangesInUI();
+		Display display= Display.getCurrent();
+		while (display.readAndDispatch()) {
+			// paint the visible items
+		}
+	}
+
+	private static int countCreatedItems(TreeItem[] items) {
+		int count= 0;
+		for (int i= 0; i < items.length; i++) {
+			if (items[i].getData() != null) {
+				count++;
+				count+= countCreatedItems(items[i].getItems());
+			}
+		}
+		return count;
+	}
+
+	private static TestRunSession createSession() {
+		TestRunSession session= new TestRunSession("JUnitViewPerfTest", null); //$NON-NLS-1$
+		TestRoot root= session.getTestRoot();
+		int id= 0;
+		for (int i= 0; i < SUITES; i++) {
+			String className= "p.Test" + i; //$NON-NLS-1$
+			TestSuiteElement suite= new TestSuiteElement(root, Integer.toString(id++), className, TESTS_PER_SUITE);
+			for (int j= 0; j < TESTS_PER_SUITE; j++)
+				new TestCaseElement(suite, Integer.toString(id++), "test" + j + '(' + className + ')'); //$NON-NLS-1$
+		}
+		return session;
+	}
+}
@@ -24,6 +24,8 @@ public class ViewPerformanceTests extends TestCase {
 		suite.addTest(PackageExplorerWorkspacePerfTest.suite());
 		suite.addTest(PackageExplorerWorkspaceWarmPerfTest.suite());
 		suite.addTest(TypeHierarchyPerfTest.suite());
+		suite.addTest(JUnitViewPerfTest.suite());
+		suite.addTest(CleanUpScalingPerfTest.suite());
 		return suite;
 	}
 }
@@ -26,7 +26,9 @@ public class JUnitJUnitTests {
 
 		suite.addTestSuite(TestEnableAssertions.class);
 		suite.addTestSuite(TestPriorization.class);
+		suite.addTestSuite(TestShardPlannerTest.class);
 		suite.addTestSuite(TestTestSearchEngine.class);
+		suite.addTestSuite(TestIndexTest.class);
 
 		addDeprecatedTests(suite);
 
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.junit.JUnitCore;
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.StringAsserts;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.junit.launcher.JUnit3TestFinder;
+import org.eclipse.jdt.internal.junit.launcher.TestIndex;
+
+/**
+ * Tests that the {@link TestIndex} is updated incrementally and rebuilt when needed.
+ */
+public class TestIndexTest extends TestCase {
+
+	/**
+	 * Counts the full searches of the index.
+	 */
+	private static class CountingTestFinder extends JUnit3TestFinder {
+		int fSearches;
+
+		@Override
+		public void searchTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
+			fSearches++;
+			super.searchTestsInContainer(element, result, pm);
+		}
+	}
+
+	private IJavaProject fProject;
+	private IPackageFragmentRoot fRoot;
+	private IPackageFragment fPackage;
+	private TestIndex fIndex;
+	private CountingTestFinder fFinder;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= JavaProjectHelper.createJavaProject("TestProject", "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IClasspathEntry cpe= JavaCore.newContainerEntry(JUnitCore.JUNIT3_CONTAINER_PATH);
+		JavaProjectHelper.addToClasspath(fProject, cpe);
+		fRoot= JavaProjectHelper.addSourceContainer(fProject, "src");
+		fPackage= fRoot.createPackageFragment("p", true, null);
+
+		// the index is not stopped, so that no saved index is used by the next test
+		fIndex= new TestIndex();
+		fIndex.start();
+		fFinder= new CountingTestFinder();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaCore.removeElementChangedListener(fIndex);
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	private ICompilationUnit createUnit(String name, String superclass) throws CoreException {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class ").append(name).append(" extends ").append(superclass).append(" {\n");
+		buf.append("    public void testFoo() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return fPackage.createCompilationUnit(name + ".java", buf.toString(), true, null);
+	}
+
+	private void assertTestsFound(IJavaElement container, String[] expectedTests) throws CoreException {
+		Set<IType> result= new HashSet<>();
+		fIndex.findTestsInContainer(fFinder, container, result, null);
+		Set<String> namesFound= new HashSet<>();
+		for (IType type : result)
+			namesFound.add(type.getFullyQualifiedName('.'));
+		StringAsserts.assertEqualStringsIgnoreOrder(namesFound.toArray(new String[namesFound.size()]), expectedTests);
+	}
+
+	public void testIncrementalUpdate() throws Exception {
+		createUnit("ATest", "junit.framework.TestCase");
+		assertTestsFound(fProject, new String[] { "p.ATest" });
+		assertEquals(1, fFinder.fSearches);
+
+		createUnit("BTest", "junit.framework.TestCase");
+		assertTestsFound(fProject, new String[] { "p.ATest", "p.BTest" });
+		assertTestsFound(fPackage, new String[] { "p.ATest", "p.BTest" });
+		assertEquals(1, fFinder.fSearches);
+	}
+
+	public void testSubtypeOfChangedUnit() throws Exception {
+		createUnit("Base", "junit.framework.TestCase");
+		createUnit("SubTest", "Base");
+		assertTestsFound(fProject, new String[] { "p.Base", "p.SubTest" });
+
+		// the unchanged subtype is checked again through the hierarchy of the changed unit
+		createUnit("Base", "java.lang.Object");
+		assertTestsFound(fProject, new String[0]);
+		assertEquals(1, fFinder.fSearches);
+	}
+
+	public void testRemovedUnit() throws Exception {
+		ICompilationUnit unit= createUnit("ATest", "junit.framework.TestCase");
+		createUnit("BTest", "junit.framework.TestCase");
+		assertTestsFound(fProject, new String[] { "p.ATest", "p.BTest" });
+		assertEquals(1, fFinder.fSearches);
+
+		unit.delete(true, null);
+		assertTestsFound(fProject, new String[] { "p.BTest" });
+		assertEquals(2, fFinder.fSearches);
+	}
+
+	public void testRebuildOfManyDirtyUnits() throws Exception {
+		assertTestsFound(fProject, new String[0]);
+		assertEquals(1, fFinder.fSearches);
+
+		int count= TestIndex.MAX_DIRTY_UNITS + 1;
+		String[] expectedTests= new String[count];
+		for (int i= 0; i < count; i++) {
+			createUnit("Test" + i, "junit.framework.TestCase");
+			expectedTests[i]= "p.Test" + i;
+		}
+		assertTestsFound(fProject, expectedTests);
+		assertEquals(2, fFinder.fSearches);
+	}
+}
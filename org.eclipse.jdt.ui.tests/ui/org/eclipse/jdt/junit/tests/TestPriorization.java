@@ -11,6 +11,11 @@
 
 package org.eclipse.jdt.junit.tests;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -18,6 +23,8 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.jdt.internal.junit.runner.FailuresFirstPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.HistoryPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
 
 import junit.extensions.TestDecorator;
 import junit.extensions.TestSetup;
@@ -304,6 +311,56 @@ public class TestPriorization extends TestCase {
 		}
 	}
 
+	public void testHistoryOrder() throws Exception {
+		// suite
+		//		D	never failed, 1s
+		//		E	never failed, 0.1s
+		//		F	failed half of the runs, 2s
+		TestSuite suite= createSuiteDEF();
+		String[] history= {
+				"0\t1\ttestD(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)",
+				"0\t0.1\ttestE(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)",
+				"0.5\t2\ttestF(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)"
+		};
+		Test reordered= prioritizeByHistory(suite, history);
+		List<String> order= new ArrayList<>();
+		collectOrder(reordered, order);
+		String[] expected= {
+				"testF", "testE", "testD"
+		};
+		checkOrder(expected, order);
+	}
+
+	public void testHistoryOrderWithPropagation() throws Exception {
+		// suite
+		//		suite1
+		//			A
+		//			B
+		//			C	failed half of the runs
+		//		suite2
+		//			D
+		//			E
+		//			F
+		TestSuite suite= new TestSuite();
+		suite.addTest(createSuiteDEF());
+		suite.addTest(createSuiteABC());
+		String[] history= {
+				"0\t0.1\ttestA(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)",
+				"0\t0.1\ttestB(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)",
+				"0.5\t1\ttestC(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)",
+				"0\t0.1\ttestD(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)",
+				"0\t0.1\ttestE(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)",
+				"0\t0.1\ttestF(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)"
+		};
+		Test reordered= prioritizeByHistory(suite, history);
+		List<String> order= new ArrayList<>();
+		collectOrder(reordered, order);
+		String[] expected= {
+				"testC", "testA", "testB", "testD", "testE", "testF"
+		};
+		checkOrder(expected, order);
+	}
+
 	private TestSuite createSuiteDEF() {
 		// suite
 		//		D
@@ -386,4 +443,21 @@ public class TestPriorization extends TestCase {
 		FailuresFirstPrioritizer prioritizer= new FailuresFirstPrioritizer(priority);
 		return prioritizer.prioritize(suite);
 	}
+
+	private Test prioritizeByHistory(Test suite, String[] history) throws IOException {
+		File file= File.createTempFile("testHistory", ".txt");
+		try {
+			Writer writer= new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+			try {
+				for (int i= 0; i < history.length; i++)
+					writer.write(history[i] + '\n');
+			} finally {
+				writer.close();
+			}
+			HistoryPrioritizer prioritizer= new HistoryPrioritizer(TestHistory.read(file.getAbsolutePath()));
+			return prioritizer.prioritize(suite);
+		} finally {
+			file.delete();
+		}
+	}
 }
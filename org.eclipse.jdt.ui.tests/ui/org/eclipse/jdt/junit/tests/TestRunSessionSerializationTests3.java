@@ -16,11 +16,15 @@ import java.io.File;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.jdt.junit.model.ITestElement;
+import org.eclipse.jdt.junit.model.ITestElement.Result;
 import org.eclipse.jdt.testplugin.JavaTestPlugin;
 
 import org.eclipse.core.runtime.Path;
 
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
 public class TestRunSessionSerializationTests3 extends AbstractTestRunSessionSerializationTests {
 
@@ -69,4 +73,25 @@ public class TestRunSessionSerializationTests3 extends AbstractTestRunSessionSer
 		JUnitModel.importTestRunSession(testsFile); // no contents check for now...
 	}
 
+	public void testImportSurefireSuite() throws Exception {
+		Path testPath= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "surefire/TEST-pack.FlakyTest.xml");
+		File testFile= JavaTestPlugin.getDefault().getFileInPlugin(testPath);
+		TestRunSession session= JUnitModel.importTestRunSession(testFile);
+		assertEquals(3, session.getTotalCount());
+		assertEquals(3, session.getStartedCount());
+		assertEquals(1, session.getFailureCount());
+		assertEquals(0, session.getErrorCount());
+		assertEquals(1, session.getIgnoredCount());
+
+		TestSuiteElement suite= (TestSuiteElement) session.getTestRoot().getChildren()[0];
+		ITestElement[] tests= suite.getChildren();
+		assertEquals(Result.OK, tests[0].getTestResult(false));
+		assertEquals(Result.FAILURE, tests[1].getTestResult(false));
+		String trace= tests[1].getFailureTrace().getTrace();
+		assertTrue(trace, trace.startsWith("junit.framework.AssertionFailedError: always"));
+		assertTrue(trace, trace.indexOf("output") == -1);
+		assertEquals(Result.IGNORED, tests[2].getTestResult(false));
+		assertNull(tests[2].getFailureTrace());
+	}
+
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.launcher.TestShardPlanner;
+import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+
+public class TestShardPlannerTest extends TestCase {
+
+	private static final String TEST_RUN_NAME= "TestShardPlannerTest";
+
+	private IPackageFragment fPackage;
+
+	@Override
+	protected void setUp() throws Exception {
+		// the planner only needs the names of the types, so handles are sufficient
+		IProject project= ResourcesPlugin.getWorkspace().getRoot().getProject(TEST_RUN_NAME);
+		IJavaProject javaProject= JavaCore.create(project);
+		fPackage= javaProject.getPackageFragmentRoot(project.getFolder("src")).getPackageFragment("p");
+	}
+
+	private IType[] createTypes(String... names) {
+		IType[] types= new IType[names.length];
+		for (int i= 0; i < names.length; i++)
+			types[i]= fPackage.getCompilationUnit(names[i] + ".java").getType(names[i]);
+		return types;
+	}
+
+	private static Map<String, Double> createTimes(Object... namesAndTimes) {
+		Map<String, Double> times= new HashMap<>();
+		for (int i= 0; i < namesAndTimes.length; i+= 2)
+			times.put("p." + namesAndTimes[i], Double.valueOf(((Number) namesAndTimes[i + 1]).doubleValue()));
+		return times;
+	}
+
+	private static void assertShards(String[][] expected, List<List<IType>> shards) {
+		assertEquals(expected.length, shards.size());
+		for (int i= 0; i < expected.length; i++) {
+			List<IType> shard= shards.get(i);
+			assertEquals("shard " + i, expected[i].length, shard.size());
+			for (int j= 0; j < expected[i].length; j++)
+				assertEquals("shard " + i, expected[i][j], shard.get(j).getElementName());
+		}
+	}
+
+	public void testBalanceByTime() throws Exception {
+		Map<String, Double> times= createTimes("A", 10, "B", 6, "C", 5, "D", 4, "E", 1);
+		TestShardPlanner planner= new TestShardPlanner(times, Collections.<String> emptySet());
+		List<List<IType>> shards= planner.plan(createTypes("E", "D", "C", "B", "A"), 2);
+		// longest first, each to the shard with the least time: 10 + 4 and 6 + 5 + 1
+		assertShards(new String[][] { { "A", "D" }, { "B", "C", "E" } }, shards);
+	}
+
+	public void testFailedClassesFirst() throws Exception {
+		Map<String, Double> times= createTimes("A", 10, "B", 6, "C", 5, "D", 4, "E", 1);
+		Set<String> failed= Collections.singleton("p.E");
+		List<List<IType>> shards= new TestShardPlanner(times, failed).plan(createTypes("A", "B", "C", "D", "E"), 2);
+		assertShards(new String[][] { { "E", "B", "C" }, { "A", "D" } }, shards);
+	}
+
+	public void testUnknownClassesTakeAverageTime() throws Exception {
+		Map<String, Double> times= createTimes("A", 9, "B", 3);
+		List<List<IType>> shards= new TestShardPlanner(times, Collections.<String> emptySet()).plan(createTypes("A", "B", "C"), 2);
+		// C is assumed to take 6 seconds
+		assertShards(new String[][] { { "A" }, { "C", "B" } }, shards);
+	}
+
+	public void testMoreShardsThanClasses() throws Exception {
+		Map<String, Double> times= createTimes("A", 1, "B", 2);
+		List<List<IType>> shards= new TestShardPlanner(times, Collections.<String> emptySet()).plan(createTypes("A", "B"), 4);
+		assertShards(new String[][] { { "B" }, { "A" } }, shards);
+	}
+
+	public void testNoHistory() throws Exception {
+		Map<String, Double> times= TestShardPlanner.getClassTimes(TEST_RUN_NAME + ".noHistory");
+		assertTrue(times.isEmpty());
+		// all classes take the same time, they are distributed round robin in name order
+		List<List<IType>> shards= new TestShardPlanner(times, Collections.<String> emptySet()).plan(createTypes("E", "D", "C", "B", "A"), 3);
+		assertShards(new String[][] { { "A", "D" }, { "B", "E" }, { "C" } }, shards);
+	}
+
+	public void testClassTimesOfSwappedOutSession() throws Exception {
+		File file= File.createTempFile(TEST_RUN_NAME, ".xml");
+		TestRunSession session= null;
+		try {
+			Writer writer= new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+			try {
+				writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+						+ "<testrun name=\"" + TEST_RUN_NAME + "\">\n"
+						+ "  <testsuite name=\"p.A\" time=\"3.0\">\n"
+						+ "    <testcase name=\"test1\" classname=\"p.A\" time=\"1.0\"/>\n"
+						+ "    <testcase name=\"test2\" classname=\"p.A\" time=\"2.0\"/>\n"
+						+ "  </testsuite>\n"
+						+ "  <testsuite name=\"p.B\" time=\"0.5\">\n"
+						+ "    <testcase name=\"test1\" classname=\"p.B\" time=\"0.5\"/>\n"
+						+ "  </testsuite>\n"
+						+ "</testrun>\n");
+			} finally {
+				writer.close();
+			}
+			session= JUnitModel.importTestRunSession(file);
+			session.swapOut();
+
+			Map<String, Double> times= TestShardPlanner.getClassTimes(TEST_RUN_NAME);
+			assertEquals(2, times.size());
+			assertEquals(3.0, times.get("p.A").doubleValue(), 0.001);
+			assertEquals(0.5, times.get("p.B").doubleValue(), 0.001);
+		} finally {
+			if (session != null)
+				JUnitCorePlugin.getModel().removeTestRunSession(session);
+			file.delete();
+		}
+	}
+}
@@ -122,6 +122,9 @@ public class SelectionHistoryTest extends TestCase {
 		public TestHistory() {
 			super("");
 		}
+		public TestHistory(int capacity) {
+			super("", "root", "info", capacity);
+		}
 		@Override
 		protected void setAttributes(Object object, Element element) {}
 		@Override
@@ -193,4 +196,25 @@ public class SelectionHistoryTest extends TestCase {
 		assertEquals(strings, expected);
 	}
 
+	public void testHistoryCapacity() throws Exception {
+		History<String, String> history= new TestHistory(3);
+
+		history.accessed("a");
+		history.accessed("b");
+		history.accessed("c");
+		history.accessed("a");
+		history.accessed("d");
+
+		assertFalse(history.containsKey("b"));
+		assertEquals(-1, history.getPosition("b"));
+		assertEquals(0, history.getPosition("c"));
+		assertEquals(1, history.getPosition("a"));
+		assertEquals(2, history.getPosition("d"));
+		assertEquals(1.0f, history.getNormalizedPosition("d"), 0.0f);
+
+		history.removeKey("a");
+		assertEquals(0, history.getPosition("c"));
+		assertEquals(1, history.getPosition("d"));
+	}
+
 }
@@ -20,11 +20,15 @@ import java.util.List;
 import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.testplugin.JavaTestPlugin;
 
+import org.eclipse.core.runtime.CoreException;
+
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -32,10 +36,13 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
 import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -5258,6 +5265,51 @@ public class CleanUpStressTest extends CleanUpTestCase {
 		List<IJavaElement> cus= new ArrayList<>();
 		addAllCUs(fJProject1.getChildren(), cus);
 
+		enableAllCleanUps();
+
+		ICompilationUnit[] units= cus.toArray(new ICompilationUnit[cus.size()]);
+		performRefactoring(units);
+
+
+//		generateTable(units);
+
+		for (int i= 0; i < units.length; i++) {
+	        ICompilationUnit cu= units[i];
+			String previewContent= getNormalizedContent(new Document(cu.getBuffer().getContents()));
+	       	String compilationUnitName= getCompilationUnitName(cu);
+
+	       	String expected= fExpectedChangesAllTests.get(compilationUnitName);
+
+	       	assertTrue("No expected value in table for " + compilationUnitName, expected != null);
+	       	assertEquals("Content not as expected for " + compilationUnitName, expected, previewContent);
+        }
+	}
+
+	public void testAllCleanUpsInParallel() throws Exception {
+		List<IJavaElement> cus= new ArrayList<>();
+		addAllCUs(fJProject1.getChildren(), cus);
+
+		enableAllCleanUps();
+
+		ICompilationUnit[] units= cus.toArray(new ICompilationUnit[cus.size()]);
+		performRefactoring(units);
+
+		String[] sequential= new String[units.length];
+		for (int i= 0; i < units.length; i++)
+			sequential[i]= units[i].getBuffer().getContents();
+
+		RefactoringCore.getUndoManager().performUndo(null, null);
+
+		CleanUpRefactoring refactoring= new CleanUpRefactoring();
+		refactoring.setUseOptionsFromProfile(true);
+		refactoring.setParallelism(4);
+		performRefactoring(refactoring, units, JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps());
+
+		for (int i= 0; i < units.length; i++)
+			assertEquals("Content differs for " + getCompilationUnitName(units[i]), sequential[i], units[i].getBuffer().getContents());
+	}
+
+	private void enableAllCleanUps() throws CoreException {
 		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS);
 		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS);
 		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_METHOD_USE_THIS);
@@ -5307,23 +5359,6 @@ public class CleanUpStressTest extends CleanUpTestCase {
 
 		enable(CleanUpConstants.SORT_MEMBERS);
 		enable(CleanUpConstants.SORT_MEMBERS_ALL);
-
-		ICompilationUnit[] units= cus.toArray(new ICompilationUnit[cus.size()]);
-		performRefactoring(units);
-
-
-//		generateTable(units);
-
-		for (int i= 0; i < units.length; i++) {
-	        ICompilationUnit cu= units[i];
-			String previewContent= getNormalizedContent(new Document(cu.getBuffer().getContents()));
-	       	String compilationUnitName= getCompilationUnitName(cu);
-
-	       	String expected= fExpectedChangesAllTests.get(compilationUnitName);
-
-	       	assertTrue("No expected value in table for " + compilationUnitName, expected != null);
-	       	assertEquals("Content not as expected for " + compilationUnitName, expected, previewContent);
-        }
 	}
 
 	private static String getCompilationUnitName(ICompilationUnit cu) {
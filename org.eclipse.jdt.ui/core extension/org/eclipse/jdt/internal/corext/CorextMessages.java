@@ -37,6 +37,7 @@ public final class CorextMessages extends NLS {
 	
 	public static String History_error_serialize;
 	public static String History_error_read;
+	public static String History_persist_job;
 	public static String TypeInfoHistory_consistency_check;
 
 	static {
@@ -15,7 +15,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -33,22 +32,12 @@ import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
  * Creates AST from a set of compilation units. Uses the
  * batch parser. Splits the set of compilation units in subsets
  * such that it is unlikely that a out of memory exception will occur.
+ * The size of the subsets adapts to the available heap, see {@link ASTBatchSizer}.
  *
  * @since 3.4
  */
 public class ASTBatchParser {
 
-	private static final int MAX_AT_ONCE;
-	static {
-		long maxMemory= Runtime.getRuntime().maxMemory() / (1 << 20); // in MiB
-		
-		if      (maxMemory >= 2000) MAX_AT_ONCE= 400;
-		else if (maxMemory >= 1500) MAX_AT_ONCE= 300;
-		else if (maxMemory >= 1000) MAX_AT_ONCE= 200;
-		else if (maxMemory >=  500) MAX_AT_ONCE= 100;
-		else                        MAX_AT_ONCE=  25;
-	}
-
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
 	 * <p>
@@ -77,24 +66,19 @@ public class ASTBatchParser {
 		monitor.beginTask("", compilationUnits.length); //$NON-NLS-1$
 		try {
 
+			ASTBatchSizer sizer= new ASTBatchSizer();
 			ICompilationUnit[][] splited= splitByProject(compilationUnits);
 			for (int i= 0; i < splited.length; i++) {
 				ICompilationUnit[] units= splited[i];
 
-				if (units.length <= MAX_AT_ONCE) {
-					createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, new SubProgressMonitor(monitor, units.length));
-				} else {
-					List<ICompilationUnit> list= Arrays.asList(units);
-					int end= 0;
-					int cursor= 0;
-					while (cursor < units.length) {
-						end= Math.min(end + MAX_AT_ONCE, units.length);
-						List<ICompilationUnit> toParse= list.subList(cursor, end);
-
-						createParser(units[0].getJavaProject()).createASTs(toParse.toArray(new ICompilationUnit[toParse.size()]), bindingKeys, requestor,
-								new SubProgressMonitor(monitor, toParse.size()));
-						cursor= end;
-					}
+				int cursor= 0;
+				while (cursor < units.length) {
+					int end= Math.min(cursor + sizer.nextBatchSize(), units.length);
+					ICompilationUnit[] toParse= cursor == 0 && end == units.length ? units : Arrays.copyOfRange(units, cursor, end);
+
+					createParser(units[0].getJavaProject()).createASTs(toParse, bindingKeys, requestor, sizer.sampling(new SubProgressMonitor(monitor, toParse.length)));
+					sizer.batchDone(toParse.length);
+					cursor= end;
 				}
 			}
 		} finally {
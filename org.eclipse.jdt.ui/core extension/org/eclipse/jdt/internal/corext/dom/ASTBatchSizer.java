@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.dom;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Computes the number of compilation units the {@link ASTBatchParser} passes to
+ * one <code>ASTParser#createASTs</code> call.
+ * <p>
+ * The size of the next batch is derived from the current heap headroom and from the
+ * heap growth per compilation unit observed in previous batches of the same sizer. The headroom
+ * is taken from the usage of the heap memory pools after their last collection. The growth of a
+ * batch is the highest heap usage sampled whenever the parser reports progress, relative to the
+ * usage when the batch started. The memory pools are only read, so concurrent parsers do not
+ * reset each other's measurements. Allocations of other threads may still show up as growth,
+ * which only makes the following batches smaller.
+ * </p>
+ *
+ * @since 3.12
+ */
+class ASTBatchSizer {
+
+	private static final String DEBUG_PREFIX= "ASTBatchSizer > "; //$NON-NLS-1$
+
+	private static final int MIN_BATCH_SIZE= 25;
+
+	private static final int MAX_BATCH_SIZE= 2000;
+
+	/**
+	 * Fraction of the heap headroom a single batch may use.
+	 */
+	private static final double HEADROOM_FRACTION= 0.5;
+
+	/**
+	 * Initial estimate of the heap growth per compilation unit in bytes. Together with
+	 * {@link #HEADROOM_FRACTION} this yields the batch sizes previously used for
+	 * an empty heap (e.g. 400 for 2 GiB).
+	 */
+	private static final double INITIAL_BYTES_PER_UNIT= 2.5 * (1 << 20);
+
+	/**
+	 * Weight of a new measurement in the exponential moving average of the growth per unit.
+	 */
+	private static final double SMOOTHING= 0.3;
+
+	private final List<MemoryPoolMXBean> fHeapPools;
+
+	private double fBytesPerUnit;
+
+	private long fUsedBeforeBatch;
+
+	/** The highest heap usage sampled while the current batch is parsed */
+	private long fPeakDuringBatch;
+
+	private int fBatchSize;
+
+	public ASTBatchSizer() {
+		fHeapPools= new ArrayList<>();
+		for (Iterator<MemoryPoolMXBean> iter= ManagementFactory.getMemoryPoolMXBeans().iterator(); iter.hasNext();) {
+			MemoryPoolMXBean pool= iter.next();
+			if (pool.getType() == MemoryType.HEAP && pool.isValid())
+				fHeapPools.add(pool);
+		}
+		fBytesPerUnit= INITIAL_BYTES_PER_UNIT;
+	}
+
+	/**
+	 * Returns the number of compilation units to parse in the next batch and starts measuring
+	 * the heap growth of that batch. The batch should be parsed with a monitor returned by
+	 * {@link #sampling(IProgressMonitor)}, and must be followed by a call to {@link #batchDone(int)}.
+	 *
+	 * @return the size of the next batch
+	 */
+	public int nextBatchSize() {
+		long headroom= getHeadroom();
+		double bytesPerUnit= fBytesPerUnit;
+		long size= (long) (headroom * HEADROOM_FRACTION / bytesPerUnit);
+		fBatchSize= (int) Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, size));
+
+		fUsedBeforeBatch= getUsed();
+		fPeakDuringBatch= fUsedBeforeBatch;
+
+		if (JavaPlugin.DEBUG_AST_BATCH_PARSER)
+			System.out.println(DEBUG_PREFIX + "headroom: " + (headroom >> 20) + " MiB, bytes per unit: " + (long) bytesPerUnit + ", batch size: " + fBatchSize); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		return fBatchSize;
+	}
+
+	/**
+	 * Returns a monitor which samples the heap usage whenever work is reported to it.
+	 *
+	 * @param monitor the monitor to wrap
+	 * @return the sampling monitor
+	 */
+	public IProgressMonitor sampling(IProgressMonitor monitor) {
+		return new ProgressMonitorWrapper(monitor) {
+			@Override
+			public void worked(int work) {
+				super.worked(work);
+				sample();
+			}
+
+			@Override
+			public void internalWorked(double work) {
+				super.internalWorked(work);
+				sample();
+			}
+		};
+	}
+
+	private void sample() {
+		long used= getUsed();
+		if (used > fPeakDuringBatch)
+			fPeakDuringBatch= used;
+	}
+
+	/**
+	 * Updates the estimated heap growth per compilation unit from the highest heap usage
+	 * sampled while the last batch was parsed.
+	 *
+	 * @param units the number of compilation units parsed in the last batch
+	 */
+	public void batchDone(int units) {
+		if (units <= 0 || fHeapPools.isEmpty())
+			return;
+
+		sample();
+		long growth= fPeakDuringBatch - fUsedBeforeBatch;
+		if (growth <= 0)
+			return;
+
+		double measured= (double) growth / units;
+		double bytesPerUnit= fBytesPerUnit * (1 - SMOOTHING) + measured * SMOOTHING;
+		fBytesPerUnit= bytesPerUnit;
+
+		if (JavaPlugin.DEBUG_AST_BATCH_PARSER)
+			System.out.println(DEBUG_PREFIX + "parsed " + units + " units, growth: " + (growth >> 20) + " MiB, measured bytes per unit: " + (long) measured + ", new estimate: " + (long) bytesPerUnit); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	/**
+	 * Returns the memory that can still be allocated before the heap is exhausted. Pools
+	 * supporting collection usage report the usage after their last collection, which excludes
+	 * garbage that would be reclaimed anyway.
+	 *
+	 * @return the heap headroom in bytes
+	 */
+	private long getHeadroom() {
+		Runtime runtime= Runtime.getRuntime();
+		long maxMemory= runtime.maxMemory();
+		if (maxMemory == Long.MAX_VALUE || fHeapPools.isEmpty())
+			return Math.max(0, maxMemory - (runtime.totalMemory() - runtime.freeMemory()));
+
+		long used= 0;
+		for (Iterator<MemoryPoolMXBean> iter= fHeapPools.iterator(); iter.hasNext();) {
+			MemoryPoolMXBean pool= iter.next();
+			MemoryUsage usage= pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+			if (usage == null)
+				usage= pool.getUsage();
+			if (usage != null)
+				used+= usage.getUsed();
+		}
+		return Math.max(0, maxMemory - used);
+	}
+
+	private long getUsed() {
+		long used= 0;
+		for (Iterator<MemoryPoolMXBean> iter= fHeapPools.iterator(); iter.hasNext();) {
+			MemoryUsage usage= iter.next().getUsage();
+			if (usage != null)
+				used+= usage.getUsed();
+		}
+		return used;
+	}
+}
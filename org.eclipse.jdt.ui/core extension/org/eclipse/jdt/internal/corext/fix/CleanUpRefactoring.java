@@ -11,12 +11,17 @@
 package org.eclipse.jdt.internal.corext.fix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -25,6 +30,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -85,6 +91,7 @@ import org.eclipse.jdt.ui.text.java.IProblemLocation;
 import org.eclipse.jdt.internal.ui.IJavaStatusConstants;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.fix.IMultiFix.MultiFixContext;
+import org.eclipse.jdt.internal.ui.fix.IThreadSafeCleanUp;
 import org.eclipse.jdt.internal.ui.fix.MapCleanUpOptions;
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.refactoring.IScheduledRefactoring;
@@ -245,6 +252,61 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	/**
+	 * Monitor shared by the workers of a parallel clean up pass. Serializes access to the
+	 * wrapped monitor and flushes the work reported for each completed compilation unit.
+	 */
+	private static final class SynchronizedCleanUpProgressMonitor extends ProgressMonitorWrapper {
+
+		private final CleanUpRefactoringProgressMonitor fMonitor;
+
+		private SynchronizedCleanUpProgressMonitor(CleanUpRefactoringProgressMonitor monitor) {
+			super(monitor);
+			fMonitor= monitor;
+		}
+
+		@Override
+		public synchronized void beginTask(String name, int totalWork) {
+			// the wrapped monitor has already been started by the iterator
+		}
+
+		@Override
+		public synchronized void internalWorked(double work) {
+			fMonitor.internalWorked(work);
+			fMonitor.flush();
+		}
+
+		@Override
+		public synchronized void worked(int work) {
+			internalWorked(work);
+		}
+
+		@Override
+		public synchronized void subTask(String name) {
+			fMonitor.subTask(name);
+		}
+
+		@Override
+		public synchronized void setTaskName(String name) {
+			fMonitor.setTaskName(name);
+		}
+
+		@Override
+		public synchronized boolean isCanceled() {
+			return fMonitor.isCanceled();
+		}
+
+		@Override
+		public synchronized void setCanceled(boolean value) {
+			fMonitor.setCanceled(value);
+		}
+
+		@Override
+		public void done() {
+			// the wrapped monitor is finished by the iterator
+		}
+	}
+
 	private static class CleanUpASTRequestor extends ASTRequestor {
 
 		private final List<ParseListElement> fUndoneElements;
@@ -252,9 +314,16 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
 
+		/**
+		 * Lock held while a clean up that is not an {@link IThreadSafeCleanUp} creates its fix,
+		 * or <code>null</code> if the requestor is not used by a parallel pass
+		 */
+		private final Object fCleanUpLock;
+
 		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
 			fSolutions= solutions;
 			fMonitor= monitor;
+			fCleanUpLock= null;
 			fUndoneElements= new ArrayList<>();
 			fCompilationUnitParseElementMap= new Hashtable<>(parseList.size());
 			for (Iterator<ParseListElement> iter= parseList.iterator(); iter.hasNext();) {
@@ -263,6 +332,14 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			}
 		}
 
+		private CleanUpASTRequestor(Hashtable<ICompilationUnit, ParseListElement> parseElementMap, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor, Object cleanUpLock) {
+			fSolutions= solutions;
+			fMonitor= monitor;
+			fCleanUpLock= cleanUpLock;
+			fUndoneElements= new ArrayList<>();
+			fCompilationUnitParseElementMap= parseElementMap;
+		}
+
 		@Override
 		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
 
@@ -296,11 +373,45 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			return fUndoneElements;
 		}
 
+		/**
+		 * Creates a requestor for a worker of a parallel pass. The returned requestor
+		 * collects its solutions and undone elements locally, they must be integrated
+		 * into this requestor with {@link #merge(CleanUpASTRequestor)}.
+		 *
+		 * @param monitor the monitor of the worker
+		 * @param cleanUpLock the lock shared by all workers, held while a clean up that is not
+		 *            thread-safe creates its fix
+		 * @return a new requestor sharing the parse list of this requestor
+		 */
+		public CleanUpASTRequestor createPartitionRequestor(CleanUpRefactoringProgressMonitor monitor, Object cleanUpLock) {
+			return new CleanUpASTRequestor(fCompilationUnitParseElementMap, new Hashtable<ICompilationUnit, List<CleanUpChange>>(), monitor, cleanUpLock);
+		}
+
+		/**
+		 * Integrates the solutions and undone elements of a partition requestor. Partitions
+		 * are disjoint, merging them in partition order therefore yields the same solutions
+		 * as a sequential pass over the concatenated partitions.
+		 *
+		 * @param partition the requestor created by {@link #createPartitionRequestor(CleanUpRefactoringProgressMonitor, Object)}
+		 */
+		public void merge(CleanUpASTRequestor partition) {
+			for (Iterator<Entry<ICompilationUnit, List<CleanUpChange>>> iter= partition.fSolutions.entrySet().iterator(); iter.hasNext();) {
+				Entry<ICompilationUnit, List<CleanUpChange>> entry= iter.next();
+				List<CleanUpChange> changes= fSolutions.get(entry.getKey());
+				if (changes == null) {
+					changes= new ArrayList<>();
+					fSolutions.put(entry.getKey(), changes);
+				}
+				changes.addAll(entry.getValue());
+			}
+			fUndoneElements.addAll(partition.fUndoneElements);
+		}
+
 		private ICleanUp[] calculateSolutions(CleanUpContext context, ICleanUp[] cleanUps) {
 			List<ICleanUp>result= new ArrayList<>();
 			CleanUpChange solution;
 			try {
-				solution= calculateChange(context, cleanUps, result, null);
+				solution= calculateChange(context, cleanUps, result, null, fCleanUpLock);
 			} catch (CoreException e) {
 				throw new FixCalculationException(e);
 			}
@@ -387,23 +498,16 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				CleanUpRefactoringProgressMonitor cuMonitor= new CleanUpRefactoringProgressMonitor(monitor, parseList.size() + sourceList.size(), fSize, fIndex);
 				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
 				if (parseList.size() > 0) {
-					ASTBatchParser parser= new ASTBatchParser() {
-						@Override
-						protected ASTParser createParser(IJavaProject project) {
-							ASTParser result= createCleanUpASTParser();
-							result.setProject(project);
-
-							Map<String, String> options= RefactoringASTParser.getCompilerOptions(project);
-							options.putAll(fCleanUpOptions);
-							result.setCompilerOptions(options);
-							return result;
+					ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
+					int workers= Math.min(fParallelism, units.length / MIN_UNITS_PER_WORKER);
+					if (workers > 1) {
+						createASTsInParallel(units, workers, requestor, cuMonitor);
+					} else {
+						try {
+							createBatchParser().createASTs(units, new String[0], requestor, cuMonitor);
+						} catch (FixCalculationException e) {
+							throw e.getException();
 						}
-					};
-					try {
-						ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
-						parser.createASTs(units, new String[0], requestor, cuMonitor);
-					} catch (FixCalculationException e) {
-						throw e.getException();
 					}
 				}
 
@@ -424,6 +528,69 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			}
 		}
 
+		private ASTBatchParser createBatchParser() {
+			return new ASTBatchParser() {
+				@Override
+				protected ASTParser createParser(IJavaProject project) {
+					ASTParser result= createCleanUpASTParser();
+					result.setProject(project);
+
+					Map<String, String> options= RefactoringASTParser.getCompilerOptions(project);
+					options.putAll(fCleanUpOptions);
+					result.setCompilerOptions(options);
+					return result;
+				}
+			};
+		}
+
+		/**
+		 * Splits <code>units</code> into <code>workers</code> consecutive partitions which are
+		 * parsed and cleaned up concurrently, each partition with its own batch parser and
+		 * requestor. The partition results are merged into <code>requestor</code> in partition
+		 * order once all workers are done. Clean ups that are not {@link IThreadSafeCleanUp}s
+		 * create their fixes one at a time.
+		 *
+		 * @param units the compilation units to parse
+		 * @param workers the number of partitions, at least 2
+		 * @param requestor the requestor to merge the results into
+		 * @param monitor the progress monitor
+		 * @throws CoreException if a clean up failed to calculate its fix
+		 */
+		private void createASTsInParallel(ICompilationUnit[] units, int workers, CleanUpASTRequestor requestor, CleanUpRefactoringProgressMonitor monitor) throws CoreException {
+			monitor.beginTask("", units.length); //$NON-NLS-1$
+			SynchronizedCleanUpProgressMonitor sharedMonitor= new SynchronizedCleanUpProgressMonitor(monitor);
+			Object cleanUpLock= new Object();
+
+			int partitionSize= (units.length + workers - 1) / workers;
+			List<CleanUpWorker> tasks= new ArrayList<>(workers);
+			for (int start= 0; start < units.length; start+= partitionSize) {
+				ICompilationUnit[] partition= Arrays.copyOfRange(units, start, Math.min(start + partitionSize, units.length));
+				CleanUpRefactoringProgressMonitor partitionMonitor= new CleanUpRefactoringProgressMonitor(sharedMonitor, partition.length, fSize, fIndex + start);
+				tasks.add(new CleanUpWorker(createBatchParser(), partition, requestor.createPartitionRequestor(partitionMonitor, cleanUpLock), partitionMonitor));
+			}
+
+			ForkJoinPool pool= new ForkJoinPool(tasks.size());
+			try {
+				List<Future<CleanUpASTRequestor>> results= pool.invokeAll(tasks);
+				for (Iterator<Future<CleanUpASTRequestor>> iter= results.iterator(); iter.hasNext();) {
+					requestor.merge(iter.next().get());
+				}
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof FixCalculationException)
+					throw ((FixCalculationException)cause).getException();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				if (cause instanceof Error)
+					throw (Error)cause;
+				throw new CoreException(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, cause.getLocalizedMessage(), cause));
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+
 		public void dispose() {
 			for (Iterator<ICompilationUnit> iterator= fWorkingCopies.values().iterator(); iterator.hasNext();) {
 				ICompilationUnit cu= iterator.next();
@@ -505,6 +672,27 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	private static final class CleanUpWorker implements Callable<CleanUpASTRequestor> {
+
+		private final ASTBatchParser fParser;
+		private final ICompilationUnit[] fUnits;
+		private final CleanUpASTRequestor fRequestor;
+		private final IProgressMonitor fMonitor;
+
+		public CleanUpWorker(ASTBatchParser parser, ICompilationUnit[] units, CleanUpASTRequestor requestor, IProgressMonitor monitor) {
+			fParser= parser;
+			fUnits= units;
+			fRequestor= requestor;
+			fMonitor= monitor;
+		}
+
+		@Override
+		public CleanUpASTRequestor call() {
+			fParser.createASTs(fUnits, new String[0], fRequestor, fMonitor);
+			return fRequestor;
+		}
+	}
+
 	private static final RefactoringTickProvider CLEAN_UP_REFACTORING_TICK_PROVIDER= new RefactoringTickProvider(0, 1, 0, 0);
 
 	/**
@@ -513,10 +701,17 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	 */
 	private static final int SLOW_CLEAN_UP_THRESHOLD= 2000;
 
+	/**
+	 * Minimal number of compilation units a worker of a parallel clean up
+	 * pass has to process, smaller parse lists are processed sequentially.
+	 */
+	private static final int MIN_UNITS_PER_WORKER= 10;
+
 	private final List<ICleanUp> fCleanUps;
 	private final Hashtable<IJavaProject, List<CleanUpTarget>> fProjects;
 	private Change fChange;
 	private boolean fLeaveFilesDirty;
+	private int fParallelism;
 	private final String fName;
 
 	private boolean fUseOptionsFromProfile;
@@ -530,6 +725,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<>();
 		fProjects= new Hashtable<>();
 		fUseOptionsFromProfile= false;
+		fParallelism= 1;
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
@@ -592,6 +788,17 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fLeaveFilesDirty= leaveFilesDirty;
 	}
 
+	/**
+	 * Sets the number of workers which parse and clean up the compilation units of a fix point
+	 * iteration concurrently. The computed changes do not depend on the number of workers. Clean
+	 * ups which do not implement {@link IThreadSafeCleanUp} create their fixes one at a time.
+	 *
+	 * @param parallelism the number of workers, at least 1; 1 processes the units sequentially
+	 */
+	public void setParallelism(int parallelism) {
+		fParallelism= Math.max(1, parallelism);
+	}
+
 	@Override
 	public String getName() {
 		return fName;
@@ -776,6 +983,10 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps) throws CoreException {
+		return calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, null);
+	}
+
+	private static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps, Object cleanUpLock) throws CoreException {
 		if (cleanUps.length == 0)
 			return null;
 
@@ -786,11 +997,11 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			ICleanUpFix fix;
 			if (slowCleanUps != null) {
 				long timeBefore= System.currentTimeMillis();
-				fix= cleanUp.createFix(context);
+				fix= createFix(cleanUp, context, cleanUpLock);
 				if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
 					slowCleanUps.add(cleanUp);
 			} else {
-				fix= cleanUp.createFix(context);
+				fix= createFix(cleanUp, context, cleanUpLock);
 			}
 			if (fix != null) {
 				CompilationUnitChange current= fix.createChange(null);
@@ -824,6 +1035,15 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return solution;
 	}
 
+	private static ICleanUpFix createFix(ICleanUp cleanUp, CleanUpContext context, Object cleanUpLock) throws CoreException {
+		if (cleanUpLock == null || cleanUp instanceof IThreadSafeCleanUp)
+			return cleanUp.createFix(context);
+		// clean ups are not required to be thread-safe
+		synchronized (cleanUpLock) {
+			return cleanUp.createFix(context);
+		}
+	}
+
 	private static void copyChangeGroups(CompilationUnitChange target, CompilationUnitChange source) {
 		TextEditBasedChangeGroup[] changeGroups= source.getChangeGroups();
 		for (int i= 0; i < changeGroups.length; i++) {
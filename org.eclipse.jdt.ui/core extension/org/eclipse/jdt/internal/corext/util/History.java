@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,42 +10,52 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jdt.internal.corext.CorextMessages;
 
@@ -55,12 +65,20 @@ import org.eclipse.jdt.internal.ui.JavaUIStatus;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
 /**
- * History stores a list of key, object pairs. The list is bounded at size
- * MAX_HISTORY_SIZE. If the list exceeds this size the eldest element is removed
+ * History stores a list of key, object pairs. The list is bounded by the capacity
+ * of the history. If the list exceeds this size the eldest element is removed
  * from the list. An element can be added/renewed with a call to <code>accessed(Object)</code>.
+ * <p>
+ * The history can be accessed concurrently without locking. Positions are answered from
+ * an immutable snapshot which is only rebuilt after the history has changed.
+ * </p>
+ * <p>
+ * Once the history has been loaded, every change is appended to a line based store in
+ * the state location by a background job. The store is compacted when it has grown too
+ * much and on {@link #save()}. An XML file written by earlier versions is read if there is
+ * no store yet.
+ * </p>
  *
- * The history can be stored to/loaded from an xml file.
- * 
  * @param <K> key type
  * @param <V> value type
  */
@@ -70,61 +88,154 @@ public abstract class History<K, V> {
 	private static final String DEFAULT_INFO_NODE_NAME= "infoNode"; //$NON-NLS-1$
 	private static final int MAX_HISTORY_SIZE= 60;
 
+	private static final String XML_EXTENSION= ".xml"; //$NON-NLS-1$
+	private static final String STORE_EXTENSION= ".history"; //$NON-NLS-1$
+	private static final String STORE_VERSION= "1"; //$NON-NLS-1$
+	private static final String ENCODING= "UTF-8"; //$NON-NLS-1$
+
+	private static final char ACCESSED= '+';
+	private static final char REMOVED= '-';
+	private static final String END_OF_RECORD= "\t;"; //$NON-NLS-1$
+
+	/**
+	 * Delay in milliseconds before changes are appended to the store.
+	 */
+	private static final long PERSIST_DELAY= 2000;
+
+	/**
+	 * The store is compacted when it holds more than this factor times the capacity records.
+	 */
+	private static final int COMPACT_FACTOR= 4;
+
 	private static JavaUIException createException(Throwable t, String message) {
 		return new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, message, t));
 	}
 
-	private final Map<K, V> fHistory;
-	private final Hashtable<K, Integer> fPositions;
+	private static final class Entry<V> {
+		final V fValue;
+		final long fTick;
+
+		Entry(V value, long tick) {
+			fValue= value;
+			fTick= tick;
+		}
+	}
+
+	private static final class Snapshot<K, V> {
+		final long fVersion;
+		final List<V> fValues;
+		final Map<K, Integer> fPositions;
+
+		Snapshot(long version, List<V> values, Map<K, Integer> positions) {
+			fVersion= version;
+			fValues= values;
+			fPositions= positions;
+		}
+	}
+
+	private static final class Record<V> {
+		final char fKind;
+		final V fValue;
+
+		Record(char kind, V value) {
+			fKind= kind;
+			fValue= value;
+		}
+	}
+
+	private final class PersistJob extends Job {
+
+		PersistJob() {
+			super(CorextMessages.History_persist_job);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			flush();
+			return Status.OK_STATUS;
+		}
+	}
+
+	private final ConcurrentHashMap<K, Entry<V>> fHistory;
+	private final AtomicLong fClock;
+	private final AtomicLong fVersion;
+	private volatile Snapshot<K, V> fSnapshot;
+	private final int fCapacity;
 	private final String fFileName;
 	private final String fRootNodeName;
 	private final String fInfoNodeName;
 
-	public History(String fileName, String rootNodeName, String infoNodeName) {
-		fHistory= new LinkedHashMap<K, V>(80, 0.75f, true) {
-			private static final long serialVersionUID= 1L;
-			@Override
-			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-				return size() > MAX_HISTORY_SIZE;
-			}
-		};
+	private final ConcurrentLinkedQueue<Record<V>> fPendingRecords;
+	private final AtomicBoolean fFlushScheduled;
+	private final Object fStoreLock;
+	// the following fields are guarded by fStoreLock, fStoreFile and fPersistJob are published by fPersistent
+	private volatile boolean fPersistent;
+	private File fStoreFile;
+	private PersistJob fPersistJob;
+	private Document fDocument;
+	private int fStoreRecords;
+
+	public History(String fileName, String rootNodeName, String infoNodeName, int capacity) {
+		Assert.isLegal(capacity > 0);
+		fHistory= new ConcurrentHashMap<>(Math.min(capacity, 1024));
+		fClock= new AtomicLong();
+		fVersion= new AtomicLong();
+		fCapacity= capacity;
 		fFileName= fileName;
 		fRootNodeName= rootNodeName;
 		fInfoNodeName= infoNodeName;
-		fPositions= new Hashtable<>(MAX_HISTORY_SIZE);
+		fPendingRecords= new ConcurrentLinkedQueue<>();
+		fFlushScheduled= new AtomicBoolean();
+		fStoreLock= new Object();
+	}
+
+	public History(String fileName, String rootNodeName, String infoNodeName) {
+		this(fileName, rootNodeName, infoNodeName, MAX_HISTORY_SIZE);
 	}
 
 	public History(String fileName) {
 		this(fileName, DEFAULT_ROOT_NODE_NAME, DEFAULT_INFO_NODE_NAME);
 	}
 
-	public synchronized void accessed(V object) {
-		fHistory.put(getKey(object), object);
-		rebuildPositions();
+	/**
+	 * Returns the maximal number of elements in this history.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return fCapacity;
+	}
+
+	public void accessed(V object) {
+		put(object);
+		record(ACCESSED, object);
 	}
 
-	public synchronized boolean contains(V object) {
+	public boolean contains(V object) {
 		return fHistory.containsKey(getKey(object));
 	}
 
-	public synchronized boolean containsKey(K key) {
+	public boolean containsKey(K key) {
 		return fHistory.containsKey(key);
 	}
 
-	public synchronized boolean isEmpty() {
+	public boolean isEmpty() {
 		return fHistory.isEmpty();
 	}
 
-	public synchronized Object remove(V object) {
-		Object removed= fHistory.remove(getKey(object));
-		rebuildPositions();
-		return removed;
+	public Object remove(V object) {
+		return removeKey(getKey(object));
 	}
 
-	public synchronized Object removeKey(Object key) {
-		Object removed= fHistory.remove(key);
-		rebuildPositions();
-		return removed;
+	public Object removeKey(Object key) {
+		Entry<V> removed= fHistory.remove(key);
+		if (removed == null)
+			return null;
+		fVersion.incrementAndGet();
+		record(REMOVED, removed.fValue);
+		return removed.fValue;
 	}
 
 	/**
@@ -136,14 +247,14 @@ public abstract class History<K, V> {
 	 * @param key The key of the object to inspect
 	 * @return value in [0.0, 1.0] the lower the older the element
 	 */
-	public synchronized float getNormalizedPosition(K key) {
-		if (!containsKey(key))
+	public float getNormalizedPosition(K key) {
+		Snapshot<K, V> snapshot= getSnapshot();
+		Integer position= snapshot.fPositions.get(key);
+		if (position == null)
 			return 0.0f;
 
-		int pos= fPositions.get(key).intValue() + 1;
-
-		//containsKey(key) implies fHistory.size()>0
-		return (float)pos / (float)fHistory.size();
+		//the position implies fValues.size()>0
+		return (float) (position.intValue() + 1) / (float) snapshot.fValues.size();
 	}
 
 	/**
@@ -152,70 +263,63 @@ public abstract class History<K, V> {
 	 * newer.
 	 *
 	 * @param key The key of the object to inspect
-	 * @return value between 0 and MAX_HISTORY_SIZE - 1, or -1
+	 * @return value between 0 and the capacity - 1, or -1
 	 */
-	public synchronized int getPosition(K key) {
-		if (!containsKey(key))
+	public int getPosition(K key) {
+		Integer position= getSnapshot().fPositions.get(key);
+		if (position == null)
 			return -1;
 
-		return fPositions.get(key).intValue();
+		return position.intValue();
 	}
 
-	public synchronized void load() {
-		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
-		File file= stateLocation.toFile();
-		if (file.exists()) {
-			InputStreamReader reader= null;
-	        try {
-				reader = new InputStreamReader(new FileInputStream(file), "utf-8");//$NON-NLS-1$
-				load(new InputSource(reader));
+	/**
+	 * Loads the history from the state location and starts recording changes.
+	 */
+	public void load() {
+		synchronized (fStoreLock) {
+			fPersistent= false;
+			fStoreFile= getStateFile(getStoreFileName());
+			File legacyFile= getStateFile(fFileName);
+			boolean migrate= false;
+			try {
+				if (fStoreFile.exists()) {
+					readStore(fStoreFile);
+				} else if (legacyFile.exists() && !legacyFile.equals(fStoreFile)) {
+					readLegacyFile(legacyFile);
+					// the first flush writes the store and deletes the XML file
+					migrate= true;
+				}
 			} catch (IOException e) {
 				JavaPlugin.log(e);
 			} catch (CoreException e) {
 				JavaPlugin.log(e);
-			} finally {
-				try {
-					if (reader != null)
-						reader.close();
-				} catch (IOException e) {
-					JavaPlugin.log(e);
-				}
 			}
+			if (fPersistJob == null)
+				fPersistJob= new PersistJob();
+			fPersistent= true;
+			if (migrate)
+				scheduleFlush();
 		}
 	}
 
-	public synchronized void save() {
-		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
-		File file= stateLocation.toFile();
-		OutputStream out= null;
-		try {
-			out= new FileOutputStream(file);
-			save(out);
-		} catch (IOException e) {
-			JavaPlugin.log(e);
-		} catch (CoreException e) {
-			JavaPlugin.log(e);
-		} catch (TransformerFactoryConfigurationError e) {
-			// The XML library can be misconficgured (e.g. via
-			// -Djava.endorsed.dirs=C:\notExisting\xerces-2_7_1)
-			JavaPlugin.log(e);
-		} finally {
-			try {
-				if (out != null) {
-					out.close();
-				}
-			} catch (IOException e) {
-				JavaPlugin.log(e);
-			}
+	/**
+	 * Writes the complete history to the state location.
+	 */
+	public void save() {
+		synchronized (fStoreLock) {
+			if (fStoreFile == null)
+				fStoreFile= getStateFile(getStoreFileName());
+			compact();
 		}
 	}
 
 	protected Set<K> getKeys() {
-		return fHistory.keySet();
+		return Collections.unmodifiableSet(getSnapshot().fPositions.keySet());
 	}
 
 	protected Collection<V> getValues() {
-		return fHistory.values();
+		return getSnapshot().fValues;
 	}
 
 	/**
@@ -242,14 +346,224 @@ public abstract class History<K, V> {
 	 */
 	protected abstract K getKey(V object);
 
-	private void rebuildPositions() {
-		fPositions.clear();
-		Collection<V> values= fHistory.values();
-		int pos=0;
-		for (Iterator<V> iter= values.iterator(); iter.hasNext();) {
-			V element= iter.next();
-			fPositions.put(getKey(element), new Integer(pos));
-			pos++;
+	private void put(V object) {
+		fHistory.put(getKey(object), new Entry<>(object, fClock.incrementAndGet()));
+		fVersion.incrementAndGet();
+		while (fHistory.size() > fCapacity) {
+			Map.Entry<K, Entry<V>> eldest= null;
+			for (Iterator<Map.Entry<K, Entry<V>>> iter= fHistory.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<K, Entry<V>> entry= iter.next();
+				if (eldest == null || entry.getValue().fTick < eldest.getValue().fTick)
+					eldest= entry;
+			}
+			if (eldest == null)
+				break;
+			// another thread may have renewed or evicted the entry in the meantime
+			if (fHistory.remove(eldest.getKey(), eldest.getValue()))
+				fVersion.incrementAndGet();
+		}
+	}
+
+	private Snapshot<K, V> getSnapshot() {
+		long version= fVersion.get();
+		Snapshot<K, V> snapshot= fSnapshot;
+		if (snapshot != null && snapshot.fVersion == version)
+			return snapshot;
+
+		List<Map.Entry<K, Entry<V>>> entries= new ArrayList<>(fHistory.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<K, Entry<V>>>() {
+			@Override
+			public int compare(Map.Entry<K, Entry<V>> e1, Map.Entry<K, Entry<V>> e2) {
+				return Long.compare(e1.getValue().fTick, e2.getValue().fTick);
+			}
+		});
+		List<V> values= new ArrayList<>(entries.size());
+		Map<K, Integer> positions= new LinkedHashMap<>(entries.size() * 4 / 3 + 1);
+		for (int i= 0; i < entries.size(); i++) {
+			Map.Entry<K, Entry<V>> entry= entries.get(i);
+			values.add(entry.getValue().fValue);
+			positions.put(entry.getKey(), new Integer(i));
+		}
+		snapshot= new Snapshot<>(version, Collections.unmodifiableList(values), Collections.unmodifiableMap(positions));
+		fSnapshot= snapshot;
+		return snapshot;
+	}
+
+	private void record(char kind, V object) {
+		if (!fPersistent)
+			return;
+		fPendingRecords.add(new Record<>(kind, object));
+		scheduleFlush();
+	}
+
+	private void scheduleFlush() {
+		if (fFlushScheduled.compareAndSet(false, true))
+			fPersistJob.schedule(PERSIST_DELAY);
+	}
+
+	private String getStoreFileName() {
+		String name= fFileName;
+		if (name.endsWith(XML_EXTENSION))
+			name= name.substring(0, name.length() - XML_EXTENSION.length());
+		return name + STORE_EXTENSION;
+	}
+
+	private static File getStateFile(String name) {
+		return JavaPlugin.getDefault().getStateLocation().append(name).toFile();
+	}
+
+	private Document getDocument() throws CoreException {
+		if (fDocument == null) {
+			try {
+				fDocument= DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			} catch (ParserConfigurationException e) {
+				throw createException(e, Messages.format(CorextMessages.History_error_read, BasicElementLabels.getResourceName(fFileName)));
+			}
+		}
+		return fDocument;
+	}
+
+	private void flush() {
+		synchronized (fStoreLock) {
+			fFlushScheduled.set(false);
+			if (!fPersistent)
+				return;
+			if (fStoreRecords > COMPACT_FACTOR * fCapacity || !fStoreFile.exists()) {
+				compact();
+				return;
+			}
+			List<Record<V>> records= new ArrayList<>();
+			Record<V> record;
+			while ((record= fPendingRecords.poll()) != null)
+				records.add(record);
+			if (records.isEmpty())
+				return;
+
+			Writer writer= null;
+			try {
+				writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fStoreFile, true), ENCODING));
+				for (int i= 0; i < records.size(); i++) {
+					record= records.get(i);
+					writeRecord(writer, record.fKind, record.fValue);
+				}
+				writer.flush();
+				fStoreRecords+= records.size();
+			} catch (IOException e) {
+				JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fStoreFile.getName()))));
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			} finally {
+				close(writer);
+			}
+		}
+	}
+
+	private void compact() {
+		// records of changes after this point are appended to the compacted store
+		fPendingRecords.clear();
+		List<V> values= getSnapshot().fValues;
+
+		File tempFile= new File(fStoreFile.getPath() + ".tmp"); //$NON-NLS-1$
+		Writer writer= null;
+		try {
+			writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING));
+			writer.write(getHeader());
+			writer.write('\n');
+			for (int i= 0; i < values.size(); i++)
+				writeRecord(writer, ACCESSED, values.get(i));
+			writer.close();
+			writer= null;
+			Files.move(tempFile.toPath(), fStoreFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			fStoreRecords= values.size();
+
+			File legacyFile= getStateFile(fFileName);
+			if (!legacyFile.equals(fStoreFile))
+				legacyFile.delete();
+		} catch (IOException e) {
+			JavaPlugin.log(createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fStoreFile.getName()))));
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+		} finally {
+			close(writer);
+			tempFile.delete();
+		}
+	}
+
+	private String getHeader() {
+		return '#' + fRootNodeName + '\t' + STORE_VERSION;
+	}
+
+	private void writeRecord(Writer writer, char kind, V object) throws IOException, CoreException {
+		Element element= getDocument().createElement(fInfoNodeName);
+		setAttributes(object, element);
+		NamedNodeMap attributes= element.getAttributes();
+
+		StringBuffer buf= new StringBuffer();
+		buf.append(kind);
+		for (int i= 0; i < attributes.getLength(); i++) {
+			Attr attribute= (Attr) attributes.item(i);
+			buf.append('\t');
+			escape(attribute.getName(), buf);
+			buf.append('=');
+			escape(attribute.getValue(), buf);
+		}
+		buf.append(END_OF_RECORD);
+		buf.append('\n');
+		writer.write(buf.toString());
+	}
+
+	private void readStore(File file) throws IOException, CoreException {
+		BufferedReader reader= new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+		try {
+			String line= reader.readLine();
+			if (!getHeader().equals(line)) {
+				// unknown format, rewrite the store on the next flush
+				fStoreRecords= Integer.MAX_VALUE;
+				return;
+			}
+
+			int records= 0;
+			while ((line= reader.readLine()) != null) {
+				records++;
+				// skip records which have not been written completely
+				if (line.length() < 1 + END_OF_RECORD.length() || !line.endsWith(END_OF_RECORD))
+					continue;
+				char kind= line.charAt(0);
+				if (kind != ACCESSED && kind != REMOVED)
+					continue;
+
+				Element element= getDocument().createElement(fInfoNodeName);
+				int end= line.length() - END_OF_RECORD.length();
+				int start= 1;
+				while (start < end) {
+					int next= line.indexOf('\t', start + 1);
+					if (next == -1 || next > end)
+						next= end;
+					int separator= line.indexOf('=', start + 1);
+					if (separator != -1 && separator < next)
+						element.setAttribute(unescape(line, start + 1, separator), unescape(line, separator + 1, next));
+					start= next;
+				}
+				V object= createFromElement(element);
+				if (object == null)
+					continue;
+				if (kind == ACCESSED)
+					put(object);
+				else if (fHistory.remove(getKey(object)) != null)
+					fVersion.incrementAndGet();
+			}
+			fStoreRecords= records;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void readLegacyFile(File file) throws IOException, CoreException {
+		InputStreamReader reader= new InputStreamReader(new FileInputStream(file), ENCODING);
+		try {
+			load(new InputSource(reader));
+		} finally {
+			reader.close();
 		}
 	}
 
@@ -280,43 +594,72 @@ public abstract class History<K, V> {
 				if (type.getNodeName().equalsIgnoreCase(fInfoNodeName)) {
 					V object= createFromElement(type);
 					if (object != null) {
-						fHistory.put(getKey(object), object);
+						put(object);
 					}
 				}
 			}
 		}
-		rebuildPositions();
 	}
 
-	private void save(OutputStream stream) throws CoreException {
-		try {
-			DocumentBuilderFactory factory= DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder= factory.newDocumentBuilder();
-			Document document= builder.newDocument();
-
-			Element rootElement = document.createElement(fRootNodeName);
-			document.appendChild(rootElement);
-
-			Iterator<V> values= getValues().iterator();
-			while (values.hasNext()) {
-				Object object= values.next();
-				Element element= document.createElement(fInfoNodeName);
-				setAttributes(object, element);
-				rootElement.appendChild(element);
+	private static void escape(String value, StringBuffer buf) {
+		for (int i= 0; i < value.length(); i++) {
+			char ch= value.charAt(i);
+			switch (ch) {
+				case '\\':
+					buf.append("\\\\"); //$NON-NLS-1$
+					break;
+				case '\t':
+					buf.append("\\t"); //$NON-NLS-1$
+					break;
+				case '\n':
+					buf.append("\\n"); //$NON-NLS-1$
+					break;
+				case '\r':
+					buf.append("\\r"); //$NON-NLS-1$
+					break;
+				case '=':
+					buf.append("\\e"); //$NON-NLS-1$
+					break;
+				default:
+					buf.append(ch);
 			}
+		}
+	}
 
-			Transformer transformer=TransformerFactory.newInstance().newTransformer();
-			transformer.setOutputProperty(OutputKeys.METHOD, "xml"); //$NON-NLS-1$
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8"); //$NON-NLS-1$
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
-			DOMSource source = new DOMSource(document);
-			StreamResult result = new StreamResult(stream);
+	private static String unescape(String line, int start, int end) {
+		StringBuffer buf= new StringBuffer(end - start);
+		for (int i= start; i < end; i++) {
+			char ch= line.charAt(i);
+			if (ch == '\\' && i + 1 < end) {
+				ch= line.charAt(++i);
+				switch (ch) {
+					case 't':
+						ch= '\t';
+						break;
+					case 'n':
+						ch= '\n';
+						break;
+					case 'r':
+						ch= '\r';
+						break;
+					case 'e':
+						ch= '=';
+						break;
+					default:
+						// '\\'
+				}
+			}
+			buf.append(ch);
+		}
+		return buf.toString();
+	}
 
-			transformer.transform(source, result);
-		} catch (TransformerException e) {
-			throw createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fFileName)));
-		} catch (ParserConfigurationException e) {
-			throw createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fFileName)));
+	private static void close(Writer writer) {
+		try {
+			if (writer != null)
+				writer.close();
+		} catch (IOException e) {
+			JavaPlugin.log(e);
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,10 +14,11 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.w3c.dom.Element;
 
@@ -54,6 +55,11 @@ import org.eclipse.jdt.internal.corext.CorextMessages;
 
 /**
  * History for the open type dialog. Object and keys are both {@link TypeNameMatch}s.
+ * <p>
+ * Entries are not validated eagerly. While the history needs a consistency check, the
+ * entries returned by {@link #getTypeInfos()} and {@link #getFilteredTypeInfos(TypeInfoFilter)}
+ * are validated against the Java model on first access.
+ * </p>
  */
 public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
@@ -167,12 +173,15 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	// Needs to be volatile since accesses aren't synchronized.
 	private volatile boolean fNeedsConsistencyCheck;
 	// Map of cached time stamps
-	private Map<TypeNameMatch, Long> fTimestampMapping;
+	private final Map<TypeNameMatch, Long> fTimestampMapping;
+	// Entries validated since the history has been marked as inconsistent
+	private final Set<TypeNameMatch> fValidated;
 
 	private final IElementChangedListener fDeltaListener;
 	private final UpdateJob fUpdateJob;
 
 	private static final String FILENAME= "OpenTypeHistory.xml"; //$NON-NLS-1$
+	private static final int CAPACITY= 200;
 	private static final String NODE_ROOT= "typeInfoHistroy"; //$NON-NLS-1$
 	private static final String NODE_TYPE_INFO= "typeInfo"; //$NON-NLS-1$
 	private static final String NODE_HANDLE= "handle"; //$NON-NLS-1$
@@ -194,8 +203,9 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	private OpenTypeHistory() {
-		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
-		fTimestampMapping= new HashMap<>();
+		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO, CAPACITY);
+		fTimestampMapping= new ConcurrentHashMap<>();
+		fValidated= Collections.newSetFromMap(new ConcurrentHashMap<TypeNameMatch, Boolean>());
 		fNeedsConsistencyCheck= true;
 		load();
 		fDeltaListener= new TypeHistoryDeltaListener();
@@ -211,6 +221,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	public void markAsInconsistent() {
 		fNeedsConsistencyCheck= true;
+		fValidated.clear();
 		// cancel the old job. If no job is running this is a NOOP.
 		fUpdateJob.cancel();
 		fUpdateJob.schedule();
@@ -240,12 +251,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	@Override
-	public synchronized boolean contains(TypeNameMatch type) {
-		return super.contains(type);
-	}
-
-	@Override
-	public synchronized void accessed(TypeNameMatch info) {
+	public void accessed(TypeNameMatch info) {
 		// Fetching the timestamp might not be cheap (remote file system
 		// external Jars. So check if we alreay have one.
 		if (!fTimestampMapping.containsKey(info)) {
@@ -255,37 +261,42 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	@Override
-	public synchronized TypeNameMatch remove(TypeNameMatch info) {
+	public TypeNameMatch remove(TypeNameMatch info) {
 		fTimestampMapping.remove(info);
+		fValidated.remove(info);
 		return (TypeNameMatch)super.remove(info);
 	}
 
-	public synchronized void replace(TypeNameMatch old, TypeNameMatch newMatch) {
+	public void replace(TypeNameMatch old, TypeNameMatch newMatch) {
 		fTimestampMapping.remove(old);
+		fValidated.remove(old);
 		fTimestampMapping.put(newMatch, new Long(getContainerTimestamp(newMatch)));
 		super.remove(old);
 		super.accessed(newMatch);
 	}
 
-	public synchronized TypeNameMatch[] getTypeInfos() {
+	public TypeNameMatch[] getTypeInfos() {
 		Collection<TypeNameMatch> values= getValues();
-		int size= values.size();
-		TypeNameMatch[] result= new TypeNameMatch[size];
-		int i= size - 1;
+		List<TypeNameMatch> result= new ArrayList<>(values.size());
 		for (Iterator<TypeNameMatch> iter= values.iterator(); iter.hasNext();) {
-			result[i]= iter.next();
-			i--;
+			TypeNameMatch type= validate(iter.next());
+			if (type != null)
+				result.add(type);
 		}
-		return result;
+		Collections.reverse(result);
+		return result.toArray(new TypeNameMatch[result.size()]);
 	}
 
-	public synchronized TypeNameMatch[] getFilteredTypeInfos(TypeInfoFilter filter) {
+	public TypeNameMatch[] getFilteredTypeInfos(TypeInfoFilter filter) {
 		Collection<TypeNameMatch> values= getValues();
 		List<TypeNameMatch> result= new ArrayList<>();
 		for (Iterator<TypeNameMatch> iter= values.iterator(); iter.hasNext();) {
 			TypeNameMatch type= iter.next();
-			if ((filter == null || filter.matchesHistoryElement(type)) && !TypeFilter.isFiltered(type.getFullyQualifiedName()))
-				result.add(type);
+			if ((filter == null || filter.matchesHistoryElement(type)) && !TypeFilter.isFiltered(type.getFullyQualifiedName())) {
+				type= validate(type);
+				if (type != null)
+					result.add(type);
+			}
 		}
 		Collections.reverse(result);
 		return result.toArray(new TypeNameMatch[result.size()]);
@@ -306,32 +317,57 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
 		for (Iterator<TypeNameMatch> iter= typesToCheck.iterator(); iter.hasNext();) {
 			TypeNameMatch type= iter.next();
-			long currentTimestamp= getContainerTimestamp(type);
-			Long lastTested= fTimestampMapping.get(type);
-			if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
-				continue;
-			try {
-				IType jType= type.getType();
-				if (jType == null || !jType.exists()) {
-					remove(type);
-				} else {
-					// copy over the modifiers since they may have changed
-					int modifiers= jType.getFlags();
-					if (modifiers != type.getModifiers()) {
-						replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
-					} else {
-						fTimestampMapping.put(type, new Long(currentTimestamp));
-					}
-				}
-			} catch (JavaModelException e) {
-				remove(type);
-			}
+			if (!fValidated.contains(type))
+				checkEntry(type);
 			if (monitor.isCanceled())
 				throw new OperationCanceledException();
 			monitor.worked(1);
 		}
 		monitor.done();
 		fNeedsConsistencyCheck= false;
+		fValidated.clear();
+	}
+
+	/**
+	 * Validates the given entry if the history needs a consistency check and the entry has
+	 * not been validated since the history has been marked as inconsistent.
+	 *
+	 * @param type the entry to validate
+	 * @return the valid entry, or <code>null</code> if the entry has been removed
+	 */
+	private TypeNameMatch validate(TypeNameMatch type) {
+		if (!fNeedsConsistencyCheck || fValidated.contains(type))
+			return type;
+		TypeNameMatch result= checkEntry(type);
+		if (result != null)
+			fValidated.add(result);
+		return result;
+	}
+
+	private TypeNameMatch checkEntry(TypeNameMatch type) {
+		long currentTimestamp= getContainerTimestamp(type);
+		Long lastTested= fTimestampMapping.get(type);
+		if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
+			return type;
+		try {
+			IType jType= type.getType();
+			if (jType == null || !jType.exists()) {
+				remove(type);
+				return null;
+			}
+			// copy over the modifiers since they may have changed
+			int modifiers= jType.getFlags();
+			if (modifiers != type.getModifiers()) {
+				TypeNameMatch newMatch= SearchEngine.createTypeNameMatch(jType, modifiers);
+				replace(type, newMatch);
+				return newMatch;
+			}
+			fTimestampMapping.put(type, new Long(currentTimestamp));
+			return type;
+		} catch (JavaModelException e) {
+			remove(type);
+			return null;
+		}
 	}
 
 	private long getContainerTimestamp(TypeNameMatch match) {
@@ -17,6 +17,7 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 	private static final String NODE_ROOT= "qualifiedTypeNameHistroy"; //$NON-NLS-1$
 	private static final String NODE_TYPE_INFO= "fullyQualifiedTypeName"; //$NON-NLS-1$
 	private static final String NODE_NAME= "name"; //$NON-NLS-1$
+	private static final int CAPACITY= 1000;
 
 	private static QualifiedTypeNameHistory fgInstance;
 
@@ -29,7 +30,7 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 	}
 
 	public QualifiedTypeNameHistory(String fileName) {
-		super(fileName, NODE_ROOT, NODE_TYPE_INFO);
+		super(fileName, NODE_ROOT, NODE_TYPE_INFO, CAPACITY);
 		load();
 	}
 
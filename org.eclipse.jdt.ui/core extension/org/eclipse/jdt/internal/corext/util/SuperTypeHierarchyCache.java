@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,17 @@ package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
@@ -23,18 +31,28 @@ import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
- * 
+ * <p>
+ * The cache is bounded by the total number of types in the cached hierarchies. Lookups go
+ * through an index from each contained type to its hierarchy and do not lock. Hierarchies are
+ * loaded at most once per type: concurrent requests for a type that is being loaded wait for
+ * the pending load.
+ * </p>
+ *
  * @see JDTUIHelperClasses
  */
 public class SuperTypeHierarchyCache {
 
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private volatile ITypeHierarchy fTypeHierarchy;
+		private volatile long fLastAccess;
+		private final IType[] fTypes;
+		private final ConcurrentMap<IType, MethodOverrideTester> fMethodOverrideTesters;
 
-		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
+		public HierarchyCacheEntry(ITypeHierarchy hierarchy, IType[] types) {
 			fTypeHierarchy= hierarchy;
+			fTypes= types;
+			fMethodOverrideTesters= new ConcurrentHashMap<>();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -48,6 +66,19 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
+		public boolean isValid() {
+			ITypeHierarchy hierarchy= fTypeHierarchy;
+			return hierarchy != null && hierarchy.exists();
+		}
+
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		public int getWeight() {
+			return Math.max(1, fTypes.length);
+		}
+
 		public void markAsAccessed() {
 			fLastAccess= System.currentTimeMillis();
 		}
@@ -56,28 +87,119 @@ public class SuperTypeHierarchyCache {
 			return fLastAccess;
 		}
 
+		public MethodOverrideTester getMethodOverrideTester(IType type, ITypeHierarchy hierarchy) {
+			MethodOverrideTester tester= fMethodOverrideTesters.get(type);
+			if (tester == null) {
+				tester= new MethodOverrideTester(type, hierarchy);
+				MethodOverrideTester existing= fMethodOverrideTesters.putIfAbsent(type, tester);
+				if (existing != null)
+					tester= existing;
+			}
+			return tester;
+		}
+
 		public void dispose() {
-			if (fTypeHierarchy != null) {
-				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
+			ITypeHierarchy hierarchy= fTypeHierarchy;
+			if (hierarchy != null) {
+				hierarchy.removeTypeHierarchyChangedListener(this);
 				fTypeHierarchy= null;
 			}
+			fMethodOverrideTesters.clear();
 		}
 
 		@Override
 		public String toString() {
-			return "Super hierarchy of: " + fTypeHierarchy.getType().getElementName(); //$NON-NLS-1$
+			ITypeHierarchy hierarchy= fTypeHierarchy;
+			return "Super hierarchy of: " + (hierarchy != null ? hierarchy.getType().getElementName() : "<disposed>"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 
 	}
 
+	/**
+	 * Snapshot of the statistics of the super type hierarchy cache.
+	 */
+	public static final class CacheStatistics {
 
-	private static final int CACHE_SIZE= 8;
+		private final long fHits;
+		private final long fMisses;
+		private final long fEvictions;
+		private final long fLoadTime;
+		private final int fEntryCount;
+		private final int fWeight;
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<>(CACHE_SIZE);
+		private CacheStatistics(long hits, long misses, long evictions, long loadTime, int entryCount, int weight) {
+			fHits= hits;
+			fMisses= misses;
+			fEvictions= evictions;
+			fLoadTime= loadTime;
+			fEntryCount= entryCount;
+			fWeight= weight;
+		}
+
+		/**
+		 * @return the number of requests answered from the cache, including requests that waited for a pending load
+		 */
+		public long getHits() {
+			return fHits;
+		}
+
+		/**
+		 * @return the number of hierarchies that have been computed
+		 */
+		public long getMisses() {
+			return fMisses;
+		}
+
+		/**
+		 * @return the number of hierarchies removed to stay within the weight budget
+		 */
+		public long getEvictions() {
+			return fEvictions;
+		}
+
+		/**
+		 * @return the total time spent computing hierarchies, in milliseconds
+		 */
+		public long getLoadTime() {
+			return fLoadTime;
+		}
+
+		/**
+		 * @return the number of cached hierarchies
+		 */
+		public int getEntryCount() {
+			return fEntryCount;
+		}
+
+		/**
+		 * @return the total number of types in the cached hierarchies
+		 */
+		public int getWeight() {
+			return fWeight;
+		}
+
+		@Override
+		public String toString() {
+			return "hits: " + fHits + ", misses: " + fMisses + ", evictions: " + fEvictions + ", load time: " + fLoadTime + " ms, entries: " + fEntryCount + ", weight: " + fWeight; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
+	}
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+
+	/**
+	 * Maximal total number of types in all cached hierarchies.
+	 */
+	private static final int MAX_CACHE_WEIGHT= 2000;
+
+	private static final List<HierarchyCacheEntry> fgHierarchyCache= new CopyOnWriteArrayList<>();
+	private static final ConcurrentMap<IType, HierarchyCacheEntry> fgTypeToEntry= new ConcurrentHashMap<>();
+	private static final ConcurrentMap<IType, FutureTask<HierarchyCacheEntry>> fgPendingLoads= new ConcurrentHashMap<>();
+	private static final Object fgEvictionLock= new Object();
+	private static int fgCacheWeight= 0; // guarded by fgEvictionLock
+
+	private static final AtomicLong fgCacheHits= new AtomicLong();
+	private static final AtomicLong fgCacheMisses= new AtomicLong();
+	private static final AtomicLong fgCacheEvictions= new AtomicLong();
+	private static final AtomicLong fgLoadTime= new AtomicLong();
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -95,31 +217,12 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
-			}
+		while (true) {
+			HierarchyCacheEntry entry= getHierarchyEntry(type, null);
+			ITypeHierarchy hierarchy= entry.getTypeHierarchy();
+			if (hierarchy != null)
+				return entry.getMethodOverrideTester(type, hierarchy);
+			// entry has been disposed concurrently, retry
 		}
 	}
 
@@ -136,46 +239,114 @@ public class SuperTypeHierarchyCache {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
-		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
-		if (hierarchy == null) {
-			fgCacheMisses++;
-			hierarchy= type.newSupertypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
+		while (true) {
+			ITypeHierarchy hierarchy= getHierarchyEntry(type, progressMonitor).getTypeHierarchy();
+			if (hierarchy != null)
+				return hierarchy;
+			// entry has been disposed concurrently, retry
+		}
+	}
+
+	private static HierarchyCacheEntry getHierarchyEntry(final IType type, final IProgressMonitor progressMonitor) throws JavaModelException {
+		HierarchyCacheEntry entry= findEntryInCache(type);
+		if (entry != null) {
+			fgCacheHits.incrementAndGet();
+			return entry;
+		}
+
+		FutureTask<HierarchyCacheEntry> load= new FutureTask<>(new Callable<HierarchyCacheEntry>() {
+			@Override
+			public HierarchyCacheEntry call() throws JavaModelException {
+				long start= System.currentTimeMillis();
+				ITypeHierarchy hierarchy= type.newSupertypeHierarchy(progressMonitor);
+				fgLoadTime.addAndGet(System.currentTimeMillis() - start);
+				return addTypeHierarchyToCache(hierarchy);
+			}
+		});
+		FutureTask<HierarchyCacheEntry> pending= fgPendingLoads.putIfAbsent(type, load);
+		if (pending == null) {
+			// re-check, the hierarchy may have been added while this thread registered the load
+			entry= findEntryInCache(type);
+			if (entry != null) {
+				fgPendingLoads.remove(type, load);
+				fgCacheHits.incrementAndGet();
+				return entry;
+			}
+			fgCacheMisses.incrementAndGet();
+			try {
+				load.run();
+				return getResult(load);
+			} finally {
+				fgPendingLoads.remove(type, load);
+			}
 		} else {
-			fgCacheHits++;
+			fgCacheHits.incrementAndGet();
+			return getResult(pending);
 		}
-		return hierarchy;
 	}
 
-	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>(CACHE_SIZE);
-				for (int i= 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
+	private static HierarchyCacheEntry getResult(FutureTask<HierarchyCacheEntry> load) throws JavaModelException {
+		boolean interrupted= false;
+		try {
+			while (true) {
+				try {
+					return load.get();
+				} catch (InterruptedException e) {
+					interrupted= true;
+				} catch (ExecutionException e) {
+					Throwable cause= e.getCause();
+					if (cause instanceof JavaModelException)
+						throw (JavaModelException) cause;
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					if (cause instanceof Error)
+						throw (Error) cause;
+					throw new OperationCanceledException();
+				}
+			}
+		} finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	private static HierarchyCacheEntry addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+		HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy, hierarchy.getAllTypes());
+		synchronized (fgEvictionLock) {
+			// remove obsolete entries: hierarchies that no longer exist or are contained in the new one
+			ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>();
+			for (Iterator<HierarchyCacheEntry> iter= fgHierarchyCache.iterator(); iter.hasNext();) {
+				HierarchyCacheEntry entry= iter.next();
+				ITypeHierarchy curr= entry.getTypeHierarchy();
+				if (curr == null || !curr.exists() || hierarchy.contains(curr.getType())) {
+					obsoleteHierarchies.add(entry);
 				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
+			}
+			for (int i= 0; i < obsoleteHierarchies.size(); i++) {
+				removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
+			}
+
+			// evict least recently accessed entries until the new entry fits
+			while (!fgHierarchyCache.isEmpty() && fgCacheWeight + newEntry.getWeight() > MAX_CACHE_WEIGHT) {
+				HierarchyCacheEntry oldest= null;
+				for (Iterator<HierarchyCacheEntry> iter= fgHierarchyCache.iterator(); iter.hasNext();) {
+					HierarchyCacheEntry entry= iter.next();
+					if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
+						oldest= entry;
 					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
 				}
+				removeHierarchyEntryFromCache(oldest);
+				fgCacheEvictions.incrementAndGet();
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+
 			fgHierarchyCache.add(newEntry);
+			fgCacheWeight+= newEntry.getWeight();
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeToEntry.put(types[i], newEntry);
+			}
 		}
+		return newEntry;
 	}
 
 
@@ -185,33 +356,32 @@ public class SuperTypeHierarchyCache {
 	 * @return <code>true</code> if a hierarchy for the given type is cached
 	 */
 	public static boolean hasInCache(IType type) {
-		return findTypeHierarchyInCache(type) != null;
+		return findEntryInCache(type) != null;
 	}
 
 
-	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
-			}
+	private static HierarchyCacheEntry findEntryInCache(IType type) {
+		HierarchyCacheEntry entry= fgTypeToEntry.get(type);
+		if (entry == null)
+			return null;
+		if (!entry.isValid()) {
+			removeHierarchyEntryFromCache(entry);
+			return null;
 		}
-		return null;
+		entry.markAsAccessed();
+		return entry;
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
+		synchronized (fgEvictionLock) {
+			if (!fgHierarchyCache.remove(entry))
+				return;
+			fgCacheWeight-= entry.getWeight();
+			IType[] types= entry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeToEntry.remove(types[i], entry);
+			}
 			entry.dispose();
-			fgHierarchyCache.remove(entry);
 		}
 	}
 
@@ -221,7 +391,7 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return (int) fgCacheHits.get();
 	}
 
 	/**
@@ -229,6 +399,17 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return (int) fgCacheMisses.get();
+	}
+
+	/**
+	 * Returns a snapshot of the cache statistics.
+	 *
+	 * @return the current statistics
+	 */
+	public static CacheStatistics getStatistics() {
+		synchronized (fgEvictionLock) {
+			return new CacheStatistics(fgCacheHits.get(), fgCacheMisses.get(), fgCacheEvictions.get(), fgLoadTime.get(), fgHierarchyCache.size(), fgCacheWeight);
+		}
 	}
 }
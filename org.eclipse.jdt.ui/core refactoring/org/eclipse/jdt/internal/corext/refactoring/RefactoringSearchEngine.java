@@ -39,6 +39,7 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine.IPatternFactory;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 /**
@@ -136,6 +137,31 @@ public class RefactoringSearchEngine {
 		return internalSearch(owner != null ? new SearchEngine(owner) : new SearchEngine(), pattern, scope, requestor, monitor, status);
 	}
 
+	/**
+	 * Performs a search for the patterns created by the given factory and groups the resulting
+	 * {@link SearchMatch}es by {@link SearchResultGroup#getCompilationUnit()}. Scopes that consist
+	 * of several source folders are searched in parallel, see {@link ShardedSearchEngine}.
+	 *
+	 * @param factory the factory of the search patterns
+	 * @param scope the search scope
+	 * @param requestor the requestor to collect the matches
+	 * @param monitor the progress monitor
+	 * @param status an error is added here if inaccurate or non-cu matches have been found
+	 * @return a {@link SearchResultGroup}[], where each {@link SearchResultGroup}
+	 * 		has a different {@link SearchMatch#getResource() getResource()}s.
+	 * @throws JavaModelException when the search failed
+	 */
+	//TODO: throw CoreException
+	public static SearchResultGroup[] search(IPatternFactory factory, IJavaSearchScope scope, CollectingSearchRequestor requestor,
+			IProgressMonitor monitor, RefactoringStatus status) throws JavaModelException {
+		try {
+			ShardedSearchEngine.search(factory, scope, null, null, requestor, monitor);
+		} catch (CoreException e) {
+			throw new JavaModelException(e);
+		}
+		return groupByCu(requestor.getResults(), status);
+	}
+
 	//TODO: throw CoreException
 	private static SearchResultGroup[] internalSearch(SearchEngine searchEngine, SearchPattern pattern, IJavaSearchScope scope,
 			CollectingSearchRequestor requestor, IProgressMonitor monitor, RefactoringStatus status) throws JavaModelException {
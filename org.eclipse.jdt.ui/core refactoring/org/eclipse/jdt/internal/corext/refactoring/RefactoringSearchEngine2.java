@@ -45,6 +45,7 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine.IPatternFactory;
 import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
@@ -225,6 +226,9 @@ public final class RefactoringSearchEngine2 {
 	/** The search pattern, or <code>null</code> */
 	private SearchPattern fPattern= null;
 
+	/** The factory of the search pattern, or <code>null</code> if the pattern cannot be recreated */
+	private IPatternFactory fPatternFactory= null;
+
 	/** The search requestor */
 	private IRefactoringSearchRequestor fRequestor= new DefaultSearchRequestor();
 
@@ -479,6 +483,9 @@ public final class RefactoringSearchEngine2 {
 
 	/**
 	 * Performs the search according to the specified pattern.
+	 * <p>
+	 * If the pattern was set with {@link #setPattern(IJavaElement[], int)}, scopes that consist of several
+	 * source folders are searched in parallel, see {@link ShardedSearchEngine}.
 	 *
 	 * @param monitor the progress monitor, or <code>null</code>
 	 * @throws JavaModelException if an error occurs during search
@@ -491,12 +498,16 @@ public final class RefactoringSearchEngine2 {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_occurrences);
 			try {
-				SearchEngine engine= null;
-				if (fOwner != null)
-					engine= new SearchEngine(fOwner);
-				else
-					engine= new SearchEngine(fWorkingCopies);
-				engine.search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				if (fPatternFactory != null) {
+					ShardedSearchEngine.search(fPatternFactory, fScope, fOwner, fWorkingCopies, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				} else {
+					SearchEngine engine= null;
+					if (fOwner != null)
+						engine= new SearchEngine(fOwner);
+					else
+						engine= new SearchEngine(fWorkingCopies);
+					engine.search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				}
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
 			}
@@ -653,6 +664,7 @@ public final class RefactoringSearchEngine2 {
 		Assert.isNotNull(first);
 		Assert.isNotNull(second);
 		fPattern= SearchPattern.createOrPattern(first, second);
+		fPatternFactory= null;
 	}
 
 	/**
@@ -677,13 +689,9 @@ public final class RefactoringSearchEngine2 {
 	public final void setPattern(final IJavaElement[] elements, final int limitTo) {
 		Assert.isNotNull(elements);
 		Assert.isTrue(elements.length > 0);
-		SearchPattern pattern= SearchPattern.createPattern(elements[0], limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-		IJavaElement element= null;
-		for (int index= 1; index < elements.length; index++) {
-			element= elements[index];
-			pattern= SearchPattern.createOrPattern(pattern, SearchPattern.createPattern(element, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE));
-		}
-		setPattern(pattern);
+		IPatternFactory factory= ShardedSearchEngine.createPatternFactory(elements.clone(), limitTo);
+		setPattern(factory.createPattern());
+		fPatternFactory= factory;
 	}
 
 	/**
@@ -696,6 +704,7 @@ public final class RefactoringSearchEngine2 {
 	public final void setPattern(final SearchPattern pattern) {
 		Assert.isNotNull(pattern);
 		fPattern= pattern;
+		fPatternFactory= null;
 	}
 
 	/**
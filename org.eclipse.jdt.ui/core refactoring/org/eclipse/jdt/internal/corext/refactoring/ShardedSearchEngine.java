@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.corext.util.SearchUtils;
+
+/**
+ * Runs a search in parallel if its scope consists of several complete package fragment roots.
+ * <p>
+ * The scope is split into one shard per source folder and one shard for all libraries. Each
+ * shard is searched with its own {@link SearchEngine} and collects its matches locally. When all
+ * shards are done, the matches are reported to the given requestor in the calling thread, shard
+ * by shard, so requestors need not be thread-safe. If the scope cannot be split without changing
+ * the result (e.g. a scope that only contains some compilation units), the search runs as a single
+ * search.
+ * <p>
+ * Search patterns keep state while they are matched, so a pattern must not be used by concurrent
+ * searches. The patterns are therefore created by an {@link IPatternFactory}, one per shard.
+ *
+ * @since 3.12
+ */
+public final class ShardedSearchEngine {
+
+	/**
+	 * Creates the search pattern of a shard.
+	 */
+	public interface IPatternFactory {
+
+		/**
+		 * Creates a new search pattern. Every call must return a new instance that finds the same
+		 * matches. The patterns are created in the thread that calls the search.
+		 *
+		 * @return the search pattern
+		 */
+		SearchPattern createPattern();
+	}
+
+	/** Collects the matches of a shard */
+	private static final class ShardSearch implements Callable<List<SearchMatch>> {
+
+		private final SearchEngine fEngine;
+		private final SearchPattern fPattern;
+		private final IJavaSearchScope fScope;
+		private final IProgressMonitor fMonitor;
+
+		public ShardSearch(SearchEngine engine, SearchPattern pattern, IJavaSearchScope scope, IProgressMonitor monitor) {
+			fEngine= engine;
+			fPattern= pattern;
+			fScope= scope;
+			fMonitor= monitor;
+		}
+
+		@Override
+		public List<SearchMatch> call() throws CoreException {
+			final List<SearchMatch> matches= new ArrayList<>();
+			fEngine.search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, new SearchRequestor() {
+				@Override
+				public void acceptSearchMatch(SearchMatch match) {
+					matches.add(match);
+				}
+			}, fMonitor);
+			return matches;
+		}
+	}
+
+	/** The minimal number of source folders to search in parallel */
+	private static final int MIN_SHARDS= 2;
+
+	private ShardedSearchEngine() {
+		// no instances
+	}
+
+	/**
+	 * Searches for matches of the patterns created by the given factory in the given scope. The
+	 * scope is searched in parallel if it can be split.
+	 *
+	 * @param factory the factory of the search patterns
+	 * @param scope the search scope
+	 * @param owner the working copy owner, or <code>null</code>
+	 * @param workingCopies the working copies to take precedence if there is no owner, or <code>null</code>
+	 * @param requestor the requestor to report the matches to
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @throws CoreException if the search failed
+	 */
+	public static void search(IPatternFactory factory, IJavaSearchScope scope, WorkingCopyOwner owner, ICompilationUnit[] workingCopies, SearchRequestor requestor, IProgressMonitor monitor) throws CoreException {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		List<IJavaSearchScope> shards= createShards(scope);
+		int threads= shards == null ? 1 : Math.min(Runtime.getRuntime().availableProcessors(), shards.size());
+		if (threads < 2) {
+			createEngine(owner, workingCopies).search(factory.createPattern(), SearchUtils.getDefaultSearchParticipants(), scope, requestor, monitor);
+			return;
+		}
+
+		final IProgressMonitor parent= monitor;
+		IProgressMonitor cancellation= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return parent.isCanceled();
+			}
+		};
+		ExecutorService executor= Executors.newFixedThreadPool(threads);
+		try {
+			monitor.beginTask("", shards.size() + 1); //$NON-NLS-1$
+			List<Future<List<SearchMatch>>> futures= new ArrayList<>(shards.size());
+			for (int index= 0; index < shards.size(); index++)
+				futures.add(executor.submit(new ShardSearch(createEngine(owner, workingCopies), factory.createPattern(), shards.get(index), cancellation)));
+
+			List<List<SearchMatch>> results= new ArrayList<>(shards.size());
+			for (int index= 0; index < futures.size(); index++) {
+				results.add(futures.get(index).get());
+				monitor.worked(1);
+			}
+			requestor.beginReporting();
+			try {
+				for (int index= 0; index < results.size(); index++) {
+					List<SearchMatch> matches= results.get(index);
+					for (int match= 0; match < matches.size(); match++)
+						requestor.acceptSearchMatch(matches.get(match));
+				}
+			} finally {
+				requestor.endReporting();
+			}
+			monitor.worked(1);
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof CoreException)
+				throw (CoreException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw (RuntimeException) cause;
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Returns a factory of patterns that find the given elements.
+	 *
+	 * @param elements the elements to search, at least one
+	 * @param limitTo the nature of the expected matches, see {@link SearchPattern#createPattern(IJavaElement, int, int)}
+	 * @return the pattern factory
+	 */
+	public static IPatternFactory createPatternFactory(final IJavaElement[] elements, final int limitTo) {
+		return new IPatternFactory() {
+			@Override
+			public SearchPattern createPattern() {
+				SearchPattern pattern= SearchPattern.createPattern(elements[0], limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+				for (int index= 1; index < elements.length; index++)
+					pattern= SearchPattern.createOrPattern(pattern, SearchPattern.createPattern(elements[index], limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE));
+				return pattern;
+			}
+		};
+	}
+
+	private static SearchEngine createEngine(WorkingCopyOwner owner, ICompilationUnit[] workingCopies) {
+		if (owner != null)
+			return new SearchEngine(owner);
+		if (workingCopies != null)
+			return new SearchEngine(workingCopies);
+		return new SearchEngine();
+	}
+
+	/**
+	 * Splits the scope into one scope per source folder and one scope for all libraries.
+	 *
+	 * @param scope the scope to split
+	 * @return the shards, or <code>null</code> if the scope does not consist of complete package
+	 *         fragment roots
+	 * @throws CoreException if the package fragment roots could not be determined
+	 */
+	private static List<IJavaSearchScope> createShards(IJavaSearchScope scope) throws CoreException {
+		IPath[] paths= scope.enclosingProjectsAndJars();
+		List<IJavaSearchScope> shards= new ArrayList<>();
+		Map<IPath, IPackageFragmentRoot> libraries= new LinkedHashMap<>();
+		Set<IPath> jars= new HashSet<>();
+		for (int index= 0; index < paths.length; index++) {
+			IResource resource= ResourcesPlugin.getWorkspace().getRoot().findMember(paths[index]);
+			if (!(resource instanceof IProject)) {
+				jars.add(paths[index]);
+				continue;
+			}
+			IJavaProject project= JavaCore.create((IProject) resource);
+			if (!project.exists())
+				continue;
+			IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+			for (int offset= 0; offset < roots.length; offset++) {
+				IPackageFragmentRoot root= roots[offset];
+				if (root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+					if (!scope.encloses(root))
+						return null;
+					shards.add(SearchEngine.createJavaSearchScope(new IJavaElement[] { root }));
+				} else if (scope.encloses(root) && !libraries.containsKey(root.getPath())) {
+					libraries.put(root.getPath(), root);
+				}
+			}
+		}
+		if (!libraries.keySet().containsAll(jars))
+			return null;
+		if (shards.size() < MIN_SHARDS)
+			return null;
+		if (!libraries.isEmpty())
+			shards.add(SearchEngine.createJavaSearchScope(libraries.values().toArray(new IJavaElement[libraries.size()])));
+		return shards;
+	}
+}
@@ -12,17 +12,19 @@
 package org.eclipse.jdt.internal.corext.refactoring.generics;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -66,16 +68,25 @@ public class InferTypeArgumentsConstraintsSolver {
 	/**
 	 * The work-list used by the type constraint solver to hold the set of
 	 * nodes in the constraint graph that remain to be (re-)processed. Entries
-	 * are <code>ConstraintVariable2</code>s.
+	 * are <code>ConstraintVariable2</code>s. A variable is in the work-list at
+	 * most once, see {@link #fQueued}.
 	 */
-	private LinkedList<ConstraintVariable2> fWorkList;
+	private ArrayDeque<ConstraintVariable2> fWorkList;
+
+	/**
+	 * The variables currently in {@link #fWorkList}. A variable whose estimate
+	 * changes again before it got processed is not queued a second time, since
+	 * processing it once uses the latest estimate anyway.
+	 */
+	private Set<ConstraintVariable2> fQueued;
 
 	private InferTypeArgumentsUpdate fUpdate;
 
 
 	public InferTypeArgumentsConstraintsSolver(InferTypeArgumentsTCModel typeConstraintFactory) {
 		fTCModel= typeConstraintFactory;
-		fWorkList= new LinkedList<>();
+		fWorkList= new ArrayDeque<>();
+		fQueued= Collections.newSetFromMap(new IdentityHashMap<ConstraintVariable2, Boolean>());
 	}
 
 	public InferTypeArgumentsUpdate solveConstraints(IProgressMonitor pm) {
@@ -123,7 +134,7 @@ public class InferTypeArgumentsConstraintsSolver {
 		initializeTypeEstimates(allConstraintVariables);
 		if (pm.isCanceled())
 			throw new OperationCanceledException();
-		fWorkList.addAll(Arrays.asList(allConstraintVariables));
+		addToWorkList(allConstraintVariables);
 		runSolver(new SubProgressMonitor(pm, 1));
 		chooseTypes(allConstraintVariables, new SubProgressMonitor(pm, 1));
 		findCastsToRemove(fTCModel.getCastVariables());
@@ -196,6 +207,7 @@ public class InferTypeArgumentsConstraintsSolver {
 		while (! fWorkList.isEmpty()) {
 			// Get a variable whose type estimate has changed
 			ConstraintVariable2 cv= fWorkList.removeFirst();
+			fQueued.remove(cv);
 			List<ITypeConstraint2> usedIn= fTCModel.getUsedIn(cv);
 			processConstraints(usedIn);
 			pm.worked(1);
@@ -205,6 +217,13 @@ public class InferTypeArgumentsConstraintsSolver {
 		pm.done();
 	}
 
+	private void addToWorkList(ConstraintVariable2[] cvs) {
+		for (int i= 0; i < cvs.length; i++) {
+			if (fQueued.add(cvs[i]))
+				fWorkList.addLast(cvs[i]);
+		}
+	}
+
 	/**
 	 * Given a list of <code>ITypeConstraint2</code>s that all refer to a
 	 * given <code>ConstraintVariable2</code> (whose type bound has presumably
@@ -253,7 +272,7 @@ public class InferTypeArgumentsConstraintsSolver {
 //				throw new IllegalStateException("Type estimate set is now empty for LHS in " + left + " <= " + right + "; estimates were " + leftEstimate + " <= " + rightEstimate); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
 			leftSet.setTypeEstimate(xsection);
-			fWorkList.addAll(Arrays.asList(leftSet.getContributingVariables()));
+			addToWorkList(leftSet.getContributingVariables());
 		}
 		if (! lhsSuperTypes.containsAll(rightEstimate)) {
 			TypeSet xsection= rightEstimate.intersectedWith(lhsSuperTypes);
@@ -262,7 +281,7 @@ public class InferTypeArgumentsConstraintsSolver {
 //				throw new IllegalStateException("Type estimate set is now empty for RHS in " + left + " <= " + right + "; estimates were " + leftEstimate + " <= " + rightEstimate); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
 			rightSet.setTypeEstimate(xsection);
-			fWorkList.addAll(Arrays.asList(rightSet.getContributingVariables()));
+			addToWorkList(rightSet.getContributingVariables());
 		}
 	}
 
@@ -299,11 +318,14 @@ public class InferTypeArgumentsConstraintsSolver {
 
 		} else {
 			EnumeratedTypeSet lowerBound= typeEstimate.lowerBound().enumerate();
+			TType classCandidate= null;
 			ArrayList<TType> interfaceCandidates= null;
 			for (Iterator<TType> iter= lowerBound.iterator(); iter.hasNext();) {
 				TType type= iter.next();
 				if (! type.isInterface()) {
-					return type;
+					// don't depend on the enumeration order, which depends on the order in which types got created
+					if (classCandidate == null || TTypeComparator.INSTANCE.compare(type, classCandidate) < 0)
+						classCandidate= type;
 				} else {
 					if (interfaceCandidates == null)
 						interfaceCandidates= new ArrayList<>(2);
@@ -311,7 +333,9 @@ public class InferTypeArgumentsConstraintsSolver {
 				}
 			}
 
-			if (interfaceCandidates == null || interfaceCandidates.size() == 0) {
+			if (classCandidate != null) {
+				return classCandidate;
+			} else if (interfaceCandidates == null || interfaceCandidates.size() == 0) {
 				return null;
 			} else if (interfaceCandidates.size() == 1) {
 				return interfaceCandidates.get(0);
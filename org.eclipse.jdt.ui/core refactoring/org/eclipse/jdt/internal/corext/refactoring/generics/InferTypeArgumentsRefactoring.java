@@ -19,12 +19,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
@@ -100,6 +108,18 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 
 	private static final String REWRITTEN= "InferTypeArgumentsRefactoring.rewritten"; //$NON-NLS-1$
 
+	private static final String PERF_CREATE_CONSTRAINTS= "org.eclipse.jdt.ui/perf/refactoring/inferTypeArguments/createConstraints"; //$NON-NLS-1$
+	private static final String PERF_SOLVE_CONSTRAINTS= "org.eclipse.jdt.ui/perf/refactoring/inferTypeArguments/solveConstraints"; //$NON-NLS-1$
+	private static final String PERF_REWRITE= "org.eclipse.jdt.ui/perf/refactoring/inferTypeArguments/rewrite"; //$NON-NLS-1$
+
+	private static final int BATCH_SIZE= 150;
+
+	/**
+	 * Maximal number of batches parsed at the same time. Every batch keeps the resolved ASTs of
+	 * its compilation units alive until it is done, so the heap usage grows with each thread.
+	 */
+	private static final int MAX_THREADS= 4;
+
 	private TextChangeManager fChangeManager;
 	private IJavaElement[] fElements;
 	private InferTypeArgumentsTCModel fTCModel;
@@ -167,6 +187,8 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 			fTCModel= new InferTypeArgumentsTCModel();
 			final InferTypeArgumentsConstraintCreator unitCollector= new InferTypeArgumentsConstraintCreator(fTCModel, fAssumeCloneReturnsSameType);
 
+			PerformanceStats stats= PerformanceStats.getStats(PERF_CREATE_CONSTRAINTS, this);
+			stats.startRun();
 			for (Iterator<Entry<IJavaProject, ArrayList<IJavaElement>>> iter= projectsToElements.entrySet().iterator(); iter.hasNext(); ) {
 				Entry<IJavaProject, ArrayList<IJavaElement>> entry= iter.next();
 				IJavaProject project= entry.getKey();
@@ -174,62 +196,30 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 				IJavaElement[] javaElements= javaElementsList.toArray(new IJavaElement[javaElementsList.size()]);
 				List<ICompilationUnit> cus= Arrays.asList(JavaModelUtil.getAllCompilationUnits(javaElements));
 
-				int batchSize= 150;
-				int batches= ((cus.size()-1) / batchSize) + 1;
+				int batches= ((cus.size()-1) / BATCH_SIZE) + 1;
 				SubProgressMonitor projectMonitor= new SubProgressMonitor(pm, 1);
-				projectMonitor.beginTask("", batches); //$NON-NLS-1$
+				projectMonitor.beginTask("", cus.size()); //$NON-NLS-1$
 				projectMonitor.setTaskName(RefactoringCoreMessages.InferTypeArgumentsRefactoring_building);
+				projectMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
+				AtomicBoolean aborted= new AtomicBoolean();
+				List<ConstraintCreationWorker> workers= new ArrayList<>(batches);
 				for (int i= 0; i < batches; i++) {
-					List<ICompilationUnit> batch= cus.subList(i * batchSize, Math.min(cus.size(), (i + 1) * batchSize));
+					List<ICompilationUnit> batch= cus.subList(i * BATCH_SIZE, Math.min(cus.size(), (i + 1) * BATCH_SIZE));
 					ICompilationUnit[] batchCus= batch.toArray(new ICompilationUnit[batch.size()]);
-					final SubProgressMonitor batchMonitor= new SubProgressMonitor(projectMonitor, 1);
-					batchMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
-
-					ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
-					parser.setProject(project);
-					parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(project));
-					parser.setResolveBindings(true);
-					parser.createASTs(batchCus, new String[0], new ASTRequestor() {
-						@Override
-						public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
-							batchMonitor.subTask(BasicElementLabels.getFileName(source));
-
-							SafeRunner.run(new ISafeRunnable() {
-								@Override
-								public void run() throws Exception {
-									IProblem[] problems= ast.getProblems();
-									for (int p= 0; p < problems.length; p++) {
-										if (problems[p].isError()) {
-											String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-											String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
-											result.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problems[p])));
-											return;
-										}
-									}
-									ast.accept(unitCollector);
-								}
-								@Override
-								public void handleException(Throwable exception) {
-									String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-									String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
-									JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
-									String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
-									result.addError(msg2, JavaStatusContext.create(source));
-								}
-							});
-
-							fTCModel.newCu();
-						}
-						@Override
-						public void acceptBinding(String bindingKey, IBinding binding) {
-							//do nothing
-						}
-					}, batchMonitor);
+					workers.add(new ConstraintCreationWorker(project, batchCus, unitCollector, result, projectMonitor, aborted));
+				}
+				int threads= Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), batches);
+				if (threads > 1) {
+					createConstraintsInParallel(workers, threads, aborted);
+				} else {
+					for (int i= 0; i < batches; i++)
+						workers.get(i).call();
 				}
 
 				projectMonitor.done();
 				fTCModel.newCu();
 			}
+			stats.endRun();
 
 //			Display.getDefault().syncExec(new Runnable() {
 //				public void run() {
@@ -238,12 +228,18 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 //			});
 
 			pm.setTaskName(RefactoringCoreMessages.InferTypeArgumentsRefactoring_solving);
+			stats= PerformanceStats.getStats(PERF_SOLVE_CONSTRAINTS, this);
+			stats.startRun();
 			InferTypeArgumentsConstraintsSolver solver= new InferTypeArgumentsConstraintsSolver(fTCModel);
 			InferTypeArgumentsUpdate updates= solver.solveConstraints(new SubProgressMonitor(pm, 1));
 			solver= null; //free caches
+			stats.endRun();
 
+			stats= PerformanceStats.getStats(PERF_REWRITE, this);
+			stats.startRun();
 			fChangeManager= new TextChangeManager();
 			rewriteDeclarations(updates, new SubProgressMonitor(pm, 1));
+			stats.endRun();
 
 			IFile[] filesToModify= ResourceUtil.getFiles(fChangeManager.getAllCompilationUnits());
 			result.merge(Checks.validateModifiesFiles(filesToModify, getValidationContext()));
@@ -254,6 +250,116 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		}
 	}
 
+	/**
+	 * Runs the given workers on <code>threads</code> threads. The workers parse their batches
+	 * concurrently, but feed the ASTs to the shared type constraints model one at a time.
+	 *
+	 * @param workers the workers, one per batch of compilation units
+	 * @param threads the number of threads to use, at least 2
+	 * @param aborted flag telling the workers to stop
+	 */
+	private static void createConstraintsInParallel(List<ConstraintCreationWorker> workers, int threads, AtomicBoolean aborted) {
+		ExecutorService executor= Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> results= new ArrayList<>(workers.size());
+			for (int i= 0; i < workers.size(); i++)
+				results.add(executor.submit(workers.get(i)));
+			for (int i= 0; i < results.size(); i++)
+				results.get(i).get();
+		} catch (InterruptedException e) {
+			aborted.set(true);
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			aborted.set(true);
+			Throwable cause= e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw (RuntimeException) cause;
+		} finally {
+			executor.shutdown();
+			// the remaining workers stop at their next compilation unit; don't let them touch the model after this method returned
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Parses a batch of compilation units with its own parser and creates the type constraints
+	 * for each of them. Parsing and binding resolution run concurrently with other workers;
+	 * constraint creation is synchronized on the type constraints model, which is not thread-safe.
+	 */
+	private final class ConstraintCreationWorker implements Callable<Void> {
+
+		private final IJavaProject fProject;
+		private final ICompilationUnit[] fCus;
+		private final InferTypeArgumentsConstraintCreator fUnitCollector;
+		private final RefactoringStatus fStatus;
+		private final IProgressMonitor fMonitor;
+		private final AtomicBoolean fAborted;
+
+		public ConstraintCreationWorker(IJavaProject project, ICompilationUnit[] cus, InferTypeArgumentsConstraintCreator unitCollector, RefactoringStatus status, IProgressMonitor monitor, AtomicBoolean aborted) {
+			fProject= project;
+			fCus= cus;
+			fUnitCollector= unitCollector;
+			fStatus= status;
+			fMonitor= monitor;
+			fAborted= aborted;
+		}
+
+		@Override
+		public Void call() {
+			ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+			parser.setProject(fProject);
+			parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(fProject));
+			parser.setResolveBindings(true);
+			parser.createASTs(fCus, new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
+					synchronized (fTCModel) {
+						if (fAborted.get() || fMonitor.isCanceled())
+							throw new OperationCanceledException();
+						fMonitor.subTask(BasicElementLabels.getFileName(source));
+
+						SafeRunner.run(new ISafeRunnable() {
+							@Override
+							public void run() throws Exception {
+								IProblem[] problems= ast.getProblems();
+								for (int p= 0; p < problems.length; p++) {
+									if (problems[p].isError()) {
+										String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+										String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
+										fStatus.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problems[p])));
+										return;
+									}
+								}
+								ast.accept(fUnitCollector);
+							}
+							@Override
+							public void handleException(Throwable exception) {
+								String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+								String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
+								JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
+								String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
+								fStatus.addError(msg2, JavaStatusContext.create(source));
+							}
+						});
+
+						fTCModel.newCu();
+						fMonitor.worked(1);
+					}
+				}
+				@Override
+				public void acceptBinding(String bindingKey, IBinding binding) {
+					//do nothing
+				}
+			}, null);
+			return null;
+		}
+	}
+
 	private void clearGlobalState() {
 		TypeSet.resetCount();
 		EnumeratedTypeSet.resetCount();
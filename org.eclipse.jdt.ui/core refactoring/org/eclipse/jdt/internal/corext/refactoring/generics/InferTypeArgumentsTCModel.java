@@ -273,6 +273,12 @@ public class InferTypeArgumentsTCModel {
 			} else if (leftSet == rightSet) {
 				return;
 			} else {
+				// union by size: move the variables of the smaller set into the larger one
+				if (leftSet.getContributingVariables().length < rightSet.getContributingVariables().length) {
+					TypeEquivalenceSet smallerSet= leftSet;
+					leftSet= rightSet;
+					rightSet= smallerSet;
+				}
 				ConstraintVariable2[] cvs= rightSet.getContributingVariables();
 				leftSet.addAll(cvs);
 				for (int i= 0; i < cvs.length; i++)
@@ -95,6 +95,8 @@ import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringScopeFactory;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringSearchEngine;
 import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine;
+import org.eclipse.jdt.internal.corext.refactoring.ShardedSearchEngine.IPatternFactory;
 import org.eclipse.jdt.internal.corext.refactoring.base.JavaStatusContext;
 import org.eclipse.jdt.internal.corext.refactoring.base.ReferencesInBinaryContext;
 import org.eclipse.jdt.internal.corext.refactoring.changes.DynamicValidationRefactoringChange;
@@ -133,6 +135,13 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 	private static final String ATTRIBUTE_SIMILAR_DECLARATIONS= "similarDeclarations"; //$NON-NLS-1$
 	private static final String ATTRIBUTE_MATCHING_STRATEGY= "matchStrategy"; //$NON-NLS-1$
 
+	/**
+	 * The number of reference changes kept expanded while the references are collected, see
+	 * {@link TextChangeManager#setMaxExpandedChanges(int)}. All changes are expanded again when the
+	 * change is created.
+	 */
+	private static final int MAX_EXPANDED_CHANGES= 1000;
+
     private static final GroupCategorySet CATEGORY_TYPE_RENAME= new GroupCategorySet(new GroupCategory("org.eclipse.jdt.internal.corext.refactoring.rename.renameType.type", RefactoringCoreMessages.RenameTypeProcessor_changeCategory_type, RefactoringCoreMessages.RenameTypeProcessor_changeCategory_type_description)); //$NON-NLS-1$
     private static final GroupCategorySet CATEGORY_METHOD_RENAME= new GroupCategorySet(new GroupCategory("org.eclipse.jdt.internal.corext.refactoring.rename.renameType.method", RefactoringCoreMessages.RenameTypeProcessor_changeCategory_method, RefactoringCoreMessages.RenameTypeProcessor_changeCategory_method_description)); //$NON-NLS-1$
     private static final GroupCategorySet CATEGORY_FIELD_RENAME= new GroupCategorySet(new GroupCategory("org.eclipse.jdt.internal.corext.refactoring.rename.renameType.field", RefactoringCoreMessages.RenameTypeProcessor_changeCategory_fields, RefactoringCoreMessages.RenameTypeProcessor_changeCategory_fields_description)); //$NON-NLS-1$
@@ -489,6 +498,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 			pm.setTaskName(RefactoringCoreMessages.RenameTypeRefactoring_checking);
 
 			fChangeManager= new TextChangeManager(true);
+			fChangeManager.setMaxExpandedChanges(MAX_EXPANDED_CHANGES);
 
 			result.merge(checkNewElementName(getNewElementName()));
 			if (result.hasFatalError())
@@ -614,7 +624,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 
 
 		try {
-			SearchPattern pattern= SearchPattern.createPattern(fType, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			IPatternFactory pattern= ShardedSearchEngine.createPatternFactory(new IJavaElement[] { fType }, IJavaSearchConstants.REFERENCES);
 
 			String binaryRefsDescription= Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getJavaElementName(fType.getElementName()));
 			ReferencesInBinaryContext binaryRefs= new ReferencesInBinaryContext(binaryRefsDescription);
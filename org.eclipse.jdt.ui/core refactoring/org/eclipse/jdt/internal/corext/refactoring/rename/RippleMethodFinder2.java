@@ -16,9 +16,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -56,6 +62,13 @@ public class RippleMethodFinder2 {
 	private Set<IType> fRootTypes;
 	private MultiMap<IType, IType> fRootReps;
 	private Map<IType, ITypeHierarchy> fRootHierarchies;
+	/**
+	 * Map from a root type to a root type whose hierarchy also contains all subtypes of the former,
+	 * i.e. to a supertype that is itself a root, or to itself if it has no such supertype.
+	 * Root types are mapped to the same root whenever possible, so that their hierarchy is
+	 * computed only once.
+	 */
+	private Map<IType, IType> fTopRoots;
 	private UnionFind fUnionFind;
 
 	private final boolean fExcludeBinaries;
@@ -78,53 +91,76 @@ public class RippleMethodFinder2 {
 			return fImplementation.get(key);
 		}
 	}
+	/**
+	 * Union-find over a fixed set of types, which are numbered on creation. Uses path
+	 * compression and union by size, so that the forest stays flat for thousands of types.
+	 */
 	private static class UnionFind {
-		HashMap<IType, IType> fElementToRepresentative= new HashMap<>();
-
-		public void init(IType type) {
-			fElementToRepresentative.put(type, type);
+		private final Map<IType, Integer> fIds;
+		private final IType[] fTypes;
+		private final int[] fParents;
+		private final int[] fSizes;
+
+		public UnionFind(Collection<IType> types) {
+			int size= types.size();
+			fIds= new HashMap<>(size * 4 / 3 + 1);
+			fTypes= new IType[size];
+			fParents= new int[size];
+			fSizes= new int[size];
+			int id= 0;
+			for (Iterator<IType> iter= types.iterator(); iter.hasNext(); id++) {
+				IType type= iter.next();
+				fIds.put(type, Integer.valueOf(id));
+				fTypes[id]= type;
+				fParents[id]= id;
+				fSizes[id]= 1;
+			}
 		}
 
-		//path compression:
+		/**
+		 * @param element a type
+		 * @return the representative of the type's set, or <code>null</code> if the type is not in the union-find
+		 */
 		public IType find(IType element) {
-			IType root= element;
-			IType rep= fElementToRepresentative.get(root);
-			while (rep != null && ! rep.equals(root)) {
-				root= rep;
-				rep= fElementToRepresentative.get(root);
-			}
-			if (rep == null)
+			Integer id= fIds.get(element);
+			if (id == null)
 				return null;
+			return fTypes[find(id.intValue())];
+		}
 
-			rep= fElementToRepresentative.get(element);
-			while (! rep.equals(root)) {
-				IType temp= element;
-				element= rep;
-				fElementToRepresentative.put(temp, root);
-				rep= fElementToRepresentative.get(element);
+		//path compression:
+		private int find(int id) {
+			int root= id;
+			while (fParents[root] != root)
+				root= fParents[root];
+			while (fParents[id] != root) {
+				int parent= fParents[id];
+				fParents[id]= root;
+				id= parent;
 			}
 			return root;
 		}
 
-//		//straightforward:
-//		public IType find(IType element) {
-//			IType current= element;
-//			IType rep= (IType) fElementToRepresentative.get(current);
-//			while (rep != null && ! rep.equals(current)) {
-//				current= rep;
-//				rep= (IType) fElementToRepresentative.get(current);
-//			}
-//			if (rep == null)
-//				return null;
-//			else
-//				return current;
-//		}
-
 		public void union(IType rep1, IType rep2) {
-			fElementToRepresentative.put(rep1, rep2);
+			int root1= find(fIds.get(rep1).intValue());
+			int root2= find(fIds.get(rep2).intValue());
+			if (root1 == root2)
+				return;
+			if (fSizes[root1] > fSizes[root2]) {
+				int root= root1;
+				root1= root2;
+				root2= root;
+			}
+			fParents[root1]= root2;
+			fSizes[root2]+= fSizes[root1];
 		}
 	}
 
+	/**
+	 * Minimal number of root hierarchies to compute concurrently instead of one by one on demand.
+	 */
+	private static final int MIN_PARALLEL_HIERARCHIES= 2;
+
 
 	private RippleMethodFinder2(IMethod method, boolean excludeBinaries){
 		fMethod= method;
@@ -252,6 +288,7 @@ public class RippleMethodFinder2 {
 		List<IType> relatedTypesToProcess= new ArrayList<>(relatedTypes);
 		while (relatedTypesToProcess.size() > 0) {
 			//TODO: would only need subtype hierarchies of all top-of-ripple relatedTypesToProcess
+			prefetchRootHierarchies(relatedTypesToProcess, owner, pm);
 			for (Iterator<IType> iter= relatedTypesToProcess.iterator(); iter.hasNext();) {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
@@ -304,6 +341,7 @@ public class RippleMethodFinder2 {
 
 		fRootReps= null;
 		fRootHierarchies= null;
+		fTopRoots= null;
 		fTypeToMethod= null;
 		fUnionFind= null;
 
@@ -313,13 +351,16 @@ public class RippleMethodFinder2 {
 	private ITypeHierarchy getCachedHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
 		IType rep= fUnionFind.find(type);
 		if (rep != null) {
+			if (fRootHierarchies == null)
+				fRootHierarchies= new HashMap<>();
 			Collection<IType> collection= fRootReps.get(rep);
 			for (Iterator<IType> iter= collection.iterator(); iter.hasNext();) {
 				IType root= iter.next();
-				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
+				IType topRoot= fTopRoots.get(root);
+				ITypeHierarchy hierarchy= fRootHierarchies.get(topRoot);
 				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
-					fRootHierarchies.put(root, hierarchy);
+					hierarchy= topRoot.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+					fRootHierarchies.put(topRoot, hierarchy);
 				}
 				if (hierarchy.contains(type))
 					return hierarchy;
@@ -328,6 +369,69 @@ public class RippleMethodFinder2 {
 		return null;
 	}
 
+	/**
+	 * Computes the missing hierarchies of the top roots of the partitions of the given types.
+	 * If there are enough of them and more than one processor, they are computed concurrently;
+	 * otherwise, they are computed on demand by {@link #getCachedHierarchy(IType, WorkingCopyOwner, IProgressMonitor)}.
+	 *
+	 * @param types the types whose hierarchies are requested next
+	 * @param owner the working copy owner
+	 * @param monitor the progress monitor, only used for cancellation
+	 * @throws JavaModelException if a hierarchy could not be computed
+	 */
+	private void prefetchRootHierarchies(List<IType> types, final WorkingCopyOwner owner, final IProgressMonitor monitor) throws JavaModelException {
+		if (fRootHierarchies == null)
+			fRootHierarchies= new HashMap<>();
+		Set<IType> reps= new LinkedHashSet<>();
+		for (Iterator<IType> iter= types.iterator(); iter.hasNext();) {
+			IType rep= fUnionFind.find(iter.next());
+			if (rep != null)
+				reps.add(rep);
+		}
+		Set<IType> missingTopRoots= new LinkedHashSet<>();
+		for (Iterator<IType> iter= reps.iterator(); iter.hasNext();) {
+			for (Iterator<IType> roots= fRootReps.get(iter.next()).iterator(); roots.hasNext();) {
+				IType topRoot= fTopRoots.get(roots.next());
+				if (!fRootHierarchies.containsKey(topRoot))
+					missingTopRoots.add(topRoot);
+			}
+		}
+		final List<IType> topRoots= new ArrayList<>(missingTopRoots);
+		int threads= Math.min(Runtime.getRuntime().availableProcessors(), topRoots.size());
+		if (topRoots.size() < MIN_PARALLEL_HIERARCHIES || threads < 2)
+			return;
+
+		List<Callable<ITypeHierarchy>> tasks= new ArrayList<>(topRoots.size());
+		for (Iterator<IType> iter= topRoots.iterator(); iter.hasNext();) {
+			final IType topRoot= iter.next();
+			tasks.add(new Callable<ITypeHierarchy>() {
+				@Override
+				public ITypeHierarchy call() throws JavaModelException {
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+					return topRoot.newTypeHierarchy(owner, null);
+				}
+			});
+		}
+		ExecutorService executor= Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<ITypeHierarchy>> results= executor.invokeAll(tasks);
+			for (int i= 0; i < results.size(); i++)
+				fRootHierarchies.put(topRoots.get(i), results.get(i).get());
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof JavaModelException)
+				throw (JavaModelException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw (RuntimeException) cause;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void findAllDeclarations(IProgressMonitor monitor, WorkingCopyOwner owner) throws CoreException {
 		fDeclarations= new ArrayList<>();
 
@@ -375,11 +479,7 @@ public class RippleMethodFinder2 {
 
 	private void createUnionFind() throws JavaModelException {
 		fRootTypes= new HashSet<>(fTypeToMethod.keySet());
-		fUnionFind= new UnionFind();
-		for (Iterator<IType> iter= fTypeToMethod.keySet().iterator(); iter.hasNext();) {
-			IType type= iter.next();
-			fUnionFind.init(type);
-		}
+		fUnionFind= new UnionFind(fTypeToMethod.keySet());
 		for (Iterator<IType> iter= fTypeToMethod.keySet().iterator(); iter.hasNext();) {
 			IType type= iter.next();
 			uniteWithSupertypes(type, type);
@@ -391,7 +491,39 @@ public class RippleMethodFinder2 {
 			if (rep != null)
 				fRootReps.put(rep, type);
 		}
-		fRootHierarchies= new HashMap<>();
+		createTopRoots();
+	}
+
+	private void createTopRoots() {
+		fTopRoots= new HashMap<>();
+		List<IType> nestedRoots= new ArrayList<>();
+		for (Iterator<IType> iter= fRootTypes.iterator(); iter.hasNext();) {
+			IType root= iter.next();
+			if (findRootSupertype(root) == null)
+				fTopRoots.put(root, root);
+			else
+				nestedRoots.add(root);
+		}
+		// every chain of root supertypes ends in a top root
+		for (Iterator<IType> iter= nestedRoots.iterator(); iter.hasNext();) {
+			IType root= iter.next();
+			IType[] supertypes= fHierarchy.getAllSupertypes(root);
+			for (int i= 0; i < supertypes.length; i++) {
+				if (fTopRoots.get(supertypes[i]) == supertypes[i]) {
+					fTopRoots.put(root, supertypes[i]);
+					break;
+				}
+			}
+		}
+	}
+
+	private IType findRootSupertype(IType type) {
+		IType[] supertypes= fHierarchy.getAllSupertypes(type);
+		for (int i= 0; i < supertypes.length; i++) {
+			if (fRootTypes.contains(supertypes[i]))
+				return supertypes[i];
+		}
+		return null;
 	}
 
 	private void uniteWithSupertypes(IType anchor, IType type) throws JavaModelException {
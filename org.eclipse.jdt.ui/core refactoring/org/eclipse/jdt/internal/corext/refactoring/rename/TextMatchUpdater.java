@@ -47,6 +47,7 @@ import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner.TextMatch;
 import org.eclipse.jdt.internal.corext.refactoring.tagging.ITextUpdating;
+import org.eclipse.jdt.internal.corext.refactoring.util.IdentifierTokenIndex;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
 
 class TextMatchUpdater {
@@ -65,8 +66,12 @@ class TextMatchUpdater {
 
 	private final RefactoringScanner fScanner;
 	private final String fNewName;
+	private final String fCurrentName;
 	private final int fCurrentNameLength;
 
+	/** The files that may contain text matches, or <code>null</code> to scan all files */
+	private Set<IFile> fCandidates;
+
 	private TextMatchUpdater(TextChangeManager manager, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, SearchResultGroup[] references, boolean onlyQualified){
 		Assert.isNotNull(manager);
 		Assert.isNotNull(scope);
@@ -77,6 +82,7 @@ class TextMatchUpdater {
 		fOnlyQualified= onlyQualified;
 
 		fNewName= newName;
+		fCurrentName= currentName;
 		fCurrentNameLength= currentName.length();
 		fScanner= new RefactoringScanner(currentName, currentQualifier);
 	}
@@ -93,7 +99,8 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", projectsInScope.length + 1); //$NON-NLS-1$
+			fCandidates= findCandidates(projectsInScope, new SubProgressMonitor(pm, 1));
 
 			for (int i =0 ; i < projectsInScope.length; i++){
 				if (pm.isCanceled())
@@ -105,6 +112,20 @@ class TextMatchUpdater {
 		}
 	}
 
+	private Set<IFile> findCandidates(IProject[] projects, IProgressMonitor pm) throws JavaModelException {
+		IdentifierTokenIndex index= IdentifierTokenIndex.getDefault();
+		if (index == null) {
+			pm.done();
+			return null;
+		}
+		try {
+			IFile[] files= index.findFilesWithWord(projects, fCurrentName, pm);
+			return files == null ? null : new HashSet<>(Arrays.asList(files));
+		} catch (CoreException e) {
+			throw new JavaModelException(e);
+		}
+	}
+
 	private IProject[] getProjectsInScope() {
 		IPath[] enclosingProjects= fScope.enclosingProjectsAndJars();
 		Set<IPath> enclosingProjectSet= new HashSet<>();
@@ -124,6 +145,8 @@ class TextMatchUpdater {
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
+				if (fCandidates != null && !fCandidates.contains(resource))
+					return;
 				IJavaElement element= JavaCore.create(resource);
 				// don't start pm task (flickering label updates; finally {pm.done()} is enough)
 				if (!(element instanceof ICompilationUnit))
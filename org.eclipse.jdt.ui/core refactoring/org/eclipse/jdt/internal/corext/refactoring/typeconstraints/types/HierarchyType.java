@@ -10,8 +10,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types;
 
-import java.util.Map;
-
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jdt.core.IType;
@@ -58,15 +56,15 @@ public abstract class HierarchyType extends TType {
 	}
 
 	public boolean isSubType(HierarchyType other) {
-		if (getEnvironment() == other.getEnvironment()) {
-			Map<TypeTuple, Boolean> cache= getEnvironment().getSubTypeCache();
-			TypeTuple key= new TypeTuple(this, other);
-			Boolean value= cache.get(key);
+		TypeEnvironment environment= getEnvironment();
+		if (environment == other.getEnvironment()) {
+			int id= environment.getTypeId(this);
+			int otherId= environment.getTypeId(other);
+			Boolean value= environment.getCachedSubTypeCheck(id, otherId);
 			if (value != null)
 				return value.booleanValue();
 			boolean isSub= doIsSubType(other);
-			value= Boolean.valueOf(isSub);
-			cache.put(key, value);
+			environment.cacheSubTypeCheck(id, otherId, isSub);
 			return isSub;
 		}
 		return doIsSubType(other);
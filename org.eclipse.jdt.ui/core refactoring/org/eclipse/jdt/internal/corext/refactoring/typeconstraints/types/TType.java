@@ -10,10 +10,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -71,6 +67,11 @@ public abstract class TType {
 	private String fBindingKey;
 	private int fModifiers;
 	private int fFlags;
+	/**
+	 * The number of this type in its environment, or -1 if it has not been numbered yet
+	 * @see TypeEnvironment#getTypeId(TType)
+	 */
+	private volatile int fTypeId= -1;
 
 	/**
 	 * Creates a new type with the given environment as an owner.
@@ -139,6 +140,14 @@ public abstract class TType {
 		return fEnvironment;
 	}
 
+	int getTypeId() {
+		return fTypeId;
+	}
+
+	void setTypeId(int typeId) {
+		fTypeId= typeId;
+	}
+
 	/**
 	 * Returns the key of the binding from which this type
 	 * got constructed.
@@ -514,14 +523,10 @@ public abstract class TType {
 	 * 		was not created with rememberSubtypes == true
 	 */
 	public TType[] getSubTypes() throws IllegalStateException {
-		Map<TType, ArrayList<TType>> subTypes= fEnvironment.getSubTypes();
+		TType[] subTypes= fEnvironment.getSubTypes(this);
 		if (subTypes == null)
 			throw new IllegalStateException("This TypeEnvironment does not remember subtypes"); //$NON-NLS-1$
-		List<TType> subtypes= subTypes.get(this);
-		if (subtypes == null)
-			return EMPTY_TYPE_ARRAY;
-		else
-			return subtypes.toArray(new TType[subtypes.size()]);
+		return subTypes;
 	}
 
 	/**
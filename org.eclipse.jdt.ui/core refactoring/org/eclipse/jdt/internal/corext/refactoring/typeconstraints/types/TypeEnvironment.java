@@ -11,11 +11,13 @@
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.eclipse.core.runtime.Assert;
 
@@ -39,6 +41,10 @@ import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
  * A type environment comprises a set of {@link TType}s that stand for Java {@link ITypeBinding}s.
  * In contrast to type bindings, TTypes of the same type environment also work across project boundaries and
  * across compiler environments, i.e. a type environment can handle bindings from multiple {@link ASTParser} sessions.
+ * <p>
+ * A type environment is thread-safe. Creating types is serialized on the environment, while
+ * the type numbers and subtype checks of existing types can be queried concurrently without locking.
+ * </p>
  * 
  * @see TType
  */
@@ -103,7 +109,7 @@ public class TypeEnvironment {
 		"java.lang.Double",  //$NON-NLS-1$
 		"java.lang.Byte"};  //$NON-NLS-1$
 
-	private TType OBJECT_TYPE= null;
+	private volatile TType OBJECT_TYPE= null;
 
 	private List<Map<TType, ArrayType>>      fArrayTypes= new ArrayList<>();
 	private Map<IJavaElement, StandardType>  fStandardTypes= new HashMap<>();
@@ -116,14 +122,23 @@ public class TypeEnvironment {
 	private Map<TType, SuperWildcardType>    fSuperWildcardTypes= new HashMap<>();
 	private UnboundWildcardType fUnboundWildcardType= null;
 
-	private static final int MAX_ENTRIES= 1024;
-	private Map<TypeTuple, Boolean> fSubTypeCache= new LinkedHashMap<TypeTuple, Boolean>(50, 0.75f, true) {
-		private static final long serialVersionUID= 1L;
-		@Override
-		protected boolean removeEldestEntry(Map.Entry<TypeTuple, Boolean> eldest) {
-			return size() > MAX_ENTRIES;
-		}
-	};
+	/**
+	 * Dense numbering of the types used in type sets and subtype checks, see {@link #getTypeId(TType)}.
+	 * Types are only added under the lock of this environment. The array is replaced when it grows
+	 * and always written after its new element, so that readers see the type of every number they got.
+	 */
+	private final Map<TType, Integer> fTypeIds= new ConcurrentHashMap<>();
+	private volatile TType[] fTypesById= new TType[64];
+	private int fTypeCount= 0;
+
+	/**
+	 * Lossy cache for subtype checks between hierarchy types, indexed by a hash of the numbers
+	 * of both types. Each slot packs both numbers and the result into one long, see
+	 * {@link #getCachedSubTypeCheck(int, int)}, so that lookups neither lock nor allocate and
+	 * the cache never grows.
+	 */
+	private static final int SUBTYPE_CACHE_BITS= 13;
+	private final AtomicLongArray fSubTypeCache= new AtomicLongArray(1 << SUBTYPE_CACHE_BITS);
 
 	/**
 	 * Map from TType to its known subtypes, or <code>null</code> iff subtype
@@ -182,11 +197,96 @@ public class TypeEnvironment {
 		fRemoveCapures= removeCapures;
 	}
 
-	Map<TypeTuple, Boolean> getSubTypeCache() {
-		return fSubTypeCache;
+	/**
+	 * Returns the cached result of a subtype check.
+	 *
+	 * @param subTypeId the number of the potential subtype
+	 * @param superTypeId the number of the potential supertype
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the result is cached,
+	 *  or <code>null</code> if it isn't
+	 */
+	Boolean getCachedSubTypeCheck(int subTypeId, int superTypeId) {
+		long key= subTypeCheckKey(subTypeId, superTypeId);
+		long entry= fSubTypeCache.get(subTypeCheckSlot(key));
+		if ((entry & ~3L) != key || (entry & 1L) == 0)
+			return null;
+		return Boolean.valueOf((entry & 2L) != 0);
+	}
+
+	void cacheSubTypeCheck(int subTypeId, int superTypeId, boolean isSubType) {
+		long key= subTypeCheckKey(subTypeId, superTypeId);
+		fSubTypeCache.lazySet(subTypeCheckSlot(key), key | (isSubType ? 3L : 1L));
+	}
+
+	private static long subTypeCheckKey(int subTypeId, int superTypeId) {
+		// numbers are non-negative ints, so both fit into 31 bits; the lowest two bits hold valid and result flags
+		return ((long) subTypeId << 33) | ((long) superTypeId << 2);
+	}
+
+	private static int subTypeCheckSlot(long key) {
+		int hash= (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return hash >>> (32 - SUBTYPE_CACHE_BITS);
+	}
+
+	/**
+	 * Returns the number of the given type. Types are numbered from 0 in the order in which
+	 * they are first passed to this method, and equal types get the same number, so that sets
+	 * of types can be represented as bit sets.
+	 *
+	 * @param type a type of this environment
+	 * @return the number of the type
+	 * @see #getTypeForId(int)
+	 */
+	public int getTypeId(TType type) {
+		int id= findTypeId(type);
+		if (id != -1)
+			return id;
+		synchronized (this) {
+			id= findTypeId(type);
+			if (id != -1)
+				return id;
+			id= fTypeCount++;
+			TType[] typesById= fTypesById;
+			if (id == typesById.length)
+				typesById= Arrays.copyOf(typesById, 2 * id);
+			typesById[id]= type;
+			fTypesById= typesById;
+			fTypeIds.put(type, Integer.valueOf(id));
+			if (type.getEnvironment() == this)
+				type.setTypeId(id);
+			return id;
+		}
 	}
 
-	public TType create(ITypeBinding binding) {
+	/**
+	 * Returns the number of the given type, if it has already been numbered.
+	 *
+	 * @param type a type
+	 * @return the number of the type, or -1 if the type has not been numbered yet
+	 * @see #getTypeId(TType)
+	 */
+	public int findTypeId(TType type) {
+		if (type.getEnvironment() == this && type.getTypeId() != -1)
+			return type.getTypeId();
+		Integer id= fTypeIds.get(type);
+		if (id == null)
+			return -1;
+		// remember the number in equal types of this environment
+		if (type.getEnvironment() == this)
+			type.setTypeId(id.intValue());
+		return id.intValue();
+	}
+
+	/**
+	 * @param id a type number
+	 * @return the type with the given number
+	 * @see #getTypeId(TType)
+	 */
+	public TType getTypeForId(int id) {
+		return fTypesById[id];
+	}
+
+	public synchronized TType create(ITypeBinding binding) {
 		if (binding.isPrimitive()) {
 			return createPrimitiveType(binding);
 		} else if (binding.isArray()) {
@@ -241,7 +341,7 @@ public class TypeEnvironment {
 		return OBJECT_TYPE;
 	}
 
-	public void initializeJavaLangObject(IJavaProject project) {
+	public synchronized void initializeJavaLangObject(IJavaProject project) {
 		if (OBJECT_TYPE != null)
 			return;
 		
@@ -249,7 +349,7 @@ public class TypeEnvironment {
 		Assert.isTrue(objectType.isJavaLangObject());
 	}
 	
-	void initializeJavaLangObject(ITypeBinding object) {
+	synchronized void initializeJavaLangObject(ITypeBinding object) {
 		if (OBJECT_TYPE != null)
 			return;
 
@@ -266,7 +366,7 @@ public class TypeEnvironment {
 		return null;
 	}
 
-	StandardType createBoxed(PrimitiveType type, IJavaProject focus) {
+	synchronized StandardType createBoxed(PrimitiveType type, IJavaProject focus) {
 		String fullyQualifiedName= BOXED_PRIMITIVE_NAMES[type.getId()];
 		return createStandardType(fullyQualifiedName, focus);
 	}
@@ -287,8 +387,18 @@ public class TypeEnvironment {
 		return null;
 	}
 
-	Map<TType, ArrayList<TType>> getSubTypes() {
-		return fSubTypes;
+	/**
+	 * @param type a type of this environment
+	 * @return the known direct subtypes of the given type, or <code>null</code> iff subtype
+	 *  information was not requested in the constructor
+	 */
+	synchronized TType[] getSubTypes(TType type) {
+		if (fSubTypes == null)
+			return null;
+		List<TType> subtypes= fSubTypes.get(type);
+		if (subtypes == null)
+			return TType.EMPTY_TYPE_ARRAY;
+		return subtypes.toArray(new TType[subtypes.size()]);
 	}
 
 	private void cacheSubType(TType supertype, TType result) {
@@ -338,7 +448,7 @@ public class TypeEnvironment {
 		return result;
 	}
 
-	public ArrayType createArrayType(TType elementType, int dimensions) {
+	public synchronized ArrayType createArrayType(TType elementType, int dimensions) {
 		Assert.isTrue(! elementType.isArrayType());
 		Assert.isTrue(! elementType.isAnonymous());
 		Assert.isTrue(dimensions > 0);
@@ -10,19 +10,26 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets;
 
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.ArrayType;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.TTypes;
 
 /**
- * A type-safe wrapper for {@code Set<TType>} that also adds {@code TType}-specific
+ * A type-safe set of {@code TType}s that also adds {@code TType}-specific
  * functionality, e.g. subTypes() and superTypes().
+ * <p>
+ * The members are stored as a bit set over the numbers the {@link TypeEnvironment}
+ * assigns to its types (see {@link TypeEnvironment#getTypeId(TType)}), so that unions,
+ * intersections and subset tests work on whole words at a time. Iteration is in the
+ * order in which the types were numbered.
+ * </p>
  */
 public class EnumeratedTypeSet extends TypeSet {
 	static private int sCount= 0;
@@ -36,9 +43,14 @@ public class EnumeratedTypeSet extends TypeSet {
 	}
 
 	/**
-	 * Set containing the TTypes in this EnumeratedTypeSet.
+	 * The numbers of the TTypes in this EnumeratedTypeSet.
 	 */
-	Set<TType> fMembers= new LinkedHashSet<>();
+	BitSet fMembers= new BitSet();
+
+	/**
+	 * The environment that numbers the members.
+	 */
+	private final TypeEnvironment fTypeEnvironment;
 
 	/**
 	 * Constructs a new EnumeratedTypeSet with the members of Set s in it.
@@ -49,8 +61,9 @@ public class EnumeratedTypeSet extends TypeSet {
 	 */
 	public EnumeratedTypeSet(Iterator<TType> types, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
+		fTypeEnvironment= typeSetEnvironment.getTypeEnvironment();
 		while (types.hasNext()) {
-			fMembers.add(types.next());
+			fMembers.set(fTypeEnvironment.getTypeId(types.next()));
 		}
 		sCount++;
 	}
@@ -62,6 +75,7 @@ public class EnumeratedTypeSet extends TypeSet {
 	 */
 	public EnumeratedTypeSet(TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
+		fTypeEnvironment= typeSetEnvironment.getTypeEnvironment();
 		sCount++;
 	}
 
@@ -73,8 +87,9 @@ public class EnumeratedTypeSet extends TypeSet {
 	 */
 	public EnumeratedTypeSet(TType t, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
+		fTypeEnvironment= typeSetEnvironment.getTypeEnvironment();
 		Assert.isNotNull(t);
-		fMembers.add(t);
+		fMembers.set(fTypeEnvironment.getTypeId(t));
 		sCount++;
 	}
 
@@ -96,15 +111,15 @@ public class EnumeratedTypeSet extends TypeSet {
 		} else if (o instanceof SingletonTypeSet) {
 			SingletonTypeSet other= (SingletonTypeSet) o;
 
-			return (fMembers.size() == 1) && fMembers.contains(other.anyMember());
+			return (fMembers.cardinality() == 1) && contains(other.anyMember());
 		} else if (o instanceof TypeSet) {
 			TypeSet other= (TypeSet) o;
 
 			for(Iterator<TType> otherIter= other.iterator(); otherIter.hasNext(); ) {
-				if (!fMembers.contains(otherIter.next()))
+				if (!contains(otherIter.next()))
 					return false;
 			}
-			for(Iterator<TType> myIter= fMembers.iterator(); myIter.hasNext(); ) {
+			for(Iterator<TType> myIter= iterator(); myIter.hasNext(); ) {
 				if (!other.contains(myIter.next()))
 					return false;
 			}
@@ -149,8 +164,7 @@ public class EnumeratedTypeSet extends TypeSet {
 			// More than an optimization: the universe never contains array types, so
 			// if s2 has array types, the following will retain them, as it should.
 			EnumeratedTypeSet ets2= (EnumeratedTypeSet) s2;
-			fMembers= new LinkedHashSet<>();
-			fMembers.addAll(ets2.fMembers);
+			fMembers= (BitSet) ets2.fMembers.clone();
 		} else
 			retainAll(s2);
 	}
@@ -164,7 +178,7 @@ public class EnumeratedTypeSet extends TypeSet {
 		if (isUniverse())
 			return makeClone(); // subtypes(universe) = universe
 
-		if (fMembers.contains(getJavaLangObject()))
+		if (contains(getJavaLangObject()))
 			return getTypeSetEnvironment().getUniverseTypeSet();
 
 		return getTypeSetEnvironment().createSubTypesSet(this);
@@ -197,18 +211,18 @@ public class EnumeratedTypeSet extends TypeSet {
 	public TypeSet makeClone() {
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
-		result.fMembers.addAll(fMembers);
+		result.fMembers.or(fMembers);
 		result.initComplete();
 		return result;
 	}
 
 	public int size() {
-		return fMembers.size();
+		return fMembers.cardinality();
 	}
 
 	public void clear() {
 		if (isUniverse())
-			fMembers= new LinkedHashSet<>();
+			fMembers= new BitSet();
 		else
 			fMembers.clear();
 	}
@@ -219,44 +233,51 @@ public class EnumeratedTypeSet extends TypeSet {
 	}
 
 	public TType[] toArray() {
-		return fMembers.toArray(new TType[fMembers.size()]);
+		TType[] result= new TType[fMembers.cardinality()];
+		int i= 0;
+		for (int id= fMembers.nextSetBit(0); id >= 0; id= fMembers.nextSetBit(id + 1))
+			result[i++]= fTypeEnvironment.getTypeForId(id);
+		return result;
 	}
 
 	public boolean add(TType t) {
 		// Doesn't make sense to do here what other methods do (copy-and-modify)
 		Assert.isTrue(!isUniverse(), "Someone's trying to expand the universe!"); //$NON-NLS-1$
-		return fMembers.add(t);
+		int id= fTypeEnvironment.getTypeId(t);
+		if (fMembers.get(id))
+			return false;
+		fMembers.set(id);
+		return true;
 	}
 
 	@Override
 	public boolean contains(TType t) {
 		if (isUniverse())
 			return true;
-		return fMembers.contains(t);
+		int id= fTypeEnvironment.findTypeId(t);
+		return id != -1 && fMembers.get(id);
 	}
 
 	public boolean remove(TType t) {
 		if (isUniverse())
-			fMembers= cloneSet(fMembers);
-		return fMembers.remove(t);
-	}
-
-	private Set<TType> cloneSet(Set<TType> members) {
-		Set<TType> result= new LinkedHashSet<>();
-		result.addAll(members);
-		return result;
+			fMembers= (BitSet) fMembers.clone();
+		int id= fTypeEnvironment.findTypeId(t);
+		if (id == -1 || !fMembers.get(id))
+			return false;
+		fMembers.clear(id);
+		return true;
 	}
 
 	public boolean addAll(TypeSet s) {
-		if (s instanceof EnumeratedTypeSet) {
-			EnumeratedTypeSet ets= (EnumeratedTypeSet) s;
-
-			return fMembers.addAll(ets.fMembers);
-		} else {
-			EnumeratedTypeSet ets= s.enumerate();
+		EnumeratedTypeSet ets;
+		if (s instanceof EnumeratedTypeSet)
+			ets= (EnumeratedTypeSet) s;
+		else
+			ets= s.enumerate();
 
-			return fMembers.addAll(ets.fMembers);
-		}
+		int oldSize= fMembers.cardinality();
+		fMembers.or(ets.fMembers);
+		return fMembers.cardinality() != oldSize;
 	}
 
 	@Override
@@ -277,13 +298,17 @@ public class EnumeratedTypeSet extends TypeSet {
 			return false;
 		EnumeratedTypeSet ets= s.enumerate();
 
-		return fMembers.containsAll(ets.fMembers);
+		BitSet missing= (BitSet) ets.fMembers.clone();
+		missing.andNot(fMembers);
+		return missing.isEmpty();
 	}
 
 	public boolean removeAll(EnumeratedTypeSet s) {
 		if (isUniverse())
-			fMembers= cloneSet(fMembers);
-		return fMembers.removeAll(s.fMembers);
+			fMembers= (BitSet) fMembers.clone();
+		int oldSize= fMembers.cardinality();
+		fMembers.andNot(s.fMembers);
+		return fMembers.cardinality() != oldSize;
 	}
 
 	public boolean retainAll(TypeSet s) {
@@ -292,45 +317,51 @@ public class EnumeratedTypeSet extends TypeSet {
 		EnumeratedTypeSet ets= (EnumeratedTypeSet) s;
 
 		if (isUniverse()) {
-			fMembers= cloneSet(ets.fMembers);
+			fMembers= (BitSet) ets.fMembers.clone();
 			return true;
-		} else
-			return fMembers.retainAll(ets.fMembers);
+		} else {
+			int oldSize= fMembers.cardinality();
+			fMembers.and(ets.fMembers);
+			return fMembers.cardinality() != oldSize;
+		}
 	}
 
 	@Override
 	public boolean isSingleton() {
-		return fMembers.size() == 1;
+		return fMembers.cardinality() == 1;
 	}
 
 	@Override
 	public TType anyMember() {
-		return fMembers.iterator().next();
+		int id= fMembers.nextSetBit(0);
+		if (id == -1)
+			throw new NoSuchElementException();
+		return fTypeEnvironment.getTypeForId(id);
 	}
 
 	@Override
 	public TypeSet upperBound() {
-		if (fMembers.size() == 1)
-			return new SingletonTypeSet(fMembers.iterator().next(), getTypeSetEnvironment());
-		if (fMembers.contains(getJavaLangObject()))
+		if (fMembers.cardinality() == 1)
+			return new SingletonTypeSet(anyMember(), getTypeSetEnvironment());
+		if (contains(getJavaLangObject()))
 			return new SingletonTypeSet(getJavaLangObject(), getTypeSetEnvironment());
 
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper supertype in fMembers
-		result.fMembers.addAll(fMembers);
-		for(Iterator<TType> iter= fMembers.iterator(); iter.hasNext(); ) {
+		result.fMembers.or(fMembers);
+		for(Iterator<TType> iter= iterator(); iter.hasNext(); ) {
 			TType t= iter.next();
 
 			if (t.isArrayType()) {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> subIter=TTypes.getAllSubTypesIterator(at.getElementType()); subIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(subIter.next(), numDims));
+					result.remove(TTypes.createArrayType(subIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSubTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.remove(iterator.next());
 				}
 			}
 		}
@@ -340,21 +371,21 @@ public class EnumeratedTypeSet extends TypeSet {
 
 	@Override
 	public TypeSet lowerBound() {
-		if (fMembers.size() == 1)
-			return new SingletonTypeSet(fMembers.iterator().next(), getTypeSetEnvironment());
+		if (fMembers.cardinality() == 1)
+			return new SingletonTypeSet(anyMember(), getTypeSetEnvironment());
 
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper subtype in fMembers
-		result.fMembers.addAll(fMembers);
+		result.fMembers.or(fMembers);
 
-		for(Iterator<TType> iter= fMembers.iterator(); iter.hasNext(); ) {
+		for(Iterator<TType> iter= iterator(); iter.hasNext(); ) {
 			TType t= iter.next();
 
 			// java.lang.Object is only in the lower bound if fMembers consists
 			// of only java.lang.Object, but that case is handled above.
 			if (t.equals(getJavaLangObject())) {
-				result.fMembers.remove(t);
+				result.remove(t);
 				continue;
 			}
 
@@ -362,11 +393,11 @@ public class EnumeratedTypeSet extends TypeSet {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> superIter=TTypes.getAllSuperTypesIterator(at.getElementType()); superIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(superIter.next(), numDims));
+					result.remove(TTypes.createArrayType(superIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSuperTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.remove(iterator.next());
 				}
 			}
 		}
@@ -378,31 +409,55 @@ public class EnumeratedTypeSet extends TypeSet {
 
 	@Override
 	public boolean hasUniqueLowerBound() {
-		return fMembers.size() == 1;
+		return fMembers.cardinality() == 1;
 	}
 
 	@Override
 	public boolean hasUniqueUpperBound() {
-		return fMembers.size() == 1;
+		return fMembers.cardinality() == 1;
 	}
 
 	@Override
 	public TType uniqueLowerBound() {
-		if (fMembers.size() == 1)
-			return fMembers.iterator().next();
+		if (fMembers.cardinality() == 1)
+			return anyMember();
 		return null;
 	}
 
 	@Override
 	public TType uniqueUpperBound() {
-		if (fMembers.size() == 1)
-			return fMembers.iterator().next();
+		if (fMembers.cardinality() == 1)
+			return anyMember();
 		return null;
 	}
 
 	@Override
 	public Iterator<TType> iterator() {
-		return fMembers.iterator();
+		return new Iterator<TType>() {
+			private int fNext= fMembers.nextSetBit(0);
+			private int fLast= -1;
+
+			@Override
+			public boolean hasNext() {
+				return fNext != -1;
+			}
+
+			@Override
+			public TType next() {
+				if (fNext == -1)
+					throw new NoSuchElementException();
+				fLast= fNext;
+				fNext= fMembers.nextSetBit(fNext + 1);
+				return fTypeEnvironment.getTypeForId(fLast);
+			}
+
+			@Override
+			public void remove() {
+				Assert.isTrue(fLast != -1);
+				fMembers.clear(fLast);
+				fLast= -1;
+			}
+		};
 	}
 
 	/**
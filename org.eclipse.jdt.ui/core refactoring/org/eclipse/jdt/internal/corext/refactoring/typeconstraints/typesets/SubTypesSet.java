@@ -258,7 +258,7 @@ public class SubTypesSet extends TypeSet {
 						fEnumCache.add(TTypes.createArrayType(elemSubIter.next(), numDims));
 				} else {
 					for (Iterator<TType> iterator= TTypes.getAllSubTypesIterator(ub); iterator.hasNext();) {
-						fEnumCache.fMembers.add(iterator.next());
+						fEnumCache.add(iterator.next());
 					}
 				}
 				fEnumCache.add(ub);
@@ -251,7 +251,7 @@ public class SuperTypesSet extends TypeSet {
 					anyLBIsIntfOrArray= true;
 				} else {
 					for (Iterator<TType> iterator= TTypes.getAllSuperTypesIterator(lb); iterator.hasNext(); )
-					fEnumCache.fMembers.add(iterator.next());
+					fEnumCache.add(iterator.next());
 				}
 				fEnumCache.add(lb);
 			}
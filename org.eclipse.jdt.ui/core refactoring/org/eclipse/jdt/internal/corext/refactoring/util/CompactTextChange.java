@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.TextEditGroup;
+
+import org.eclipse.ltk.core.refactoring.CategorizedTextEditGroup;
+import org.eclipse.ltk.core.refactoring.GroupCategorySet;
+import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
+import org.eclipse.ltk.core.refactoring.TextEditChangeGroup;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
+
+/**
+ * Compact form of a {@link CompilationUnitChange} whose edit tree is a flat list of replace,
+ * insert and delete edits, as created by renames. Offsets, lengths and kinds of the edits are kept
+ * in primitive arrays, and the change is re-created with new edit objects by
+ * {@link #materialize(ICompilationUnit)}.
+ */
+final class CompactTextChange {
+
+	private static final byte REPLACE= 0;
+	private static final byte INSERT= 1;
+	private static final byte DELETE= 2;
+
+	private final String fName;
+	private final boolean fKeepPreviewEdits;
+	private final int fSaveMode;
+	private final boolean fHasRoot;
+
+	private final byte[] fKinds;
+	private final int[] fOffsets;
+	private final int[] fLengths;
+	private final String[] fTexts;
+	/** Index of the group of each edit, or -1 */
+	private final int[] fEditGroups;
+
+	private final String[] fGroupNames;
+	/** Categories of each group, or <code>null</code> for a plain {@link TextEditGroup} */
+	private final GroupCategorySet[] fGroupCategories;
+
+	private CompactTextChange(CompilationUnitChange change, int edits, int groups) {
+		fName= change.getName();
+		fKeepPreviewEdits= change.getKeepPreviewEdits();
+		fSaveMode= change.getSaveMode();
+		fHasRoot= change.getEdit() != null;
+		fKinds= new byte[edits];
+		fOffsets= new int[edits];
+		fLengths= new int[edits];
+		fTexts= new String[edits];
+		fEditGroups= new int[edits];
+		fGroupNames= new String[groups];
+		fGroupCategories= new GroupCategorySet[groups];
+	}
+
+	/**
+	 * Creates the compact form of a change.
+	 *
+	 * @param change the change
+	 * @param texts the replacement texts seen so far, used to share equal texts between changes
+	 * @return the compact form, or <code>null</code> if the change cannot be represented
+	 */
+	static CompactTextChange create(TextChange change, Map<String, String> texts) {
+		if (change.getClass() != CompilationUnitChange.class || !change.isEnabled() || change.getParent() != null)
+			return null;
+		CompilationUnitChange cuChange= (CompilationUnitChange) change;
+		if (cuChange.getDescriptor() != null || !"java".equals(cuChange.getTextType())) //$NON-NLS-1$
+			return null;
+
+		TextEdit root= cuChange.getEdit();
+		TextEdit[] children= new TextEdit[0];
+		if (root != null) {
+			if (root.getClass() != MultiTextEdit.class)
+				return null;
+			children= root.getChildren();
+		}
+		TextEditChangeGroup[] groups= cuChange.getTextEditChangeGroups();
+		TextEditBasedChangeGroup[] allGroups= cuChange.getChangeGroups();
+		if (groups.length != allGroups.length)
+			return null;
+
+		CompactTextChange result= new CompactTextChange(cuChange, children.length, groups.length);
+		Map<TextEdit, Integer> indices= new IdentityHashMap<>(children.length * 4 / 3 + 1);
+		for (int index= 0; index < children.length; index++) {
+			TextEdit edit= children[index];
+			if (edit.hasChildren())
+				return null;
+			Class<? extends TextEdit> kind= edit.getClass();
+			if (kind == ReplaceEdit.class) {
+				result.fKinds[index]= REPLACE;
+				result.fTexts[index]= share(((ReplaceEdit) edit).getText(), texts);
+			} else if (kind == InsertEdit.class) {
+				result.fKinds[index]= INSERT;
+				result.fTexts[index]= share(((InsertEdit) edit).getText(), texts);
+			} else if (kind == DeleteEdit.class) {
+				result.fKinds[index]= DELETE;
+			} else {
+				return null;
+			}
+			result.fOffsets[index]= edit.getOffset();
+			result.fLengths[index]= edit.getLength();
+			result.fEditGroups[index]= -1;
+			indices.put(edit, Integer.valueOf(index));
+		}
+
+		for (int group= 0; group < groups.length; group++) {
+			TextEditChangeGroup changeGroup= groups[group];
+			if (changeGroup.getClass() != TextEditChangeGroup.class || !changeGroup.isEnabled())
+				return null;
+			TextEditGroup editGroup= changeGroup.getTextEditGroup();
+			if (editGroup.getClass() == CategorizedTextEditGroup.class)
+				result.fGroupCategories[group]= ((CategorizedTextEditGroup) editGroup).getGroupCategorySet();
+			else if (editGroup.getClass() != TextEditGroup.class)
+				return null;
+			result.fGroupNames[group]= editGroup.getName();
+			TextEdit[] edits= editGroup.getTextEdits();
+			for (int index= 0; index < edits.length; index++) {
+				Integer edit= indices.get(edits[index]);
+				if (edit == null || result.fEditGroups[edit.intValue()] != -1)
+					return null;
+				result.fEditGroups[edit.intValue()]= group;
+			}
+		}
+		return result;
+	}
+
+	private static String share(String text, Map<String, String> texts) {
+		String shared= texts.get(text);
+		if (shared == null) {
+			texts.put(text, text);
+			shared= text;
+		}
+		return shared;
+	}
+
+	/**
+	 * Re-creates the change with new edits and groups.
+	 *
+	 * @param cu the compilation unit of the change
+	 * @return the change
+	 */
+	TextChange materialize(ICompilationUnit cu) {
+		CompilationUnitChange change= new CompilationUnitChange(fName, cu);
+		change.setKeepPreviewEdits(fKeepPreviewEdits);
+		change.setSaveMode(fSaveMode);
+		if (!fHasRoot)
+			return change;
+
+		MultiTextEdit root= new MultiTextEdit();
+		TextEdit[] edits= new TextEdit[fKinds.length];
+		int[] groupSizes= new int[fGroupNames.length];
+		for (int index= 0; index < edits.length; index++) {
+			switch (fKinds[index]) {
+				case INSERT:
+					edits[index]= new InsertEdit(fOffsets[index], fTexts[index]);
+					break;
+				case DELETE:
+					edits[index]= new DeleteEdit(fOffsets[index], fLengths[index]);
+					break;
+				default:
+					edits[index]= new ReplaceEdit(fOffsets[index], fLengths[index], fTexts[index]);
+					break;
+			}
+			root.addChild(edits[index]);
+			if (fEditGroups[index] != -1)
+				groupSizes[fEditGroups[index]]++;
+		}
+		change.setEdit(root);
+
+		TextEdit[][] groupEdits= new TextEdit[fGroupNames.length][];
+		for (int group= 0; group < groupEdits.length; group++)
+			groupEdits[group]= new TextEdit[groupSizes[group]];
+		int[] filled= new int[fGroupNames.length];
+		for (int index= 0; index < edits.length; index++) {
+			int group= fEditGroups[index];
+			if (group != -1)
+				groupEdits[group][filled[group]++]= edits[index];
+		}
+		for (int group= 0; group < groupEdits.length; group++) {
+			if (fGroupCategories[group] == null)
+				change.addTextEditGroup(new TextEditGroup(fGroupNames[group], groupEdits[group]));
+			else
+				change.addTextEditChangeGroup(new TextEditChangeGroup(change, new CategorizedTextEditGroup(fGroupNames[group], groupEdits[group], fGroupCategories[group])));
+		}
+		return change;
+	}
+}
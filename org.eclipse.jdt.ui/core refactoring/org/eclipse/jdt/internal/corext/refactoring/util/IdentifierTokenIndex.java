@@ -0,0 +1,612 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Index of the words and qualified names that occur in the text files of the workspace, used to
+ * restrict textual updates of refactorings to the files that may contain a name.
+ * <p>
+ * For each file, the index keeps a small Bloom filter of the words (runs of letters, digits and
+ * underscores, as matched by {@link org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner})
+ * and of the qualified names (runs of Java identifier parts and dots, and their prefixes up to a
+ * dot, as matched by {@link QualifiedNameFinder}) of its contents. Queries may therefore return
+ * files that do not contain the name, but never miss a file that does. Files with a dirty buffer
+ * are always returned.
+ * </p>
+ * <p>
+ * A project is indexed when it is first queried, by comparing the modification stamps of its files
+ * with the stamps of the indexed contents. Afterwards, only the files reported by resource deltas
+ * are indexed again. The filters are stored in the plug-in state location when the plug-in stops,
+ * so that only files changed in between have to be read in the next session.
+ * </p>
+ *
+ * @since 3.12
+ */
+public final class IdentifierTokenIndex implements IResourceChangeListener {
+
+	/** The filter of a file whose contents could not be read, matching all names */
+	private static final long[] MATCH_ALL= new long[0];
+
+	/** The indexed contents of a file */
+	private static final class Entry {
+
+		final long fStamp;
+
+		/** The Bloom filter, {@link IdentifierTokenIndex#MATCH_ALL}, or <code>null</code> if not a text file */
+		final long[] fFilter;
+
+		Entry(long stamp, long[] filter) {
+			fStamp= stamp;
+			fFilter= filter;
+		}
+
+		boolean mayContain(int hash, int step) {
+			if (fFilter == null)
+				return false;
+			if (fFilter == MATCH_ALL)
+				return true;
+			int size= fFilter.length * 64;
+			for (int index= 0; index < HASHES; index++) {
+				int bit= ((hash + index * step) & Integer.MAX_VALUE) % size;
+				if ((fFilter[bit >>> 6] & (1L << bit)) == 0)
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/** The indexed files of a project */
+	private static final class ProjectIndex {
+
+		/** The entries by project relative path */
+		final Map<String, Entry> fEntries= new HashMap<>();
+
+		boolean fModified;
+	}
+
+	private static final String STATE_DIRECTORY= "identifierIndex"; //$NON-NLS-1$
+
+	private static final int FILE_VERSION= 1;
+
+	private static final int BITS_PER_WORD= 10;
+
+	private static final int HASHES= 3;
+
+	private static IdentifierTokenIndex fgDefault;
+
+	private static boolean fgEnabled= true;
+
+	/** The indexed projects by name, guarded by <code>this</code> */
+	private final Map<String, ProjectIndex> fProjects= new HashMap<>();
+
+	/**
+	 * The project relative paths of the files changed since a project was last updated, by name of
+	 * the indexed projects, guarded by itself
+	 */
+	private final Map<String, Set<String>> fChanged= new HashMap<>();
+
+	/** The names of the projects that must be compared with the file system again */
+	private final Set<String> fStale= new HashSet<>();
+
+	private IdentifierTokenIndex() {
+	}
+
+	/**
+	 * Returns the shared index.
+	 *
+	 * @return the index, or <code>null</code> if the index is disabled
+	 */
+	public static synchronized IdentifierTokenIndex getDefault() {
+		if (!fgEnabled)
+			return null;
+		if (fgDefault == null) {
+			fgDefault= new IdentifierTokenIndex();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fgDefault, IResourceChangeEvent.POST_CHANGE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Enables or disables the index, e.g. to compare refactorings with and without the index.
+	 *
+	 * @param enabled <code>true</code> to use the index
+	 */
+	public static synchronized void setEnabled(boolean enabled) {
+		fgEnabled= enabled;
+	}
+
+	/**
+	 * Stores the index and stops listening for resource changes. Called when the plug-in stops.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault == null)
+			return;
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(fgDefault);
+		fgDefault.save();
+		fgDefault= null;
+	}
+
+	/**
+	 * Returns the files of the given projects that may contain the given qualified name, such that
+	 * the name is neither preceded by a dot or a Java identifier part nor followed by a Java
+	 * identifier part.
+	 *
+	 * @param projects the projects to search
+	 * @param name the qualified name
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return the files, or <code>null</code> if the name cannot be looked up in the index
+	 * @throws CoreException if the files of a project could not be determined
+	 */
+	public IFile[] findFilesWithQualifiedName(IProject[] projects, String name, IProgressMonitor monitor) throws CoreException {
+		if (name.length() == 0)
+			return null;
+		for (int index= 0; index < name.length(); index++) {
+			char ch= name.charAt(index);
+			if (ch != '.' && !Character.isJavaIdentifierPart(ch))
+				return null;
+		}
+		return findFiles(projects, name, monitor);
+	}
+
+	/**
+	 * Returns the files of the given projects that may contain the given word, such that it is
+	 * neither preceded nor followed by a letter, a digit or an underscore.
+	 *
+	 * @param projects the projects to search
+	 * @param word the word
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return the files, or <code>null</code> if the word cannot be looked up in the index
+	 * @throws CoreException if the files of a project could not be determined
+	 */
+	public IFile[] findFilesWithWord(IProject[] projects, String word, IProgressMonitor monitor) throws CoreException {
+		if (word.length() == 0)
+			return null;
+		for (int index= 0; index < word.length(); index++) {
+			if (!isWordPart(word.charAt(index)))
+				return null;
+		}
+		return findFiles(projects, word, monitor);
+	}
+
+	/**
+	 * Forgets all indexed files, in memory and in the state location.
+	 */
+	public synchronized void clear() {
+		synchronized (fChanged) {
+			fChanged.clear();
+			fStale.clear();
+		}
+		fProjects.clear();
+		File directory= getStateDirectory();
+		if (directory != null) {
+			File[] files= directory.listFiles();
+			for (int index= 0; files != null && index < files.length; index++)
+				files[index].delete();
+		}
+	}
+
+	private synchronized IFile[] findFiles(IProject[] projects, String name, IProgressMonitor monitor) throws CoreException {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		int hash= name.hashCode();
+		int step= step(hash);
+		Set<IFile> files= new LinkedHashSet<>();
+		Set<IProject> searched= new HashSet<>();
+		try {
+			monitor.beginTask("", projects.length); //$NON-NLS-1$
+			for (int index= 0; index < projects.length; index++) {
+				IProject project= projects[index];
+				if (!project.isAccessible()) {
+					monitor.worked(1);
+					continue;
+				}
+				searched.add(project);
+				ProjectIndex projectIndex= update(project, new SubProgressMonitor(monitor, 1));
+				for (Iterator<Map.Entry<String, Entry>> iterator= projectIndex.fEntries.entrySet().iterator(); iterator.hasNext();) {
+					Map.Entry<String, Entry> entry= iterator.next();
+					if (entry.getValue().mayContain(hash, step))
+						files.add(project.getFile(entry.getKey()));
+				}
+			}
+		} finally {
+			monitor.done();
+		}
+		addDirtyFiles(searched, files);
+		return files.toArray(new IFile[files.size()]);
+	}
+
+	private static void addDirtyFiles(Set<IProject> projects, Set<IFile> files) {
+		IFileBuffer[] buffers= FileBuffers.getTextFileBufferManager().getFileBuffers();
+		for (int index= 0; index < buffers.length; index++) {
+			IFileBuffer buffer= buffers[index];
+			if (!buffer.isDirty() || buffer.getLocation() == null)
+				continue;
+			IResource resource= ResourcesPlugin.getWorkspace().getRoot().findMember(buffer.getLocation());
+			if (resource instanceof IFile && projects.contains(resource.getProject()))
+				files.add((IFile) resource);
+		}
+	}
+
+	private ProjectIndex update(IProject project, IProgressMonitor monitor) throws CoreException {
+		String name= project.getName();
+		Set<String> changed;
+		boolean stale;
+		synchronized (fChanged) {
+			changed= fChanged.put(name, new HashSet<String>());
+			stale= fStale.remove(name);
+		}
+		ProjectIndex projectIndex= fProjects.get(name);
+		if (projectIndex == null) {
+			projectIndex= read(project);
+			fProjects.put(name, projectIndex);
+		}
+
+		boolean updated= false;
+		try {
+			List<IFile> files;
+			if (stale || changed == null) {
+				files= collectChangedFiles(project, projectIndex);
+			} else {
+				files= new ArrayList<>();
+				for (Iterator<String> iterator= changed.iterator(); iterator.hasNext();) {
+					String path= iterator.next();
+					IFile file= project.getFile(path);
+					if (file.exists())
+						files.add(file);
+					else if (projectIndex.fEntries.remove(path) != null)
+						projectIndex.fModified= true;
+				}
+			}
+
+			monitor.beginTask("", files.size()); //$NON-NLS-1$
+			for (int index= 0; index < files.size(); index++) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				IFile file= files.get(index);
+				projectIndex.fEntries.put(file.getProjectRelativePath().toString(), createEntry(file));
+				projectIndex.fModified= true;
+				monitor.worked(1);
+			}
+			updated= true;
+		} finally {
+			if (!updated) {
+				// compare the remaining files with the file system next time
+				synchronized (fChanged) {
+					fStale.add(name);
+				}
+			}
+			monitor.done();
+		}
+		return projectIndex;
+	}
+
+	/**
+	 * Returns the files whose contents have changed since they were indexed, and removes the
+	 * entries of files that no longer exist.
+	 *
+	 * @param project the project
+	 * @param projectIndex the index of the project
+	 * @return the files to index
+	 * @throws CoreException if the members of the project could not be visited
+	 */
+	private static List<IFile> collectChangedFiles(IProject project, ProjectIndex projectIndex) throws CoreException {
+		final Map<String, Entry> entries= projectIndex.fEntries;
+		final Set<String> existing= new HashSet<>(entries.size() * 4 / 3 + 1);
+		final List<IFile> files= new ArrayList<>();
+		project.accept(new IResourceProxyVisitor() {
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.getType() != IResource.FILE)
+					return true;
+				IFile file= (IFile) proxy.requestResource();
+				String path= file.getProjectRelativePath().toString();
+				existing.add(path);
+				Entry entry= entries.get(path);
+				if (entry == null || entry.fStamp != proxy.getModificationStamp())
+					files.add(file);
+				return false;
+			}
+		}, IResource.NONE);
+		if (entries.keySet().retainAll(existing))
+			projectIndex.fModified= true;
+		return files;
+	}
+
+	private static Entry createEntry(IFile file) {
+		long stamp= file.getModificationStamp();
+		if (!FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), false))
+			return new Entry(stamp, null);
+		try {
+			Set<String> words= new HashSet<>();
+			collectWords(readContents(file), words);
+			return new Entry(stamp, createFilter(words));
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+		// read it again when the project is compared with the file system next time
+		return new Entry(IResource.NULL_STAMP, MATCH_ALL);
+	}
+
+	private static boolean isWordPart(char ch) {
+		return Character.isLetterOrDigit(ch) || ch == '_';
+	}
+
+	private static boolean isQualifiedNamePart(char ch) {
+		return ch == '.' || Character.isJavaIdentifierPart(ch);
+	}
+
+	/**
+	 * Adds the words and the qualified names of a text to a set.
+	 *
+	 * @param text the text
+	 * @param words the set to add to
+	 */
+	private static void collectWords(String text, Set<String> words) {
+		int length= text.length();
+		int wordStart= -1;
+		int nameStart= -1;
+		for (int index= 0; index <= length; index++) {
+			char ch= index < length ? text.charAt(index) : ' ';
+			if (isWordPart(ch)) {
+				if (wordStart == -1)
+					wordStart= index;
+			} else if (wordStart != -1) {
+				words.add(text.substring(wordStart, index));
+				wordStart= -1;
+			}
+			if (isQualifiedNamePart(ch)) {
+				if (nameStart == -1)
+					nameStart= index;
+				else if (ch == '.')
+					words.add(text.substring(nameStart, index));
+			} else if (nameStart != -1) {
+				words.add(text.substring(nameStart, index));
+				nameStart= -1;
+			}
+		}
+	}
+
+	private static long[] createFilter(Set<String> words) {
+		long[] filter= new long[Math.max(1, (words.size() * BITS_PER_WORD + 63) / 64)];
+		int size= filter.length * 64;
+		for (Iterator<String> iterator= words.iterator(); iterator.hasNext();) {
+			int hash= iterator.next().hashCode();
+			int step= step(hash);
+			for (int index= 0; index < HASHES; index++) {
+				int bit= ((hash + index * step) & Integer.MAX_VALUE) % size;
+				filter[bit >>> 6]|= 1L << bit;
+			}
+		}
+		return filter;
+	}
+
+	private static int step(int hash) {
+		return Integer.rotateLeft(hash, 16) * 0x9E3779B1 | 1;
+	}
+
+	private static String readContents(IFile file) throws CoreException, IOException {
+		InputStream stream;
+		try {
+			stream= file.getContents(true);
+		} catch (CoreException e) {
+			if (e.getStatus().getCode() == IResourceStatus.RESOURCE_NOT_FOUND)
+				return ""; //$NON-NLS-1$
+			throw e;
+		}
+		Reader reader= new InputStreamReader(stream, file.getCharset());
+		try {
+			StringBuffer buffer= new StringBuffer();
+			char[] chars= new char[8192];
+			int read;
+			while ((read= reader.read(chars)) != -1)
+				buffer.append(chars, 0, read);
+			return buffer.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta= event.getDelta();
+		if (delta == null)
+			return;
+		try {
+			synchronized (fChanged) {
+				delta.accept(new IResourceDeltaVisitor() {
+					@Override
+					public boolean visit(IResourceDelta child) {
+						IResource resource= child.getResource();
+						switch (resource.getType()) {
+							case IResource.ROOT:
+								return true;
+							case IResource.PROJECT:
+								String name= resource.getName();
+								if (!fChanged.containsKey(name))
+									return false;
+								if (child.getKind() == IResourceDelta.REMOVED || (child.getFlags() & IResourceDelta.OPEN) != 0) {
+									fStale.add(name);
+									return false;
+								}
+								return true;
+							case IResource.FILE:
+								if (child.getKind() != IResourceDelta.CHANGED || (child.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING)) != 0)
+									fChanged.get(resource.getProject().getName()).add(resource.getProjectRelativePath().toString());
+								return false;
+							default:
+								return true;
+						}
+					}
+				});
+			}
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+		}
+	}
+
+	private static File getStateDirectory() {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		File directory= plugin.getStateLocation().append(STATE_DIRECTORY).toFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return null;
+		return directory;
+	}
+
+	private static File getStateFile(String projectName) {
+		File directory= getStateDirectory();
+		if (directory == null)
+			return null;
+		return new File(directory, projectName + ".index"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the stored index of a project.
+	 *
+	 * @param project the project
+	 * @return the index, empty if none has been stored or it could not be read
+	 */
+	private static ProjectIndex read(IProject project) {
+		ProjectIndex projectIndex= new ProjectIndex();
+		File stateFile= getStateFile(project.getName());
+		if (stateFile == null || !stateFile.isFile())
+			return projectIndex;
+
+		DataInputStream input= null;
+		try {
+			input= new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+			if (input.readInt() != FILE_VERSION || !project.getName().equals(input.readUTF()))
+				return projectIndex;
+			int count= input.readInt();
+			for (int index= 0; index < count; index++) {
+				String path= input.readUTF();
+				long stamp= input.readLong();
+				int length= input.readInt();
+				long[] filter= null;
+				if (length == 0) {
+					filter= MATCH_ALL;
+				} else if (length > 0) {
+					filter= new long[length];
+					for (int offset= 0; offset < length; offset++)
+						filter[offset]= input.readLong();
+				}
+				projectIndex.fEntries.put(path, new Entry(stamp, filter));
+			}
+		} catch (IOException e) {
+			// a truncated index is read again from the files
+			projectIndex.fEntries.clear();
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+		return projectIndex;
+	}
+
+	private synchronized void save() {
+		for (Iterator<Map.Entry<String, ProjectIndex>> iterator= fProjects.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, ProjectIndex> entry= iterator.next();
+			String name= entry.getKey();
+			File stateFile= getStateFile(name);
+			if (stateFile == null)
+				return;
+			IProject project= ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+			if (!project.exists()) {
+				stateFile.delete();
+				continue;
+			}
+			ProjectIndex projectIndex= entry.getValue();
+			if (!projectIndex.fModified)
+				continue;
+			try {
+				write(name, projectIndex, stateFile);
+				projectIndex.fModified= false;
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+				stateFile.delete();
+			}
+		}
+	}
+
+	private static void write(String name, ProjectIndex projectIndex, File stateFile) throws IOException {
+		DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile)));
+		try {
+			output.writeInt(FILE_VERSION);
+			output.writeUTF(name);
+			output.writeInt(projectIndex.fEntries.size());
+			for (Iterator<Map.Entry<String, Entry>> iterator= projectIndex.fEntries.entrySet().iterator(); iterator.hasNext();) {
+				Map.Entry<String, Entry> mapEntry= iterator.next();
+				Entry entry= mapEntry.getValue();
+				output.writeUTF(mapEntry.getKey());
+				output.writeLong(entry.fStamp);
+				if (entry.fFilter == null) {
+					output.writeInt(-1);
+				} else {
+					output.writeInt(entry.fFilter.length);
+					for (int index= 0; index < entry.fFilter.length; index++)
+						output.writeLong(entry.fFilter[index]);
+				}
+			}
+		} finally {
+			output.close();
+		}
+	}
+}
@@ -21,6 +21,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -45,6 +46,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.util.PatternConstructor;
 
 public class QualifiedNameFinder {
@@ -137,23 +139,54 @@ public class QualifiedNameFinder {
 			return;
 		}
 
-		ResultCollector collector= new ResultCollector(result, newValue);
-		TextSearchEngine engine= TextSearchEngine.create();
-		Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
+		try {
+			monitor.beginTask("", 10); //$NON-NLS-1$
+			ResultCollector collector= new ResultCollector(result, newValue);
+			TextSearchEngine engine= TextSearchEngine.create();
+			Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
 
-		engine.search(createScope(filePatterns, root), collector, searchPattern, monitor);
+			TextSearchScope scope= createScope(pattern, filePatterns, root, new SubProgressMonitor(monitor, 3));
+			engine.search(scope, collector, searchPattern, new SubProgressMonitor(monitor, 7));
+		} finally {
+			monitor.done();
+		}
 	}
 
-	private static TextSearchScope createScope(String filePatterns, IProject root) {
+	private static TextSearchScope createScope(String pattern, String filePatterns, IProject root, IProgressMonitor monitor) {
 		HashSet<IProject> res= new HashSet<>();
 		res.add(root);
 		addReferencingProjects(root, res);
-		IResource[] resArr= res.toArray(new IResource[res.size()]);
+		IProject[] projects= res.toArray(new IProject[res.size()]);
 		Pattern filePattern= getFilePattern(filePatterns);
 
+		IResource[] resArr= findCandidates(pattern, projects, monitor);
+		if (resArr == null)
+			resArr= projects;
 		return TextSearchScope.newSearchScope(resArr, filePattern, false);
 	}
 
+	/**
+	 * Returns the files that may contain the pattern, as determined by the identifier index.
+	 *
+	 * @param pattern the qualified name
+	 * @param projects the projects to search
+	 * @param monitor the progress monitor
+	 * @return the files, or <code>null</code> if all files have to be searched
+	 */
+	private static IFile[] findCandidates(String pattern, IProject[] projects, IProgressMonitor monitor) {
+		IdentifierTokenIndex index= IdentifierTokenIndex.getDefault();
+		if (index == null) {
+			monitor.done();
+			return null;
+		}
+		try {
+			return index.findFilesWithQualifiedName(projects, pattern, monitor);
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			return null;
+		}
+	}
+
 	private static Pattern getFilePattern(String filePatterns) {
 		StringTokenizer tokenizer= new StringTokenizer(filePatterns, ","); //$NON-NLS-1$
 		String[] filePatternArray= new String[tokenizer.countTokens()];
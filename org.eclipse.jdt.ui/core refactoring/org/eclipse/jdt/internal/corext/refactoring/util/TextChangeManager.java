@@ -10,10 +10,16 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.ltk.core.refactoring.TextChange;
@@ -25,10 +31,29 @@ import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 /**
  * A <code>TextChangeManager</code> manages associations between <code>ICompilationUnit</code>
  * or <code>IFile</code> and <code>TextChange</code> objects.
+ * <p>
+ * If a limit of expanded changes is set, the least recently used changes beyond that limit are
+ * kept in a compact form and re-created when they are accessed again. Clients must therefore not
+ * hold on to a <code>TextChange</code> while they request the changes of other compilation units.
+ * </p>
+ * <p>
+ * The compact form only reduces the heap while the changes are collected. {@link #getAllChanges()}
+ * expands all changes, so a refactoring that hands them to its change tree still holds every
+ * change expanded at the end and its peak heap is not reduced.
+ * </p>
  */
 public class TextChangeManager {
 
-	private Map<ICompilationUnit, TextChange> fMap= new HashMap<>(10);
+	/** The expanded changes, in order of access */
+	private Map<ICompilationUnit, TextChange> fMap= new LinkedHashMap<>(10, 0.75f, true);
+
+	/** The changes in compact form */
+	private Map<ICompilationUnit, CompactTextChange> fCompactChanges= new HashMap<>();
+
+	/** The replacement texts of the compact changes */
+	private Map<String, String> fTexts= new HashMap<>();
+
+	private int fMaxExpandedChanges= Integer.MAX_VALUE;
 
 	private final boolean fKeepExecutedTextEdits;
 
@@ -40,6 +65,18 @@ public class TextChangeManager {
 		fKeepExecutedTextEdits= keepExecutedTextEdits;
 	}
 
+	/**
+	 * Sets the number of changes that are kept expanded. Less recently used changes are kept
+	 * in a compact form if they only consist of simple text edits. The default is to keep all
+	 * changes expanded.
+	 *
+	 * @param maxExpandedChanges the maximal number of expanded changes
+	 */
+	public void setMaxExpandedChanges(int maxExpandedChanges) {
+		fMaxExpandedChanges= maxExpandedChanges;
+		compact(null);
+	}
+
 	/**
 	 * Adds an association between the given compilation unit and the passed
 	 * change to this manager.
@@ -48,7 +85,9 @@ public class TextChangeManager {
 	 * @param change the change associated with the compilation unit
 	 */
 	public void manage(ICompilationUnit cu, TextChange change) {
+		fCompactChanges.remove(cu);
 		fMap.put(cu, change);
+		compact(cu);
 	}
 
 	/**
@@ -61,13 +100,54 @@ public class TextChangeManager {
 	public TextChange get(ICompilationUnit cu) {
 		TextChange result= fMap.get(cu);
 		if (result == null) {
-			result= new CompilationUnitChange(cu.getElementName(), cu);
-			result.setKeepPreviewEdits(fKeepExecutedTextEdits);
+			result= expand(cu);
+			if (result == null) {
+				result= new CompilationUnitChange(cu.getElementName(), cu);
+				result.setKeepPreviewEdits(fKeepExecutedTextEdits);
+			}
 			fMap.put(cu, result);
+			compact(cu);
 		}
 		return result;
 	}
 
+	private TextChange expand(ICompilationUnit cu) {
+		CompactTextChange compact= fCompactChanges.remove(cu);
+		if (compact == null)
+			return null;
+		return compact.materialize(cu);
+	}
+
+	/**
+	 * Keeps the least recently used changes in compact form until the number of expanded changes
+	 * is within the limit.
+	 *
+	 * @param current the compilation unit whose change is in use, or <code>null</code>
+	 */
+	private void compact(ICompilationUnit current) {
+		if (fMap.size() <= fMaxExpandedChanges)
+			return;
+		List<ICompilationUnit> incompressible= new ArrayList<>();
+		for (Iterator<Entry<ICompilationUnit, TextChange>> iter= fMap.entrySet().iterator(); iter.hasNext() && fMap.size() > fMaxExpandedChanges;) {
+			Entry<ICompilationUnit, TextChange> entry= iter.next();
+			ICompilationUnit cu= entry.getKey();
+			if (cu.equals(current))
+				continue;
+			CompactTextChange compact= CompactTextChange.create(entry.getValue(), fTexts);
+			if (compact != null) {
+				iter.remove();
+				fCompactChanges.put(cu, compact);
+			} else {
+				incompressible.add(cu);
+			}
+		}
+		// move changes that cannot be compacted to the end, so that they are not checked again right away
+		for (Iterator<ICompilationUnit> iter= incompressible.iterator(); iter.hasNext();)
+			fMap.get(iter.next());
+		if (current != null)
+			fMap.get(current);
+	}
+
 	/**
 	 * Removes the <tt>TextChange</tt> managed under the given key
 	 * <code>unit<code>.
@@ -76,15 +156,22 @@ public class TextChangeManager {
 	 * @return the removed <tt>TextChange</tt>.
 	 */
 	public TextChange remove(ICompilationUnit unit) {
-		return fMap.remove(unit);
+		TextChange result= fMap.remove(unit);
+		if (result == null)
+			result= expand(unit);
+		return result;
 	}
 
 	/**
-	 * Returns all text changes managed by this instance.
+	 * Returns all text changes managed by this instance. Changes kept in compact form are expanded.
 	 *
 	 * @return all text changes managed by this instance
 	 */
 	public TextChange[] getAllChanges(){
+		for (Iterator<ICompilationUnit> iter= new ArrayList<>(fCompactChanges.keySet()).iterator(); iter.hasNext();) {
+			ICompilationUnit cu= iter.next();
+			fMap.put(cu, expand(cu));
+		}
 		Set<ICompilationUnit> cuSet= fMap.keySet();
 		ICompilationUnit[] cus= cuSet.toArray(new ICompilationUnit[cuSet.size()]);
 		// sort by cu name:
@@ -110,7 +197,9 @@ public class TextChangeManager {
 	 * @return all compilation units managed by this instance
 	 */
 	public ICompilationUnit[] getAllCompilationUnits(){
-		return fMap.keySet().toArray(new ICompilationUnit[fMap.keySet().size()]);
+		Set<ICompilationUnit> cus= new HashSet<>(fMap.keySet());
+		cus.addAll(fCompactChanges.keySet());
+		return cus.toArray(new ICompilationUnit[cus.size()]);
 	}
 
 	/**
@@ -118,6 +207,8 @@ public class TextChangeManager {
 	 */
 	public void clear() {
 		fMap.clear();
+		fCompactChanges.clear();
+		fTexts.clear();
 	}
 
 	/**
@@ -127,7 +218,7 @@ public class TextChangeManager {
 	 * @return <code>true</code> if any text changes are managed for the specified compilation unit and <code>false</code> otherwise
 	 */
 	public boolean containsChangesIn(ICompilationUnit cu){
-		return fMap.containsKey(cu);
+		return fMap.containsKey(cu) || fCompactChanges.containsKey(cu);
 	}
 }
 
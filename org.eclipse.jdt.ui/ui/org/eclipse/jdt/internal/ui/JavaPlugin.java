@@ -85,6 +85,7 @@ import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
 import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+import org.eclipse.jdt.internal.corext.refactoring.util.IdentifierTokenIndex;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.CodeTemplateContextType;
 import org.eclipse.jdt.internal.corext.template.java.JavaContextType;
@@ -162,6 +163,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 
 	public static boolean DEBUG_RESULT_COLLECTOR;
 
+	public static boolean DEBUG_AST_BATCH_PARSER;
+
 	private static JavaPlugin fgJavaPlugin;
 
 	private static LinkedHashMap<String, Long> fgRepeatedMessages= new LinkedHashMap<String, Long>(20, 0.75f, true) {
@@ -421,7 +424,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	}
 
 	/* package */ static void initializeAfterLoad(IProgressMonitor monitor) {
-		OpenTypeHistory.getInstance().checkConsistency(monitor);
+		// only load the history, its entries are validated when they are accessed
+		OpenTypeHistory.getInstance();
 	}
 
 	/**
@@ -590,6 +594,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 				fASTProvider= null;
 			}
 
+			IdentifierTokenIndex.shutdown();
+
 			if (fWorkingCopyManager != null) {
 				fWorkingCopyManager.shutdown();
 				fWorkingCopyManager= null;
@@ -1164,5 +1170,6 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		DEBUG_BREADCRUMB_ITEM_DROP_DOWN= options.getBooleanOption("org.eclipse.jdt.ui/debug/BreadcrumbItemDropDown", false); //$NON-NLS-1$
 		DEBUG_TYPE_CONSTRAINTS= options.getBooleanOption("org.eclipse.jdt.ui/debug/TypeConstraints", false); //$NON-NLS-1$
 		DEBUG_RESULT_COLLECTOR= options.getBooleanOption("org.eclipse.jdt.ui/debug/ResultCollector", false); //$NON-NLS-1$
+		DEBUG_AST_BATCH_PARSER= options.getBooleanOption("org.eclipse.jdt.ui/debug/ASTBatchParser", false); //$NON-NLS-1$
 	}
 }
@@ -214,6 +214,9 @@ public final class JavaUIMessages extends NLS {
 	public static String Spelling_case_label;
 	public static String Spelling_error_case_label;
 	public static String AbstractSpellingDictionary_encodingError;
+	public static String BatchSpellChecker_task;
+	public static String BatchSpellChecker_error;
+	public static String BatchSpellChecker_state_error;
 
 	public static String JavaAnnotationHover_multipleMarkersAtThisLine;
 	public static String JavaEditor_codeassist_noCompletions;
@@ -33,7 +33,7 @@ import org.eclipse.jdt.ui.text.java.IProblemLocation;
  * Creates fixes which can resolve code style issues
  * @see org.eclipse.jdt.internal.corext.fix.CodeStyleFix
  */
-public class CodeStyleCleanUp extends AbstractMultiFix {
+public class CodeStyleCleanUp extends AbstractMultiFix implements IThreadSafeCleanUp {
 
 	public CodeStyleCleanUp() {
 	}
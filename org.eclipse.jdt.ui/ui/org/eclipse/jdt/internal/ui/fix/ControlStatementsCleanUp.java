@@ -25,7 +25,7 @@ import org.eclipse.jdt.ui.cleanup.CleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
 import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 
-public class ControlStatementsCleanUp extends AbstractCleanUp {
+public class ControlStatementsCleanUp extends AbstractCleanUp implements IThreadSafeCleanUp {
 
 	public ControlStatementsCleanUp(Map<String, String> options) {
 		super(options);
@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.fix;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpContext;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+
+/**
+ * A clean up whose {@link #createFix(CleanUpContext)} can be called by several threads at the
+ * same time once its options are set. The fixes of other clean ups are created by one thread at a
+ * time when a clean up refactoring runs in parallel.
+ *
+ * @see org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring#setParallelism(int)
+ * @since 3.12
+ */
+public interface IThreadSafeCleanUp extends ICleanUp {
+}
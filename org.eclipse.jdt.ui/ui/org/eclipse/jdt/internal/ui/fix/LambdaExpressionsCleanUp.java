@@ -25,7 +25,7 @@ import org.eclipse.jdt.ui.cleanup.CleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
 import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 
-public class LambdaExpressionsCleanUp extends AbstractCleanUp {
+public class LambdaExpressionsCleanUp extends AbstractCleanUp implements IThreadSafeCleanUp {
 
 	public LambdaExpressionsCleanUp(Map<String, String> options) {
 		super(options);
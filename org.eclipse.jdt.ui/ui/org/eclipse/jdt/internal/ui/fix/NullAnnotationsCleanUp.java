@@ -34,7 +34,7 @@ import org.eclipse.jdt.ui.text.java.IProblemLocation;
  * 
  * Crafted after the lead of Java50CleanUp
  */
-public class NullAnnotationsCleanUp extends AbstractMultiFix {
+public class NullAnnotationsCleanUp extends AbstractMultiFix implements IThreadSafeCleanUp {
 
 	private int handledProblemID;
 
@@ -29,7 +29,7 @@ import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
 import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.text.java.IProblemLocation;
 
-public class UnnecessaryCodeCleanUp extends AbstractMultiFix {
+public class UnnecessaryCodeCleanUp extends AbstractMultiFix implements IThreadSafeCleanUp {
 
 	public UnnecessaryCodeCleanUp(Map<String, String> options) {
 		super(options);
@@ -35,7 +35,7 @@ import org.eclipse.jdt.ui.text.java.IProblemLocation;
  * @see org.eclipse.jdt.internal.corext.fix.UnusedCodeFix
  *
  */
-public class UnusedCodeCleanUp extends AbstractMultiFix {
+public class UnusedCodeCleanUp extends AbstractMultiFix implements IThreadSafeCleanUp {
 
 	public UnusedCodeCleanUp(Map<String, String> options) {
 		super(options);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,11 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.javaeditor;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -19,6 +23,11 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.IWindowListener;
 import org.eclipse.ui.IWorkbenchPart;
@@ -26,6 +35,8 @@ import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.ui.texteditor.IDocumentProvider;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
@@ -47,6 +58,12 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 /**
  * Provides a shared AST for clients. The shared AST is
  * the AST of the active Java editor's input element.
+ * <p>
+ * The ASTs of recently active editors are kept in a cache bounded by
+ * {@link #SHARED_AST_CACHE_BUDGET}. When such an editor becomes active again and its
+ * document has not been modified since the AST was reconciled, the cached AST becomes
+ * the shared AST without being parsed again.
+ * </p>
  *
  * @since 3.0
  */
@@ -107,6 +124,10 @@ public final class ASTProvider {
 
 				activeJavaEditorChanged(null);
 			}
+
+			// after deactivating, which keeps the AST of the closed editor as a recent AST
+			if (isJavaEditor(ref))
+				removeRecentAST(ref.getPart(false));
 		}
 
 		/*
@@ -212,8 +233,136 @@ public final class ASTProvider {
 	public static final boolean SHARED_AST_STATEMENT_RECOVERY= true;
 	public static final boolean SHARED_BINDING_RECOVERY= true;
 
+	/**
+	 * Preference key for the memory budget of the cache of recently active ASTs, in KiB.
+	 * A value of <code>0</code> disables the cache.
+	 * <p>
+	 * Value is of type <code>Integer</code>.
+	 * </p>
+	 *
+	 * @since 3.12
+	 */
+	public static final String SHARED_AST_CACHE_BUDGET= "org.eclipse.jdt.ui.sharedASTCacheBudget"; //$NON-NLS-1$
+
+	private static final int DEFAULT_SHARED_AST_CACHE_BUDGET= 16 * 1024;
+
 	private static final String DEBUG_PREFIX= "ASTProvider > "; //$NON-NLS-1$
 
+	/**
+	 * An AST of a recently active editor together with the modification stamp
+	 * of the editor's document at the time the AST was created.
+	 *
+	 * @since 3.12
+	 */
+	private static final class RecentAST {
+
+		private final CompilationUnit fAST;
+		private final long fModificationStamp;
+		private final long fSize;
+
+		/**
+		 * Creates a recent AST. Computing the size visits the whole AST, so this must not be
+		 * called while holding the lock of the AST provider.
+		 *
+		 * @param ast the AST
+		 * @param modificationStamp the modification stamp of the document the AST has been created from
+		 */
+		RecentAST(CompilationUnit ast, long modificationStamp) {
+			fAST= ast;
+			fModificationStamp= modificationStamp;
+			fSize= ast.subtreeBytes();
+		}
+	}
+
+	/**
+	 * Snapshot of the counters of an AST provider, used to tune the budget of the AST cache.
+	 *
+	 * @since 3.12
+	 */
+	public static final class CacheStatistics {
+
+		private final long fHits;
+		private final long fRecentHits;
+		private final long fWaits;
+		private final long fWaitTime;
+		private final long fParses;
+		private final long fParseTime;
+		private final int fRecentCount;
+		private final long fRecentSize;
+
+		private CacheStatistics(long hits, long recentHits, long waits, long waitTime, long parses, long parseTime, int recentCount, long recentSize) {
+			fHits= hits;
+			fRecentHits= recentHits;
+			fWaits= waits;
+			fWaitTime= waitTime;
+			fParses= parses;
+			fParseTime= parseTime;
+			fRecentCount= recentCount;
+			fRecentSize= recentSize;
+		}
+
+		/**
+		 * @return the number of requests answered with the AST of the active editor
+		 */
+		public long getHits() {
+			return fHits;
+		}
+
+		/**
+		 * @return the number of activations that reused the AST of a recently active editor
+		 */
+		public long getRecentHits() {
+			return fRecentHits;
+		}
+
+		/**
+		 * @return the number of requests that waited for the reconciler ({@link SharedASTProvider#WAIT_YES})
+		 */
+		public long getWaits() {
+			return fWaits;
+		}
+
+		/**
+		 * @return the total time spent waiting for the reconciler, in milliseconds
+		 */
+		public long getWaitTime() {
+			return fWaitTime;
+		}
+
+		/**
+		 * @return the number of ASTs created by the provider
+		 */
+		public long getParses() {
+			return fParses;
+		}
+
+		/**
+		 * @return the total time spent creating ASTs, in milliseconds
+		 */
+		public long getParseTime() {
+			return fParseTime;
+		}
+
+		/**
+		 * @return the number of cached ASTs of recently active editors
+		 */
+		public int getRecentCount() {
+			return fRecentCount;
+		}
+
+		/**
+		 * @return the estimated size of the cached ASTs of recently active editors, in bytes
+		 */
+		public long getRecentSize() {
+			return fRecentSize;
+		}
+
+		@Override
+		public String toString() {
+			return "hits: " + fHits + ", recent hits: " + fRecentHits + ", waits: " + fWaits + " (" + fWaitTime + " ms), parses: " + fParses + " (" + fParseTime + " ms), recent ASTs: " + fRecentCount + " (" + fRecentSize + " bytes)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+		}
+	}
+
 
 	private volatile ITypeRoot fReconcilingJavaElement;
 	private ITypeRoot fActiveJavaElement;
@@ -223,6 +372,17 @@ public final class ASTProvider {
 	private Object fWaitLock= new Object();
 	private volatile boolean fIsReconciling;
 	private IWorkbenchPart fActiveEditor;
+	private volatile long fReconcileStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private long fASTStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private final Map<ITypeRoot, RecentAST> fRecentASTs= new LinkedHashMap<>(16, 0.75f, true);
+	private long fRecentASTsSize;
+
+	private final AtomicLong fHits= new AtomicLong();
+	private final AtomicLong fRecentHits= new AtomicLong();
+	private final AtomicLong fWaits= new AtomicLong();
+	private final AtomicLong fWaitTime= new AtomicLong();
+	private final AtomicLong fParses= new AtomicLong();
+	private final AtomicLong fParseTime= new AtomicLong();
 
 
 	/**
@@ -256,18 +416,51 @@ public final class ASTProvider {
 			windows[i].getPartService().addPartListener(fActivationListener);
 	}
 
+	/**
+	 * Initializes the default values of the preferences used by the AST provider.
+	 *
+	 * @param store the preference store
+	 * @since 3.12
+	 */
+	public static void initDefaults(IPreferenceStore store) {
+		store.setDefault(SHARED_AST_CACHE_BUDGET, DEFAULT_SHARED_AST_CACHE_BUDGET);
+	}
+
 	void activeJavaEditorChanged(IWorkbenchPart editor) {
 
 		ITypeRoot javaElement= null;
 		if (editor instanceof JavaEditor)
 			javaElement= ((JavaEditor)editor).getInputJavaElement();
+		long stamp= getModificationStamp(editor);
 
+		ITypeRoot previousJavaElement= null;
+		CompilationUnit previousAST= null;
+		long previousStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 		synchronized (this) {
+			if (fAST != null && fActiveJavaElement != null && !fActiveJavaElement.equals(javaElement)) {
+				previousJavaElement= fActiveJavaElement;
+				previousAST= fAST;
+				previousStamp= fASTStamp;
+			}
+
 			fActiveEditor= editor;
 			fActiveJavaElement= javaElement;
 			cache(null, javaElement);
+
+			RecentAST recent= javaElement != null ? removeRecentAST(javaElement) : null;
+			if (recent != null && recent.fModificationStamp == stamp) {
+				if (JavaPlugin.DEBUG_AST_PROVIDER)
+					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "reusing recent AST: " + toString(recent.fAST) + " for: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+				fRecentHits.incrementAndGet();
+				cache(recent.fAST, javaElement);
+				fASTStamp= stamp;
+			}
 		}
 
+		if (previousAST != null)
+			keepRecentAST(previousJavaElement, previousAST, previousStamp);
+
 		if (JavaPlugin.DEBUG_AST_PROVIDER)
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "active editor is: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 
@@ -319,13 +512,113 @@ public final class ASTProvider {
 		if (JavaPlugin.DEBUG_AST_PROVIDER)
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "about to reconcile: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 
+		long stamp;
+		synchronized (this) {
+			stamp= javaElement.equals(fActiveJavaElement) ? getModificationStamp(fActiveEditor) : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		}
+
 		synchronized (fReconcileLock) {
 			fReconcilingJavaElement= javaElement;
 			fIsReconciling= true;
+			fReconcileStamp= stamp;
 		}
 		cache(null, javaElement);
 	}
 
+	/**
+	 * Returns the modification stamp of the document of the given editor.
+	 *
+	 * @param editor the editor or <code>null</code>
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP}
+	 * @since 3.12
+	 */
+	private static long getModificationStamp(IWorkbenchPart editor) {
+		if (editor instanceof JavaEditor) {
+			JavaEditor javaEditor= (JavaEditor)editor;
+			IDocumentProvider provider= javaEditor.getDocumentProvider();
+			if (provider != null) {
+				IDocument document= provider.getDocument(javaEditor.getEditorInput());
+				if (document instanceof IDocumentExtension4)
+					return ((IDocumentExtension4)document).getModificationStamp();
+			}
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/**
+	 * Keeps the AST of a formerly active editor in the cache of recent ASTs and removes the
+	 * least recently used ASTs that exceed the budget.
+	 *
+	 * @param javaElement the input of the formerly active editor
+	 * @param ast the AST of <code>javaElement</code>
+	 * @param stamp the modification stamp of the document the AST has been created from
+	 * @since 3.12
+	 */
+	private void keepRecentAST(ITypeRoot javaElement, CompilationUnit ast, long stamp) {
+		long budget= getCacheBudget();
+		if (budget <= 0 || stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return;
+
+		RecentAST recent= new RecentAST(ast, stamp);
+		if (recent.fSize > budget)
+			return;
+
+		addRecentAST(javaElement, recent, budget);
+	}
+
+	private synchronized void addRecentAST(ITypeRoot javaElement, RecentAST recent, long budget) {
+		if (javaElement.equals(fActiveJavaElement))
+			return; // re-activated while the size was computed
+
+		removeRecentAST(javaElement);
+		fRecentASTs.put(javaElement, recent);
+		fRecentASTsSize+= recent.fSize;
+
+		for (Iterator<RecentAST> iter= fRecentASTs.values().iterator(); fRecentASTsSize > budget && iter.hasNext();) {
+			RecentAST eldest= iter.next();
+			iter.remove();
+			fRecentASTsSize-= eldest.fSize;
+
+			if (JavaPlugin.DEBUG_AST_PROVIDER)
+				System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "evicting recent AST: " + toString(eldest.fAST)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private synchronized RecentAST removeRecentAST(ITypeRoot javaElement) {
+		RecentAST recent= fRecentASTs.remove(javaElement);
+		if (recent != null)
+			fRecentASTsSize-= recent.fSize;
+		return recent;
+	}
+
+	private void removeRecentAST(IWorkbenchPart editor) {
+		if (editor instanceof JavaEditor) {
+			ITypeRoot javaElement= ((JavaEditor)editor).getInputJavaElement();
+			if (javaElement != null)
+				removeRecentAST(javaElement);
+		}
+	}
+
+	private static long getCacheBudget() {
+		return JavaPlugin.getDefault().getPreferenceStore().getInt(SHARED_AST_CACHE_BUDGET) * 1024L;
+	}
+
+	/**
+	 * Returns a snapshot of the counters of this AST provider.
+	 *
+	 * @return the current statistics
+	 * @since 3.12
+	 */
+	public CacheStatistics getStatistics() {
+		int recentCount;
+		long recentSize;
+		synchronized (this) {
+			recentCount= fRecentASTs.size();
+			recentSize= fRecentASTsSize;
+		}
+		return new CacheStatistics(fHits.get(), fRecentHits.get(), fWaits.get(), fWaitTime.get(), fParses.get(), fParseTime.get(), recentCount, recentSize);
+	}
+
 	/**
 	 * Disposes the cached AST.
 	 */
@@ -394,6 +687,8 @@ public final class ASTProvider {
 			disposeAST();
 
 		fAST= ast;
+		if (ast != null)
+			fASTStamp= fReconcileStamp;
 
 		// Signal AST change
 		synchronized (fWaitLock) {
@@ -428,6 +723,7 @@ public final class ASTProvider {
 					if (JavaPlugin.DEBUG_AST_PROVIDER)
 						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning cached AST:" + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
+					fHits.incrementAndGet();
 					return fAST;
 				}
 				if (waitFlag == SharedASTProvider.WAIT_NO) {
@@ -460,7 +756,10 @@ public final class ASTProvider {
 					if (isReconciling(input)) {
 						if (JavaPlugin.DEBUG_AST_PROVIDER)
 							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "waiting for AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+						fWaits.incrementAndGet();
+						long start= System.currentTimeMillis();
 						fWaitLock.wait(30000); // XXX: The 30 seconds timeout is an attempt to at least avoid a deadlock. See https://bugs.eclipse.org/366048#c21
+						fWaitTime.addAndGet(System.currentTimeMillis() - start);
 					}
 				}
 
@@ -483,7 +782,10 @@ public final class ASTProvider {
 
 		CompilationUnit ast= null;
 		try {
+			long start= System.currentTimeMillis();
 			ast= createAST(input, progressMonitor);
+			fParses.incrementAndGet();
+			fParseTime.addAndGet(System.currentTimeMillis() - start);
 			if (progressMonitor != null && progressMonitor.isCanceled()) {
 				ast= null;
 				if (JavaPlugin.DEBUG_AST_PROVIDER)
@@ -596,6 +898,11 @@ public final class ASTProvider {
 
 		disposeAST();
 
+		synchronized (this) {
+			fRecentASTs.clear();
+			fRecentASTsSize= 0;
+		}
+
 		synchronized (fWaitLock) {
 			fWaitLock.notifyAll();
 		}
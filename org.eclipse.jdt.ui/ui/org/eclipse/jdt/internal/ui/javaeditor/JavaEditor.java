@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -49,6 +49,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -221,6 +222,7 @@ import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
 import org.eclipse.jdt.internal.ui.search.ImplementOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.MethodExitsFinder;
 import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesIndex;
 import org.eclipse.jdt.internal.ui.text.DocumentCharacterIterator;
 import org.eclipse.jdt.internal.ui.text.JavaChangeHover;
 import org.eclipse.jdt.internal.ui.text.JavaPairMatcher;
@@ -581,6 +583,9 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		public void documentAboutToBeChanged(DocumentEvent event) {
 			if (fOccurrencesFinderJob != null)
 				fOccurrencesFinderJob.doCancel();
+			IProgressMonitor indexMonitor= fOccurrencesIndexMonitor;
+			if (indexMonitor != null)
+				indexMonitor.setCanceled(true);
 		}
 
 		/*
@@ -1206,9 +1211,7 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		public void windowActivated(IWorkbenchWindow window) {
 			if (window == getEditorSite().getWorkbenchWindow() && fMarkOccurrenceAnnotations && isActivePart()) {
 				fForcedMarkOccurrencesSelection= getSelectionProvider().getSelection();
-				ITypeRoot inputJavaElement= getInputJavaElement();
-				if (inputJavaElement != null)
-					updateOccurrenceAnnotations((ITextSelection)fForcedMarkOccurrencesSelection, SharedASTProvider.getAST(inputJavaElement, SharedASTProvider.WAIT_NO, getProgressMonitor()));
+				scheduleOccurrenceAnnotationsUpdate((ITextSelection)fForcedMarkOccurrencesSelection);
 			}
 		}
 
@@ -1665,6 +1668,21 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 	private OccurrencesFinderJob fOccurrencesFinderJob;
 	/** The occurrences finder job canceler */
 	private OccurrencesFinderJobCanceler fOccurrencesFinderJobCanceler;
+	/**
+	 * The job updating the occurrence annotations for a forced selection.
+	 * @since 3.12
+	 */
+	private Job fOccurrencesUpdateJob;
+	/**
+	 * The occurrences index of the AST last used for marking occurrences.
+	 * @since 3.12
+	 */
+	private volatile OccurrencesIndex fOccurrencesIndex;
+	/**
+	 * The monitor of the occurrences index build in progress, canceled upon document changes.
+	 * @since 3.12
+	 */
+	private volatile IProgressMonitor fOccurrencesIndexMonitor;
 	/**
 	 * This editor's projection support
 	 * @since 3.0
@@ -2400,15 +2418,8 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		if (!(textSelection instanceof ITextSelection))
 			return;
 
-		ITypeRoot inputJavaElement= getInputJavaElement();
-		if (inputJavaElement == null)
-			return;
-
-		CompilationUnit ast= SharedASTProvider.getAST(inputJavaElement, SharedASTProvider.WAIT_NO /* DO NOT USE WAIT_ACTIVE_ONLY */ , getProgressMonitor());
-		if (ast != null) {
-			fForcedMarkOccurrencesSelection= textSelection;
-			updateOccurrenceAnnotations((ITextSelection)textSelection, ast);
-		}
+		fForcedMarkOccurrencesSelection= textSelection;
+		scheduleOccurrenceAnnotationsUpdate((ITextSelection)textSelection);
 
 	}
 
@@ -3316,9 +3327,18 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		if (locations == null && selectedNode instanceof Name) {
 			IBinding binding= ((Name)selectedNode).resolveBinding();
 			if (binding != null && markOccurrencesOfType(binding)) {
-				OccurrencesFinder finder= new OccurrencesFinder();
-				if (finder.initialize(astRoot, selectedNode) == null) {
-					locations= finder.getOccurrences();
+				OccurrencesIndex index= getOccurrencesIndex(astRoot);
+				if (index == null) {
+					// canceled by a document change
+					fMarkOccurrenceTargetRegion= null;
+					return;
+				}
+				locations= index.getOccurrences((Name)selectedNode);
+				if (locations == null) {
+					OccurrencesFinder finder= new OccurrencesFinder();
+					if (finder.initialize(astRoot, selectedNode) == null) {
+						locations= finder.getOccurrences();
+					}
 				}
 			}
 		}
@@ -3338,6 +3358,64 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		fOccurrencesFinderJob.run(new NullProgressMonitor());
 	}
 
+	/**
+	 * Returns the occurrences index of the given AST. The index is built once per AST
+	 * and reused for all subsequent selections.
+	 *
+	 * @param astRoot the compilation unit AST
+	 * @return the occurrences index or <code>null</code> if the build has been canceled
+	 * @since 3.12
+	 */
+	private OccurrencesIndex getOccurrencesIndex(CompilationUnit astRoot) {
+		OccurrencesIndex index= fOccurrencesIndex;
+		if (index != null && index.getASTRoot() == astRoot)
+			return index;
+
+		IProgressMonitor monitor= new NullProgressMonitor();
+		fOccurrencesIndexMonitor= monitor;
+		try {
+			index= new OccurrencesIndex(astRoot, monitor);
+		} catch (OperationCanceledException e) {
+			return null;
+		} finally {
+			if (fOccurrencesIndexMonitor == monitor)
+				fOccurrencesIndexMonitor= null;
+		}
+		fOccurrencesIndex= index;
+		return index;
+	}
+
+	/**
+	 * Updates the occurrences annotations for the given selection in a background job,
+	 * using the shared AST if it is available.
+	 *
+	 * @param selection the text selection
+	 * @since 3.12
+	 */
+	private void scheduleOccurrenceAnnotationsUpdate(final ITextSelection selection) {
+		final ITypeRoot inputJavaElement= getInputJavaElement();
+		if (inputJavaElement == null)
+			return;
+
+		if (fOccurrencesUpdateJob != null)
+			fOccurrencesUpdateJob.cancel();
+
+		fOccurrencesUpdateJob= new Job(JavaEditorMessages.JavaEditor_markOccurrences_job_name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				CompilationUnit ast= SharedASTProvider.getAST(inputJavaElement, SharedASTProvider.WAIT_NO, monitor);
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				if (ast != null)
+					updateOccurrenceAnnotations(selection, ast);
+				return Status.OK_STATUS;
+			}
+		};
+		fOccurrencesUpdateJob.setPriority(Job.DECORATE);
+		fOccurrencesUpdateJob.setSystem(true);
+		fOccurrencesUpdateJob.schedule();
+	}
+
 	protected void installOccurrencesFinder(boolean forceUpdate) {
 		fMarkOccurrenceAnnotations= true;
 
@@ -3350,9 +3428,7 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		SelectionListenerWithASTManager.getDefault().addListener(this, fPostSelectionListenerWithAST);
 		if (forceUpdate && getSelectionProvider() != null) {
 			fForcedMarkOccurrencesSelection= getSelectionProvider().getSelection();
-			ITypeRoot inputJavaElement= getInputJavaElement();
-			if (inputJavaElement != null)
-				updateOccurrenceAnnotations((ITextSelection)fForcedMarkOccurrencesSelection, SharedASTProvider.getAST(inputJavaElement, SharedASTProvider.WAIT_NO, getProgressMonitor()));
+			scheduleOccurrenceAnnotationsUpdate((ITextSelection)fForcedMarkOccurrencesSelection);
 		}
 
 		if (fOccurrencesFinderJobCanceler == null) {
@@ -3369,6 +3445,12 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 			fOccurrencesFinderJob= null;
 		}
 
+		if (fOccurrencesUpdateJob != null) {
+			fOccurrencesUpdateJob.cancel();
+			fOccurrencesUpdateJob= null;
+		}
+		fOccurrencesIndex= null;
+
 		if (fOccurrencesFinderJobCanceler != null) {
 			fOccurrencesFinderJobCanceler.uninstall();
 			fOccurrencesFinderJobCanceler= null;
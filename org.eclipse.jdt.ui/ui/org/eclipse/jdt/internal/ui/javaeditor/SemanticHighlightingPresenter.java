@@ -272,6 +272,26 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		}
 	}
 
+	/**
+	 * Adds the current positions starting in the given range to the given list.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @param list the list
+	 * @param offset the range offset
+	 * @param length the range length
+	 * @since 3.12
+	 */
+	public void addPositions(List<Position> list, int offset, int length) {
+		synchronized (fPositionLock) {
+			int i= computeIndexAtOffset(fPositions, offset);
+			int n= computeIndexAtOffset(fPositions, offset + length);
+			if (i < n)
+				list.addAll(fPositions.subList(i, n));
+		}
+	}
+
 	/**
 	 * Create a text presentation in the background.
 	 * <p>
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,7 +22,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
@@ -32,12 +34,17 @@ import org.eclipse.ui.IWorkbenchPartSite;
 
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.BooleanLiteral;
 import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -55,6 +62,11 @@ import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 
 /**
  * Semantic highlighting reconciler - Background thread implementation.
+ * <p>
+ * The reconciler tracks the document changes between two reconciles. If all changes
+ * are inside the body of one method or initializer, only that body is visited and only the
+ * positions inside it are diffed. Any other change is highlighted by visiting the whole AST.
+ * </p>
  *
  * @since 3.0
  */
@@ -222,8 +234,69 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		}
 	}
 
+	/**
+	 * Accumulates the document range changed since the last reconcile.
+	 *
+	 * @since 3.12
+	 */
+	private class DirtyRegionTracker implements IDocumentListener, ITextInputListener {
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			String text= event.getText();
+			int offset= event.getOffset();
+			int oldLength= event.getLength();
+			int newLength= text == null ? 0 : text.length();
+			synchronized (fDirtyRegionLock) {
+				if (fDirtyStart < 0) {
+					fDirtyStart= offset;
+					fDirtyEnd= offset + newLength;
+				} else {
+					// shift the end if it lies behind the replaced text
+					int end= fDirtyEnd >= offset + oldLength ? fDirtyEnd + newLength - oldLength : fDirtyEnd;
+					fDirtyStart= Math.min(fDirtyStart, offset);
+					fDirtyEnd= Math.max(end, offset + newLength);
+				}
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentAboutToBeChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+		 */
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null)
+				oldInput.removeDocumentListener(this);
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+		 */
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			requestFullReconcile();
+			if (newInput != null)
+				newInput.addDocumentListener(this);
+		}
+	}
+
 	/** Position collector */
 	private PositionCollector fCollector= new PositionCollector();
+	/**
+	 * Dirty region tracker
+	 * @since 3.12
+	 */
+	private final DirtyRegionTracker fDirtyRegionTracker= new DirtyRegionTracker();
 
 	/** The Java editor this semantic highlighting reconciler is installed on */
 	private JavaEditor fEditor;
@@ -272,12 +345,68 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private Highlighting fJobDeprecatedMemberHighlighting;
 
+	/**
+	 * Lock for the dirty region and the full reconcile flag.
+	 * @since 3.12
+	 */
+	private final Object fDirtyRegionLock= new Object();
+	/**
+	 * Start offset of the range changed since the last reconcile, or <code>-1</code> if unchanged.
+	 * @since 3.12
+	 */
+	private int fDirtyStart= -1;
+	/**
+	 * End offset (exclusive) of the range changed since the last reconcile.
+	 * @since 3.12
+	 */
+	private int fDirtyEnd= -1;
+	/**
+	 * <code>true</code> if the next reconcile must visit the whole AST.
+	 * @since 3.12
+	 */
+	private boolean fFullReconcileRequired= true;
+
+	/**
+	 * Dirty region of the running reconcile - cache for background thread, see {@link #aboutToBeReconciled()}
+	 * @since 3.12
+	 */
+	private int fJobDirtyStart= -1;
+	/**
+	 * Dirty region end of the running reconcile - cache for background thread
+	 * @since 3.12
+	 */
+	private int fJobDirtyEnd= -1;
+	/**
+	 * <code>true</code> if the running reconcile must visit the whole AST - cache for background thread
+	 * @since 3.12
+	 */
+	private boolean fJobFullReconcile= true;
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#aboutToBeReconciled()
 	 */
 	@Override
 	public void aboutToBeReconciled() {
-		// Do nothing
+		// the AST of the upcoming reconcile reflects all changes made so far
+		synchronized (fDirtyRegionLock) {
+			fJobFullReconcile= fFullReconcileRequired;
+			fJobDirtyStart= fDirtyStart;
+			fJobDirtyEnd= fDirtyEnd;
+			fFullReconcileRequired= false;
+			fDirtyStart= -1;
+			fDirtyEnd= -1;
+		}
+	}
+
+	/**
+	 * Requests that the next reconcile visits the whole AST.
+	 *
+	 * @since 3.12
+	 */
+	private void requestFullReconcile() {
+		synchronized (fDirtyRegionLock) {
+			fFullReconcileRequired= true;
+		}
 	}
 
 	/*
@@ -287,14 +416,18 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
 		// ensure at most one thread can be reconciling at any time
 		synchronized (fReconcileLock) {
-			if (fIsReconciling)
+			if (fIsReconciling) {
+				requestFullReconcile();
 				return;
-			else
+			} else
 				fIsReconciling= true;
 		}
 		fJobPresenter= fPresenter;
 		fJobSemanticHighlightings= fSemanticHighlightings;
 		fJobHighlightings= fHighlightings;
+		if (forced)
+			fJobFullReconcile= true;
+		boolean completed= false;
 
 		try {
 			if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null)
@@ -306,10 +439,12 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				return;
 
 			ASTNode[] subtrees= getAffectedSubtrees(ast);
-			if (subtrees.length == 0)
+			if (subtrees.length == 0) {
+				completed= true;
 				return;
+			}
 
-			startReconcilingPositions();
+			startReconcilingPositions(subtrees[0] != ast ? subtrees : null);
 
 			if (!fJobPresenter.isCanceled()) {
 				fJobDeprecatedMemberHighlighting= null;
@@ -327,11 +462,18 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (!fJobPresenter.isCanceled())
 				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
+			if (!fJobPresenter.isCanceled()) {
 				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				completed= true;
+			}
 
 			stopReconcilingPositions();
 		} finally {
+			if (!completed && (fJobFullReconcile || fJobDirtyStart >= 0))
+				requestFullReconcile();
+			fJobFullReconcile= true;
+			fJobDirtyStart= -1;
+			fJobDirtyEnd= -1;
 			fJobPresenter= null;
 			fJobSemanticHighlightings= null;
 			fJobHighlightings= null;
@@ -343,19 +485,50 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
+	 * Returns the subtrees that may be affected by the document changes since the last reconcile.
+	 * <p>
+	 * Changes inside the body of a method or initializer cannot change the highlighting outside
+	 * that body, its body is returned. For all other changes the whole AST is returned.
+	 * </p>
+	 *
 	 * @param node Root node
 	 * @return Array of subtrees that may be affected by past document changes
 	 */
 	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
+		if (fJobFullReconcile)
+			return new ASTNode[] { node };
+		if (fJobDirtyStart < 0)
+			return new ASTNode[0];
+
+		int length= fJobDirtyEnd - fJobDirtyStart;
+		ASTNode covering= NodeFinder.perform(node, fJobDirtyStart, length);
+		while (covering != null && !(covering instanceof BodyDeclaration))
+			covering= covering.getParent();
+
+		Block body= null;
+		if (covering instanceof MethodDeclaration)
+			body= ((MethodDeclaration)covering).getBody();
+		else if (covering instanceof Initializer)
+			body= ((Initializer)covering).getBody();
+
+		if (body != null && body.getStartPosition() < fJobDirtyStart && fJobDirtyEnd < body.getStartPosition() + body.getLength())
+			return new ASTNode[] { body };
+
 		return new ASTNode[] { node };
 	}
 
 	/**
 	 * Start reconciling positions.
+	 *
+	 * @param subtrees the subtrees to reconcile or <code>null</code> to reconcile the whole AST
 	 */
-	private void startReconcilingPositions() {
-		fJobPresenter.addAllPositions(fRemovedPositions);
+	private void startReconcilingPositions(ASTNode[] subtrees) {
+		if (subtrees == null) {
+			fJobPresenter.addAllPositions(fRemovedPositions);
+		} else {
+			for (int i= 0; i < subtrees.length; i++)
+				fJobPresenter.addPositions(fRemovedPositions, subtrees[i].getStartPosition(), subtrees[i].getLength());
+		}
 		fNOfRemovedPositions= fRemovedPositions.size();
 	}
 
@@ -365,10 +538,6 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param subtrees the AST subtrees
 	 */
 	private void reconcilePositions(ASTNode[] subtrees) {
-		// FIXME: remove positions not covered by subtrees
-
-
-
 		for (int i= 0, n= subtrees.length; i < n; i++)
 			subtrees[i].accept(fCollector);
 		List<Position> oldPositions= fRemovedPositions;
@@ -437,6 +606,12 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fEditor= editor;
 		fSourceViewer= sourceViewer;
 
+		fSourceViewer.addTextInputListener(fDirtyRegionTracker);
+		IDocument document= fSourceViewer.getDocument();
+		if (document != null)
+			document.addDocumentListener(fDirtyRegionTracker);
+		requestFullReconcile();
+
 		if (fEditor instanceof CompilationUnitEditor) {
 			((CompilationUnitEditor)fEditor).addReconcileListener(this);
 		} else if (fEditor == null) {
@@ -452,6 +627,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		if (fPresenter != null)
 			fPresenter.setCanceled(true);
 
+		if (fSourceViewer != null) {
+			fSourceViewer.removeTextInputListener(fDirtyRegionTracker);
+			IDocument document= fSourceViewer.getDocument();
+			if (document != null)
+				document.removeDocumentListener(fDirtyRegionTracker);
+		}
+
 		if (fEditor != null) {
 			if (fEditor instanceof CompilationUnitEditor)
 				((CompilationUnitEditor)fEditor).removeReconcileListener(this);
@@ -471,6 +653,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private void scheduleJob() {
 		final ITypeRoot element= fEditor.getInputJavaElement();
+		requestFullReconcile();
 
 		synchronized (fJobLock) {
 			final Job oldJob= fJob;
@@ -494,6 +677,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 						if (monitor.isCanceled())
 							return Status.CANCEL_STATUS;
 						CompilationUnit ast= SharedASTProvider.getAST(element, SharedASTProvider.WAIT_YES, monitor);
+						aboutToBeReconciled();
 						reconciled(ast, false, monitor);
 						synchronized (fJobLock) {
 							// allow the job to be gc'ed
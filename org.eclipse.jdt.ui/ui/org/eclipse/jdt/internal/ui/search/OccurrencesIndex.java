@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.NameQualifiedType;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression.Operator;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
+
+/**
+ * Index from the bindings of an AST to their occurrences in that AST.
+ * <p>
+ * The index is built with a single pass over the AST and answers the same occurrences as the
+ * {@link OccurrencesFinder} for every binding, so that marking the occurrences of the element at the
+ * caret becomes a map lookup instead of a visit of the whole AST. Bindings are identified by the key
+ * of their declaration. Names without binding key and static methods of compilation units with static
+ * method imports are not indexed, {@link #getOccurrences(Name)} returns <code>null</code> for them and
+ * clients fall back to the {@link OccurrencesFinder}.
+ * </p>
+ *
+ * @since 3.12
+ */
+public class OccurrencesIndex {
+
+	/**
+	 * Snapshot of the timing counters of all occurrences indexes.
+	 */
+	public static final class Statistics {
+
+		private final long fBuilds;
+		private final long fBuildTime;
+		private final long fLookups;
+		private final long fLookupTime;
+		private final long fMisses;
+
+		private Statistics(long builds, long buildTime, long lookups, long lookupTime, long misses) {
+			fBuilds= builds;
+			fBuildTime= buildTime;
+			fLookups= lookups;
+			fLookupTime= lookupTime;
+			fMisses= misses;
+		}
+
+		/**
+		 * @return the number of indexes built
+		 */
+		public long getBuilds() {
+			return fBuilds;
+		}
+
+		/**
+		 * @return the total time spent building indexes, in milliseconds
+		 */
+		public long getBuildTime() {
+			return fBuildTime;
+		}
+
+		/**
+		 * @return the number of lookups
+		 */
+		public long getLookups() {
+			return fLookups;
+		}
+
+		/**
+		 * @return the total time spent in lookups, in microseconds
+		 */
+		public long getLookupTime() {
+			return fLookupTime;
+		}
+
+		/**
+		 * @return the number of lookups that could not be answered by the index
+		 */
+		public long getMisses() {
+			return fMisses;
+		}
+
+		@Override
+		public String toString() {
+			return "OccurrencesIndex statistics: builds: " + fBuilds + " (" + fBuildTime + " ms), lookups: " + fLookups + " (" + fLookupTime + " us), misses: " + fMisses; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
+	}
+
+	private static final AtomicLong fgBuilds= new AtomicLong();
+	private static final AtomicLong fgBuildTime= new AtomicLong();
+	private static final AtomicLong fgLookups= new AtomicLong();
+	private static final AtomicLong fgLookupTime= new AtomicLong();
+	private static final AtomicLong fgMisses= new AtomicLong();
+
+	/**
+	 * Collects the names of all bindings, following the rules of {@link OccurrencesFinder}.
+	 */
+	private class IndexBuilder extends ASTVisitor {
+
+		private final IProgressMonitor fMonitor;
+		/**
+		 * Keys of the qualified names being visited. The {@link OccurrencesFinder} does not
+		 * descend into a qualified name that matched, hence names with these keys are skipped.
+		 */
+		private final List<String> fSuppressedKeys= new ArrayList<>();
+		private final List<QualifiedName> fSuppressingNodes= new ArrayList<>();
+
+		public IndexBuilder(IProgressMonitor monitor) {
+			super(true);
+			fMonitor= monitor;
+		}
+
+		@Override
+		public void preVisit(ASTNode node) {
+			if (node instanceof BodyDeclaration && fMonitor.isCanceled())
+				throw new OperationCanceledException();
+		}
+
+		@Override
+		public boolean visit(QualifiedName node) {
+			IBinding binding= node.resolveBinding();
+			if (binding instanceof IVariableBinding && ((IVariableBinding)binding).isField()) {
+				SimpleName name= node.getName();
+				suppress(node, add(name, name.resolveBinding()));
+				return true;
+			}
+			if (binding instanceof IMethodBinding && isStaticImport(node)) {
+				fHasStaticMethodImports= true;
+				return true;
+			}
+			suppress(node, add(node, binding));
+			return true;
+		}
+
+		@Override
+		public void endVisit(QualifiedName node) {
+			int last= fSuppressingNodes.size() - 1;
+			if (last >= 0 && fSuppressingNodes.get(last) == node) {
+				fSuppressingNodes.remove(last);
+				fSuppressedKeys.remove(last);
+			}
+		}
+
+		private void suppress(QualifiedName node, String key) {
+			if (key != null) {
+				fSuppressingNodes.add(node);
+				fSuppressedKeys.add(key);
+			}
+		}
+
+		@Override
+		public boolean visit(SimpleName node) {
+			add(node, node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(ClassInstanceCreation node) {
+			Type type= node.getType();
+			if (type instanceof ParameterizedType) {
+				type= ((ParameterizedType) type).getType();
+			}
+			if (type instanceof SimpleType) {
+				Name name= ((SimpleType) type).getName();
+				if (name instanceof QualifiedName)
+					name= ((QualifiedName)name).getName();
+				add(name, node.resolveConstructorBinding());
+			} else if (type instanceof NameQualifiedType) {
+				Name name= ((NameQualifiedType) type).getName();
+				add(name, node.resolveConstructorBinding());
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(Assignment node) {
+			addWrite(getSimpleName(node.getLeftHandSide()));
+			return true;
+		}
+
+		@Override
+		public boolean visit(SingleVariableDeclaration node) {
+			addWrite(node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(VariableDeclarationFragment node) {
+			if (node.getParent() instanceof FieldDeclaration || node.getInitializer() != null)
+				addWrite(node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(PrefixExpression node) {
+			PrefixExpression.Operator operator= node.getOperator();
+			if (operator == Operator.INCREMENT || operator == Operator.DECREMENT)
+				addWrite(getSimpleName(node.getOperand()));
+			return true;
+		}
+
+		@Override
+		public boolean visit(PostfixExpression node) {
+			addWrite(getSimpleName(node.getOperand()));
+			return true;
+		}
+
+		private void addWrite(Name node) {
+			if (node != null)
+				fWriteUsages.add(node);
+		}
+
+		/**
+		 * Adds an occurrence of the given binding.
+		 *
+		 * @param node the name of the occurrence
+		 * @param binding the binding or <code>null</code>
+		 * @return the key of the binding declaration or <code>null</code> if not indexed
+		 */
+		private String add(Name node, IBinding binding) {
+			if (binding == null)
+				return null;
+			String key= getBindingDeclaration(binding).getKey();
+			if (key == null || fSuppressedKeys.contains(key))
+				return null;
+			List<Name> names= fOccurrences.get(key);
+			if (names == null) {
+				names= new ArrayList<>(4);
+				fOccurrences.put(key, names);
+			}
+			names.add(node);
+			return key;
+		}
+	}
+
+	private final CompilationUnit fRoot;
+
+	/**
+	 * Maps the key of a binding declaration to its occurrences in document order.
+	 */
+	private final Map<String, List<Name>> fOccurrences= new HashMap<>();
+
+	/**
+	 * Names that are written to.
+	 */
+	private final Set<Name> fWriteUsages= new HashSet<>();
+
+	private boolean fHasStaticMethodImports;
+
+	/**
+	 * Builds the occurrences index of the given AST.
+	 *
+	 * @param root the AST
+	 * @param monitor the monitor to check for cancellation
+	 * @throws OperationCanceledException if the monitor is canceled during the build
+	 */
+	public OccurrencesIndex(CompilationUnit root, IProgressMonitor monitor) {
+		fRoot= root;
+		long start= System.currentTimeMillis();
+		root.accept(new IndexBuilder(monitor));
+		fgBuildTime.addAndGet(System.currentTimeMillis() - start);
+		fgBuilds.incrementAndGet();
+	}
+
+	/**
+	 * @return the AST this index was built from
+	 */
+	public CompilationUnit getASTRoot() {
+		return fRoot;
+	}
+
+	/**
+	 * Returns the occurrences of the element referenced by the given name, which must be
+	 * part of the indexed AST. The result is the same as the one of an {@link OccurrencesFinder}
+	 * initialized with the name.
+	 *
+	 * @param selectedNode the selected name
+	 * @return the occurrences or <code>null</code> if the element has no binding or is not indexed
+	 */
+	public OccurrenceLocation[] getOccurrences(Name selectedNode) {
+		long start= System.nanoTime();
+		try {
+			IBinding binding= selectedNode.resolveBinding();
+			if (binding == null)
+				return null;
+			IBinding target= getBindingDeclaration(binding);
+			if (fHasStaticMethodImports && target instanceof IMethodBinding && Modifier.isStatic(target.getModifiers())) {
+				fgMisses.incrementAndGet();
+				return null;
+			}
+			String key= target.getKey();
+			List<Name> names= key != null ? fOccurrences.get(key) : null;
+			if (names == null) {
+				fgMisses.incrementAndGet();
+				return null;
+			}
+
+			String elementName= BasicElementLabels.getJavaElementName(target.getName());
+			String readDescription= Messages.format(SearchMessages.OccurrencesFinder_occurrence_description, elementName);
+			String writeDescription= null;
+			boolean isVariable= target instanceof IVariableBinding;
+
+			OccurrenceLocation[] result= new OccurrenceLocation[names.size()];
+			for (int i= 0; i < result.length; i++) {
+				Name name= names.get(i);
+				int flag= 0;
+				String description= readDescription;
+				if (isVariable) {
+					boolean isWrite= fWriteUsages.contains(name);
+					flag= isWrite ? IOccurrencesFinder.F_WRITE_OCCURRENCE : IOccurrencesFinder.F_READ_OCCURRENCE;
+					if (isWrite) {
+						if (writeDescription == null)
+							writeDescription= Messages.format(SearchMessages.OccurrencesFinder_occurrence_write_description, elementName);
+						description= writeDescription;
+					}
+				}
+				result[i]= new OccurrenceLocation(name.getStartPosition(), name.getLength(), flag, description);
+			}
+			return result;
+		} finally {
+			fgLookupTime.addAndGet((System.nanoTime() - start) / 1000);
+			fgLookups.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return a snapshot of the timing counters of all occurrences indexes
+	 */
+	public static Statistics getStatistics() {
+		return new Statistics(fgBuilds.get(), fgBuildTime.get(), fgLookups.get(), fgLookupTime.get(), fgMisses.get());
+	}
+
+	private static boolean isStaticImport(ASTNode node) {
+		ASTNode parent= node.getParent();
+		return parent instanceof ImportDeclaration && ((ImportDeclaration) parent).isStatic();
+	}
+
+	private static SimpleName getSimpleName(Expression expression) {
+		if (expression instanceof SimpleName)
+			return ((SimpleName)expression);
+		else if (expression instanceof QualifiedName)
+			return (((QualifiedName) expression).getName());
+		else if (expression instanceof FieldAccess)
+			return ((FieldAccess)expression).getName();
+		return null;
+	}
+
+	private static IBinding getBindingDeclaration(IBinding binding) {
+		switch (binding.getKind()) {
+			case IBinding.TYPE :
+				return ((ITypeBinding)binding).getTypeDeclaration();
+			case IBinding.METHOD :
+				return ((IMethodBinding)binding).getMethodDeclaration();
+			case IBinding.VARIABLE :
+				return ((IVariableBinding)binding).getVariableDeclaration();
+			default:
+				return binding;
+		}
+	}
+}
@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+
+import org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector;
+import org.eclipse.ui.texteditor.spelling.SpellingProblem;
+
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.JavaUIMessages;
+import org.eclipse.jdt.internal.ui.propertiesfileeditor.PropertiesFileDocumentSetupParticipant;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker;
+import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
+
+/**
+ * Checks the spelling of the comments, string literals and properties files of a project
+ * without editors and reports the problems as {@link #MARKER_TYPE} markers.
+ * <p>
+ * The files are checked in parallel by a pool of workers that share the spell checker and its
+ * read-only dictionaries. The problems are written to markers in batches. After each batch, the
+ * checked files are recorded together with their modification stamps in the plug-in state
+ * location, so that a canceled or interrupted run resumes with the files not yet checked, and
+ * a later run only checks files that have been modified. Each run starts by rewriting the state
+ * with the files that are still up to date, so that it does not grow with every modification.
+ * </p>
+ *
+ * @since 3.12
+ */
+public class BatchSpellChecker {
+
+	/**
+	 * The type of the markers created for spelling problems.
+	 */
+	public static final String MARKER_TYPE= JavaUI.ID_PLUGIN + ".batchSpelling"; //$NON-NLS-1$
+
+	/**
+	 * Marker attribute holding the misspelled word.
+	 */
+	public static final String WORD= "word"; //$NON-NLS-1$
+
+	/**
+	 * Number of checked files whose markers are written in one workspace operation.
+	 */
+	private static final int MARKER_BATCH_SIZE= 200;
+
+	private static final String STATE_DIRECTORY= "batchSpelling"; //$NON-NLS-1$
+
+	private static final String PROPERTIES_EXTENSION= "properties"; //$NON-NLS-1$
+
+	/**
+	 * The problems found in one file.
+	 */
+	private static final class FileResult {
+
+		final IFile fFile;
+		final long fStamp;
+		final List<Map<String, Object>> fProblems;
+
+		FileResult(IFile file, long stamp, List<Map<String, Object>> problems) {
+			fFile= file;
+			fStamp= stamp;
+			fProblems= problems;
+		}
+	}
+
+	/**
+	 * Checks one file.
+	 */
+	private static final class FileChecker implements Callable<FileResult> {
+
+		private final IFile fFile;
+		private final ISpellChecker fChecker;
+		private final IProgressMonitor fMonitor;
+
+		FileChecker(IFile file, ISpellChecker checker, IProgressMonitor monitor) {
+			fFile= file;
+			fChecker= checker;
+			fMonitor= monitor;
+		}
+
+		@Override
+		public FileResult call() throws CoreException, IOException {
+			if (fMonitor.isCanceled())
+				return null;
+
+			long stamp= fFile.getModificationStamp();
+			IDocument document= new Document(readContents(fFile));
+			SpellingEngine engine;
+			if (PROPERTIES_EXTENSION.equals(fFile.getFileExtension())) {
+				PropertiesFileDocumentSetupParticipant.setupDocument(document);
+				engine= new PropertiesFileSpellingEngine();
+			} else {
+				JavaPlugin.getDefault().getJavaTextTools().setupJavaDocumentPartitioner(document, IJavaPartitions.JAVA_PARTITIONING);
+				engine= new JavaSpellingEngine();
+			}
+
+			final List<SpellingProblem> problems= new ArrayList<>();
+			ISpellingProblemCollector collector= new ISpellingProblemCollector() {
+				@Override
+				public void accept(SpellingProblem problem) {
+					problems.add(problem);
+				}
+
+				@Override
+				public void beginCollecting() {
+				}
+
+				@Override
+				public void endCollecting() {
+				}
+			};
+			engine.check(document, new IRegion[] { new Region(0, document.getLength()) }, fChecker, collector, fMonitor);
+
+			List<Map<String, Object>> markers= new ArrayList<>(problems.size());
+			for (int i= 0; i < problems.size(); i++) {
+				SpellingProblem problem= problems.get(i);
+				Map<String, Object> attributes= new HashMap<>();
+				attributes.put(IMarker.CHAR_START, new Integer(problem.getOffset()));
+				attributes.put(IMarker.CHAR_END, new Integer(problem.getOffset() + problem.getLength()));
+				try {
+					attributes.put(IMarker.LINE_NUMBER, new Integer(document.getLineOfOffset(problem.getOffset()) + 1));
+					attributes.put(WORD, document.get(problem.getOffset(), problem.getLength()));
+				} catch (BadLocationException e) {
+					// report without line
+				}
+				attributes.put(IMarker.MESSAGE, problem.getMessage());
+				attributes.put(IMarker.SEVERITY, new Integer(IMarker.SEVERITY_WARNING));
+				markers.add(attributes);
+			}
+			return new FileResult(fFile, stamp, markers);
+		}
+	}
+
+	private final IProject fProject;
+
+	private int fParallelism= Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a batch spell checker.
+	 *
+	 * @param project the project to check
+	 */
+	public BatchSpellChecker(IProject project) {
+		fProject= project;
+	}
+
+	/**
+	 * Sets the number of files checked in parallel.
+	 *
+	 * @param parallelism the number of workers, at least 1
+	 */
+	public void setParallelism(int parallelism) {
+		fParallelism= Math.max(1, parallelism);
+	}
+
+	/**
+	 * Forgets which files have been checked, so that the next run checks all files.
+	 */
+	public void reset() {
+		File stateFile= getStateFile();
+		if (stateFile != null)
+			stateFile.delete();
+	}
+
+	/**
+	 * Checks the files of the project that have not been checked since their last modification.
+	 *
+	 * @param monitor the progress monitor or <code>null</code>
+	 * @return the status, with a child for each file that could not be checked
+	 * @throws CoreException if the markers cannot be written
+	 * @throws OperationCanceledException if the monitor has been canceled. The files checked so
+	 *             far have their markers and are skipped by the next run.
+	 */
+	public IStatus run(IProgressMonitor monitor) throws CoreException {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+
+		MultiStatus status= new MultiStatus(JavaUI.ID_PLUGIN, IStatus.OK, JavaUIMessages.BatchSpellChecker_error, null);
+		ISpellChecker checker= SpellCheckEngine.getInstance().getSpellChecker();
+		if (checker == null)
+			return status;
+		// load the dictionaries before the workers share them
+		checker.loadDictionaries();
+
+		Map<String, Long> checked= readState();
+		Map<String, Long> upToDate= new HashMap<>();
+		List<IFile> files= collectFiles(checked, upToDate);
+
+		monitor.beginTask(Messages.format(JavaUIMessages.BatchSpellChecker_task, BasicElementLabels.getResourceName(fProject)), files.size());
+		ExecutorService executor= Executors.newFixedThreadPool(fParallelism);
+		Writer state= null;
+		try {
+			state= openState(upToDate);
+			CompletionService<FileResult> service= new ExecutorCompletionService<>(executor);
+			for (int i= 0; i < files.size(); i++)
+				service.submit(new FileChecker(files.get(i), checker, monitor));
+
+			List<FileResult> batch= new ArrayList<>(MARKER_BATCH_SIZE);
+			for (int i= 0; i < files.size() && !monitor.isCanceled(); i++) {
+				FileResult result= take(service, status);
+				if (result != null)
+					batch.add(result);
+				if (batch.size() >= MARKER_BATCH_SIZE) {
+					writeMarkers(batch, state);
+					batch.clear();
+				}
+				monitor.worked(1);
+			}
+			executor.shutdownNow();
+			writeMarkers(batch, state);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JavaUI.ID_PLUGIN, IStatus.OK, e.getMessage(), e));
+		} finally {
+			executor.shutdownNow();
+			if (state != null) {
+				try {
+					state.close();
+				} catch (IOException e) {
+					JavaPlugin.log(e);
+				}
+			}
+			monitor.done();
+		}
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		return status;
+	}
+
+	private static FileResult take(CompletionService<FileResult> service, MultiStatus status) {
+		try {
+			return service.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof CoreException)
+				status.add(((CoreException)cause).getStatus());
+			else if (cause instanceof OperationCanceledException)
+				return null;
+			else
+				status.add(new Status(IStatus.ERROR, JavaUI.ID_PLUGIN, IStatus.OK, String.valueOf(cause.getMessage()), cause));
+			return null;
+		}
+	}
+
+	/**
+	 * Replaces the markers of the checked files and records the files as checked.
+	 *
+	 * @param batch the results
+	 * @param state the writer of the state file or <code>null</code>
+	 * @throws CoreException if the markers cannot be written
+	 * @throws IOException if the state cannot be written
+	 */
+	private void writeMarkers(final List<FileResult> batch, Writer state) throws CoreException, IOException {
+		if (batch.isEmpty())
+			return;
+
+		IWorkspaceRunnable runnable= new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (int i= 0; i < batch.size(); i++) {
+					FileResult result= batch.get(i);
+					if (!result.fFile.exists())
+						continue;
+					result.fFile.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+					for (int j= 0; j < result.fProblems.size(); j++)
+						result.fFile.createMarker(MARKER_TYPE).setAttributes(result.fProblems.get(j));
+				}
+			}
+		};
+		ResourcesPlugin.getWorkspace().run(runnable, fProject, IWorkspace.AVOID_UPDATE, null);
+
+		if (state != null) {
+			for (int i= 0; i < batch.size(); i++) {
+				FileResult result= batch.get(i);
+				writeEntry(state, result.fStamp, result.fFile.getProjectRelativePath().toString());
+			}
+			state.flush();
+		}
+	}
+
+	/**
+	 * Collects the Java and properties files that have been modified since they were checked.
+	 *
+	 * @param checked the modification stamps of the checked files by project relative path
+	 * @param upToDate the map to which the entries of the checked files that are still up to date
+	 *            are added
+	 * @return the files to check
+	 * @throws CoreException if the project cannot be visited
+	 */
+	private List<IFile> collectFiles(final Map<String, Long> checked, final Map<String, Long> upToDate) throws CoreException {
+		final List<IFile> files= new ArrayList<>();
+		fProject.accept(new IResourceProxyVisitor() {
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.isDerived() || proxy.isTeamPrivateMember())
+					return false;
+				if (proxy.getType() != IResource.FILE)
+					return true;
+
+				String name= proxy.getName();
+				if (!JavaCore.isJavaLikeFileName(name) && !name.endsWith('.' + PROPERTIES_EXTENSION))
+					return false;
+
+				IFile file= (IFile)proxy.requestResource();
+				String path= file.getProjectRelativePath().toString();
+				Long stamp= checked.get(path);
+				if (stamp == null || stamp.longValue() != proxy.getModificationStamp())
+					files.add(file);
+				else
+					upToDate.put(path, stamp);
+				return false;
+			}
+		}, IResource.NONE);
+		return files;
+	}
+
+	private File getStateFile() {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		File directory= plugin.getStateLocation().append(STATE_DIRECTORY).toFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return null;
+		return new File(directory, fProject.getName() + ".state"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the modification stamps of the checked files. Later lines override earlier ones.
+	 *
+	 * @return the modification stamps by project relative path
+	 */
+	private Map<String, Long> readState() {
+		Map<String, Long> checked= new HashMap<>();
+		File stateFile= getStateFile();
+		if (stateFile == null || !stateFile.isFile())
+			return checked;
+
+		BufferedReader reader= null;
+		try {
+			reader= new BufferedReader(new InputStreamReader(new FileInputStream(stateFile), "UTF-8")); //$NON-NLS-1$
+			String line;
+			while ((line= reader.readLine()) != null) {
+				int tab= line.indexOf('\t');
+				if (tab > 0) {
+					try {
+						checked.put(line.substring(tab + 1), Long.valueOf(line.substring(0, tab)));
+					} catch (NumberFormatException e) {
+						// ignore truncated line
+					}
+				}
+			}
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+		return checked;
+	}
+
+	/**
+	 * Compacts the state file to the entries of the files that are still up to date and opens it
+	 * for appending the entries of the files checked by this run. The compacted state is written
+	 * to a temporary file first, so that an interrupted write does not lose the previous state.
+	 *
+	 * @param upToDate the modification stamps of the up to date files by project relative path
+	 * @return the writer of the state file or <code>null</code> if there is no state location
+	 * @throws IOException if the state cannot be written
+	 */
+	private Writer openState(Map<String, Long> upToDate) throws IOException {
+		File stateFile= getStateFile();
+		if (stateFile == null)
+			return null;
+
+		File compactFile= new File(stateFile.getPath() + ".tmp"); //$NON-NLS-1$
+		Writer writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(compactFile), "UTF-8")); //$NON-NLS-1$
+		try {
+			for (Iterator<Entry<String, Long>> iterator= upToDate.entrySet().iterator(); iterator.hasNext();) {
+				Entry<String, Long> entry= iterator.next();
+				writeEntry(writer, entry.getValue().longValue(), entry.getKey());
+			}
+		} finally {
+			writer.close();
+		}
+		if (stateFile.exists() && !stateFile.delete() || !compactFile.renameTo(stateFile)) {
+			compactFile.delete();
+			throw new IOException(Messages.format(JavaUIMessages.BatchSpellChecker_state_error, stateFile.getPath()));
+		}
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(stateFile, true), "UTF-8")); //$NON-NLS-1$
+	}
+
+	private static void writeEntry(Writer state, long stamp, String path) throws IOException {
+		state.write(Long.toString(stamp));
+		state.write('\t');
+		state.write(path);
+		state.write('\n');
+	}
+
+	private static String readContents(IFile file) throws CoreException, IOException {
+		InputStream stream;
+		try {
+			stream= file.getContents(true);
+		} catch (CoreException e) {
+			if (e.getStatus().getCode() == IResourceStatus.RESOURCE_NOT_FOUND)
+				return ""; //$NON-NLS-1$
+			throw e;
+		}
+		Reader reader= new InputStreamReader(stream, file.getCharset());
+		try {
+			StringBuffer buffer= new StringBuffer();
+			char[] chars= new char[8192];
+			int read;
+			while ((read= reader.read(chars)) != -1)
+				buffer.append(chars, 0, read);
+			return buffer.toString();
+		} finally {
+			reader.close();
+		}
+	}
+}
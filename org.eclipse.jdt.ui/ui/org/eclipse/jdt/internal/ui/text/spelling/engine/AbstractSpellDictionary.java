@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,6 +19,7 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
@@ -30,6 +32,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
@@ -47,6 +50,12 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
 /**
  * Partial implementation of a spell dictionary.
+ * <p>
+ * Dictionaries that provide an {@link #getIndexFile() index file} store the phonetic hashes
+ * of their word list in a precompiled {@link SpellDictionaryIndex} the first time the word
+ * list is loaded. Later loads map the index instead of reading and hashing the word list.
+ * Words added after the load are kept on the heap.
+ * </p>
  *
  * @since 3.0
  */
@@ -125,6 +134,12 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The mapping from phonetic hashes to word lists */
 	private final Map<ByteArrayWrapper, Object> fHashBuckets= new HashMap<>(getInitialSize(), LOAD_FACTOR);
 
+	/**
+	 * The mapped index of the word list or <code>null</code> if none
+	 * @since 3.12
+	 */
+	private volatile SpellDictionaryIndex fIndex;
+
 	/** The phonetic hash provider */
 	private IPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
 
@@ -152,6 +167,20 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		return 32;
 	}
 
+	/**
+	 * Returns the file in which the precompiled index of the word list is stored.
+	 * <p>
+	 * Subclasses with large, rarely changing word lists may override. The default
+	 * implementation returns <code>null</code>, which loads the word list on the heap.
+	 * </p>
+	 *
+	 * @return the index file or <code>null</code> if the word list is not indexed
+	 * @since 3.12
+	 */
+	protected File getIndexFile() {
+		return null;
+	}
+
 	/**
 	 * Returns all candidates with the same phonetic hash.
 	 *
@@ -167,7 +196,35 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			JavaPlugin.log(e);
 			return null;
 		}
-		return fHashBuckets.get(hashBytes);
+		Object candidates= fHashBuckets.get(hashBytes);
+		SpellDictionaryIndex index= fIndex;
+		if (index == null)
+			return candidates;
+
+		Object indexed= index.getCandidates(hashBytes.byteArray);
+		if (indexed == null)
+			return candidates;
+		if (candidates == null)
+			return indexed;
+
+		ArrayList<Object> merged= new ArrayList<>(BUCKET_CAPACITY);
+		addCandidates(merged, indexed);
+		addCandidates(merged, candidates);
+		return merged;
+	}
+
+	/**
+	 * Adds the words of a bucket to a list.
+	 *
+	 * @param list the list
+	 * @param bucket a <code>byte[]</code> or an <code>ArrayList&lt;byte[]&gt;</code>
+	 * @since 3.12
+	 */
+	private static void addCandidates(ArrayList<Object> list, Object bucket) {
+		if (bucket instanceof ArrayList)
+			list.addAll((ArrayList<?>)bucket);
+		else
+			list.add(bucket);
 	}
 
 	/**
@@ -325,7 +382,8 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @since 3.3
 	 */
 	protected boolean isEmpty() {
-		return fHashBuckets.size() == 0;
+		SpellDictionaryIndex index= fIndex;
+		return fHashBuckets.size() == 0 && (index == null || index.size() == 0);
 	}
 
 	/**
@@ -352,19 +410,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	@Override
 	public Set<RankedWordProposal> getProposals(final String word, final boolean sentence) {
 
-		try {
-
-			if (!fLoaded) {
-				synchronized (this) {
-					fLoaded= load(getURL());
-					if (fLoaded)
-						compact();
-				}
-			}
-
-		} catch (MalformedURLException exception) {
-			// Do nothing
-		}
+		ensureLoaded();
 
 		final String hash= fHashProvider.getHash(word);
 		final char[] mutators= fHashProvider.getMutators();
@@ -510,46 +556,37 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	@Override
 	public boolean isCorrect(String word) {
 		word= stripNonLetters(word);
-		try {
+		ensureLoaded();
 
-			if (!fLoaded) {
-				synchronized (this) {
-					fLoaded= load(getURL());
-					if (fLoaded)
-						compact();
-				}
-			}
-
-		} catch (MalformedURLException exception) {
-			// Do nothing
-		}
-
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return false;
-		else if (candidates instanceof byte[]) {
-			String candidate;
-			try {
-				candidate= new String((byte[])candidates, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return false;
-			}
-			if (candidate.equals(word) || candidate.equals(word.toLowerCase()))
-				return true;
-			return false;
-		}
-		@SuppressWarnings("unchecked")
-		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
+		byte[] hashBytes;
 		byte[] wordBytes;
 		byte[] lowercaseWordBytes;
 		try {
+			hashBytes= fHashProvider.getHash(word).getBytes(UTF_8);
 			wordBytes= word.getBytes(UTF_8);
 			lowercaseWordBytes= word.toLowerCase().getBytes(UTF_8);
 		} catch (UnsupportedEncodingException e) {
 			JavaPlugin.log(e);
 			return false;
 		}
+
+		SpellDictionaryIndex index= fIndex;
+		if (index != null) {
+			// look up the word directly in the mapped index
+			int entry= index.find(hashBytes);
+			if (entry != -1 && (index.contains(entry, wordBytes) || index.contains(entry, lowercaseWordBytes)))
+				return true;
+		}
+
+		final Object candidates= fHashBuckets.get(new ByteArrayWrapper(hashBytes));
+		if (candidates == null)
+			return false;
+		else if (candidates instanceof byte[]) {
+			byte[] candidate= (byte[])candidates;
+			return Arrays.equals(candidate, wordBytes) || Arrays.equals(candidate, lowercaseWordBytes);
+		}
+		@SuppressWarnings("unchecked")
+		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
 		for (int index= 0; index < candidateList.size(); index++) {
 			byte[] candidate= candidateList.get(index);
 			if (Arrays.equals(candidate, wordBytes) || Arrays.equals(candidate, lowercaseWordBytes)) {
@@ -600,7 +637,27 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 */
 	@Override
 	public synchronized final boolean isLoaded() {
-		return fLoaded || fHashBuckets.size() > 0;
+		return fLoaded || fHashBuckets.size() > 0 || fIndex != null;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellDictionary#ensureLoaded()
+	 */
+	@Override
+	public void ensureLoaded() {
+		try {
+
+			if (!fLoaded) {
+				synchronized (this) {
+					fLoaded= load(getURL());
+					if (fLoaded)
+						compact();
+				}
+			}
+
+		} catch (MalformedURLException exception) {
+			// Do nothing
+		}
 	}
 
 	/**
@@ -616,6 +673,13 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			 return fLoaded;
 
 		if (url != null) {
+			File indexFile= getIndexFile();
+			long stamp= indexFile != null ? getStamp(url) : 0;
+			if (stamp != 0 && loadIndex(indexFile, stamp)) {
+				fMustLoad= false;
+				return true;
+			}
+
 			InputStream stream= null;
 			int line= 0;
 			try {
@@ -651,6 +715,8 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 						if (doRead)
 							hashWord(word);
 					}
+					if (stamp != 0)
+						writeIndex(indexFile, stamp);
 					return true;
 				}
 			} catch (FileNotFoundException ex) {
@@ -683,6 +749,113 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		return false;
 	}
 
+	/**
+	 * Returns a stamp that changes whenever the word list at the given URL, the encoding or
+	 * the phonetic hash provider changes.
+	 *
+	 * @param url the URL of the word list
+	 * @return the stamp or <code>0</code> if the word list cannot be validated
+	 * @since 3.12
+	 */
+	private long getStamp(URL url) {
+		long lastModified;
+		long length;
+		try {
+			URL resolved= FileLocator.resolve(url);
+			if ("file".equals(resolved.getProtocol())) { //$NON-NLS-1$
+				File file= new File(resolved.getPath());
+				if (!file.isFile())
+					return 0;
+				lastModified= file.lastModified();
+				length= file.length();
+			} else {
+				URLConnection connection= resolved.openConnection();
+				InputStream stream= connection.getInputStream();
+				try {
+					lastModified= connection.getLastModified();
+					length= connection.getContentLengthLong();
+				} finally {
+					stream.close();
+				}
+			}
+		} catch (IOException e) {
+			return 0;
+		}
+		if (lastModified <= 0 || length < 0)
+			return 0;
+
+		long stamp= url.toExternalForm().hashCode();
+		stamp= 31 * stamp + getEncoding().hashCode();
+		stamp= 31 * stamp + fHashProvider.getClass().getName().hashCode();
+		stamp= 31 * stamp + lastModified;
+		stamp= 31 * stamp + length;
+		return stamp == 0 ? 1 : stamp;
+	}
+
+	/**
+	 * Maps the index file if it has been built from the current word list.
+	 *
+	 * @param indexFile the index file
+	 * @param stamp the stamp of the current word list
+	 * @return <code>true</code> if the index has been mapped
+	 * @since 3.12
+	 */
+	private boolean loadIndex(File indexFile, long stamp) {
+		try {
+			SpellDictionaryIndex index= SpellDictionaryIndex.open(indexFile, stamp);
+			if (index == null)
+				return false;
+			fIndex= index;
+			return true;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the words loaded from the word list to the index file and maps it.
+	 * The heap buckets are released if this succeeds.
+	 *
+	 * @param indexFile the index file
+	 * @param stamp the stamp of the word list
+	 * @since 3.12
+	 */
+	private void writeIndex(File indexFile, long stamp) {
+		int size= fHashBuckets.size();
+		byte[][] hashes= new byte[size][];
+		byte[][][] words= new byte[size][][];
+		int i= 0;
+		for (Iterator<Map.Entry<ByteArrayWrapper, Object>> iter= fHashBuckets.entrySet().iterator(); iter.hasNext(); i++) {
+			Map.Entry<ByteArrayWrapper, Object> entry= iter.next();
+			hashes[i]= entry.getKey().byteArray;
+			Object bucket= entry.getValue();
+			if (bucket instanceof byte[]) {
+				words[i]= new byte[][] { (byte[])bucket };
+			} else {
+				@SuppressWarnings("unchecked")
+				ArrayList<byte[]> bucketList= (ArrayList<byte[]>)bucket;
+				words[i]= bucketList.toArray(new byte[bucketList.size()][]);
+			}
+		}
+
+		File tempFile= new File(indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			SpellDictionaryIndex.write(tempFile, stamp, hashes, words);
+			if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile))
+				return; // e.g. the old index is still mapped by another dictionary
+			SpellDictionaryIndex index= SpellDictionaryIndex.open(indexFile, stamp);
+			if (index != null) {
+				fIndex= index;
+				fHashBuckets.clear();
+			}
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			tempFile.delete();
+		}
+	}
+
 	/**
 	 * Compacts the dictionary.
 	 *
@@ -725,6 +898,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		fLoaded= false;
 		fMustLoad= true;
 		fHashBuckets.clear();
+		fIndex= null;
 	}
 
 	/*
@@ -334,6 +334,20 @@ public class DefaultSpellChecker implements ISpellChecker {
 		return false;
 	}
 
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker#loadDictionaries()
+	 */
+	@Override
+	public void loadDictionaries() {
+		Set<ISpellDictionary> copy;
+		synchronized (fDictionaries) {
+			copy= new HashSet<>(fDictionaries);
+		}
+
+		for (final Iterator<ISpellDictionary> iterator= copy.iterator(); iterator.hasNext();)
+			iterator.next().ensureLoaded();
+	}
+
 	/*
 	 * @see org.eclipse.spelling.done.ISpellChecker#removeDictionary(org.eclipse.spelling.done.ISpellDictionary)
 	 */
@@ -92,6 +92,14 @@ public interface ISpellChecker {
 	 */
 	boolean isCorrect(String word);
 
+	/**
+	 * Loads the word lists of the active dictionaries that have not been loaded yet.
+	 * Allows clients to load the dictionaries before checking words from several threads.
+	 *
+	 * @since 3.12
+	 */
+	void loadDictionaries();
+
 	/**
 	 * Remove a dictionary from the list of active dictionaries.
 	 *
@@ -62,6 +62,13 @@ public interface ISpellDictionary {
 	 */
 	public boolean isLoaded();
 
+	/**
+	 * Loads the word list of the dictionary unless it has already been loaded.
+	 *
+	 * @since 3.12
+	 */
+	public void ensureLoaded();
+
 	/**
 	 * Empties the dictionary.
 	 */
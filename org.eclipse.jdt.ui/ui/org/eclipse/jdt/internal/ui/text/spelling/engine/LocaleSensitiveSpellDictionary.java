@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Locale;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 
 /**
  * Platform wide read-only locale sensitive dictionary for spell checking.
@@ -22,6 +25,12 @@ import java.util.Locale;
  */
 public class LocaleSensitiveSpellDictionary extends AbstractSpellDictionary {
 
+	/**
+	 * The directory of the dictionary indexes in the plug-in state location
+	 * @since 3.12
+	 */
+	private static final String INDEX_DIRECTORY= "dictionaries"; //$NON-NLS-1$
+
 	/** The locale of this dictionary */
 	private final Locale fLocale;
 
@@ -66,4 +75,20 @@ public class LocaleSensitiveSpellDictionary extends AbstractSpellDictionary {
 	protected int getInitialSize() {
 		return 32 * 1024;
 	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#getIndexFile()
+	 * @since 3.12
+	 */
+	@Override
+	protected File getIndexFile() {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		File directory= plugin.getStateLocation().append(INDEX_DIRECTORY).toFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return null;
+		// different locations may contribute dictionaries for the same locale
+		return new File(directory, fLocale.toString() + '_' + Integer.toHexString(fLocation.toExternalForm().hashCode()) + ".index"); //$NON-NLS-1$
+	}
 }
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Precompiled, memory-mapped phonetic hash index of a dictionary word list.
+ * <p>
+ * The index file consists of a header, an open addressing table of entry offsets and the
+ * entries. Each entry holds a phonetic hash followed by the packed words with that hash:
+ * </p>
+ * <pre>
+ * header:  int magic, int version, long stamp, int table size, int entry count
+ * table:   int[table size] offsets of the entries, 0 for free slots
+ * entry:   int hash code, short hash length, byte[] hash, int word count, { short length, byte[] word }*
+ * </pre>
+ * <p>
+ * Hashes and words are UTF-8 encoded. Lookups only use absolute reads, hence an index can
+ * be shared by several threads.
+ * </p>
+ *
+ * @since 3.12
+ */
+final class SpellDictionaryIndex {
+
+	private static final int MAGIC= 0x4A535044; // "JSPD"
+
+	private static final int VERSION= 1;
+
+	private static final int HEADER_SIZE= 24;
+
+	private final ByteBuffer fBuffer;
+
+	private final int fTableSize;
+
+	private final int fEntryCount;
+
+	private SpellDictionaryIndex(ByteBuffer buffer) {
+		fBuffer= buffer;
+		fTableSize= buffer.getInt(16);
+		fEntryCount= buffer.getInt(20);
+	}
+
+	/**
+	 * Maps the given index file.
+	 *
+	 * @param file the index file
+	 * @param stamp the stamp of the word list the index must have been built from
+	 * @return the index, or <code>null</code> if the file does not exist, has an unknown format or
+	 *         has been built from a different word list
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SpellDictionaryIndex open(File file, long stamp) throws IOException {
+		if (!file.isFile() || file.length() < HEADER_SIZE)
+			return null;
+
+		RandomAccessFile raf= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel= raf.getChannel();
+			MappedByteBuffer buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != stamp)
+				return null;
+			int tableSize= buffer.getInt(16);
+			if (tableSize <= 0 || Integer.bitCount(tableSize) != 1 || HEADER_SIZE + 4L * tableSize > buffer.limit())
+				return null;
+			return new SpellDictionaryIndex(buffer);
+		} finally {
+			// the mapping stays valid after the channel has been closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes an index file.
+	 *
+	 * @param file the index file to write
+	 * @param stamp the stamp of the word list
+	 * @param hashes the UTF-8 encoded phonetic hashes
+	 * @param words the UTF-8 encoded words for each hash
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(File file, long stamp, byte[][] hashes, byte[][][] words) throws IOException {
+		int tableSize= Integer.highestOneBit(Math.max(16, hashes.length * 2 - 1)) << 1;
+		int[] table= new int[tableSize];
+
+		// lay out the entries and fill the table
+		int offset= HEADER_SIZE + 4 * tableSize;
+		for (int i= 0; i < hashes.length; i++) {
+			int slot= hashCode(hashes[i]) & (tableSize - 1);
+			while (table[slot] != 0)
+				slot= (slot + 1) & (tableSize - 1);
+			table[slot]= offset;
+			offset+= 4 + 2 + hashes[i].length + 4;
+			for (int j= 0; j < words[i].length; j++)
+				offset+= 2 + words[i][j].length;
+			if (offset < 0)
+				throw new IOException("Dictionary too large"); //$NON-NLS-1$
+		}
+
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(stamp);
+			out.writeInt(tableSize);
+			out.writeInt(hashes.length);
+			for (int i= 0; i < tableSize; i++)
+				out.writeInt(table[i]);
+			for (int i= 0; i < hashes.length; i++) {
+				out.writeInt(hashCode(hashes[i]));
+				out.writeShort(hashes[i].length);
+				out.write(hashes[i]);
+				out.writeInt(words[i].length);
+				for (int j= 0; j < words[i].length; j++) {
+					out.writeShort(words[i][j].length);
+					out.write(words[i][j]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns the number of phonetic hashes in this index.
+	 *
+	 * @return the number of hashes
+	 */
+	public int size() {
+		return fEntryCount;
+	}
+
+	/**
+	 * Finds the entry of the given hash.
+	 *
+	 * @param hash the UTF-8 encoded phonetic hash
+	 * @return the offset of the entry or <code>-1</code> if the hash is not in the index
+	 */
+	public int find(byte[] hash) {
+		int code= hashCode(hash);
+		int mask= fTableSize - 1;
+		int slot= code & mask;
+		while (true) {
+			int entry= fBuffer.getInt(HEADER_SIZE + 4 * slot);
+			if (entry == 0)
+				return -1;
+			if (fBuffer.getInt(entry) == code && equals(entry + 6, fBuffer.getShort(entry + 4) & 0xFFFF, hash))
+				return entry;
+			slot= (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Tells whether the entry contains the given word.
+	 *
+	 * @param entry the offset of the entry as returned by {@link #find(byte[])}
+	 * @param word the UTF-8 encoded word
+	 * @return <code>true</code> if the entry contains the word
+	 */
+	public boolean contains(int entry, byte[] word) {
+		int position= getFirstWord(entry);
+		int count= fBuffer.getInt(position - 4);
+		for (int i= 0; i < count; i++) {
+			int length= fBuffer.getShort(position) & 0xFFFF;
+			if (equals(position + 2, length, word))
+				return true;
+			position+= 2 + length;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the words of the given hash in the shape used by the buckets of
+	 * {@link AbstractSpellDictionary}.
+	 *
+	 * @param hash the UTF-8 encoded phonetic hash
+	 * @return <code>null</code> if there are no words, a <code>byte[]</code> if there is one
+	 *         word, otherwise an <code>ArrayList&lt;byte[]&gt;</code>
+	 */
+	public Object getCandidates(byte[] hash) {
+		int entry= find(hash);
+		if (entry == -1)
+			return null;
+
+		int position= getFirstWord(entry);
+		int count= fBuffer.getInt(position - 4);
+		if (count == 1)
+			return getBytes(position + 2, fBuffer.getShort(position) & 0xFFFF);
+
+		ArrayList<byte[]> result= new ArrayList<>(count);
+		for (int i= 0; i < count; i++) {
+			int length= fBuffer.getShort(position) & 0xFFFF;
+			result.add(getBytes(position + 2, length));
+			position+= 2 + length;
+		}
+		return result;
+	}
+
+	private int getFirstWord(int entry) {
+		return entry + 6 + (fBuffer.getShort(entry + 4) & 0xFFFF) + 4;
+	}
+
+	private byte[] getBytes(int position, int length) {
+		byte[] bytes= new byte[length];
+		for (int i= 0; i < length; i++)
+			bytes[i]= fBuffer.get(position + i);
+		return bytes;
+	}
+
+	private boolean equals(int position, int length, byte[] bytes) {
+		if (length != bytes.length)
+			return false;
+		for (int i= 0; i < length; i++) {
+			if (fBuffer.get(position + i) != bytes[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static int hashCode(byte[] bytes) {
+		int result= 1;
+		for (int i= 0; i < bytes.length; i++)
+			result= 31 * result + bytes[i];
+		return result ^ (result >>> 16);
+	}
+}
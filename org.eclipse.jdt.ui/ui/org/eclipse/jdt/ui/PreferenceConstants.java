@@ -47,6 +47,7 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaUIPreferenceInitializer;
 import org.eclipse.jdt.internal.ui.callhierarchy.CallHierarchyContentProvider;
 import org.eclipse.jdt.internal.ui.callhierarchy.ExpandWithConstructorsConfigurationBlock;
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
 import org.eclipse.jdt.internal.ui.preferences.NewJavaProjectPreferencePage;
 import org.eclipse.jdt.internal.ui.preferences.formatter.FormatterProfileManager;
@@ -4012,6 +4013,9 @@ public class PreferenceConstants {
 		// semantic highlighting
 		SemanticHighlightings.initDefaults(store);
 
+		// shared AST cache
+		ASTProvider.initDefaults(store);
+
 		// do more complicated stuff
 		NewJavaProjectPreferencePage.initDefaults(store);
 
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.ltk.core.refactoring.tests.history.RefactoringHistoryPerformanceTests;
+
+public class AllPerformanceTests {
+
+	public static Test suite() {
+		TestSuite suite= new TestSuite(AllPerformanceTests.class.getName());
+
+		suite.addTest(RefactoringHistoryPerformanceTests.suite());
+		suite.addTest(PerformChangePerformanceTests.suite());
+		return suite;
+	}
+}
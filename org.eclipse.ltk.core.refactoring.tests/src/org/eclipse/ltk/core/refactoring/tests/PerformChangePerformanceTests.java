@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.FileBufferPrefetcher;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures performing a change that replaces a word in each of 2'000 files, with and without
+ * prefetching the file buffers.
+ */
+public class PerformChangePerformanceTests extends PerformanceTestCase {
+
+	private static final int FILES= 2000;
+
+	private static final int RUNS= 5;
+
+	private SimpleTestProject fProject;
+
+	private IFile[] fFiles;
+
+	public static Test suite() {
+		return new TestSuite(PerformChangePerformanceTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= new SimpleTestProject();
+		IFolder folder= fProject.createFolder("files");
+		fFiles= new IFile[FILES];
+		for (int i= 0; i < FILES; i++)
+			fFiles[i]= fProject.createFile(folder, "file" + i + ".txt", "first line\nold name in file " + i + "\nlast line\n");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		FileBufferPrefetcher.setEnabled(true);
+		fProject.delete();
+		super.tearDown();
+	}
+
+	public void testPerformSequential() throws Exception {
+		FileBufferPrefetcher.setEnabled(false);
+		measurePerform();
+	}
+
+	public void testPerformPrefetched() throws Exception {
+		tagAsSummary("Perform text file changes - 2'000 files", Dimension.ELAPSED_PROCESS);
+		FileBufferPrefetcher.setEnabled(true);
+		measurePerform();
+	}
+
+	private void measurePerform() throws Exception {
+		for (int run= 0; run < RUNS; run++) {
+			String from= run % 2 == 0 ? "old" : "new";
+			String to= run % 2 == 0 ? "new" : "old";
+			CompositeChange change= new CompositeChange("Rename");
+			for (int i= 0; i < FILES; i++) {
+				TextFileChange fileChange= new TextFileChange(fFiles[i].getName(), fFiles[i]);
+				fileChange.setEdit(new ReplaceEdit(11, from.length(), to));
+				change.add(fileChange);
+			}
+			change.initializeValidationData(new NullProgressMonitor());
+			PerformChangeOperation operation= new PerformChangeOperation(change);
+
+			startMeasuring();
+			ResourcesPlugin.getWorkspace().run(operation, null);
+			stopMeasuring();
+
+			assertTrue(operation.changeExecuted());
+			assertNotNull(operation.getUndoChange());
+			assertEquals("first line\n" + to + " name in file 7\nlast line\n", fProject.getContent(fFiles[7]));
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.osgi.service.prefs.BackingStoreException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringPreferenceConstants;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryManager;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading a refactoring history through the time stamp index, which is
+ * built from the history files written by earlier versions.
+ */
+public class RefactoringHistoryIndexTests extends TestCase {
+
+	/** The first time stamp, in 2010 */
+	static final long FIRST_STAMP= 1262304000000L;
+
+	/** The distance of two time stamps, about 30 minutes */
+	static final long STAMP_DELTA= 1800000L;
+
+	private static final int ENTRY_COUNT= 5000;
+
+	private SimpleTestProject fProject;
+
+	/**
+	 * Writes a refactoring history in the layout of the history store, without
+	 * going through the history service.
+	 *
+	 * @param project the project with a shared refactoring history
+	 * @param first the index of the first entry
+	 * @param count the number of entries
+	 * @throws IOException if the history cannot be written
+	 */
+	static void writeHistory(IProject project, int first, int count) throws IOException {
+		Map<IPath, StringBuffer> folders= new LinkedHashMap<>();
+		for (int index= first; index < first + count; index++) {
+			long stamp= getStamp(index);
+			IPath path= RefactoringHistoryManager.stampToPath(stamp);
+			StringBuffer buffer= folders.get(path);
+			if (buffer == null) {
+				buffer= new StringBuffer();
+				folders.put(path, buffer);
+			}
+			buffer.append(stamp).append(RefactoringHistoryManager.DELIMITER_COMPONENT).append(getDescription(index)).append(RefactoringHistoryManager.DELIMITER_ENTRY);
+		}
+		File root= project.getLocation().append(RefactoringHistoryService.NAME_HISTORY_FOLDER).toFile();
+		for (Entry<IPath, StringBuffer> entry : folders.entrySet()) {
+			File folder= new File(root, entry.getKey().toOSString());
+			folder.mkdirs();
+			try (OutputStream stream= new FileOutputStream(new File(folder, RefactoringHistoryService.NAME_INDEX_FILE), true)) {
+				stream.write(entry.getValue().toString().getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING));
+			}
+		}
+	}
+
+	static long getStamp(int index) {
+		return FIRST_STAMP + index * STAMP_DELTA;
+	}
+
+	static String getDescription(int index) {
+		return "Refactoring number " + index;
+	}
+
+	static void setSharedRefactoringHistory(IProject project) throws BackingStoreException, CoreException {
+		final IEclipsePreferences preferences= new ProjectScope(project).getNode(RefactoringCore.ID_PLUGIN);
+		preferences.put(RefactoringPreferenceConstants.PREFERENCE_SHARED_REFACTORING_HISTORY, Boolean.TRUE.toString());
+		preferences.flush();
+		RefactoringHistoryService.setSharedRefactoringHistory(project, true, null);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		RefactoringHistoryService.getInstance().connect();
+		fProject= new SimpleTestProject();
+		setSharedRefactoringHistory(fProject.getProject());
+		writeHistory(fProject.getProject(), 0, ENTRY_COUNT);
+		fProject.getProject().refreshLocal(IResource.DEPTH_INFINITE, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		service.deleteRefactoringHistory(fProject.getProject(), null);
+		service.disconnect();
+		fProject.delete();
+		super.tearDown();
+	}
+
+	private RefactoringDescriptorProxy[] readHistory(int first, int last) {
+		return RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), getStamp(first), getStamp(last), RefactoringDescriptor.NONE, null).getDescriptors();
+	}
+
+	private void assertHistory(RefactoringDescriptorProxy[] proxies, int first, int last) {
+		assertEquals(last - first + 1, proxies.length);
+		RefactoringHistoryManager.sortRefactoringDescriptorsAscending(proxies);
+		for (int index= 0; index < proxies.length; index++) {
+			assertEquals(getStamp(first + index), proxies[index].getTimeStamp());
+			assertEquals(getDescription(first + index), proxies[index].getDescription());
+			assertEquals(fProject.getProject().getName(), proxies[index].getProject());
+		}
+	}
+
+	public void testReadRanges() throws Exception {
+		assertHistory(readHistory(0, ENTRY_COUNT - 1), 0, ENTRY_COUNT - 1);
+		assertHistory(readHistory(0, 0), 0, 0);
+		assertHistory(readHistory(17, 1234), 17, 1234);
+		assertHistory(readHistory(ENTRY_COUNT - 1, ENTRY_COUNT - 1), ENTRY_COUNT - 1, ENTRY_COUNT - 1);
+		assertEquals(0, RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), getStamp(3) + 1, getStamp(4) - 1, RefactoringDescriptor.NONE, null).getDescriptors().length);
+	}
+
+	public void testExternalModification() throws Exception {
+		assertHistory(readHistory(0, ENTRY_COUNT - 1), 0, ENTRY_COUNT - 1);
+
+		// e.g. an update of the shared history from the repository
+		writeHistory(fProject.getProject(), ENTRY_COUNT, 100);
+		fProject.getProject().refreshLocal(IResource.DEPTH_INFINITE, null);
+		assertHistory(readHistory(0, ENTRY_COUNT + 99), 0, ENTRY_COUNT + 99);
+	}
+
+	public void testAddAndRemove() throws Exception {
+		assertHistory(readHistory(0, ENTRY_COUNT - 1), 0, ENTRY_COUNT - 1);
+
+		RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		long stamp= getStamp(ENTRY_COUNT + 1000); // in a new history folder
+		try {
+			service.setOverrideTimeStamp(stamp);
+			MockRefactoring refactoring= new MockRefactoring(fProject.getProject().getName(), "A mock description", "A mock comment", Collections.<String, String> emptyMap(), RefactoringDescriptor.NONE);
+			ResourcesPlugin.getWorkspace().run(new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS), null);
+		} finally {
+			service.setOverrideTimeStamp(-1);
+		}
+		RefactoringDescriptorProxy[] proxies= readHistory(0, ENTRY_COUNT + 1000);
+		assertEquals(ENTRY_COUNT + 1, proxies.length);
+		RefactoringHistoryManager.sortRefactoringDescriptorsAscending(proxies);
+		assertEquals(stamp, proxies[ENTRY_COUNT].getTimeStamp());
+		RefactoringDescriptor descriptor= proxies[ENTRY_COUNT].requestDescriptor(null);
+		assertNotNull(descriptor);
+		assertEquals("A mock description", descriptor.getDescription());
+
+		service.deleteRefactoringDescriptors(new RefactoringDescriptorProxy[] { proxies[ENTRY_COUNT] }, null);
+		assertHistory(readHistory(0, ENTRY_COUNT + 1000), 0, ENTRY_COUNT - 1);
+	}
+}
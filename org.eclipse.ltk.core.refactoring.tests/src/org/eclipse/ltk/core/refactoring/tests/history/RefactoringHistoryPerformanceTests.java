@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+import org.eclipse.core.resources.IProject;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures reading time ranges of a refactoring history with 100'000 entries.
+ */
+public class RefactoringHistoryPerformanceTests extends PerformanceTestCase {
+
+	private static final int ENTRY_COUNT= 100000;
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 10;
+
+	/** The number of entries of a range: about one month */
+	private static final int RANGE= 1500;
+
+	private SimpleTestProject fProject;
+
+	public static Test suite() {
+		return new TestSuite(RefactoringHistoryPerformanceTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		RefactoringHistoryService.getInstance().connect();
+		fProject= new SimpleTestProject();
+		RefactoringHistoryIndexTests.setSharedRefactoringHistory(fProject.getProject());
+		RefactoringHistoryIndexTests.writeHistory(fProject.getProject(), 0, ENTRY_COUNT);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		service.deleteRefactoringHistory(fProject.getProject(), null);
+		service.disconnect();
+		fProject.delete();
+		super.tearDown();
+	}
+
+	private static int readHistory(IProject project, int first, int last) {
+		long start= RefactoringHistoryIndexTests.getStamp(first);
+		long end= RefactoringHistoryIndexTests.getStamp(last);
+		return RefactoringHistoryService.getInstance().getProjectHistory(project, start, end, RefactoringDescriptor.NONE, null).getDescriptors().length;
+	}
+
+	/**
+	 * Measures reading the whole history the first time, which builds the time stamp index.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testReadHistoryFirstTime() throws Exception {
+		IProject project= fProject.getProject();
+		startMeasuring();
+		int count= readHistory(project, 0, ENTRY_COUNT - 1);
+		stopMeasuring();
+		assertEquals(ENTRY_COUNT, count);
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Measures reading ranges of about one month from the indexed history.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testReadHistoryRanges() throws Exception {
+		tagAsSummary("Read refactoring history ranges - 100'000 entries", Dimension.ELAPSED_PROCESS);
+		IProject project= fProject.getProject();
+		readHistory(project, 0, ENTRY_COUNT - 1);
+		for (int run= 0; run < WARM_UP_RUNS + MEASURED_RUNS; run++) {
+			if (run >= WARM_UP_RUNS)
+				startMeasuring();
+			for (int first= 0; first < ENTRY_COUNT; first+= 10 * RANGE)
+				assertEquals(RANGE, readHistory(project, first, first + RANGE - 1));
+			if (run >= WARM_UP_RUNS)
+				stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
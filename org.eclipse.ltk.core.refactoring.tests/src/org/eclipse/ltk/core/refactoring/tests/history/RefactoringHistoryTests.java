@@ -19,6 +19,8 @@ public class RefactoringHistoryTests {
 		TestSuite suite= new TestSuite(RefactoringHistoryTests.class.getName());
 		suite.addTestSuite(RefactoringHistorySerializationTests.class);
 		suite.addTestSuite(RefactoringHistoryServiceTests.class);
+		suite.addTestSuite(RefactoringHistoryIndexTests.class);
+		suite.addTestSuite(RefactoringSessionReaderTests.class);
 		return suite;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.InputSource;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.ltk.core.refactoring.IRefactoringCoreStatusCodes;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringSessionDescriptor;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringSessionReader;
+import org.eclipse.ltk.internal.core.refactoring.history.DefaultRefactoringDescriptor;
+
+/**
+ * Tests that {@link RefactoringSessionReader#readDescriptor(java.io.InputStream, long)} creates
+ * the same descriptors as {@link RefactoringSessionReader#readSession(InputSource)}.
+ */
+public class RefactoringSessionReaderTests extends TestCase {
+
+	private static final String SESSION= "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<session comment=\"A session comment\" version=\"1.0\">\n"
+			+ "<refactoring arg0=\"value0\" arg1=\"value 1\" comment=\"A mock comment\" description=\"A mock refactoring\" flags=\"3\" id=\"org.eclipse.ltk.core.mock\" project=\"test0\" stamp=\"1000\"/>\n"
+			+ "<refactoring description=\"Without comment\" flags=\"0\" id=\"org.eclipse.ltk.core.mock\" stamp=\"2000\"/>\n"
+			+ "<refactoring arg0=\"&lt;&amp;&gt;\" arg1=\"&quot;quoted&quot;\" arg2=\"line&#x0A;break\" comment=\"\" description=\"Escaped &amp; values\" flags=\"6\" id=\"org.eclipse.ltk.core.other\" project=\"test2\" stamp=\"3000\"/>\n"
+			+ "<refactoring description=\"Invalid flags\" flags=\"none\" id=\"org.eclipse.ltk.core.mock\" project=\"test3\" stamp=\"4000\"/>\n"
+			+ "</session>\n";
+
+	private static ByteArrayInputStream createStream(String xml) throws Exception {
+		return new ByteArrayInputStream(xml.getBytes("utf-8"));
+	}
+
+	private static void assertEqualDescriptors(RefactoringDescriptor expected, RefactoringDescriptor actual) {
+		assertNotNull(actual);
+		assertEquals(DefaultRefactoringDescriptor.class, actual.getClass());
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+		assertEquals(((DefaultRefactoringDescriptor) expected).getArguments(), ((DefaultRefactoringDescriptor) actual).getArguments());
+	}
+
+	public void testReadDescriptors() throws Exception {
+		RefactoringSessionDescriptor session= new RefactoringSessionReader(true, null).readSession(new InputSource(createStream(SESSION)));
+		RefactoringDescriptor[] expected= session.getRefactorings();
+		assertEquals(4, expected.length);
+		for (int index= 0; index < expected.length; index++) {
+			RefactoringDescriptor actual= new RefactoringSessionReader(true, null).readDescriptor(createStream(SESSION), expected[index].getTimeStamp());
+			assertEqualDescriptors(expected[index], actual);
+		}
+		assertEquals("<&>", ((DefaultRefactoringDescriptor) expected[2]).getArguments().get("arg0"));
+		assertEquals("line\nbreak", ((DefaultRefactoringDescriptor) expected[2]).getArguments().get("arg2"));
+	}
+
+	public void testReadMissingDescriptor() throws Exception {
+		assertNull(new RefactoringSessionReader(true, null).readDescriptor(createStream(SESSION), 1500));
+	}
+
+	public void testReadDescriptorWithoutVersion() throws Exception {
+		String xml= "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<session>\n"
+				+ "<refactoring description=\"A mock refactoring\" flags=\"0\" id=\"org.eclipse.ltk.core.mock\" stamp=\"1000\"/>\n"
+				+ "</session>\n";
+		try {
+			new RefactoringSessionReader(true, null).readDescriptor(createStream(xml), 1000);
+			fail("Reading a session without version must fail.");
+		} catch (CoreException exception) {
+			assertEquals(IRefactoringCoreStatusCodes.MISSING_REFACTORING_HISTORY_VERSION, exception.getStatus().getCode());
+		}
+	}
+
+	public void testReadDescriptorWithoutSession() throws Exception {
+		String xml= "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<history/>\n";
+		try {
+			new RefactoringSessionReader(true, null).readDescriptor(createStream(xml), 1000);
+			fail("Reading a file without session must fail.");
+		} catch (CoreException exception) {
+			assertEquals(IRefactoringCoreStatusCodes.REFACTORING_HISTORY_FORMAT_ERROR, exception.getStatus().getCode());
+		}
+	}
+}
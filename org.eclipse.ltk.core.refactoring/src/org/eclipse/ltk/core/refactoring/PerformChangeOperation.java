@@ -22,6 +22,7 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 
+import org.eclipse.ltk.internal.core.refactoring.FileBufferPrefetcher;
 import org.eclipse.ltk.internal.core.refactoring.NotCancelableProgressMonitor;
 
 /**
@@ -51,6 +52,10 @@ import org.eclipse.ltk.internal.core.refactoring.NotCancelableProgressMonitor;
  * <code>IWorkspace</code> to achieve proper delta batching.
  * </p>
  * <p>
+ * While a change that modifies many files is performed, the file buffers of the
+ * next {@link TextFileChange}s are connected ahead in background threads.
+ * </p>
+ * <p>
  * Note: this class is not intended to be extended outside of the refactoring framework.
  * </p>
  *
@@ -254,7 +259,13 @@ public class PerformChangeOperation implements IWorkspaceRunnable {
 							aboutToPerformChangeCalled= true;
 						}
 						fChangeExecutionFailed= true;
-						fUndoChange= fChange.perform(new SubProgressMonitor(monitor, 9));
+						FileBufferPrefetcher prefetcher= FileBufferPrefetcher.install(fChange);
+						try {
+							fUndoChange= fChange.perform(new SubProgressMonitor(monitor, 9));
+						} finally {
+							if (prefetcher != null)
+								prefetcher.uninstall();
+						}
 						fChangeExecutionFailed= false;
 						fChangeExecuted= true;
 					} finally {
@@ -35,6 +35,7 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.ltk.internal.core.refactoring.BufferValidationState;
 import org.eclipse.ltk.internal.core.refactoring.Changes;
 import org.eclipse.ltk.internal.core.refactoring.ContentStamps;
+import org.eclipse.ltk.internal.core.refactoring.FileBufferPrefetcher;
 import org.eclipse.ltk.internal.core.refactoring.Lock;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
 
@@ -207,6 +208,9 @@ public class TextFileChange extends TextChange {
 		if (fAcquireCount > 1)
 			return fBuffer.getDocument();
 
+		FileBufferPrefetcher prefetcher= FileBufferPrefetcher.getCurrent();
+		if (prefetcher != null)
+			prefetcher.awaitConnected(fFile);
 		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
 		IPath path= fFile.getFullPath();
 		manager.connect(path, LocationKind.IFILE, pm);
@@ -236,6 +240,9 @@ public class TextFileChange extends TextChange {
 		if (fAcquireCount == 1) {
 			ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
 			manager.disconnect(fFile.getFullPath(), LocationKind.IFILE, pm);
+			FileBufferPrefetcher prefetcher= FileBufferPrefetcher.getCurrent();
+			if (prefetcher != null)
+				prefetcher.released(fFile);
 		}
 		fAcquireCount--;
  	}
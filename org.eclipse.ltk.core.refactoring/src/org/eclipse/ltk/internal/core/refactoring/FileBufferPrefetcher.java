@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+
+/**
+ * Connects the file buffers of the text file changes of a large change ahead of their execution.
+ * <p>
+ * While the change is performed, worker threads keep the buffers of the next files connected, so
+ * that reading the files and setting up their documents overlaps with applying and committing the
+ * edits of the current file. A {@link TextFileChange} then only adds a connection to an existing
+ * buffer. Performing the edits, committing the buffers and creating the undo changes still happen
+ * in the thread that performs the change, in the order of the change tree.
+ * </p>
+ * <p>
+ * Only the files of the text file changes before the first other change in the tree are
+ * prefetched. Other changes may move, delete or write files, which would leave a prefetched
+ * buffer with the old location or content.
+ * </p>
+ */
+public final class FileBufferPrefetcher {
+
+	/** The minimal number of files for which buffers are prefetched */
+	private static final int MIN_FILES= 64;
+
+	/** The number of files whose buffers are connected ahead */
+	private static final int WINDOW= 64;
+
+	private static final int MAX_THREADS= 4;
+
+	private static final ThreadLocal<FileBufferPrefetcher> fgCurrent= new ThreadLocal<>();
+
+	private static boolean fgEnabled= true;
+
+	private final IFile[] fFiles;
+
+	private final Map<IFile, Integer> fIndices;
+
+	/** The connections in progress or done, <code>null</code> if not started or released */
+	private final Future<?>[] fConnections;
+
+	private final ExecutorService fExecutor;
+
+	/** The index of the next file to connect */
+	private int fNext;
+
+	private FileBufferPrefetcher(List<IFile> files) {
+		fFiles= files.toArray(new IFile[files.size()]);
+		fIndices= new HashMap<>(fFiles.length * 4 / 3 + 1);
+		for (int index= 0; index < fFiles.length; index++)
+			fIndices.put(fFiles[index], Integer.valueOf(index));
+		fConnections= new Future<?>[fFiles.length];
+		fExecutor= Executors.newFixedThreadPool(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+	}
+
+	/**
+	 * Enables or disables prefetching, e.g. to compare the throughput of both modes.
+	 *
+	 * @param enabled <code>true</code> to prefetch buffers of large changes
+	 */
+	public static void setEnabled(boolean enabled) {
+		fgEnabled= enabled;
+	}
+
+	/**
+	 * Starts prefetching the buffers of the given change in the current thread, if the change
+	 * modifies enough files.
+	 *
+	 * @param change the change that is about to be performed
+	 * @return the prefetcher, or <code>null</code> if buffers are not prefetched
+	 */
+	public static FileBufferPrefetcher install(Change change) {
+		if (!fgEnabled)
+			return null;
+		List<IFile> files= new ArrayList<>();
+		collectFiles(change, files, new HashMap<IFile, Boolean>());
+		if (files.size() < MIN_FILES)
+			return null;
+		FileBufferPrefetcher prefetcher= new FileBufferPrefetcher(files);
+		prefetcher.connectUpTo(WINDOW);
+		fgCurrent.set(prefetcher);
+		return prefetcher;
+	}
+
+	/**
+	 * Returns the prefetcher of the change that is performed in the current thread.
+	 *
+	 * @return the prefetcher, or <code>null</code> if none
+	 */
+	public static FileBufferPrefetcher getCurrent() {
+		return fgCurrent.get();
+	}
+
+	/**
+	 * Collects the files of the text file changes in the order they are performed.
+	 *
+	 * @param change the change to collect the files of
+	 * @param files the list to add the files to
+	 * @param seen the files that have already been added
+	 * @return <code>false</code> if a change that is not a text file change has been found, and
+	 *         no further files must be collected
+	 */
+	private static boolean collectFiles(Change change, List<IFile> files, Map<IFile, Boolean> seen) {
+		if (!change.isEnabled())
+			return true;
+		if (change instanceof CompositeChange) {
+			Change[] children= ((CompositeChange) change).getChildren();
+			for (int index= 0; index < children.length; index++) {
+				if (!collectFiles(children[index], files, seen))
+					return false;
+			}
+			return true;
+		} else if (change instanceof TextFileChange) {
+			IFile file= ((TextFileChange) change).getFile();
+			if (file != null && seen.put(file, Boolean.TRUE) == null)
+				files.add(file);
+			return true;
+		}
+		return false;
+	}
+
+	private void connectUpTo(int last) {
+		for (; fNext <= last && fNext < fFiles.length; fNext++) {
+			final IFile file= fFiles[fNext];
+			fConnections[fNext]= fExecutor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					try {
+						FileBuffers.getTextFileBufferManager().connect(file.getFullPath(), LocationKind.IFILE, null);
+						return Boolean.TRUE;
+					} catch (CoreException e) {
+						// the change reports the problem when it connects itself
+						return Boolean.FALSE;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Waits until the buffer of the given file is connected, if it is being prefetched.
+	 *
+	 * @param file the file that is about to be connected by a change
+	 */
+	public void awaitConnected(IFile file) {
+		Integer index= fIndices.get(file);
+		if (index == null)
+			return;
+		Future<?> connection= fConnections[index.intValue()];
+		if (connection != null)
+			isConnected(connection);
+	}
+
+	/**
+	 * Releases the prefetched connection of the given file, and starts connecting the next file.
+	 *
+	 * @param file the file that has been released by a change
+	 */
+	public void released(IFile file) {
+		Integer index= fIndices.get(file);
+		if (index == null)
+			return;
+		release(index.intValue());
+		connectUpTo(index.intValue() + WINDOW);
+	}
+
+	private void release(int index) {
+		Future<?> connection= fConnections[index];
+		if (connection == null)
+			return;
+		fConnections[index]= null;
+		if (isConnected(connection)) {
+			try {
+				FileBuffers.getTextFileBufferManager().disconnect(fFiles[index].getFullPath(), LocationKind.IFILE, null);
+			} catch (CoreException e) {
+				RefactoringCorePlugin.log(e);
+			}
+		}
+	}
+
+	private static boolean isConnected(Future<?> connection) {
+		boolean interrupted= false;
+		try {
+			while (true) {
+				try {
+					return Boolean.TRUE.equals(connection.get());
+				} catch (InterruptedException e) {
+					interrupted= true;
+				}
+			}
+		} catch (ExecutionException e) {
+			RefactoringCorePlugin.log(e.getCause());
+			return false;
+		} finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops prefetching and releases all buffers that are still connected by this prefetcher.
+	 */
+	public void uninstall() {
+		fgCurrent.remove();
+		for (int index= 0; index < fConnections.length; index++) {
+			if (fConnections[index] != null && fConnections[index].cancel(false))
+				fConnections[index]= null;
+		}
+		fExecutor.shutdown();
+		for (int index= 0; index < fConnections.length; index++)
+			release(index);
+		try {
+			fExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.ltk.internal.core.refactoring;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,6 +20,10 @@ import java.util.Map;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -183,67 +188,174 @@ public final class RefactoringSessionReader extends DefaultHandler {
 		fLocator= locator;
 	}
 
+	/**
+	 * Reads the refactoring descriptor with the specified time stamp from the
+	 * specified input stream.
+	 * <p>
+	 * Unlike {@link #readSession(InputSource)}, the input is streamed, and only
+	 * the matching refactoring descriptor is created. Reading stops as soon as
+	 * the descriptor has been found.
+	 * </p>
+	 *
+	 * @param stream
+	 *            the input stream where to read from
+	 * @param stamp
+	 *            the time stamp of the refactoring descriptor
+	 * @return the refactoring descriptor, or <code>null</code> if the session
+	 *         does not contain a descriptor with this time stamp
+	 * @throws CoreException
+	 *             if an error occurs while reading from the input stream
+	 * @since 3.7
+	 */
+	public RefactoringDescriptor readDescriptor(final InputStream stream, final long stamp) throws CoreException {
+		final String value= Long.toString(stamp);
+		XMLStreamReader reader= null;
+		try {
+			final XMLInputFactory factory= XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			reader= factory.createXMLStreamReader(stream);
+			boolean sessionFound= false;
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT)
+					continue;
+				final String name= reader.getLocalName();
+				if (IRefactoringSerializationConstants.ELEMENT_SESSION.equals(name)) {
+					sessionFound= true;
+					final String version= reader.getAttributeValue(null, IRefactoringSerializationConstants.ATTRIBUTE_VERSION);
+					if (version == null || "".equals(version)) //$NON-NLS-1$
+						throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.MISSING_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_missing_version_information, null));
+					if (!IRefactoringSerializationConstants.CURRENT_VERSION.equals(version))
+						throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.UNSUPPORTED_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_unsupported_version_information, null));
+				} else if (IRefactoringSerializationConstants.ELEMENT_REFACTORING.equals(name) && value.equals(reader.getAttributeValue(null, IRefactoringSerializationConstants.ATTRIBUTE_STAMP))) {
+					final int length= reader.getAttributeCount();
+					final String[] names= new String[length];
+					final String[] values= new String[length];
+					for (int index= 0; index < length; index++) {
+						names[index]= reader.getAttributeLocalName(index);
+						values[index]= reader.getAttributeValue(index);
+					}
+					try {
+						return createDescriptor(names, values);
+					} catch (RuntimeException exception) {
+						if (fCreateDefaultDescriptors)
+							throw exception;
+						throwCoreException(exception, RefactoringCoreMessages.RefactoringSessionReader_invalid_values_in_xml);
+					}
+				}
+			}
+			if (!sessionFound)
+				throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.REFACTORING_HISTORY_FORMAT_ERROR, RefactoringCoreMessages.RefactoringSessionReader_no_session, null));
+		} catch (XMLStreamException exception) {
+			if (exception.getLocation() != null) {
+				String message= Messages.format(RefactoringCoreMessages.RefactoringSessionReader_invalid_contents_at,
+						new Object[] {
+								Integer.toString(exception.getLocation().getLineNumber()),
+								Integer.toString(exception.getLocation().getColumnNumber())
+				});
+				throwCoreException(exception, message);
+			}
+			throwCoreException(exception, exception.getLocalizedMessage());
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException exception) {
+					// Do nothing
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a refactoring descriptor from the attributes of a refactoring
+	 * element.
+	 *
+	 * @param names
+	 *            the attribute names
+	 * @param values
+	 *            the attribute values
+	 * @return the refactoring descriptor
+	 * @throws RuntimeException
+	 *             if the refactoring contribution cannot create the descriptor
+	 */
+	private RefactoringDescriptor createDescriptor(final String[] names, final String[] values) {
+		final int length= names.length;
+		final Map<String, String> map= new HashMap<>(length);
+		String id= ""; //$NON-NLS-1$
+		String stamp= ""; //$NON-NLS-1$
+		String description= ""; //$NON-NLS-1$
+		String comment= null;
+		String flags= "0"; //$NON-NLS-1$
+		String project= null;
+		for (int index= 0; index < length; index++) {
+			final String name= names[index];
+			final String value= values[index];
+			if (IRefactoringSerializationConstants.ATTRIBUTE_ID.equals(name)) {
+				id= value;
+			} else if (IRefactoringSerializationConstants.ATTRIBUTE_STAMP.equals(name)) {
+				stamp= value;
+			} else if (IRefactoringSerializationConstants.ATTRIBUTE_DESCRIPTION.equals(name)) {
+				description= value;
+			} else if (IRefactoringSerializationConstants.ATTRIBUTE_FLAGS.equals(name)) {
+				flags= value;
+			} else if (IRefactoringSerializationConstants.ATTRIBUTE_COMMENT.equals(name)) {
+				if (!"".equals(value)) //$NON-NLS-1$
+					comment= value;
+			} else if (IRefactoringSerializationConstants.ATTRIBUTE_PROJECT.equals(name)) {
+				project= value;
+			} else if (!"".equals(name)) { //$NON-NLS-1$
+				map.put(name, value);
+			}
+		}
+		int flag= 0;
+		try {
+			flag= Integer.parseInt(flags);
+		} catch (NumberFormatException exception) {
+			// Do nothing
+		}
+
+		RefactoringDescriptor descriptor= null;
+		if (fCreateDefaultDescriptors) {
+			descriptor= new DefaultRefactoringDescriptor(id, project, description, comment, map, flag);
+		} else {
+			if (fProject != null && project == null) {
+				project= fProject; // override project from file if fProject != null
+			}
+			descriptor= RefactoringContributionManager.getInstance().createDescriptor(id, project, description, comment, map, flag);
+		}
+		try {
+			descriptor.setTimeStamp(Long.valueOf(stamp).longValue());
+		} catch (NumberFormatException exception) {
+			// Do nothing
+		}
+		return descriptor;
+	}
+
 	@Override
 	public void startElement(final String uri, final String localName, final String qualifiedName, final Attributes attributes) throws SAXException {
 		if (IRefactoringSerializationConstants.ELEMENT_REFACTORING.equals(qualifiedName)) {
 			final int length= attributes.getLength();
-			final Map<String, String> map= new HashMap<>(length);
-			String id= ""; //$NON-NLS-1$
-			String stamp= ""; //$NON-NLS-1$
-			String description= ""; //$NON-NLS-1$
-			String comment= null;
-			String flags= "0"; //$NON-NLS-1$
-			String project= null;
+			final String[] names= new String[length];
+			final String[] values= new String[length];
 			for (int index= 0; index < length; index++) {
-				final String name= attributes.getQName(index);
-				final String value= attributes.getValue(index);
-				if (IRefactoringSerializationConstants.ATTRIBUTE_ID.equals(name)) {
-					id= value;
-				} else if (IRefactoringSerializationConstants.ATTRIBUTE_STAMP.equals(name)) {
-					stamp= value;
-				} else if (IRefactoringSerializationConstants.ATTRIBUTE_DESCRIPTION.equals(name)) {
-					description= value;
-				} else if (IRefactoringSerializationConstants.ATTRIBUTE_FLAGS.equals(name)) {
-					flags= value;
-				} else if (IRefactoringSerializationConstants.ATTRIBUTE_COMMENT.equals(name)) {
-					if (!"".equals(value)) //$NON-NLS-1$
-						comment= value;
-				} else if (IRefactoringSerializationConstants.ATTRIBUTE_PROJECT.equals(name)) {
-					project= value;
-				} else if (!"".equals(name)) { //$NON-NLS-1$
-					map.put(name, value);
-				}
-			}
-			int flag= 0;
-			try {
-				flag= Integer.parseInt(flags);
-			} catch (NumberFormatException exception) {
-				// Do nothing
+				names[index]= attributes.getQName(index);
+				values[index]= attributes.getValue(index);
 			}
-
 			RefactoringDescriptor descriptor= null;
-			if (fCreateDefaultDescriptors) {
-				descriptor= new DefaultRefactoringDescriptor(id, project, description, comment, map, flag);
-			} else {
-				if (fProject != null && project == null) {
-					project= fProject; // override project from file if fProject != null
-				}
-				try {
-					descriptor= RefactoringContributionManager.getInstance().createDescriptor(id, project, description, comment, map, flag);
-				} catch (RuntimeException e) {
-					throw new SAXParseException(RefactoringCoreMessages.RefactoringSessionReader_invalid_values_in_xml, fLocator, e) {
-						private static final long serialVersionUID= 1L;
-						@Override
-						public Throwable getCause() { // support proper 1.4-style exception chaining
-							return getException();
-						}
-					};
-				}
-			}
 			try {
-				descriptor.setTimeStamp(Long.valueOf(stamp).longValue());
-			} catch (NumberFormatException exception) {
-				// Do nothing
+				descriptor= createDescriptor(names, values);
+			} catch (RuntimeException e) {
+				if (fCreateDefaultDescriptors)
+					throw e;
+				throw new SAXParseException(RefactoringCoreMessages.RefactoringSessionReader_invalid_values_in_xml, fLocator, e) {
+					private static final long serialVersionUID= 1L;
+					@Override
+					public Throwable getCause() { // support proper 1.4-style exception chaining
+						return getException();
+					}
+				};
 			}
 			if (fRefactoringDescriptors == null)
 				fRefactoringDescriptors= new ArrayList<>();
@@ -0,0 +1,692 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Time stamp index over the refactoring history index files of a history
+ * store.
+ * <p>
+ * The history store remains the authoritative copy of the history. The index
+ * is a derived cache in the plug-in state location, which consists of two
+ * files:
+ * </p>
+ * <ul>
+ * <li>a memory-mapped snapshot of all refactoring descriptor proxies, sorted
+ * by time stamp, which answers time range queries by binary search</li>
+ * <li>an append-only log of the proxies added or removed by the history
+ * manager since the snapshot has been written</li>
+ * </ul>
+ * <p>
+ * The index remembers a fingerprint of the names, modification times and
+ * sizes of the index files of the history store. The history manager reports
+ * its updates to the index, which keeps the fingerprint current. The history
+ * store is only walked to compare the fingerprint the first time the index is
+ * read in a session, and after the refactoring history service has reported
+ * that the history store may have been modified by other means, for instance
+ * because a shared project history has been updated from the repository. If
+ * the fingerprint does not match, the snapshot is rebuilt from the history
+ * store. This also migrates existing histories the first time they are read.
+ * </p>
+ *
+ * @since 3.7
+ */
+final class RefactoringHistoryIndex {
+
+	/** The magic number of snapshot and log files */
+	private static final int MAGIC= 0x52484958; // "RHIX"
+
+	/** The format version */
+	private static final int VERSION= 1;
+
+	/** The name of the index folder in the plug-in state location */
+	private static final String NAME_INDEX_FOLDER= "historyIndex"; //$NON-NLS-1$
+
+	/** The file extension of snapshots */
+	private static final String EXTENSION_SNAPSHOT= ".idx"; //$NON-NLS-1$
+
+	/** The file extension of logs */
+	private static final String EXTENSION_LOG= ".log"; //$NON-NLS-1$
+
+	/** The log record of an added proxy */
+	private static final byte RECORD_ADDED= 1;
+
+	/** The log record of a removed proxy */
+	private static final byte RECORD_REMOVED= 2;
+
+	/** The log record of a fingerprint change */
+	private static final byte RECORD_FINGERPRINT= 3;
+
+	/** The size of a snapshot entry: the time stamp and the offset of the description */
+	private static final int ENTRY_SIZE= 12;
+
+	/** The number of log records after which a new snapshot is written */
+	private static final int COMPACTION_THRESHOLD= 1024;
+
+	/** The indexes by history store */
+	private static final Map<IFileStore, RefactoringHistoryIndex> fgIndexes= new HashMap<>();
+
+	/**
+	 * Returns the index of the specified history store.
+	 *
+	 * @param store
+	 *            the history store
+	 * @return the index, or <code>null</code> if the plug-in is not running
+	 */
+	static synchronized RefactoringHistoryIndex getIndex(final IFileStore store) {
+		RefactoringHistoryIndex index= fgIndexes.get(store);
+		if (index == null) {
+			final RefactoringCorePlugin plugin= RefactoringCorePlugin.getDefault();
+			if (plugin == null)
+				return null;
+			index= new RefactoringHistoryIndex(store, plugin.getStateLocation().append(NAME_INDEX_FOLDER).toFile());
+			fgIndexes.put(store, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Marks the index of the specified history store as stale, so that the
+	 * next read compares the fingerprint of the history store.
+	 *
+	 * @param store
+	 *            the history store which may have been modified without the
+	 *            history manager
+	 */
+	static void markStale(final IFileStore store) {
+		final RefactoringHistoryIndex index;
+		synchronized (RefactoringHistoryIndex.class) {
+			index= fgIndexes.get(store);
+		}
+		if (index != null)
+			index.markStale();
+	}
+
+	/**
+	 * Returns the fingerprint contribution of the specified history index file.
+	 *
+	 * @param path
+	 *            the path of the file relative to the history store
+	 * @param file
+	 *            the history index file
+	 * @return the fingerprint contribution, or <code>0</code> if the file does
+	 *         not exist
+	 */
+	static long getFingerprint(final String path, final IFileStore file) {
+		return getFingerprint(path, file.fetchInfo());
+	}
+
+	private static long getFingerprint(final String path, final IFileInfo info) {
+		if (!info.exists())
+			return 0;
+		long hash= path.hashCode();
+		hash= hash * 0x9E3779B97F4A7C15L + info.getLastModified();
+		hash= hash * 0x9E3779B97F4A7C15L + info.getLength();
+		return hash ^ (hash >>> 29);
+	}
+
+	/**
+	 * Walks the history store, and computes the fingerprint of its index
+	 * files.
+	 *
+	 * @param store
+	 *            the file store to walk
+	 * @param path
+	 *            the path of the store relative to the history store
+	 * @param files
+	 *            the list of index files to fill in, or <code>null</code>
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return the fingerprint
+	 * @throws CoreException
+	 *             if the store cannot be walked
+	 */
+	private static long walk(final IFileStore store, final String path, final List<IFileStore> files, final IProgressMonitor monitor) throws CoreException {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		long fingerprint= 0;
+		final IFileInfo[] infos= store.childInfos(EFS.NONE, null);
+		for (int index= 0; index < infos.length; index++) {
+			final IFileInfo info= infos[index];
+			final String name= info.getName();
+			final String child= path.length() == 0 ? name : path + '/' + name;
+			if (info.isDirectory())
+				fingerprint^= walk(store.getChild(name), child, files, monitor);
+			else if (name.equalsIgnoreCase(RefactoringHistoryService.NAME_INDEX_FILE)) {
+				fingerprint^= getFingerprint(child, info);
+				if (files != null)
+					files.add(store.getChild(name));
+			}
+		}
+		return fingerprint;
+	}
+
+	/** The history store */
+	private final IFileStore fStore;
+
+	/** The URI of the history store */
+	private final String fStoreURI;
+
+	/** The folder of the index files */
+	private final File fFolder;
+
+	/** The file name prefix of the index files */
+	private final String fPrefix;
+
+	/** Has the index been loaded from disk? */
+	private boolean fLoaded= false;
+
+	/** Does the index reflect the history store as of {@link #fFingerprint}? */
+	private boolean fValid= false;
+
+	/**
+	 * Has the fingerprint of the history store been compared since the index
+	 * has been loaded or marked as stale?
+	 */
+	private boolean fChecked= false;
+
+	/** The expected fingerprint of the history store */
+	private long fFingerprint= 0;
+
+	/** The generation of the snapshot, or <code>-1</code> */
+	private long fGeneration= -1;
+
+	/** The mapped snapshot, or <code>null</code> */
+	private ByteBuffer fSnapshot= null;
+
+	/** The number of entries of the snapshot */
+	private int fCount= 0;
+
+	/** The offset of the first snapshot entry */
+	private int fEntries= 0;
+
+	/** The proxies added since the snapshot has been written */
+	private final Set<RefactoringDescriptorProxy> fAdded= new HashSet<>();
+
+	/** The snapshot proxies removed since the snapshot has been written */
+	private final Set<RefactoringDescriptorProxy> fRemoved= new HashSet<>();
+
+	/** The number of records in the log */
+	private int fRecords= 0;
+
+	/**
+	 * Creates a new refactoring history index.
+	 *
+	 * @param store
+	 *            the history store
+	 * @param folder
+	 *            the folder of the index files
+	 */
+	private RefactoringHistoryIndex(final IFileStore store, final File folder) {
+		fStore= store;
+		fStoreURI= store.toURI().toString();
+		fFolder= folder;
+		fPrefix= Integer.toHexString(fStoreURI.hashCode()) + '.';
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies with time stamps in the
+	 * specified range.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return <code>true</code> if the proxies have been read,
+	 *         <code>false</code> if the index is not available and the history
+	 *         store has to be read instead
+	 */
+	synchronized boolean readRefactoringDescriptorProxies(final String project, final Collection<RefactoringDescriptorProxy> collection, final long start, final long end, final IProgressMonitor monitor) {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 10);
+			if (!fLoaded)
+				load();
+			if (!fValid)
+				rebuild(monitor);
+			else if (!fChecked && walk(fStore, "", null, monitor) != fFingerprint) //$NON-NLS-1$
+				rebuild(monitor);
+			fChecked= true;
+			monitor.worked(9);
+
+			final int first= findFirst(start);
+			for (int index= first; index < fCount; index++) {
+				final int position= fEntries + index * ENTRY_SIZE;
+				final long stamp= fSnapshot.getLong(position);
+				if (stamp > end)
+					break;
+				final RefactoringDescriptorProxy proxy= new DefaultRefactoringDescriptorProxy(getString(fSnapshot.getInt(position + 8)), project, stamp);
+				if (fRemoved.isEmpty() || !fRemoved.contains(proxy))
+					collection.add(proxy);
+			}
+			for (final Iterator<RefactoringDescriptorProxy> iterator= fAdded.iterator(); iterator.hasNext();) {
+				final RefactoringDescriptorProxy proxy= iterator.next();
+				final long stamp= proxy.getTimeStamp();
+				if (stamp >= start && stamp <= end)
+					collection.add(new DefaultRefactoringDescriptorProxy(proxy.getDescription(), project, stamp));
+			}
+			return true;
+		} catch (IOException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+		} catch (CoreException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+		} finally {
+			monitor.done();
+		}
+		return false;
+	}
+
+	/**
+	 * Records an update of a history index file by the history manager.
+	 *
+	 * @param before
+	 *            the fingerprint contribution of the index file before the
+	 *            update
+	 * @param after
+	 *            the fingerprint contribution of the index file after the
+	 *            update
+	 * @param added
+	 *            the added proxies
+	 * @param removed
+	 *            the removed proxies
+	 */
+	synchronized void update(final long before, final long after, final RefactoringDescriptorProxy[] added, final RefactoringDescriptorProxy[] removed) {
+		if (!fValid)
+			return; // rebuilt on the next read
+		try {
+			final ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+			final DataOutputStream output= new DataOutputStream(bytes);
+			for (int index= 0; index < removed.length; index++) {
+				writeRecord(output, RECORD_REMOVED, removed[index]);
+				applyRemoved(removed[index]);
+			}
+			for (int index= 0; index < added.length; index++) {
+				writeRecord(output, RECORD_ADDED, added[index]);
+				applyAdded(added[index]);
+			}
+			output.writeByte(RECORD_FINGERPRINT);
+			output.writeLong(before ^ after);
+			fFingerprint^= before ^ after;
+			fRecords+= removed.length + added.length + 1;
+			output.close();
+
+			try (FileOutputStream stream= new FileOutputStream(getLogFile(), true)) {
+				stream.write(bytes.toByteArray());
+			}
+			if (fRecords >= COMPACTION_THRESHOLD)
+				writeSnapshot(getProxies(), fFingerprint);
+		} catch (IOException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Marks the index as stale, so that the next read compares the fingerprint
+	 * of the history store.
+	 */
+	synchronized void markStale() {
+		fChecked= false;
+	}
+
+	private void applyAdded(final RefactoringDescriptorProxy proxy) {
+		if (!fRemoved.remove(proxy))
+			fAdded.add(proxy);
+	}
+
+	private void applyRemoved(final RefactoringDescriptorProxy proxy) {
+		if (!fAdded.remove(proxy))
+			fRemoved.add(proxy);
+	}
+
+	private static void writeRecord(final DataOutputStream output, final byte type, final RefactoringDescriptorProxy proxy) throws IOException {
+		output.writeByte(type);
+		output.writeLong(proxy.getTimeStamp());
+		final byte[] bytes= proxy.getDescription().getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Forgets the in-memory state, so that the index is rebuilt on the next
+	 * read.
+	 */
+	synchronized void invalidate() {
+		fValid= false;
+		fSnapshot= null;
+		fCount= 0;
+		fAdded.clear();
+		fRemoved.clear();
+		fRecords= 0;
+	}
+
+	private File getLogFile() {
+		return new File(fFolder, fPrefix + "0" + EXTENSION_LOG); //$NON-NLS-1$
+	}
+
+	private File getSnapshotFile(final long generation) {
+		return new File(fFolder, fPrefix + Long.toString(generation) + EXTENSION_SNAPSHOT);
+	}
+
+	/**
+	 * Loads the most recent snapshot and the log.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void load() throws IOException {
+		fLoaded= true;
+		invalidate();
+		final String[] names= fFolder.list();
+		if (names == null)
+			return;
+		long generation= -1;
+		for (int index= 0; index < names.length; index++) {
+			final String name= names[index];
+			if (name.startsWith(fPrefix) && name.endsWith(EXTENSION_SNAPSHOT)) {
+				try {
+					generation= Math.max(generation, Long.parseLong(name.substring(fPrefix.length(), name.length() - EXTENSION_SNAPSHOT.length())));
+				} catch (NumberFormatException exception) {
+					// Not a snapshot
+				}
+			}
+		}
+		if (generation < 0)
+			return;
+		fGeneration= generation;
+		if (!mapSnapshot(generation))
+			return;
+		deleteSnapshots(generation);
+		readLog();
+	}
+
+	/**
+	 * Maps the snapshot of the specified generation.
+	 *
+	 * @param generation
+	 *            the generation of the snapshot
+	 * @return <code>true</code> if the snapshot is valid,
+	 *         <code>false</code> otherwise
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private boolean mapSnapshot(final long generation) throws IOException {
+		final File file= getSnapshotFile(generation);
+		final ByteBuffer buffer;
+		try (RandomAccessFile raf= new RandomAccessFile(file, "r")) { //$NON-NLS-1$
+			final FileChannel channel= raf.getChannel();
+			// the mapping stays valid after the channel has been closed
+			buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < 32 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != generation)
+			return false;
+		final int count= buffer.getInt(24);
+		final int length= buffer.getInt(28);
+		if (count < 0 || length < 0 || 32L + length + (long) count * ENTRY_SIZE > buffer.limit())
+			return false;
+		final byte[] uri= new byte[length];
+		for (int index= 0; index < length; index++)
+			uri[index]= buffer.get(32 + index);
+		if (!fStoreURI.equals(new String(uri, IRefactoringSerializationConstants.OUTPUT_ENCODING)))
+			return false;
+
+		fSnapshot= buffer;
+		fGeneration= generation;
+		fFingerprint= buffer.getLong(16);
+		fCount= count;
+		fEntries= 32 + length;
+		fValid= true;
+		return true;
+	}
+
+	/**
+	 * Replays the log of the current snapshot.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void readLog() throws IOException {
+		final File file= getLogFile();
+		if (!file.isFile())
+			return;
+		try (DataInputStream input= new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (input.readInt() != MAGIC || input.readLong() != fGeneration)
+				return; // log of another snapshot
+			while (true) {
+				final byte type;
+				try {
+					type= input.readByte();
+				} catch (EOFException exception) {
+					break;
+				}
+				if (type == RECORD_FINGERPRINT) {
+					fFingerprint^= input.readLong();
+				} else if (type == RECORD_ADDED || type == RECORD_REMOVED) {
+					final long stamp= input.readLong();
+					final byte[] bytes= new byte[input.readInt()];
+					input.readFully(bytes);
+					final RefactoringDescriptorProxy proxy= new DefaultRefactoringDescriptorProxy(new String(bytes, IRefactoringSerializationConstants.OUTPUT_ENCODING), null, stamp);
+					if (type == RECORD_ADDED)
+						applyAdded(proxy);
+					else
+						applyRemoved(proxy);
+				} else
+					throw new IOException("Corrupt refactoring history index log: " + file); //$NON-NLS-1$
+				fRecords++;
+			}
+		} catch (EOFException exception) {
+			// Truncated record: the fingerprint will not match
+		}
+	}
+
+	/**
+	 * Rebuilds the snapshot from the history store.
+	 *
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if the history store cannot be read
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void rebuild(final IProgressMonitor monitor) throws CoreException, IOException {
+		invalidate();
+		final List<IFileStore> files= new ArrayList<>();
+		final long fingerprint= walk(fStore, "", files, monitor); //$NON-NLS-1$
+		final Set<RefactoringDescriptorProxy> proxies= new HashSet<>();
+		for (int index= 0; index < files.size(); index++) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			try (InputStream stream= files.get(index).openInputStream(EFS.NONE, null)) {
+				final RefactoringDescriptorProxy[] result= RefactoringHistoryManager.readRefactoringDescriptorProxies(stream, null, 0, Long.MAX_VALUE);
+				for (int offset= 0; offset < result.length; offset++)
+					proxies.add(result[offset]);
+			}
+		}
+		writeSnapshot(proxies.toArray(new RefactoringDescriptorProxy[proxies.size()]), fingerprint);
+	}
+
+	/**
+	 * Returns all proxies of the index.
+	 *
+	 * @return the proxies
+	 */
+	private RefactoringDescriptorProxy[] getProxies() {
+		final List<RefactoringDescriptorProxy> list= new ArrayList<>(fCount + fAdded.size());
+		collectProxies(list);
+		return list.toArray(new RefactoringDescriptorProxy[list.size()]);
+	}
+
+	private void collectProxies(final Collection<RefactoringDescriptorProxy> collection) {
+		for (int index= 0; index < fCount; index++) {
+			final int position= fEntries + index * ENTRY_SIZE;
+			final RefactoringDescriptorProxy proxy= new DefaultRefactoringDescriptorProxy(getString(fSnapshot.getInt(position + 8)), null, fSnapshot.getLong(position));
+			if (!fRemoved.contains(proxy))
+				collection.add(proxy);
+		}
+		collection.addAll(fAdded);
+	}
+
+	/**
+	 * Writes a new snapshot generation, and starts a new log.
+	 *
+	 * @param proxies
+	 *            the proxies of the snapshot
+	 * @param fingerprint
+	 *            the fingerprint of the history store
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void writeSnapshot(final RefactoringDescriptorProxy[] proxies, final long fingerprint) throws IOException {
+		RefactoringHistoryManager.sortRefactoringDescriptorsAscending(proxies);
+		if (!fFolder.isDirectory() && !fFolder.mkdirs())
+			throw new IOException("Cannot create " + fFolder); //$NON-NLS-1$
+
+		final long generation= fGeneration + 1;
+		final byte[] uri= fStoreURI.getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING);
+		final byte[][] descriptions= new byte[proxies.length][];
+		for (int index= 0; index < proxies.length; index++)
+			descriptions[index]= proxies[index].getDescription().getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING);
+
+		final File file= getSnapshotFile(generation);
+		final File temp= new File(fFolder, file.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(generation);
+			output.writeLong(fingerprint);
+			output.writeInt(proxies.length);
+			output.writeInt(uri.length);
+			output.write(uri);
+			long offset= 32L + uri.length + (long) proxies.length * ENTRY_SIZE;
+			for (int index= 0; index < proxies.length; index++) {
+				if (offset > Integer.MAX_VALUE)
+					throw new IOException("Refactoring history index too large"); //$NON-NLS-1$
+				output.writeLong(proxies[index].getTimeStamp());
+				output.writeInt((int) offset);
+				offset+= 4 + descriptions[index].length;
+			}
+			for (int index= 0; index < proxies.length; index++) {
+				output.writeInt(descriptions[index].length);
+				output.write(descriptions[index]);
+			}
+		}
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Cannot write " + file); //$NON-NLS-1$
+		}
+		try (DataOutputStream output= new DataOutputStream(new FileOutputStream(getLogFile()))) {
+			output.writeInt(MAGIC);
+			output.writeLong(generation);
+		}
+
+		invalidate();
+		if (!mapSnapshot(generation))
+			throw new IOException("Cannot read " + file); //$NON-NLS-1$
+		deleteSnapshots(generation);
+	}
+
+	/**
+	 * Deletes the snapshots older than the specified generation. On platforms
+	 * where mapped files cannot be deleted, the deletion is retried later.
+	 *
+	 * @param generation
+	 *            the current generation
+	 */
+	private void deleteSnapshots(final long generation) {
+		final String[] names= fFolder.list();
+		if (names == null)
+			return;
+		final String current= getSnapshotFile(generation).getName();
+		for (int index= 0; index < names.length; index++) {
+			final String name= names[index];
+			if (name.startsWith(fPrefix) && !name.equals(current) && !name.endsWith(EXTENSION_LOG))
+				new File(fFolder, name).delete();
+		}
+	}
+
+	/**
+	 * Finds the first snapshot entry with a time stamp not less than the
+	 * specified one.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return the index of the entry, or the number of entries
+	 */
+	private int findFirst(final long stamp) {
+		int low= 0;
+		int high= fCount;
+		while (low < high) {
+			final int middle= (low + high) >>> 1;
+			if (fSnapshot.getLong(fEntries + middle * ENTRY_SIZE) < stamp)
+				low= middle + 1;
+			else
+				high= middle;
+		}
+		return low;
+	}
+
+	private String getString(final int position) {
+		final int length= fSnapshot.getInt(position);
+		final byte[] bytes= new byte[length];
+		for (int index= 0; index < length; index++)
+			bytes[index]= fSnapshot.get(position + 4 + index);
+		try {
+			return new String(bytes, IRefactoringSerializationConstants.OUTPUT_ENCODING);
+		} catch (IOException exception) {
+			// Does not happen for UTF-8
+			return new String(bytes);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -95,6 +95,9 @@ public final class RefactoringHistoryManager {
 	/** The index entry delimiter */
 	public static final char DELIMITER_ENTRY= '\n';
 
+	/** The empty proxy array */
+	private static final RefactoringDescriptorProxy[] NO_PROXIES= {};
+
 	/** The calendar instance */
 	private static final Calendar fgCalendar= Calendar.getInstance(TimeZone.getTimeZone("GMT+00:00")); //$NON-NLS-1$
 
@@ -237,6 +240,38 @@ public final class RefactoringHistoryManager {
 		}
 	}
 
+	/**
+	 * Reads refactoring descriptor proxies using the time stamp index of the
+	 * specified history store. If the index is not available, the history store
+	 * is read instead.
+	 *
+	 * @param store
+	 *            the history store to read
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readIndexedRefactoringDescriptorProxies(final IFileStore store, final String project, final Collection<RefactoringDescriptorProxy> collection, final long start, final long end, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 2);
+			final RefactoringHistoryIndex index= RefactoringHistoryIndex.getIndex(store);
+			if (index == null || !index.readRefactoringDescriptorProxies(project, collection, start, end, new SubProgressMonitor(monitor, 1)))
+				readRefactoringDescriptorProxies(store, project, collection, start, end, new SubProgressMonitor(monitor, 1), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+		} finally {
+			monitor.done();
+		}
+	}
+
 	/**
 	 * Reads refactoring descriptor proxies from the specified input stream.
 	 * <p>
@@ -768,9 +803,15 @@ public final class RefactoringHistoryManager {
 	/** The cached file store, or <code>null</code> */
 	private IFileStore fCachedStore= null;
 
+	/** The file store last read by streaming a single descriptor, or <code>null</code> */
+	private IFileStore fStreamedStore= null;
+
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
+	/** The time stamp index of the history store, or <code>null</code> */
+	private final RefactoringHistoryIndex fHistoryIndex;
+
 	/**
 	 * The non-empty name of the managed project, or <code>null</code> for the
 	 * workspace
@@ -790,6 +831,7 @@ public final class RefactoringHistoryManager {
 		Assert.isNotNull(store);
 		Assert.isTrue(name == null || !"".equals(name)); //$NON-NLS-1$
 		fHistoryStore= store;
+		fHistoryIndex= RefactoringHistoryIndex.getIndex(store);
 		fProjectName= name;
 	}
 
@@ -817,6 +859,8 @@ public final class RefactoringHistoryManager {
 				final IFileStore folder= fHistoryStore.getFileStore(path);
 				final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 				final IFileStore index= folder.getChild(RefactoringHistoryService.NAME_INDEX_FILE);
+				final String indexPath= path.append(RefactoringHistoryService.NAME_INDEX_FILE).toString();
+				final long fingerprint= RefactoringHistoryIndex.getFingerprint(indexPath, index);
 				final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[] { new DefaultRefactoringDescriptorProxy(descriptor.getDescription(), descriptor.getProject(), descriptor.getTimeStamp())};
 				if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 					InputStream input= null;
@@ -856,8 +900,11 @@ public final class RefactoringHistoryManager {
 								final Set<RefactoringDescriptorProxy> set= new HashSet<>(64);
 								readRefactoringDescriptorProxies(index, null, set, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 2), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 								writeIndexEntry(index, set.toArray(new RefactoringDescriptorProxy[set.size()]), EFS.NONE, new SubProgressMonitor(monitor, 3, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
-							} else
+								invalidateHistoryIndex();
+							} else {
 								writeIndexEntry(index, proxies, EFS.APPEND, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+								updateHistoryIndex(indexPath, index, fingerprint, proxies, NO_PROXIES);
+							}
 						}
 					} catch (ParserConfigurationException exception) {
 						throw createCoreException(exception);
@@ -879,6 +926,10 @@ public final class RefactoringHistoryManager {
 						final Document result= transformDescriptor(descriptor, false);
 						writeHistoryEntry(history, result, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							writeIndexEntry(index, proxies, EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+						if (fingerprint == 0)
+							updateHistoryIndex(indexPath, index, fingerprint, proxies, NO_PROXIES);
+						else
+							invalidateHistoryIndex(); // replaced an index without history
 					} catch (IOException exception) {
 						throw createCoreException(exception);
 					}
@@ -964,10 +1015,10 @@ public final class RefactoringHistoryManager {
 			final Set<RefactoringDescriptorProxy> set= new HashSet<>();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readIndexedRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80));
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readIndexedRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80));
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -1002,12 +1053,15 @@ public final class RefactoringHistoryManager {
 			monitor.beginTask(task, 5);
 			final IFileStore folder= fHistoryStore.getFileStore(path);
 			final IFileStore index= folder.getChild(RefactoringHistoryService.NAME_INDEX_FILE);
+			final String indexPath= path.append(RefactoringHistoryService.NAME_INDEX_FILE).toString();
+			final long fingerprint= RefactoringHistoryIndex.getFingerprint(indexPath, index);
 			if (index.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 				final Set<RefactoringDescriptorProxy> resultingProxies= new HashSet<>(64);
 				readRefactoringDescriptorProxies(index, null, resultingProxies, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 1), task);
-				if (resultingProxies.size() == proxies.length)
+				if (resultingProxies.size() == proxies.length) {
 					removeIndexTree(folder, new SubProgressMonitor(monitor, 1), task);
-				else {
+					updateHistoryIndex(indexPath, index, fingerprint, NO_PROXIES, proxies);
+				} else {
 					final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 					if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 						InputStream input= null;
@@ -1063,6 +1117,7 @@ public final class RefactoringHistoryManager {
 						} catch (IOException exception) {
 							throw createCoreException(exception);
 						}
+						updateHistoryIndex(indexPath, index, fingerprint, NO_PROXIES, proxies);
 					}
 				}
 			}
@@ -1134,6 +1189,11 @@ public final class RefactoringHistoryManager {
 					final IFileStore file= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 					if (file.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 						input= new BufferedInputStream(file.openInputStream(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
+						if (!file.equals(fCachedStore) && !file.equals(fStreamedStore)) {
+							// a single request only creates the requested descriptor, a second one caches the whole session
+							fStreamedStore= file;
+							return new RefactoringSessionReader(false, fProjectName).readDescriptor(input, stamp);
+						}
 						final RefactoringSessionDescriptor descriptor= getCachedSession(file, fProjectName, input);
 						if (descriptor != null) {
 							final RefactoringDescriptor[] descriptors= descriptor.getRefactorings();
@@ -1225,6 +1285,35 @@ public final class RefactoringHistoryManager {
 		}
 	}
 
+	/**
+	 * Invalidates the time stamp index after an update of the history store
+	 * which cannot be described by the added and removed refactoring
+	 * descriptors. The index is rebuilt the next time the history is read.
+	 */
+	private void invalidateHistoryIndex() {
+		if (fHistoryIndex != null)
+			fHistoryIndex.invalidate();
+	}
+
+	/**
+	 * Records an update of a history index file in the time stamp index.
+	 *
+	 * @param path
+	 *            the path of the index file relative to the history store
+	 * @param file
+	 *            the index file
+	 * @param fingerprint
+	 *            the fingerprint of the index file before the update
+	 * @param added
+	 *            the added refactoring descriptors
+	 * @param removed
+	 *            the removed refactoring descriptors
+	 */
+	private void updateHistoryIndex(final String path, final IFileStore file, final long fingerprint, final RefactoringDescriptorProxy[] added, final RefactoringDescriptorProxy[] removed) {
+		if (fHistoryIndex != null)
+			fHistoryIndex.update(fingerprint, RefactoringHistoryIndex.getFingerprint(path, file), added, removed);
+	}
+
 	/**
 	 * Writes the specified document node into the refactoring history.
 	 *
@@ -1251,6 +1340,7 @@ public final class RefactoringHistoryManager {
 					fCachedPath= null;
 					fCachedDescriptor= null;
 					fCachedStore= null;
+					fStreamedStore= null;
 				if (output != null) {
 					try {
 						output.close();
@@ -48,6 +48,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
@@ -269,6 +270,8 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 						}
 					}
 				} finally {
+					RefactoringHistoryIndex.markStale(history.getChild(name));
+					RefactoringHistoryIndex.markStale(EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER));
 					if (enable)
 						project.refreshLocal(IResource.DEPTH_INFINITE, new SubProgressMonitor(monitor, 30));
 					else {
@@ -867,6 +870,8 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 				if (newStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 10, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
 					newStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 				oldStore.move(newStore, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				RefactoringHistoryIndex.markStale(oldStore);
+				RefactoringHistoryIndex.markStale(newStore);
 			}
 		} catch (CoreException exception) {
 			RefactoringCorePlugin.log(exception);
@@ -881,6 +886,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			final IResourceDelta delta= event.getDelta();
 			if (delta != null) {
 				final IResourceDelta[] deltas= delta.getAffectedChildren();
+				markHistoryIndexesStale(deltas);
 				if (deltas.length == 2) {
 					final IPath toPath= deltas[0].getMovedToPath();
 					final IPath fromPath= deltas[1].getMovedFromPath();
@@ -902,6 +908,29 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		}
 	}
 
+	/**
+	 * Marks the time stamp indexes of the shared refactoring histories which
+	 * have been changed in the workspace as stale, e.g. by an update from the
+	 * repository.
+	 *
+	 * @param deltas
+	 *            the project deltas
+	 */
+	private static void markHistoryIndexesStale(final IResourceDelta[] deltas) {
+		for (int index= 0; index < deltas.length; index++) {
+			if (deltas[index].findMember(new Path(NAME_HISTORY_FOLDER)) == null)
+				continue;
+			final URI uri= deltas[index].getResource().getLocationURI();
+			if (uri != null) {
+				try {
+					RefactoringHistoryIndex.markStale(EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER));
+				} catch (CoreException exception) {
+					RefactoringCorePlugin.log(exception);
+				}
+			}
+		}
+	}
+
 	private RefactoringDescriptor getRefactoringDescriptor(IUndoableOperation operation) {
 		if (operation instanceof TriggeredOperations) {
 			operation= ((TriggeredOperations) operation).getTriggeringOperation();